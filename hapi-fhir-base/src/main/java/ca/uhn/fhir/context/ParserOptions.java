@@ -48,6 +48,7 @@ public class ParserOptions {
 	private boolean myAutoContainReferenceTargetsWithNoId = true;
 	private Set<String> myEncodeElementsForSummaryMode = null;
 	private Set<String> myDontEncodeElementsForSummaryMode = null;
+	private boolean myUseStreamingJsonParser = false;
 
 	/**
 	 * If set to {@literal true} (which is the default), contained resources may be specified by
@@ -337,4 +338,33 @@ public class ParserOptions {
 	public Set<String> getDontEncodeElementsForSummaryMode() {
 		return myDontEncodeElementsForSummaryMode;
 	}
+
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>), the JSON parser will build the
+	 * resource model directly from the Jackson token stream instead of first reading the entire
+	 * document into a tree. This substantially reduces the memory required to parse large
+	 * payloads (e.g. large transaction Bundles), since no intermediate copy of the document is
+	 * held while the model is being populated.
+	 *
+	 * @since 8.12.0
+	 */
+	public boolean isUseStreamingJsonParser() {
+		return myUseStreamingJsonParser;
+	}
+
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>), the JSON parser will build the
+	 * resource model directly from the Jackson token stream instead of first reading the entire
+	 * document into a tree. This substantially reduces the memory required to parse large
+	 * payloads (e.g. large transaction Bundles), since no intermediate copy of the document is
+	 * held while the model is being populated.
+	 *
+	 * @param theUseStreamingJsonParser Should the streaming JSON parser be used
+	 * @return Returns a reference to <code>this</code> parser so that method calls can be chained together
+	 * @since 8.12.0
+	 */
+	public ParserOptions setUseStreamingJsonParser(boolean theUseStreamingJsonParser) {
+		myUseStreamingJsonParser = theUseStreamingJsonParser;
+		return this;
+	}
 }
@@ -46,14 +46,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
@@ -82,6 +87,12 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	private final Object myRegistryMutex = new Object();
 	private final Class<POINTCUT> myPointcutType;
 	private volatile EnumSet<POINTCUT> myRegisteredPointcuts;
+	/**
+	 * Sorted invokers for each pointcut. This map and its lists are never modified, they
+	 * are replaced whenever the registry changes so that calling hooks doesn't need to lock.
+	 */
+	private volatile Map<POINTCUT, List<IInvoker>> myInvokersByPointcut;
+
 	private boolean myWarnOnInterceptorWithNoHooks = true;
 
 	/**
@@ -101,7 +112,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	public BaseInterceptorService(Class<POINTCUT> thePointcutType, String theName) {
 		super();
 		myPointcutType = thePointcutType;
-		rebuildRegisteredPointcutSet();
+		rebuildRegisteredPointcutsAndInvokers();
 	}
 
 	/**
@@ -133,7 +144,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 				myInterceptors.add(theInterceptor);
 			}
 
-			rebuildRegisteredPointcutSet();
+			rebuildRegisteredPointcutsAndInvokers();
 		}
 	}
 
@@ -194,7 +205,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 				}
 			}
 
-			rebuildRegisteredPointcutSet();
+			rebuildRegisteredPointcutsAndInvokers();
 		}
 	}
 
@@ -219,16 +230,29 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			myInterceptors.add(theInterceptor);
 			sortByOrderAnnotation(myInterceptors);
 
-			rebuildRegisteredPointcutSet();
+			rebuildRegisteredPointcutsAndInvokers();
 
 			return true;
 		}
 	}
 
-	private void rebuildRegisteredPointcutSet() {
+	/**
+	 * Must be called after any change to the registered invokers
+	 */
+	private void rebuildRegisteredPointcutsAndInvokers() {
 		EnumSet<POINTCUT> registeredPointcuts = EnumSet.noneOf(myPointcutType);
 		registeredPointcuts.addAll(myAnonymousInvokers.keySet());
 		registeredPointcuts.addAll(myGlobalInvokers.keySet());
+
+		Map<POINTCUT, List<IInvoker>> invokersByPointcut = new EnumMap<>(myPointcutType);
+		for (POINTCUT nextPointcut : registeredPointcuts) {
+			List<IInvoker> globalInvokers = myGlobalInvokers.get(nextPointcut);
+			List<IInvoker> anonymousInvokers = myAnonymousInvokers.get(nextPointcut);
+			List<IInvoker> invokers = union(Arrays.asList(globalInvokers, anonymousInvokers));
+			invokersByPointcut.put(nextPointcut, List.copyOf(invokers));
+		}
+
+		myInvokersByPointcut = invokersByPointcut;
 		myRegisteredPointcuts = registeredPointcuts;
 	}
 
@@ -247,7 +271,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			boolean removed = myInterceptors.removeIf(t -> t == theInterceptor);
 			removed |= myGlobalInvokers.entries().removeIf(t -> t.getValue().getInterceptor() == theInterceptor);
 			removed |= myAnonymousInvokers.entries().removeIf(t -> t.getValue().getInterceptor() == theInterceptor);
-			rebuildRegisteredPointcutSet();
+			rebuildRegisteredPointcutsAndInvokers();
 			return removed;
 		}
 	}
@@ -311,19 +335,13 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	 * is ordered by the invoker order (specified on the {@link Interceptor#order()}
 	 * and {@link Hook#order()} values.
 	 *
-	 * @return The list returned by this method will always be a newly created list, so it will be stable and can be modified.
+	 * @return The list returned by this method is an immutable snapshot, so it will be stable even if
+	 * 	interceptors are registered or unregistered while it is in use. It can not be modified.
 	 */
 	@Override
 	public List<IInvoker> getInvokersForPointcut(POINTCUT thePointcut) {
-		List<IInvoker> invokers;
-
-		synchronized (myRegistryMutex) {
-			List<IInvoker> globalInvokers = myGlobalInvokers.get(thePointcut);
-			List<IInvoker> anonymousInvokers = myAnonymousInvokers.get(thePointcut);
-			invokers = union(Arrays.asList(globalInvokers, anonymousInvokers));
-		}
-
-		return invokers;
+		List<IInvoker> invokers = myInvokersByPointcut.get(thePointcut);
+		return invokers != null ? invokers : Collections.emptyList();
 	}
 
 	/**
@@ -424,14 +442,15 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	public static Object callInvokers(IPointcut thePointcut, HookParams theParams, List<IInvoker> invokers) {
 
 		Object retVal = null;
+		Class<?> pointcutReturnType = thePointcut.getReturnType();
+		boolean booleanReturnType = pointcutReturnType.equals(thePointcut.getBooleanReturnTypeForEnum());
 
 		/*
 		 * Call each hook in order
 		 */
 		for (IInvoker nextInvoker : invokers) {
 			Object nextOutcome = nextInvoker.invoke(theParams);
-			Class<?> pointcutReturnType = thePointcut.getReturnType();
-			if (pointcutReturnType.equals(thePointcut.getBooleanReturnTypeForEnum())) {
+			if (booleanReturnType) {
 				Boolean nextOutcomeAsBoolean = (Boolean) nextOutcome;
 				if (Boolean.FALSE.equals(nextOutcomeAsBoolean)) {
 					ourLog.trace("callHooks({}) for invoker({}) returned false", thePointcut, nextInvoker);
@@ -526,6 +545,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	private class HookInvoker extends BaseInvoker {
 
 		private final Method myMethod;
+		private final MethodHandle myMethodHandle;
 		private final Class<?>[] myParameterTypes;
 		private final int[] myParameterIndexes;
 		private final POINTCUT myPointcut;
@@ -565,6 +585,30 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			}
 
 			myMethod.setAccessible(true);
+			myMethodHandle = createMethodHandle(theInterceptor, theHookMethod);
+		}
+
+		/**
+		 * Creates a method handle which is bound to the interceptor instance and accepts
+		 * the hook arguments as an array, so that calling the hook doesn't go through
+		 * reflection. Returns <code>null</code> if no handle can be created, in which case
+		 * the method is invoked reflectively.
+		 */
+		@Nullable
+		private static MethodHandle createMethodHandle(Object theInterceptor, Method theHookMethod) {
+			if (Modifier.isStatic(theHookMethod.getModifiers())) {
+				return null;
+			}
+			try {
+				return MethodHandles.lookup()
+						.unreflect(theHookMethod)
+						.bindTo(theInterceptor)
+						.asSpreader(Object[].class, theHookMethod.getParameterCount())
+						.asType(MethodType.methodType(Object.class, Object[].class));
+			} catch (IllegalAccessException | RuntimeException e) {
+				ourLog.debug("Unable to create a method handle for {}, it will be invoked reflectively", theHookMethod);
+				return null;
+			}
 		}
 
 		@Override
@@ -641,6 +685,14 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 					myMethod.getDeclaringClass().getName());
 			currentSpan.setAttribute(OTEL_INTERCEPTOR_METHOD_NAME_ATT_KEY, myMethod.getName());
 
+			if (myMethodHandle != null) {
+				try {
+					return (Object) myMethodHandle.invokeExact(args);
+				} catch (Throwable t) {
+					// Wrap so that failures are handled exactly like those of a reflective call
+					throw new InvocationTargetException(t);
+				}
+			}
 			return myMethod.invoke(getInterceptor(), args);
 		}
 	}
@@ -239,6 +239,11 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 
 	@Override
 	protected void doParseIntoComplexStructure(Reader theSource, IBase theTarget) {
+		if (getContext().getParserOptions().isUseStreamingJsonParser()) {
+			new JsonStreamingParser(this).parseIntoComplexStructure(theSource, theTarget);
+			return;
+		}
+
 		JsonLikeStructure jsonStructure = new JacksonStructure();
 		jsonStructure.load(theSource);
 
@@ -253,6 +258,10 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 
 	@Override
 	public <T extends IBaseResource> T doParseResource(Class<T> theResourceType, Reader theReader) {
+		if (getContext().getParserOptions().isUseStreamingJsonParser()) {
+			return new JsonStreamingParser(this).parseResource(theResourceType, theReader);
+		}
+
 		JsonLikeStructure jsonStructure = new JacksonStructure();
 		jsonStructure.load(theReader);
 
@@ -824,7 +833,7 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 		}
 	}
 
-	private boolean isSupportsFhirComment() {
+	boolean isSupportsFhirComment() {
 		if (myIsSupportsFhirComment == null) {
 			myIsSupportsFhirComment = !getContext().getVersion().getVersion().isNewerThan(FhirVersionEnum.DSTU2_1);
 		}
@@ -0,0 +1,775 @@
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.parser.json.BaseJsonLikeValue.ScalarType;
+import ca.uhn.fhir.parser.json.BaseJsonLikeValue.ValueType;
+import ca.uhn.fhir.parser.json.jackson.JacksonStructure;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Populates a {@link ParserState} directly from a Jackson token stream instead of first reading the
+ * whole document into a tree. This is used by {@link JsonParser} when
+ * {@link ca.uhn.fhir.context.ParserOptions#isUseStreamingJsonParser()} is enabled.
+ * <p>
+ * FHIR JSON carries the id and extensions of a primitive in an underscore-prefixed sibling property
+ * (e.g. <code>birthDate</code> and <code>_birthDate</code>), and these siblings may appear in either
+ * order. Primitive values are therefore held until their sibling arrives or the enclosing object
+ * ends. Any property which arrives ahead of the property it depends on (an underscore sibling ahead
+ * of its value, or anything ahead of <code>resourceType</code> or an extension <code>url</code>) is
+ * copied into a small token buffer and replayed once it can be handled. For conventionally ordered
+ * content nothing is buffered.
+ * </p>
+ * <p>
+ * Instances are not thread safe and should be used for a single parse.
+ * </p>
+ */
+class JsonStreamingParser {
+
+	private final JsonParser myParser;
+	private final IParserErrorHandler myErrorHandler;
+	private final List<ObjectFrame> myFrames = new ArrayList<>();
+	private int myDepth;
+
+	JsonStreamingParser(JsonParser theParser) {
+		myParser = theParser;
+		myErrorHandler = theParser.getErrorHandler();
+	}
+
+	<T extends IBaseResource> T parseResource(Class<T> theResourceType, Reader theReader) {
+		com.fasterxml.jackson.core.JsonParser tokens = JacksonStructure.createStreamingParser(theReader);
+		try {
+			expectRootObject(tokens);
+
+			List<BufferedProperty> leadingProperties = bufferUntilProperty(tokens, "resourceType");
+			if (tokens.currentToken() != JsonToken.VALUE_STRING || isBlank(tokens.getText())) {
+				throw new DataFormatException(
+						Msg.code(2996) + "Invalid JSON content detected, missing required element: 'resourceType'");
+			}
+			String resourceType = tokens.getText();
+
+			ParserState<? extends IBaseResource> state = ParserState.getPreResourceInstance(
+					myParser, theResourceType, myParser.getContext(), true, myErrorHandler);
+			state.enteringNewElement(null, resourceType);
+
+			parseObjectBody(tokens, state, leadingProperties, false, false);
+
+			state.endingElement();
+			state.endingElement();
+
+			expectEndOfContent(tokens);
+
+			@SuppressWarnings("unchecked")
+			T retVal = (T) state.getObject();
+			return retVal;
+		} catch (IOException e) {
+			throw JacksonStructure.createParseException(e);
+		} finally {
+			closeQuietly(tokens);
+		}
+	}
+
+	void parseIntoComplexStructure(Reader theReader, IBase theTarget) {
+		com.fasterxml.jackson.core.JsonParser tokens = JacksonStructure.createStreamingParser(theReader);
+		try {
+			expectRootObject(tokens);
+
+			ParserState<IBase> state = ParserState.getComplexObjectState(
+					myParser, myParser.getContext(), myParser.getContext(), true, theTarget, myErrorHandler);
+			state.enteringNewElement(null, null);
+
+			parseObjectBody(tokens, state, Collections.emptyList(), false, false);
+
+			state.endingElement();
+
+			expectEndOfContent(tokens);
+		} catch (IOException e) {
+			throw JacksonStructure.createParseException(e);
+		} finally {
+			closeQuietly(tokens);
+		}
+	}
+
+	/**
+	 * Handles the properties of an object whose start token has already been consumed. On return the
+	 * stream is positioned on the end token of the object.
+	 *
+	 * @param theLeadingProperties Properties of this object which were buffered while looking ahead
+	 * @param theObjectEnded       Did the lookahead already consume the end of the object
+	 * @param theExtension         Is this object the body of an extension
+	 */
+	private void parseObjectBody(
+			com.fasterxml.jackson.core.JsonParser theTokens,
+			ParserState<?> theState,
+			List<BufferedProperty> theLeadingProperties,
+			boolean theObjectEnded,
+			boolean theExtension)
+			throws IOException {
+		ObjectFrame frame = enterFrame();
+		try {
+			for (BufferedProperty next : theLeadingProperties) {
+				parseProperty(next.getName(), next.newParser(), theState, frame, theExtension);
+			}
+
+			if (!theObjectEnded) {
+				while (theTokens.nextToken() == JsonToken.FIELD_NAME) {
+					String name = theTokens.currentName();
+					theTokens.nextToken();
+					parseProperty(name, theTokens, theState, frame, theExtension);
+				}
+			}
+
+			/*
+			 * Anything still pending is either a primitive with no underscore sibling, or an
+			 * underscore sibling with no value (i.e. a primitive carrying only an extension).
+			 */
+			for (PendingPrimitive next : frame.myPrimitives) {
+				emitPrimitive(theState, next, null);
+			}
+			for (BufferedProperty next : frame.myAlternates) {
+				String alternateName = '_' + next.getName();
+				com.fasterxml.jackson.core.JsonParser alternate = next.newParser();
+				if (alternate.currentToken() == JsonToken.START_OBJECT) {
+					theState.enteringNewElement(null, next.getName());
+					parseAlternate(alternate, theState, alternateName);
+					theState.endingElement();
+				} else {
+					myErrorHandler.incorrectJsonType(
+							null, alternateName, ValueType.OBJECT, null, toValueType(alternate.currentToken()), null);
+				}
+			}
+		} finally {
+			exitFrame();
+		}
+	}
+
+	private void parseProperty(
+			String theName,
+			com.fasterxml.jackson.core.JsonParser theTokens,
+			ParserState<?> theState,
+			ObjectFrame theFrame,
+			boolean theExtension)
+			throws IOException {
+		if (theExtension) {
+			if ("url".equals(theName)) {
+				theTokens.skipChildren();
+				return;
+			}
+		} else {
+			if ("resourceType".equals(theName) && theState.isToplevelResourceElement()) {
+				theTokens.skipChildren();
+				return;
+			}
+			if ("fhir_comments".equals(theName)) {
+				parseFhirComments(theTokens, theState);
+				return;
+			}
+		}
+
+		if ("extension".equals(theName) || "modifierExtension".equals(theName)) {
+			boolean isModifier = theName.charAt(0) == 'm';
+			JsonToken token = theTokens.currentToken();
+			if (token == JsonToken.START_ARRAY) {
+				parseExtensions(theTokens, theState, isModifier);
+			} else if (theExtension || token == JsonToken.VALUE_NULL) {
+				theTokens.skipChildren();
+				reportMissingExtensionUrl(isModifier);
+			} else {
+				throw new DataFormatException(
+						Msg.code(2998) + "Syntax error parsing JSON FHIR structure: Expected ARRAY at element '"
+								+ theName + "', found '" + toValueType(token) + "'");
+			}
+			return;
+		}
+
+		if (!theName.isEmpty() && theName.charAt(0) == '_') {
+			String primaryName = theName.substring(1);
+			PendingPrimitive pending = theFrame.removePrimitive(primaryName);
+			if (pending != null) {
+				emitPrimitive(theState, pending, theTokens);
+			} else if (primaryName.isEmpty() || theFrame.isSeen(primaryName)) {
+				theTokens.skipChildren();
+			} else {
+				theFrame.myAlternates.add(new BufferedProperty(primaryName, copyValue(theTokens)));
+			}
+			return;
+		}
+
+		theFrame.mySeenNames.add(theName);
+		JsonToken token = theTokens.currentToken();
+		if ("id".equals(theName) && token != JsonToken.VALUE_STRING) {
+			reportIncorrectIdType(token);
+		}
+
+		if (token == JsonToken.START_OBJECT) {
+			parseObjectValue(theName, theTokens, theState, theFrame.takeAlternate(theName), false);
+		} else if (token == JsonToken.START_ARRAY) {
+			parseArray(theName, theTokens, theState, theFrame);
+		} else {
+			PendingPrimitive pending = new PendingPrimitive(theName, toScalarString(theTokens));
+			com.fasterxml.jackson.core.JsonParser alternate = theFrame.takeAlternate(theName);
+			if (alternate != null) {
+				emitPrimitive(theState, pending, alternate);
+			} else {
+				theFrame.myPrimitives.add(pending);
+			}
+		}
+	}
+
+	private void parseArray(
+			String theName,
+			com.fasterxml.jackson.core.JsonParser theTokens,
+			ParserState<?> theState,
+			ObjectFrame theFrame)
+			throws IOException {
+		com.fasterxml.jackson.core.JsonParser alternate = theFrame.takeAlternate(theName);
+		ArrayCursor alternates = null;
+		if (alternate != null) {
+			alternates = toAlternateArray(alternate, '_' + theName);
+		}
+
+		List<String> values = parseArrayElements(theName, theTokens, theState, alternates);
+		if (values == null) {
+			drain(alternates);
+			return;
+		}
+
+		PendingPrimitive pending = new PendingPrimitive(theName, values);
+		if (alternate != null) {
+			emitPrimitiveValues(theState, pending, alternates);
+			drain(alternates);
+		} else {
+			theFrame.myPrimitives.add(pending);
+		}
+	}
+
+	/**
+	 * Walks the elements of an array. Objects are handled as they are encountered, while primitive
+	 * values are collected and returned (or <code>null</code> if there were none) so that the caller
+	 * can pair them with their underscore sibling.
+	 */
+	private List<String> parseArrayElements(
+			String theName,
+			com.fasterxml.jackson.core.JsonParser theTokens,
+			ParserState<?> theState,
+			ArrayCursor theAlternates)
+			throws IOException {
+		boolean isId = "id".equals(theName);
+		List<String> values = null;
+		JsonToken token;
+		while ((token = theTokens.nextToken()) != JsonToken.END_ARRAY) {
+			if (isId && token != JsonToken.VALUE_STRING) {
+				reportIncorrectIdType(token);
+			}
+
+			if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+				// Keep document order if primitives and objects are (unusually) mixed in one array
+				if (values != null) {
+					emitPrimitiveValues(theState, new PendingPrimitive(theName, values), theAlternates);
+					values = null;
+				}
+				com.fasterxml.jackson.core.JsonParser alternate = next(theAlternates);
+				if (token == JsonToken.START_OBJECT) {
+					parseObjectValue(theName, theTokens, theState, alternate, true);
+				} else {
+					ArrayCursor nestedAlternates = null;
+					if (alternate != null) {
+						nestedAlternates = toAlternateArray(alternate, '_' + theName);
+					}
+					List<String> nestedValues = parseArrayElements(theName, theTokens, theState, nestedAlternates);
+					if (nestedValues != null) {
+						emitPrimitiveValues(theState, new PendingPrimitive(theName, nestedValues), nestedAlternates);
+					}
+					drain(nestedAlternates);
+				}
+			} else {
+				if (values == null) {
+					values = new ArrayList<>();
+				}
+				values.add(toScalarString(theTokens));
+			}
+		}
+		return values;
+	}
+
+	private void parseObjectValue(
+			String theName,
+			com.fasterxml.jackson.core.JsonParser theTokens,
+			ParserState<?> theState,
+			com.fasterxml.jackson.core.JsonParser theAlternate,
+			boolean theInArray)
+			throws IOException {
+		if (!theInArray && theState.elementIsRepeating(theName)) {
+			myErrorHandler.incorrectJsonType(null, theName, ValueType.ARRAY, null, ValueType.OBJECT, null);
+		}
+
+		theState.enteringNewElement(null, theName);
+		if (theAlternate != null) {
+			parseAlternate(theAlternate, theState, '_' + theName);
+		}
+
+		if (theState.isPreResource()) {
+			List<BufferedProperty> leadingProperties = bufferUntilProperty(theTokens, "resourceType");
+			if (theTokens.currentToken() != JsonToken.VALUE_STRING) {
+				throw new DataFormatException(Msg.code(2997)
+						+ "Missing required element 'resourceType' from JSON resource object, unable to parse");
+			}
+			theState.enteringNewElement(null, theTokens.getText());
+			parseObjectBody(theTokens, theState, leadingProperties, false, false);
+			theState.endingElement();
+		} else {
+			parseObjectBody(theTokens, theState, Collections.emptyList(), false, false);
+		}
+
+		theState.endingElement();
+	}
+
+	private void parseExtensions(
+			com.fasterxml.jackson.core.JsonParser theTokens, ParserState<?> theState, boolean theIsModifier)
+			throws IOException {
+		JsonToken token;
+		while ((token = theTokens.nextToken()) != JsonToken.END_ARRAY) {
+			if (token != JsonToken.START_OBJECT) {
+				myErrorHandler.incorrectJsonType(
+						null,
+						getExtensionElementName(theIsModifier),
+						ValueType.OBJECT,
+						null,
+						toValueType(token),
+						toScalarType(token));
+				theTokens.skipChildren();
+				continue;
+			}
+
+			List<BufferedProperty> leadingProperties = bufferUntilProperty(theTokens, "url");
+			boolean objectEnded = theTokens.currentToken() == JsonToken.END_OBJECT;
+			String url = null;
+			if (!objectEnded && toValueType(theTokens.currentToken()) == ValueType.SCALAR) {
+				url = myParser.getExtensionUrl(toScalarString(theTokens));
+			} else {
+				if (!objectEnded) {
+					theTokens.skipChildren();
+				}
+				reportMissingExtensionUrl(theIsModifier);
+			}
+
+			theState.enteringNewElementExtension(null, url, theIsModifier, myParser.getServerBaseUrl());
+			parseObjectBody(theTokens, theState, leadingProperties, objectEnded, true);
+			theState.endingElement();
+		}
+	}
+
+	/**
+	 * Applies an underscore-prefixed sibling (which may only contain an id, extensions and comments)
+	 * to the element currently being populated.
+	 */
+	private void parseAlternate(
+			com.fasterxml.jackson.core.JsonParser theTokens, ParserState<?> theState, String theAlternateName)
+			throws IOException {
+		JsonToken token = theTokens.currentToken();
+		if (token == JsonToken.VALUE_NULL) {
+			return;
+		}
+
+		if (token == JsonToken.START_ARRAY) {
+			if (theTokens.nextToken() == JsonToken.END_ARRAY) {
+				return;
+			}
+			parseAlternate(theTokens, theState, theAlternateName);
+			int size = 1;
+			while (theTokens.nextToken() != JsonToken.END_ARRAY) {
+				theTokens.skipChildren();
+				size++;
+			}
+			if (size > 1) {
+				throw new DataFormatException(Msg.code(2999) + "Unexpected array of length " + size
+						+ " (expected 0 or 1) for element: " + theAlternateName);
+			}
+			return;
+		}
+
+		if (token != JsonToken.START_OBJECT) {
+			myErrorHandler.incorrectJsonType(null, theAlternateName, ValueType.OBJECT, null, toValueType(token), null);
+			return;
+		}
+
+		while (theTokens.nextToken() == JsonToken.FIELD_NAME) {
+			String name = theTokens.currentName();
+			JsonToken valueToken = theTokens.nextToken();
+			if ("extension".equals(name) || "modifierExtension".equals(name)) {
+				boolean isModifier = name.charAt(0) == 'm';
+				if (valueToken == JsonToken.START_ARRAY) {
+					parseExtensions(theTokens, theState, isModifier);
+				} else {
+					theTokens.skipChildren();
+					reportMissingExtensionUrl(isModifier);
+				}
+			} else if ("id".equals(name)) {
+				if (valueToken == JsonToken.VALUE_STRING) {
+					theState.attributeValue("id", theTokens.getText());
+				} else {
+					reportIncorrectIdType(valueToken);
+					theTokens.skipChildren();
+				}
+			} else if ("fhir_comments".equals(name)) {
+				parseFhirComments(theTokens, theState);
+			} else {
+				theTokens.skipChildren();
+			}
+		}
+	}
+
+	private void parseFhirComments(com.fasterxml.jackson.core.JsonParser theTokens, ParserState<?> theState)
+			throws IOException {
+		if (!myParser.isSupportsFhirComment() || theTokens.currentToken() != JsonToken.START_ARRAY) {
+			theTokens.skipChildren();
+			return;
+		}
+		JsonToken token;
+		while ((token = theTokens.nextToken()) != JsonToken.END_ARRAY) {
+			if (token == JsonToken.VALUE_STRING) {
+				theState.commentPre(theTokens.getText());
+			} else {
+				theTokens.skipChildren();
+			}
+		}
+	}
+
+	/**
+	 * Creates the element(s) for a primitive property.
+	 *
+	 * @param theAlternate The underscore-prefixed sibling, positioned on its value, or <code>null</code>
+	 */
+	private void emitPrimitive(
+			ParserState<?> theState, PendingPrimitive thePrimitive, com.fasterxml.jackson.core.JsonParser theAlternate)
+			throws IOException {
+		if (thePrimitive.myValues == null) {
+			emitPrimitiveValue(theState, thePrimitive.myName, thePrimitive.myValue, theAlternate);
+			return;
+		}
+
+		ArrayCursor alternates = null;
+		if (theAlternate != null) {
+			alternates = toAlternateArray(theAlternate, '_' + thePrimitive.myName);
+		}
+		emitPrimitiveValues(theState, thePrimitive, alternates);
+		drain(alternates);
+	}
+
+	private void emitPrimitiveValues(ParserState<?> theState, PendingPrimitive thePrimitive, ArrayCursor theAlternates)
+			throws IOException {
+		for (String next : thePrimitive.myValues) {
+			emitPrimitiveValue(theState, thePrimitive.myName, next, next(theAlternates));
+		}
+	}
+
+	private void emitPrimitiveValue(
+			ParserState<?> theState,
+			String theName,
+			String theValue,
+			com.fasterxml.jackson.core.JsonParser theAlternate)
+			throws IOException {
+		theState.enteringNewElement(null, theName);
+		if (theValue != null) {
+			theState.attributeValue("value", theValue);
+		}
+		if (theAlternate != null) {
+			parseAlternate(theAlternate, theState, '_' + theName);
+		}
+		theState.endingElement();
+	}
+
+	/**
+	 * Returns a cursor over the underscore sibling of a repeating primitive, or <code>null</code>
+	 * (after reporting and skipping it) if the sibling is not an array.
+	 */
+	private ArrayCursor toAlternateArray(com.fasterxml.jackson.core.JsonParser theAlternate, String theAlternateName)
+			throws IOException {
+		JsonToken token = theAlternate.currentToken();
+		if (token == JsonToken.START_ARRAY) {
+			return new ArrayCursor(theAlternate);
+		}
+		myErrorHandler.incorrectJsonType(null, theAlternateName, ValueType.ARRAY, null, toValueType(token), null);
+		theAlternate.skipChildren();
+		return null;
+	}
+
+	private ObjectFrame enterFrame() {
+		if (myDepth == myFrames.size()) {
+			myFrames.add(new ObjectFrame());
+		}
+		return myFrames.get(myDepth++);
+	}
+
+	private void exitFrame() {
+		myFrames.get(--myDepth).clear();
+	}
+
+	private void reportIncorrectIdType(JsonToken theToken) {
+		myErrorHandler.incorrectJsonType(
+				null, "id", ValueType.SCALAR, ScalarType.STRING, toValueType(theToken), toScalarType(theToken));
+	}
+
+	private void reportMissingExtensionUrl(boolean theIsModifier) {
+		myErrorHandler.missingRequiredElement(
+				new ParseLocation().setParentElementName(getExtensionElementName(theIsModifier)), "url");
+	}
+
+	private static String getExtensionElementName(boolean theIsModifier) {
+		return theIsModifier ? "modifierExtension" : "extension";
+	}
+
+	/**
+	 * Advances through the properties of the current object until the given property is found, buffering
+	 * any properties that precede it. If the property is found, the stream is left positioned on its value,
+	 * otherwise it is left positioned on the end of the object.
+	 */
+	private static List<BufferedProperty> bufferUntilProperty(
+			com.fasterxml.jackson.core.JsonParser theTokens, String thePropertyName) throws IOException {
+		List<BufferedProperty> retVal = Collections.emptyList();
+		while (theTokens.nextToken() == JsonToken.FIELD_NAME) {
+			String name = theTokens.currentName();
+			theTokens.nextToken();
+			if (thePropertyName.equals(name)) {
+				break;
+			}
+			if (retVal.isEmpty()) {
+				retVal = new ArrayList<>();
+			}
+			retVal.add(new BufferedProperty(name, copyValue(theTokens)));
+		}
+		return retVal;
+	}
+
+	private static TokenBuffer copyValue(com.fasterxml.jackson.core.JsonParser theTokens) throws IOException {
+		TokenBuffer retVal = new TokenBuffer(theTokens);
+		retVal.forceUseOfBigDecimal(true);
+		retVal.copyCurrentStructure(theTokens);
+		return retVal;
+	}
+
+	private static com.fasterxml.jackson.core.JsonParser next(ArrayCursor theCursor) throws IOException {
+		return theCursor != null ? theCursor.next() : null;
+	}
+
+	private static void drain(ArrayCursor theCursor) throws IOException {
+		if (theCursor != null) {
+			theCursor.drain();
+		}
+	}
+
+	private static void expectRootObject(com.fasterxml.jackson.core.JsonParser theTokens) throws IOException {
+		if (theTokens.nextToken() != JsonToken.START_OBJECT) {
+			throw new DataFormatException(
+					Msg.code(2995) + "Content must be a valid JSON Object. It must start with '{'.");
+		}
+	}
+
+	private static void expectEndOfContent(com.fasterxml.jackson.core.JsonParser theTokens) throws IOException {
+		JsonToken trailing = theTokens.nextToken();
+		if (trailing != null) {
+			throw new DataFormatException(
+					Msg.code(3000) + "Failed to parse JSON encoded FHIR content: Trailing token (of type " + trailing
+							+ ") found after the root object");
+		}
+	}
+
+	private static void closeQuietly(com.fasterxml.jackson.core.JsonParser theTokens) {
+		try {
+			theTokens.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	/**
+	 * Converts a scalar token to the string form used by the tree-based parser, or <code>null</code>
+	 * for a JSON <code>null</code>.
+	 */
+	private static String toScalarString(com.fasterxml.jackson.core.JsonParser theTokens) throws IOException {
+		switch (theTokens.currentToken()) {
+			case VALUE_NULL:
+				return null;
+			case VALUE_NUMBER_INT:
+				return theTokens.getNumberValue().toString();
+			case VALUE_NUMBER_FLOAT:
+				return theTokens.getDecimalValue().toPlainString();
+			default:
+				return theTokens.getText();
+		}
+	}
+
+	private static ValueType toValueType(JsonToken theToken) {
+		if (theToken == null) {
+			return ValueType.NULL;
+		}
+		switch (theToken) {
+			case START_OBJECT:
+				return ValueType.OBJECT;
+			case START_ARRAY:
+				return ValueType.ARRAY;
+			case VALUE_NULL:
+				return ValueType.NULL;
+			default:
+				return ValueType.SCALAR;
+		}
+	}
+
+	private static ScalarType toScalarType(JsonToken theToken) {
+		if (theToken == null) {
+			return null;
+		}
+		switch (theToken) {
+			case VALUE_STRING:
+				return ScalarType.STRING;
+			case VALUE_NUMBER_INT:
+			case VALUE_NUMBER_FLOAT:
+				return ScalarType.NUMBER;
+			case VALUE_TRUE:
+			case VALUE_FALSE:
+				return ScalarType.BOOLEAN;
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * State for one object being parsed. Frames are reused by nesting depth so that walking a
+	 * document does not allocate per object.
+	 */
+	private static class ObjectFrame {
+		private final List<String> mySeenNames = new ArrayList<>();
+		private final List<PendingPrimitive> myPrimitives = new ArrayList<>();
+		/**
+		 * Underscore siblings which arrived before their value, keyed by the name of the value
+		 */
+		private final List<BufferedProperty> myAlternates = new ArrayList<>();
+
+		boolean isSeen(String theName) {
+			return mySeenNames.contains(theName);
+		}
+
+		PendingPrimitive removePrimitive(String theName) {
+			for (int i = 0; i < myPrimitives.size(); i++) {
+				if (myPrimitives.get(i).myName.equals(theName)) {
+					return myPrimitives.remove(i);
+				}
+			}
+			return null;
+		}
+
+		com.fasterxml.jackson.core.JsonParser takeAlternate(String theName) throws IOException {
+			for (int i = 0; i < myAlternates.size(); i++) {
+				if (myAlternates.get(i).getName().equals(theName)) {
+					return myAlternates.remove(i).newParser();
+				}
+			}
+			return null;
+		}
+
+		void clear() {
+			mySeenNames.clear();
+			myPrimitives.clear();
+			myAlternates.clear();
+		}
+	}
+
+	private static class PendingPrimitive {
+		private final String myName;
+		private final String myValue;
+		private final List<String> myValues;
+
+		PendingPrimitive(String theName, String theValue) {
+			myName = theName;
+			myValue = theValue;
+			myValues = null;
+		}
+
+		PendingPrimitive(String theName, List<String> theValues) {
+			myName = theName;
+			myValue = null;
+			myValues = theValues;
+		}
+	}
+
+	private static class BufferedProperty {
+		private final String myName;
+		private final TokenBuffer myValue;
+
+		BufferedProperty(String theName, TokenBuffer theValue) {
+			myName = theName;
+			myValue = theValue;
+		}
+
+		String getName() {
+			return myName;
+		}
+
+		/**
+		 * Returns a new stream over the buffered value, positioned on its first token
+		 */
+		com.fasterxml.jackson.core.JsonParser newParser() throws IOException {
+			com.fasterxml.jackson.core.JsonParser retVal = myValue.asParser();
+			retVal.nextToken();
+			return retVal;
+		}
+	}
+
+	/**
+	 * Steps through the elements of an array in lockstep with another array
+	 */
+	private static class ArrayCursor {
+		private final com.fasterxml.jackson.core.JsonParser myTokens;
+		private boolean myDone;
+
+		ArrayCursor(com.fasterxml.jackson.core.JsonParser theTokens) {
+			myTokens = theTokens;
+		}
+
+		/**
+		 * Returns the stream positioned on the next element, or <code>null</code> if the array is exhausted.
+		 * The caller must consume the element before calling this method again.
+		 */
+		com.fasterxml.jackson.core.JsonParser next() throws IOException {
+			if (!myDone && myTokens.nextToken() == JsonToken.END_ARRAY) {
+				myDone = true;
+			}
+			return myDone ? null : myTokens;
+		}
+
+		void drain() throws IOException {
+			while (next() != null) {
+				myTokens.skipChildren();
+			}
+		}
+	}
+}
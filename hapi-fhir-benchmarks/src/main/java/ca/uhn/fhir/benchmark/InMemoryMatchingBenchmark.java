@@ -0,0 +1,241 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.interceptor.executor.InterceptorService;
+import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
+import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractorSvc;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorR4;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorService;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
+import ca.uhn.fhir.jpa.searchparam.matcher.IndexedSearchParamExtractor;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import ca.uhn.fhir.util.BundleUtil;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches subscription style criteria against every resource of the criteria's type in a patient
+ * record Bundle using {@link InMemoryResourceMatcher}. The search parameter indexes for each
+ * resource are extracted once up front, the same way that the subscription matcher extracts
+ * them once per resource and then reuses them for every active subscription.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryMatchingBenchmark {
+
+	@Param({
+		"Observation?code=http://loinc.org|8867-4",
+		"Observation?category=vital-signs&status=final",
+		"Observation?code=http://loinc.org|2339-0,http://loinc.org|4548-4&category=laboratory",
+		"Observation?date=ge2005-01-01&date=lt2008-01-01",
+		"Condition?code=http://snomed.info/sct|44054006&clinical-status=active",
+		"Patient?address-country=US&birthdate=lt2000-01-01",
+		"Encounter?class=AMB&date=ge2005-01-01"
+	})
+	public String criteria;
+
+	private AnnotationConfigApplicationContext myAppCtx;
+	private InMemoryResourceMatcher myMatcher;
+	private List<IBaseResource> myResources;
+	private List<ResourceIndexedSearchParams> myIndexedSearchParams;
+
+	@Setup
+	public void setup() {
+		myAppCtx = new AnnotationConfigApplicationContext(MatcherConfig.class);
+		myMatcher = myAppCtx.getBean(InMemoryResourceMatcher.class);
+
+		FhirContext fhirContext = myAppCtx.getBean(FhirContext.class);
+		IndexedSearchParamExtractor extractor = myAppCtx.getBean(IndexedSearchParamExtractor.class);
+		SystemRequestDetails requestDetails = new SystemRequestDetails();
+		String resourceType = criteria.substring(0, criteria.indexOf('?'));
+		Bundle bundle = new SyntheticBundleGenerator(0).generatePatientBundle(20);
+
+		myResources = new ArrayList<>();
+		myIndexedSearchParams = new ArrayList<>();
+		for (IBaseResource next : BundleUtil.toListOfResourcesOfType(
+				fhirContext,
+				bundle,
+				fhirContext.getResourceDefinition(resourceType).getImplementingClass())) {
+			myResources.add(next);
+			myIndexedSearchParams.add(extractor.extractIndexedSearchParams(next, requestDetails));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		myAppCtx.close();
+	}
+
+	@Benchmark
+	public void match(Blackhole theBlackhole) {
+		SystemRequestDetails requestDetails = new SystemRequestDetails();
+		for (int i = 0; i < myResources.size(); i++) {
+			InMemoryMatchResult result =
+					myMatcher.match(criteria, myResources.get(i), myIndexedSearchParams.get(i), requestDetails);
+			theBlackhole.consume(result.matched());
+		}
+	}
+
+	int countMatches(RequestDetails theRequestDetails) {
+		int retVal = 0;
+		for (int i = 0; i < myResources.size(); i++) {
+			InMemoryMatchResult result =
+					myMatcher.match(criteria, myResources.get(i), myIndexedSearchParams.get(i), theRequestDetails);
+			if (result.supported() && result.matched()) {
+				retVal++;
+			}
+		}
+		return retVal;
+	}
+
+	@Configuration
+	public static class MatcherConfig {
+
+		@Bean
+		public FhirContext fhirContext() {
+			return FhirContext.forR4Cached();
+		}
+
+		@Bean
+		public ISearchParamRegistry searchParamRegistry(FhirContext theFhirContext) {
+			return new FhirContextSearchParamRegistry(theFhirContext);
+		}
+
+		@Bean
+		public IInterceptorService interceptorService() {
+			return new InterceptorService();
+		}
+
+		@Bean
+		public StorageSettings storageSettings() {
+			return new StorageSettings();
+		}
+
+		@Bean
+		public PartitionSettings partitionSettings() {
+			return new PartitionSettings();
+		}
+
+		@Bean
+		public ISearchParamExtractor searchParamExtractor(
+				StorageSettings theStorageSettings,
+				PartitionSettings thePartitionSettings,
+				FhirContext theFhirContext,
+				ISearchParamRegistry theSearchParamRegistry) {
+			return new SearchParamExtractorR4(
+					theStorageSettings, thePartitionSettings, theFhirContext, theSearchParamRegistry);
+		}
+
+		@Bean
+		public MatchUrlService matchUrlService(
+				FhirContext theFhirContext, ISearchParamRegistry theSearchParamRegistry) {
+			return new MatchUrlService(theFhirContext, theSearchParamRegistry);
+		}
+
+		@Bean
+		public InMemoryResourceMatcher inMemoryResourceMatcher() {
+			return new InMemoryResourceMatcher();
+		}
+
+		@Bean
+		public IndexedSearchParamExtractor indexedSearchParamExtractor() {
+			return new IndexedSearchParamExtractor();
+		}
+
+		@Bean
+		public ISearchParamExtractorSvc searchParamExtractorSvc() {
+			return new SearchParamExtractorService();
+		}
+
+		/**
+		 * Only used to resolve references against the database, which in-memory matching never does
+		 */
+		@Bean
+		public IRequestPartitionHelperSvc requestPartitionHelperSvc() {
+			return unsupported(IRequestPartitionHelperSvc.class);
+		}
+
+		/**
+		 * Only used to resolve references against the database, which in-memory matching never does
+		 */
+		@Bean
+		public IIdHelperService<?> idHelperService() {
+			return unsupported(IIdHelperService.class);
+		}
+
+		/**
+		 * Creates a stand-in for a database backed service which fails if it is ever called
+		 */
+		private static <T> T unsupported(Class<T> theInterface) {
+			Object proxy = Proxy.newProxyInstance(
+					theInterface.getClassLoader(), new Class<?>[] {theInterface}, (theProxy, theMethod, theArgs) -> {
+						if (theMethod.getDeclaringClass() == Object.class) {
+							return switch (theMethod.getName()) {
+								case "equals" -> theProxy == theArgs[0];
+								case "hashCode" -> System.identityHashCode(theProxy);
+								default -> theInterface.getSimpleName() + " stand-in";
+							};
+						}
+						throw new UnsupportedOperationException(
+								theInterface.getSimpleName() + "." + theMethod.getName() + " is not available here");
+					});
+			return theInterface.cast(proxy);
+		}
+	}
+}
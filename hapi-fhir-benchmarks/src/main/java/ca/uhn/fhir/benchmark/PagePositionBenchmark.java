@@ -0,0 +1,141 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import ca.uhn.fhir.jpa.model.search.PidPositionMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puts the resources for a page of search results back into the order of the page's PIDs,
+ * the way the JPA SearchBuilder does after loading them from the database. This compares the
+ * boxed <code>HashMap</code> approach against {@link PidPositionMap} with a presized array.
+ * Every 10th PID is treated as an _include.
+ * <p>
+ * The interesting number here is allocation per page, so run this with the GC profiler,
+ * e.g. <code>PagePositionBenchmark -prof gc</code>, and compare
+ * <code>gc.alloc.rate.norm</code>.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PagePositionBenchmark {
+
+	@Param({"1000", "10000"})
+	public int pageSize;
+
+	private long[] myPagePids;
+	private long[] myLoadOrderPids;
+	private Set<Long> myIncludedPids;
+	private Object[] myLoadedResources;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(1);
+		myPagePids = new long[pageSize];
+		myIncludedPids = new HashSet<>();
+		List<Long> loadOrder = new ArrayList<>(pageSize);
+		long nextPid = 1000;
+		for (int i = 0; i < pageSize; i++) {
+			nextPid += 1 + random.nextInt(50);
+			myPagePids[i] = nextPid;
+			loadOrder.add(nextPid);
+			if (i % 10 == 0) {
+				myIncludedPids.add(nextPid);
+			}
+		}
+
+		// The database returns rows in an arbitrary order
+		Collections.shuffle(loadOrder, random);
+		myLoadOrderPids = loadOrder.stream().mapToLong(Long::longValue).toArray();
+		myLoadedResources = new Object[pageSize];
+		for (int i = 0; i < pageSize; i++) {
+			myLoadedResources[i] = "Resource/" + myLoadOrderPids[i];
+		}
+	}
+
+	@Benchmark
+	public List<Object> boxedHashMap(Blackhole theBlackhole) {
+		Map<Long, Integer> position = new HashMap<>();
+		int index = 0;
+		for (long next : myPagePids) {
+			position.put(next, index++);
+		}
+
+		List<Object> retVal = new ArrayList<>();
+		for (int i = 0; i < myLoadOrderPids.length; i++) {
+			Long pid = myLoadOrderPids[i];
+			Integer nextIndex = position.get(pid);
+			theBlackhole.consume(myIncludedPids.contains(pid));
+			while (retVal.size() <= nextIndex) {
+				retVal.add(null);
+			}
+			retVal.set(nextIndex, myLoadedResources[i]);
+		}
+		return retVal;
+	}
+
+	@Benchmark
+	public List<Object> pidPositionMap(Blackhole theBlackhole) {
+		PidPositionMap positions = new PidPositionMap(myPagePids.length);
+		for (long next : myPagePids) {
+			positions.add(next);
+		}
+		boolean[] includedPositions = new boolean[positions.size()];
+		for (Long next : myIncludedPids) {
+			includedPositions[positions.getPosition(next)] = true;
+		}
+
+		Object[] results = new Object[positions.size()];
+		for (int i = 0; i < myLoadOrderPids.length; i++) {
+			int nextIndex = positions.getPosition(myLoadOrderPids[i]);
+			theBlackhole.consume(includedPositions[nextIndex]);
+			results[nextIndex] = myLoadedResources[i];
+		}
+
+		List<Object> retVal = new ArrayList<>(results.length);
+		Collections.addAll(retVal, results);
+		return retVal;
+	}
+}
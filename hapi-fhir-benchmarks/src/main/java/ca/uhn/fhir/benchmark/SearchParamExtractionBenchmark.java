@@ -0,0 +1,103 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorR4;
+import ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry;
+import ca.uhn.fhir.util.BundleUtil;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracts every type of search parameter index from all resources of a given type in a
+ * patient record Bundle, the same way that the JPA server does when a resource is stored
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchParamExtractionBenchmark {
+
+	private final FhirContext myFhirContext = FhirContext.forR4Cached();
+
+	@Param({"Patient", "Observation", "Encounter", "Condition", "MedicationRequest", "Procedure", "DiagnosticReport"})
+	public String resourceType;
+
+	private ISearchParamExtractor mySearchParamExtractor;
+	private List<? extends IBaseResource> myResources;
+
+	@Setup
+	public void setup() {
+		mySearchParamExtractor = new SearchParamExtractorR4(
+				new StorageSettings(),
+				new PartitionSettings(),
+				myFhirContext,
+				new FhirContextSearchParamRegistry(myFhirContext));
+
+		Bundle bundle = new SyntheticBundleGenerator(0).generatePatientBundle(20);
+		myResources = BundleUtil.toListOfResourcesOfType(
+				myFhirContext,
+				bundle,
+				myFhirContext.getResourceDefinition(resourceType).getImplementingClass());
+	}
+
+	@Benchmark
+	public void extractAll(Blackhole theBlackhole) {
+		for (IBaseResource nextResource : myResources) {
+			try (ISearchParamExtractor.IExtractedValueScope scope = mySearchParamExtractor.openExtractedValueScope()) {
+				theBlackhole.consume(mySearchParamExtractor.extractSearchParamStrings(nextResource));
+				theBlackhole.consume(mySearchParamExtractor.extractSearchParamTokens(nextResource));
+				theBlackhole.consume(mySearchParamExtractor.extractSearchParamDates(nextResource));
+				theBlackhole.consume(mySearchParamExtractor.extractSearchParamNumber(nextResource));
+				theBlackhole.consume(mySearchParamExtractor.extractSearchParamQuantity(nextResource));
+				theBlackhole.consume(mySearchParamExtractor.extractSearchParamUri(nextResource));
+				theBlackhole.consume(mySearchParamExtractor.extractResourceLinks(nextResource, false));
+			}
+		}
+	}
+
+	@Benchmark
+	public void extractTokens(Blackhole theBlackhole) {
+		for (IBaseResource nextResource : myResources) {
+			theBlackhole.consume(mySearchParamExtractor.extractSearchParamTokens(nextResource));
+		}
+	}
+}
@@ -0,0 +1,321 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Condition;
+import org.hl7.fhir.r4.model.ContactPoint;
+import org.hl7.fhir.r4.model.DateTimeType;
+import org.hl7.fhir.r4.model.DiagnosticReport;
+import org.hl7.fhir.r4.model.Encounter;
+import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.MedicationRequest;
+import org.hl7.fhir.r4.model.Narrative;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Period;
+import org.hl7.fhir.r4.model.Procedure;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Resource;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates patient record Bundles that are shaped like the output of Synthea: one Patient
+ * followed by a history of Encounters, each with vital sign and laboratory Observations,
+ * Conditions, MedicationRequests, Procedures and a DiagnosticReport. Generation is seeded,
+ * so the same seed always produces the same Bundle.
+ */
+public class SyntheticBundleGenerator {
+
+	static final String LOINC = "http://loinc.org";
+	static final String SNOMED = "http://snomed.info/sct";
+	static final String RXNORM = "http://www.nlm.nih.gov/research/umls/rxnorm";
+	static final String OBSERVATION_CATEGORY = "http://terminology.hl7.org/CodeSystem/observation-category";
+
+	private static final String[] GIVEN_NAMES = {"Homer", "Marge", "Bart", "Lisa", "Maggie", "Ned", "Maude", "Rod"};
+	private static final String[] FAMILY_NAMES = {"Simpson", "Flanders", "Van Houten", "Szyslak", "Wiggum"};
+	private static final String[] CITIES = {"Springfield", "Shelbyville", "Capital City", "Ogdenville"};
+
+	/*
+	 * LOINC code, display, unit and the mean value used for each generated measurement
+	 */
+	private static final String[][] VITAL_SIGNS = {
+		{"8302-2", "Body Height", "cm", "170"},
+		{"29463-7", "Body Weight", "kg", "75"},
+		{"39156-5", "Body Mass Index", "kg/m2", "26"},
+		{"8867-4", "Heart rate", "/min", "72"},
+		{"9279-1", "Respiratory rate", "/min", "15"},
+		{"8310-5", "Body temperature", "Cel", "37"}
+	};
+	private static final String[][] LABORATORY = {
+		{"2339-0", "Glucose", "mg/dL", "95"},
+		{"2093-3", "Total Cholesterol", "mg/dL", "190"},
+		{"2571-8", "Triglycerides", "mg/dL", "140"},
+		{"18262-6", "Low Density Lipoprotein Cholesterol", "mg/dL", "110"},
+		{"2085-9", "High Density Lipoprotein Cholesterol", "mg/dL", "55"},
+		{"4548-4", "Hemoglobin A1c/Hemoglobin.total in Blood", "%", "5.8"}
+	};
+	private static final String[][] CONDITIONS = {
+		{"44054006", "Diabetes"},
+		{"38341003", "Hypertension"},
+		{"195662009", "Acute viral pharyngitis"},
+		{"10509002", "Acute bronchitis"},
+		{"40055000", "Chronic sinusitis"}
+	};
+	private static final String[][] MEDICATIONS = {
+		{"860975", "24 HR Metformin hydrochloride 500 MG Extended Release Oral Tablet"},
+		{"314076", "lisinopril 10 MG Oral Tablet"},
+		{"308182", "Amoxicillin 250 MG Oral Capsule"},
+		{"313782", "Acetaminophen 325 MG Oral Tablet"}
+	};
+	private static final String[][] PROCEDURES = {
+		{"430193006", "Medication Reconciliation"},
+		{"76601001", "Intramuscular injection"},
+		{"117015009", "Throat culture"}
+	};
+
+	private static final long START_OF_HISTORY = 946684800000L; // 2000-01-01
+
+	private final Random myRandom;
+
+	public SyntheticBundleGenerator(long theSeed) {
+		myRandom = new Random(theSeed);
+	}
+
+	/**
+	 * Generates a transaction Bundle holding one patient's record
+	 *
+	 * @param theEncounterCount The number of encounters in the patient's history. Each encounter
+	 *                          adds between 10 and 20 resources to the Bundle.
+	 */
+	public Bundle generatePatientBundle(int theEncounterCount) {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+
+		Patient patient = newPatient();
+		Reference patientRef = addEntry(bundle, patient);
+
+		long date = START_OF_HISTORY;
+		for (int i = 0; i < theEncounterCount; i++) {
+			date += TimeUnit.DAYS.toMillis(30 + myRandom.nextInt(300));
+			Date start = new Date(date);
+			Date end = new Date(date + TimeUnit.MINUTES.toMillis(15 + myRandom.nextInt(90)));
+
+			Encounter encounter = new Encounter();
+			encounter.setStatus(Encounter.EncounterStatus.FINISHED);
+			encounter
+					.getClass_()
+					.setSystem("http://terminology.hl7.org/CodeSystem/v3-ActCode")
+					.setCode("AMB");
+			encounter.addType(concept(SNOMED, "185349003", "Encounter for check up"));
+			encounter.setSubject(patientRef);
+			encounter.setPeriod(new Period().setStart(start).setEnd(end));
+			Reference encounterRef = addEntry(bundle, encounter);
+
+			DiagnosticReport report = new DiagnosticReport();
+			report.setStatus(DiagnosticReport.DiagnosticReportStatus.FINAL);
+			report.addCategory(concept("http://terminology.hl7.org/CodeSystem/v2-0074", "LAB", "Laboratory"));
+			report.setCode(concept(LOINC, "57698-3", "Lipid panel with direct LDL - Serum or Plasma"));
+			report.setSubject(patientRef);
+			report.setEncounter(encounterRef);
+			report.setEffective(new DateTimeType(end));
+			report.setIssued(end);
+
+			for (String[] next : VITAL_SIGNS) {
+				addEntry(bundle, newObservation(next, "vital-signs", patientRef, encounterRef, end));
+			}
+			addEntry(bundle, newBloodPressure(patientRef, encounterRef, end));
+			for (String[] next : LABORATORY) {
+				if (myRandom.nextBoolean()) {
+					report.addResult(
+							addEntry(bundle, newObservation(next, "laboratory", patientRef, encounterRef, end)));
+				}
+			}
+			addEntry(bundle, report);
+
+			if (myRandom.nextInt(3) == 0) {
+				String[] code = pick(CONDITIONS);
+				Condition condition = new Condition();
+				condition
+						.getClinicalStatus()
+						.addCoding()
+						.setSystem("http://terminology.hl7.org/CodeSystem/condition-clinical")
+						.setCode("active");
+				condition
+						.getVerificationStatus()
+						.addCoding()
+						.setSystem("http://terminology.hl7.org/CodeSystem/condition-ver-status")
+						.setCode("confirmed");
+				condition.setCode(concept(SNOMED, code[0], code[1]));
+				condition.setSubject(patientRef);
+				condition.setEncounter(encounterRef);
+				condition.setOnset(new DateTimeType(start));
+				condition.setRecordedDate(start);
+				addEntry(bundle, condition);
+
+				String[] medication = pick(MEDICATIONS);
+				MedicationRequest medicationRequest = new MedicationRequest();
+				medicationRequest.setStatus(MedicationRequest.MedicationRequestStatus.ACTIVE);
+				medicationRequest.setIntent(MedicationRequest.MedicationRequestIntent.ORDER);
+				medicationRequest.setMedication(concept(RXNORM, medication[0], medication[1]));
+				medicationRequest.setSubject(patientRef);
+				medicationRequest.setEncounter(encounterRef);
+				medicationRequest.setAuthoredOn(start);
+				medicationRequest.addReasonReference(
+						new Reference(condition.getIdElement().getValue()));
+				addEntry(bundle, medicationRequest);
+			}
+
+			String[] procedureCode = pick(PROCEDURES);
+			Procedure procedure = new Procedure();
+			procedure.setStatus(Procedure.ProcedureStatus.COMPLETED);
+			procedure.setCode(concept(SNOMED, procedureCode[0], procedureCode[1]));
+			procedure.setSubject(patientRef);
+			procedure.setEncounter(encounterRef);
+			procedure.setPerformed(new Period().setStart(start).setEnd(end));
+			addEntry(bundle, procedure);
+		}
+
+		return bundle;
+	}
+
+	private Patient newPatient() {
+		Patient patient = new Patient();
+		patient.getText()
+				.setStatus(Narrative.NarrativeStatus.GENERATED)
+				.setDivAsString(
+						"<div xmlns=\"http://www.w3.org/1999/xhtml\">Generated by the HAPI FHIR benchmarks</div>");
+		patient.addIdentifier()
+				.setSystem("https://github.com/synthetichealth/synthea")
+				.setValue(newUuid().toString());
+		patient.addIdentifier()
+				.setType(concept("http://terminology.hl7.org/CodeSystem/v2-0203", "MR", "Medical Record Number"))
+				.setSystem("http://hospital.smarthealthit.org")
+				.setValue(newUuid().toString())
+				.setUse(Identifier.IdentifierUse.OFFICIAL);
+		patient.addName()
+				.setFamily(pick(FAMILY_NAMES))
+				.addGiven(pick(GIVEN_NAMES))
+				.addGiven(pick(GIVEN_NAMES))
+				.addPrefix("Mx.");
+		patient.addTelecom()
+				.setSystem(ContactPoint.ContactPointSystem.PHONE)
+				.setValue("555-" + (1000 + myRandom.nextInt(9000)))
+				.setUse(ContactPoint.ContactPointUse.HOME);
+		patient.setGender(
+				myRandom.nextBoolean()
+						? Enumerations.AdministrativeGender.MALE
+						: Enumerations.AdministrativeGender.FEMALE);
+		patient.setBirthDate(new Date(START_OF_HISTORY - TimeUnit.DAYS.toMillis(365L * (5 + myRandom.nextInt(70)))));
+		patient.addAddress()
+				.addLine((1 + myRandom.nextInt(999)) + " Evergreen Terrace")
+				.setCity(pick(CITIES))
+				.setState("OR")
+				.setPostalCode(String.valueOf(97000 + myRandom.nextInt(999)))
+				.setCountry("US");
+		patient.getMaritalStatus()
+				.addCoding()
+				.setSystem("http://terminology.hl7.org/CodeSystem/v3-MaritalStatus")
+				.setCode("M");
+		patient.addCommunication().setLanguage(concept("urn:ietf:bcp:47", "en-US", "English"));
+		return patient;
+	}
+
+	private Observation newObservation(
+			String[] theCode, String theCategory, Reference thePatient, Reference theEncounter, Date theDate) {
+		Observation observation = newObservation(theCategory, thePatient, theEncounter, theDate);
+		observation.setCode(concept(LOINC, theCode[0], theCode[1]));
+		observation.setValue(newQuantity(theCode[2], Double.parseDouble(theCode[3])));
+		return observation;
+	}
+
+	private Observation newBloodPressure(Reference thePatient, Reference theEncounter, Date theDate) {
+		Observation observation = newObservation("vital-signs", thePatient, theEncounter, theDate);
+		observation.setCode(concept(LOINC, "85354-9", "Blood Pressure"));
+		observation
+				.addComponent()
+				.setCode(concept(LOINC, "8480-6", "Systolic Blood Pressure"))
+				.setValue(newQuantity("mm[Hg]", 120));
+		observation
+				.addComponent()
+				.setCode(concept(LOINC, "8462-4", "Diastolic Blood Pressure"))
+				.setValue(newQuantity("mm[Hg]", 80));
+		return observation;
+	}
+
+	private Observation newObservation(String theCategory, Reference thePatient, Reference theEncounter, Date theDate) {
+		Observation observation = new Observation();
+		observation.setStatus(Observation.ObservationStatus.FINAL);
+		observation.addCategory(concept(OBSERVATION_CATEGORY, theCategory, null));
+		observation.setSubject(thePatient);
+		observation.setEncounter(theEncounter);
+		observation.setEffective(new DateTimeType(theDate));
+		observation.setIssued(theDate);
+		return observation;
+	}
+
+	private Quantity newQuantity(String theUnit, double theMean) {
+		double value = theMean * (0.8 + (myRandom.nextDouble() * 0.4));
+		return new Quantity()
+				.setValue(Math.round(value * 10) / 10.0)
+				.setUnit(theUnit)
+				.setSystem("http://unitsofmeasure.org")
+				.setCode(theUnit);
+	}
+
+	private Reference addEntry(Bundle theBundle, Resource theResource) {
+		String fullUrl = "urn:uuid:" + newUuid();
+		theResource.setId(fullUrl);
+		theBundle
+				.addEntry()
+				.setFullUrl(fullUrl)
+				.setResource(theResource)
+				.getRequest()
+				.setMethod(Bundle.HTTPVerb.POST)
+				.setUrl(theResource.fhirType());
+		return new Reference(fullUrl);
+	}
+
+	private UUID newUuid() {
+		return new UUID(myRandom.nextLong(), myRandom.nextLong());
+	}
+
+	private String pick(String[] theValues) {
+		return theValues[myRandom.nextInt(theValues.length)];
+	}
+
+	private String[] pick(String[][] theValues) {
+		return theValues[myRandom.nextInt(theValues.length)];
+	}
+
+	private static CodeableConcept concept(String theSystem, String theCode, String theDisplay) {
+		CodeableConcept retVal = new CodeableConcept();
+		retVal.addCoding().setSystem(theSystem).setCode(theCode).setDisplay(theDisplay);
+		retVal.setText(theDisplay);
+		return retVal;
+	}
+}
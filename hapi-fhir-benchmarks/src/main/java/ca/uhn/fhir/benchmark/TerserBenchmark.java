@@ -0,0 +1,110 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.util.BundleUtil;
+import ca.uhn.fhir.util.FhirTerser;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Reference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates terser paths against every resource of a given type in a patient record Bundle,
+ * and walks the full Bundle using {@link FhirTerser#getAllPopulatedChildElementsOfType(IBaseResource, Class)}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TerserBenchmark {
+
+	private final FhirContext myFhirContext = FhirContext.forR4Cached();
+
+	/**
+	 * Each value is a resource type, followed by the paths to evaluate against it
+	 */
+	@Param({
+		"Observation:Observation.code.coding.code,Observation.valueQuantity.value,Observation.subject.reference",
+		"Patient:Patient.name.given,Patient.identifier.value,Patient.address.city",
+		"Encounter:Encounter.period.start,Encounter.type.coding.system"
+	})
+	public String paths;
+
+	private FhirTerser myTerser;
+	private Bundle myBundle;
+	private List<? extends IBaseResource> myResources;
+	private String[] myPaths;
+
+	@Setup
+	public void setup() {
+		myTerser = myFhirContext.newTerser();
+		myBundle = new SyntheticBundleGenerator(0).generatePatientBundle(20);
+
+		String resourceType = paths.substring(0, paths.indexOf(':'));
+		myPaths = paths.substring(paths.indexOf(':') + 1).split(",");
+		myResources = BundleUtil.toListOfResourcesOfType(
+				myFhirContext,
+				myBundle,
+				myFhirContext.getResourceDefinition(resourceType).getImplementingClass());
+	}
+
+	@Benchmark
+	public void getValues(Blackhole theBlackhole) {
+		for (IBaseResource nextResource : myResources) {
+			for (String nextPath : myPaths) {
+				List<IBase> values = myTerser.getValues(nextResource, nextPath);
+				theBlackhole.consume(values);
+			}
+		}
+	}
+
+	@Benchmark
+	public void getSinglePrimitiveValue(Blackhole theBlackhole) {
+		for (IBaseResource nextResource : myResources) {
+			for (String nextPath : myPaths) {
+				theBlackhole.consume(myTerser.getSinglePrimitiveValueOrNull(nextResource, nextPath));
+			}
+		}
+	}
+
+	@Benchmark
+	public void getAllPopulatedChildElementsOfType(Blackhole theBlackhole) {
+		theBlackhole.consume(myTerser.getAllPopulatedChildElementsOfType(myBundle, Reference.class));
+	}
+}
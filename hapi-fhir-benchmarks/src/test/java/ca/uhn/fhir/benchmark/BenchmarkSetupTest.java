@@ -0,0 +1,115 @@
+package ca.uhn.fhir.benchmark;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import org.hl7.fhir.r4.model.Bundle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Makes sure that the benchmarks can set themselves up and that they exercise something
+ * meaningful, without actually running them
+ */
+public class BenchmarkSetupTest {
+
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+
+	@Test
+	public void testGeneratorIsDeterministic() {
+		Bundle bundle0 = new SyntheticBundleGenerator(1).generatePatientBundle(10);
+		Bundle bundle1 = new SyntheticBundleGenerator(1).generatePatientBundle(10);
+
+		String encoded0 = ourCtx.newJsonParser().encodeResourceToString(bundle0);
+		assertThat(encoded0).isEqualTo(ourCtx.newJsonParser().encodeResourceToString(bundle1));
+		assertThat(bundle0.getEntry().size()).isBetween(10 * 10, 10 * 20 + 1);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"JSON", "XML"})
+	public void testParserBenchmark(String theEncoding) {
+		ParserBenchmark benchmark = new ParserBenchmark();
+		benchmark.encoding = EncodingEnum.valueOf(theEncoding);
+		benchmark.encounterCount = 10;
+		benchmark.setup();
+
+		assertThat(benchmark.parse().getEntry()).hasSizeGreaterThan(100);
+		assertThat(benchmark.encode()).isNotBlank();
+	}
+
+	@Test
+	public void testTerserBenchmark() throws Exception {
+		for (String nextPaths : getParamValues(TerserBenchmark.class, "paths")) {
+			TerserBenchmark benchmark = new TerserBenchmark();
+			benchmark.paths = nextPaths;
+			benchmark.setup();
+			benchmark.getValues(newBlackhole());
+			benchmark.getSinglePrimitiveValue(newBlackhole());
+			benchmark.getAllPopulatedChildElementsOfType(newBlackhole());
+		}
+	}
+
+	@Test
+	public void testSearchParamExtractionBenchmark() throws Exception {
+		for (String nextResourceType : getParamValues(SearchParamExtractionBenchmark.class, "resourceType")) {
+			SearchParamExtractionBenchmark benchmark = new SearchParamExtractionBenchmark();
+			benchmark.resourceType = nextResourceType;
+			benchmark.setup();
+			benchmark.extractAll(newBlackhole());
+			benchmark.extractTokens(newBlackhole());
+		}
+	}
+
+	/**
+	 * Every criteria should be evaluated in memory and match at least one resource, otherwise the
+	 * benchmark is only measuring how quickly the matcher gives up
+	 */
+	@Test
+	public void testInMemoryMatchingBenchmark() throws Exception {
+		for (String nextCriteria : getParamValues(InMemoryMatchingBenchmark.class, "criteria")) {
+			InMemoryMatchingBenchmark benchmark = new InMemoryMatchingBenchmark();
+			benchmark.criteria = nextCriteria;
+			benchmark.setup();
+			try {
+				benchmark.match(newBlackhole());
+				assertThat(benchmark.countMatches(new SystemRequestDetails()))
+						.as(nextCriteria)
+						.isGreaterThan(0);
+			} finally {
+				benchmark.tearDown();
+			}
+		}
+	}
+
+	@Test
+	public void testPagePositionBenchmark() throws Exception {
+		for (String nextPageSize : getParamValues(PagePositionBenchmark.class, "pageSize")) {
+			PagePositionBenchmark benchmark = new PagePositionBenchmark();
+			benchmark.pageSize = Integer.parseInt(nextPageSize);
+			benchmark.setup();
+
+			// Both approaches should produce the same page
+			List<Object> expected = benchmark.boxedHashMap(newBlackhole());
+			assertThat(expected).hasSize(benchmark.pageSize).doesNotContainNull();
+			assertThat(benchmark.pidPositionMap(newBlackhole())).isEqualTo(expected);
+		}
+	}
+
+	private static List<String> getParamValues(Class<?> theBenchmarkClass, String theField) throws Exception {
+		return Arrays.asList(
+				theBenchmarkClass.getField(theField).getAnnotation(Param.class).value());
+	}
+
+	private static Blackhole newBlackhole() {
+		return new Blackhole(
+				"Today's password is swordfish. I understand instantiating Blackholes directly is dangerous.");
+	}
+}
@@ -24,9 +24,12 @@ import ca.uhn.fhir.batch2.api.IJobStepWorker;
 import ca.uhn.fhir.batch2.api.JobExecutionFailedException;
 import ca.uhn.fhir.batch2.api.RunOutcome;
 import ca.uhn.fhir.batch2.api.StepExecutionDetails;
+import ca.uhn.fhir.jpa.dao.data.ITermConceptClosureDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptDao;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.entity.TermConcept;
+import ca.uhn.fhir.jpa.entity.TermConceptClosure;
+import ca.uhn.fhir.jpa.entity.TermConceptParentChildLink;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.util.QueryChunker;
 import ca.uhn.fhir.util.StopWatch;
@@ -36,7 +39,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayDeque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static ca.uhn.fhir.jpa.batch2.jobs.term.base.TerminologyConstants.STEP_ID_FINALIZE_IMPORT;
@@ -49,6 +55,9 @@ public class ImportTerminologyStepGenerateConceptClosures<PT extends ImportTermi
 	@Autowired
 	private ITermConceptDao myConceptDao;
 
+	@Autowired
+	private ITermConceptClosureDao myConceptClosureDao;
+
 	@Autowired
 	private PartitionSettings myPartitionSettings;
 
@@ -96,15 +105,51 @@ public class ImportTerminologyStepGenerateConceptClosures<PT extends ImportTermi
 
 	private void generateClosures(List<TermConcept.TermConceptPk> ids) {
 		List<TermConcept> concepts = myConceptDao.findAllById(ids);
+
+		// Replace any closure rows left behind by a previous attempt at this chunk
+		myConceptClosureDao.deleteByDescendantPids(
+				concepts.stream().map(TermConcept::getId).toList());
+
 		for (TermConcept concept : concepts) {
 			concept.setParentPids(null);
 			concept.prePersist();
 			myEntityManager.merge(concept);
+			generateClosureRows(concept);
 		}
 
 		myEntityManager.flush();
 	}
 
+	/**
+	 * Stores one {@link TermConceptClosure} row for the given concept itself and one for
+	 * each of its ancestors. The hierarchy is walked breadth-first so that the depth
+	 * recorded for each ancestor is the length of the shortest path to it.
+	 */
+	private void generateClosureRows(TermConcept theConcept) {
+		Long descendantPid = theConcept.getId();
+		Long codeSystemVersionPid = theConcept.getCodeSystemVersion().getPid();
+
+		Map<Long, Integer> ancestorToDepth = new HashMap<>();
+		ancestorToDepth.put(descendantPid, 0);
+		ArrayDeque<TermConcept> queue = new ArrayDeque<>();
+		queue.add(theConcept);
+		while (!queue.isEmpty()) {
+			TermConcept next = queue.poll();
+			int parentDepth = ancestorToDepth.get(next.getId()) + 1;
+			for (TermConceptParentChildLink link : next.getParents()) {
+				TermConcept parent = link.getParent();
+				if (parent != null && ancestorToDepth.putIfAbsent(parent.getId(), parentDepth) == null) {
+					queue.add(parent);
+				}
+			}
+		}
+
+		for (Map.Entry<Long, Integer> next : ancestorToDepth.entrySet()) {
+			myEntityManager.persist(
+					new TermConceptClosure(next.getKey(), descendantPid, codeSystemVersionPid, next.getValue()));
+		}
+	}
+
 	@Nonnull
 	@Override
 	public List<BaseImportTerminologyFileCsvStep.LoincFileNameSpecification> getFilesToProcess(
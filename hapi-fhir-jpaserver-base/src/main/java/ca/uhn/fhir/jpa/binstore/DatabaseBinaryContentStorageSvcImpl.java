@@ -35,6 +35,7 @@ import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.PersistenceContextType;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.hibernate.LobHelper;
 import org.hibernate.Session;
 import org.hl7.fhir.instance.model.api.IIdType;
@@ -46,6 +47,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.sql.Blob;
 import java.sql.SQLException;
 import java.util.Date;
@@ -54,6 +56,13 @@ import java.util.Optional;
 @Transactional
 public class DatabaseBinaryContentStorageSvcImpl extends BaseBinaryStorageSvcImpl {
 
+	/**
+	 * Default value for {@link #setStreamingThreshold(int)}, which means that streaming is disabled
+	 *
+	 * @since 8.12.0
+	 */
+	public static final int DEFAULT_STREAMING_THRESHOLD = 0;
+
 	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
 	private EntityManager myEntityManager;
 
@@ -61,6 +70,7 @@ public class DatabaseBinaryContentStorageSvcImpl extends BaseBinaryStorageSvcImp
 	private IBinaryStorageEntityDao myBinaryStorageEntityDao;
 
 	private boolean mySupportLegacyLobServer = false;
+	private int myStreamingThreshold = DEFAULT_STREAMING_THRESHOLD;
 
 	@Nonnull
 	@Override
@@ -92,6 +102,17 @@ public class DatabaseBinaryContentStorageSvcImpl extends BaseBinaryStorageSvcImp
 		Session session = (Session) myEntityManager.getDelegate();
 		LobHelper lobHelper = session.getLobHelper();
 
+		if (myStreamingThreshold > 0) {
+			return storeBinaryContentStreaming(
+					theBinaryContentIdOrNull,
+					theContentType,
+					theRequestDetails,
+					hashingInputStream,
+					countingInputStream,
+					entity,
+					lobHelper);
+		}
+
 		byte[] loadedStream = IOUtils.toByteArray(countingInputStream);
 		String id = super.provideIdForNewBinaryContent(
 				theBinaryContentIdOrNull, loadedStream, theRequestDetails, theContentType);
@@ -121,6 +142,71 @@ public class DatabaseBinaryContentStorageSvcImpl extends BaseBinaryStorageSvcImp
 				.setContentType(theContentType);
 	}
 
+	/**
+	 * Spools the content to a temporary file once it grows past the streaming threshold, and
+	 * writes anything that large to the <code>BLOB_DATA</code> column straight from that file
+	 * so that the full content is never held on the heap. Content under the threshold is
+	 * stored exactly as it would be without streaming.
+	 */
+	private StoredDetails storeBinaryContentStreaming(
+			String theBinaryContentIdOrNull,
+			String theContentType,
+			RequestDetails theRequestDetails,
+			HashingInputStream theHashingInputStream,
+			CountingInputStream theCountingInputStream,
+			BinaryStorageEntity theEntity,
+			LobHelper theLobHelper)
+			throws IOException {
+
+		DeferredFileOutputStream spool = DeferredFileOutputStream.builder()
+				.setThreshold(myStreamingThreshold)
+				.setPrefix("hapi-binary-")
+				.setSuffix(".bin")
+				.get();
+		try {
+			try (spool) {
+				IOUtils.copy(theCountingInputStream, spool);
+			}
+
+			long bytes = theCountingInputStream.getByteCount();
+			String hash = theHashingInputStream.hash().toString();
+			theEntity.setSize(bytes);
+			theEntity.setHash(hash);
+
+			if (spool.isInMemory()) {
+				byte[] loadedStream = spool.getData();
+				theEntity.setContentId(super.provideIdForNewBinaryContent(
+						theBinaryContentIdOrNull, loadedStream, theRequestDetails, theContentType));
+				theEntity.setStorageContentBin(loadedStream);
+				if (mySupportLegacyLobServer) {
+					theEntity.setBlob(theLobHelper.createBlob(loadedStream));
+				}
+				myEntityManager.persist(theEntity);
+			} else {
+				// The content is only read from the file when the insert is flushed, so
+				// flush now while the file still exists
+				theEntity.setContentId(super.provideIdForNewBinaryContent(
+						theBinaryContentIdOrNull, null, theRequestDetails, theContentType));
+				try (InputStream fileInputStream = Files.newInputStream(spool.getPath())) {
+					theEntity.setBlob(theLobHelper.createBlob(fileInputStream, bytes));
+					myEntityManager.persist(theEntity);
+					myEntityManager.flush();
+				}
+			}
+
+			return new StoredDetails()
+					.setBinaryContentId(theEntity.getContentId())
+					.setBytes(bytes)
+					.setPublished(theEntity.getPublished())
+					.setHash(hash)
+					.setContentType(theContentType);
+		} finally {
+			if (!spool.isInMemory()) {
+				Files.deleteIfExists(spool.getPath());
+			}
+		}
+	}
+
 	@Override
 	public StoredDetails fetchBinaryContentDetails(IIdType theResourceId, String theBinaryContentId) {
 
@@ -178,6 +264,34 @@ public class DatabaseBinaryContentStorageSvcImpl extends BaseBinaryStorageSvcImp
 		return this;
 	}
 
+	/**
+	 * If set to a value greater than zero, content larger than this many bytes is spooled to a
+	 * temporary file as it is received and then streamed into the <code>BLOB_DATA</code> column
+	 * instead of being loaded onto the heap, and is streamed back out of that column when it is
+	 * read using {@link #writeBinaryContent(IIdType, String, OutputStream)}. Content at or under
+	 * the threshold is stored as a byte array as usual. Defaults to {@link #DEFAULT_STREAMING_THRESHOLD}
+	 * (disabled).
+	 * <p>
+	 * Note that when content is streamed, the
+	 * {@link ca.uhn.fhir.interceptor.api.Pointcut#STORAGE_BINARY_ASSIGN_BINARY_CONTENT_ID_PREFIX}
+	 * hook is invoked with a Binary that does not have its content populated.
+	 * </p>
+	 *
+	 * @since 8.12.0
+	 */
+	public DatabaseBinaryContentStorageSvcImpl setStreamingThreshold(int theStreamingThreshold) {
+		myStreamingThreshold = theStreamingThreshold;
+		return this;
+	}
+
+	/**
+	 * @since 8.12.0
+	 * @see #setStreamingThreshold(int)
+	 */
+	public int getStreamingThreshold() {
+		return myStreamingThreshold;
+	}
+
 	void copyBinaryContentToOutputStream(OutputStream theOutputStream, BinaryStorageEntity theEntity)
 			throws IOException {
 
@@ -28,10 +28,12 @@ import ca.uhn.fhir.jpa.bulk.export.svc.BulkExportMdmEidMatchOnlyResourceExpander
 import ca.uhn.fhir.jpa.bulk.export.svc.BulkExportMdmFullResourceExpander;
 import ca.uhn.fhir.jpa.bulk.mdm.MdmClearHelperSvcImpl;
 import ca.uhn.fhir.jpa.dao.mdm.JpaMdmLinkImplFactory;
+import ca.uhn.fhir.jpa.dao.mdm.MdmBlockingKeyDaoJpaImpl;
 import ca.uhn.fhir.jpa.dao.mdm.MdmLinkDaoJpaImpl;
 import ca.uhn.fhir.jpa.entity.MdmLink;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.mdm.api.IMdmLinkExpandSvc;
+import ca.uhn.fhir.mdm.dao.IMdmBlockingKeyDao;
 import ca.uhn.fhir.mdm.dao.IMdmLinkDao;
 import ca.uhn.fhir.mdm.dao.IMdmLinkImplFactory;
 import ca.uhn.fhir.mdm.svc.IBulkExportMdmEidMatchOnlyResourceExpander;
@@ -84,6 +86,11 @@ public class MdmJpaConfig {
 		return new MdmLinkDaoJpaImpl();
 	}
 
+	@Bean
+	public IMdmBlockingKeyDao<JpaPid> mdmBlockingKeyDao() {
+		return new MdmBlockingKeyDaoJpaImpl();
+	}
+
 	@Bean
 	public BulkExportMdmFullResourceExpander bulkExportMDMResourceExpander(
 			MdmExpansionCacheSvc theMdmExpansionCacheSvc,
@@ -509,7 +509,7 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 
 		if (isNotBlank(theMatchUrl) && theProcessMatchUrl) {
 			Set<JpaPid> match = myMatchResourceUrlService.processMatchUrl(
-					theMatchUrl, myResourceType, theTransactionDetails, theRequest, theRequestPartitionId);
+					theMatchUrl, myResourceType, theTransactionDetails, theRequest, null, theRequestPartitionId, true);
 			ourLog.trace("Resolving match URL {} found: {}", theMatchUrl, match);
 			if (match.size() > 1) {
 				String msg = getContext()
@@ -2276,6 +2276,21 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 			IIdType theId,
 			@Nonnull RequestPartitionId theRequestPartitionId,
 			TransactionDetails theTransactionDetails) {
+		return readEntityLatestVersion(
+				theRequestDetails,
+				theId,
+				theRequestPartitionId,
+				theTransactionDetails,
+				ResolveIdentityMode.includeDeleted().cacheOk());
+	}
+
+	@Nonnull
+	private ResourceTable readEntityLatestVersion(
+			RequestDetails theRequestDetails,
+			IIdType theId,
+			@Nonnull RequestPartitionId theRequestPartitionId,
+			TransactionDetails theTransactionDetails,
+			ResolveIdentityMode theResolveIdentityMode) {
 		HapiTransactionService.requireTransaction();
 
 		IIdType id = theId;
@@ -2296,10 +2311,7 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 
 		if (persistentId == null) {
 			persistentId = myIdHelperService.resolveResourceIdentityPid(
-					theRequestPartitionId,
-					id.getResourceType(),
-					id.getIdPart(),
-					ResolveIdentityMode.includeDeleted().cacheOk());
+					theRequestPartitionId, id.getResourceType(), id.getIdPart(), theResolveIdentityMode);
 		}
 
 		ResourceTable entity = myEntityManager.find(ResourceTable.class, persistentId);
@@ -2816,7 +2828,13 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 		if (isNotBlank(theMatchUrl)) {
 			// Validate that the supplied resource matches the conditional.
 			Set<JpaPid> match = myMatchResourceUrlService.processMatchUrl(
-					theMatchUrl, myResourceType, theTransactionDetails, theRequest, theResource, theRequestPartitionId);
+					theMatchUrl,
+					myResourceType,
+					theTransactionDetails,
+					theRequest,
+					theResource,
+					theRequestPartitionId,
+					true);
 			if (match.size() > 1) {
 				String msg = getContext()
 						.getLocalizer()
@@ -2897,8 +2915,13 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 					create = true;
 				} else {
 					try {
+						// We create the resource if it isn't found, so the existence filter is safe to use
 						entity = readEntityLatestVersion(
-								theRequest, resourceId, theRequestPartitionId, theTransactionDetails);
+								theRequest,
+								resourceId,
+								theRequestPartitionId,
+								theTransactionDetails,
+								ResolveIdentityMode.includeDeleted().cacheOk().withExistenceFilter());
 						if (myPartitionSettings.isPartitioningEnabled()) {
 							validatePartitionIdMatch(theResource.getIdElement(), theRequestPartitionId, entity);
 						}
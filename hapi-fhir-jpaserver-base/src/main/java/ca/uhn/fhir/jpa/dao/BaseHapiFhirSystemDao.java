@@ -45,9 +45,11 @@ import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
 import ca.uhn.fhir.rest.server.exceptions.MethodNotAllowedException;
 import ca.uhn.fhir.util.StopWatch;
+import ca.uhn.fhir.util.ThreadPoolUtil;
 import com.google.common.annotations.VisibleForTesting;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.PersistenceContextType;
@@ -56,9 +58,11 @@ import jakarta.persistence.TypedQuery;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -100,11 +104,21 @@ public abstract class BaseHapiFhirSystemDao<T extends IBaseBundle, MT> extends B
 	@Autowired
 	private IHapiTransactionService myTransactionService;
 
+	@Autowired
+	private IJpaStorageResourceParser myJpaStorageResourceParser;
+
+	private ThreadPoolTaskExecutor myPreParseExecutor;
+
 	@VisibleForTesting
 	public void setTransactionProcessorForUnitTest(TransactionProcessor theTransactionProcessor) {
 		myTransactionProcessor = theTransactionProcessor;
 	}
 
+	@VisibleForTesting
+	public void setJpaStorageResourceParserForUnitTest(IJpaStorageResourceParser theJpaStorageResourceParser) {
+		myJpaStorageResourceParser = theJpaStorageResourceParser;
+	}
+
 	@Override
 	@Transactional(propagation = Propagation.NEVER)
 	public ExpungeOutcome expunge(ExpungeOptions theExpungeOptions, RequestDetails theRequestDetails) {
@@ -185,10 +199,25 @@ public abstract class BaseHapiFhirSystemDao<T extends IBaseBundle, MT> extends B
 	 * @param theResolvedIds the pids
 	 * @param thePreFetchIndexes Should resource indexes be loaded
 	 */
-	@SuppressWarnings("rawtypes")
 	@Override
 	public <P extends IResourcePersistentId> void preFetchResources(
 			List<P> theResolvedIds, boolean thePreFetchIndexes) {
+		preFetchResources(theResolvedIds, thePreFetchIndexes, false);
+	}
+
+	/**
+	 * Prefetch entities into the Hibernate session, and optionally parse the
+	 * current version of each resource ahead of time using a pool of
+	 * {@link JpaStorageSettings#getReindexParseThreadCount()} threads.
+	 *
+	 * @param theResolvedIds the pids
+	 * @param thePreFetchIndexes Should resource indexes be loaded
+	 * @param thePreParseResources Should the resource bodies be parsed
+	 */
+	@SuppressWarnings("rawtypes")
+	@Override
+	public <P extends IResourcePersistentId> void preFetchResources(
+			List<P> theResolvedIds, boolean thePreFetchIndexes, boolean thePreParseResources) {
 		HapiTransactionService.requireTransaction();
 		List<JpaPid> pids = theResolvedIds.stream().map(t -> ((JpaPid) t)).collect(Collectors.toList());
 
@@ -217,6 +246,9 @@ public abstract class BaseHapiFhirSystemDao<T extends IBaseBundle, MT> extends B
 				 */
 				if (!myStorageSettings.isMassIngestionMode()) {
 					entityChunk = prefetchResourceTableAndHistory(idChunk);
+					if (thePreParseResources) {
+						preParseResources(entityChunk);
+					}
 				}
 
 				if (thePreFetchIndexes) {
@@ -278,6 +310,44 @@ public abstract class BaseHapiFhirSystemDao<T extends IBaseBundle, MT> extends B
 		});
 	}
 
+	/**
+	 * Parse the current version of each resource on the pre-parse thread pool. The
+	 * parsed resources are stored on the history entities, and picked up from there
+	 * when the resources are converted later in the transaction.
+	 */
+	private void preParseResources(List<ResourceTable> theEntities) {
+		if (myStorageSettings.getReindexParseThreadCount() <= 1 || theEntities.size() < 2) {
+			return;
+		}
+
+		List<ResourceHistoryTable> versions = new ArrayList<>(theEntities.size());
+		for (ResourceTable next : theEntities) {
+			if (next.getCurrentVersionEntity() != null) {
+				versions.add(next.getCurrentVersionEntity());
+			}
+		}
+
+		StopWatch sw = new StopWatch();
+		myJpaStorageResourceParser.preParseResources(versions, getPreParseExecutor());
+		ourLog.debug("Pre-parsed {} resources in {}", versions.size(), sw);
+	}
+
+	private synchronized ThreadPoolTaskExecutor getPreParseExecutor() {
+		if (myPreParseExecutor == null) {
+			myPreParseExecutor =
+					ThreadPoolUtil.newThreadPool(myStorageSettings.getReindexParseThreadCount(), "resource-pre-parse");
+		}
+		return myPreParseExecutor;
+	}
+
+	@PreDestroy
+	public synchronized void shutdownPreParseExecutor() {
+		if (myPreParseExecutor != null) {
+			myPreParseExecutor.shutdown();
+			myPreParseExecutor = null;
+		}
+	}
+
 	@Nonnull
 	private List<ResourceTable> prefetchResourceTableAndHistory(List<JpaPid> idChunk) {
 		assert idChunk.size() < SearchConstants.MAX_PAGE_SIZE : "assume pre-chunked";
@@ -22,11 +22,13 @@ package ca.uhn.fhir.jpa.dao;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.BaseTag;
 import ca.uhn.fhir.jpa.model.entity.IBaseResourceEntity;
+import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import jakarta.annotation.Nullable;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import java.util.Collection;
+import java.util.concurrent.Executor;
 
 public interface IJpaStorageResourceParser extends IStorageResourceParser<JpaPid> {
 
@@ -60,4 +62,15 @@ public interface IJpaStorageResourceParser extends IStorageResourceParser<JpaPid
 	 * @param theResourceTarget The target
 	 */
 	void updateResourceMetadata(IBaseResourceEntity<?> theEntitySource, IBaseResource theResourceTarget);
+
+	/**
+	 * Decodes and parses the bodies of the given resource versions on the given executor, and
+	 * stores each parsed body on its entity (see {@link ResourceHistoryTable#setPreParsedResource(IBaseResource)})
+	 * so that a subsequent call to {@link #toResource(RequestDetails, Class, IBaseResourceEntity, Collection, boolean)}
+	 * for the same version doesn't need to parse it again. Versions which can't be parsed
+	 * ahead of time are skipped, and will be parsed as usual.
+	 *
+	 * @since 8.12.0
+	 */
+	void preParseResources(Collection<ResourceHistoryTable> theVersions, Executor theExecutor);
 }
@@ -75,6 +75,9 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static ca.uhn.fhir.jpa.util.ResourceParserUtil.EsrResourceDetails;
 import static ca.uhn.fhir.jpa.util.ResourceParserUtil.getResourceText;
@@ -129,6 +132,7 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 		ResourceEncodingEnum resourceEncoding;
 		@Nullable Collection<? extends BaseTag> tagList;
 		long version;
+		IBaseResource preParsedResource;
 		String provenanceSourceUri = null;
 		String provenanceRequestId = null;
 
@@ -147,6 +151,7 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 			}
 
 			version = history.getVersion();
+			preParsedResource = history.getPreParsedResourceAndClear();
 			ProvenanceDetails provenanceDetails = myResourceMetadataExtractorSvc.getProvenanceDetails(history);
 			provenanceSourceUri = provenanceDetails.provenanceSourceUri();
 			provenanceRequestId = provenanceDetails.provenanceRequestId();
@@ -178,6 +183,7 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 			resourceText = history.getResourceTextVc();
 			tagList = myResourceMetadataExtractorSvc.getTags(entity);
 			version = history.getVersion();
+			preParsedResource = history.getPreParsedResourceAndClear();
 			ProvenanceDetails provenanceDetails = myResourceMetadataExtractorSvc.getProvenanceDetails(history);
 			provenanceSourceUri = provenanceDetails.provenanceSourceUri();
 			provenanceRequestId = provenanceDetails.provenanceRequestId();
@@ -186,14 +192,17 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 			return null;
 		}
 
-		// 2. get The text
-		String decodedResourceText = getResourceText(resourceBytes, resourceText, resourceEncoding);
-
-		// 3. Use the appropriate custom type if one is specified in the context
+		// 2. Use the appropriate custom type if one is specified in the context
 		Class<R> resourceType = ResourceParserUtil.determineTypeToParse(myFhirContext, theResourceType, tagList);
 
-		// 4. parse the text to FHIR
-		R retVal = parseResource(theEntity, resourceEncoding, decodedResourceText, resourceType);
+		// 3. get the text and parse it to FHIR, unless that has already been done ahead of time
+		R retVal;
+		if (preParsedResource != null && preParsedResource.getClass().equals(resourceType)) {
+			retVal = resourceType.cast(preParsedResource);
+		} else {
+			String decodedResourceText = getResourceText(resourceBytes, resourceText, resourceEncoding);
+			retVal = parseResource(theEntity, resourceEncoding, decodedResourceText, resourceType);
+		}
 
 		// 5. fill MetaData
 		retVal = populateResourceMetadata(theEntity, theForHistoryOperation, tagList, version, retVal);
@@ -210,6 +219,54 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 		return retVal;
 	}
 
+	@Override
+	public void preParseResources(Collection<ResourceHistoryTable> theVersions, Executor theExecutor) {
+		if (myFhirContext.hasDefaultTypeForProfile()) {
+			// The type to parse into depends on the tags, so leave these to toResource()
+			return;
+		}
+
+		List<ResourceHistoryTable> versions = new ArrayList<>(theVersions.size());
+		List<CompletableFuture<IBaseResource>> futures = new ArrayList<>(theVersions.size());
+		for (ResourceHistoryTable next : theVersions) {
+			ResourceEncodingEnum encoding = next.getEncoding();
+			if (encoding == null || encoding == ResourceEncodingEnum.ESR || encoding == ResourceEncodingEnum.DEL) {
+				continue;
+			}
+
+			// Everything is read from the entity on this thread, since the entity
+			// belongs to the Hibernate session. Only the decoding and parsing
+			// happen on the executor.
+			byte[] resourceBytes = next.getResource();
+			String resourceText = next.getResourceTextVc();
+			FhirContext context = getContext(next.getFhirVersion());
+			Class<? extends IBaseResource> resourceType =
+					context.getResourceDefinition(next.getResourceType()).getImplementingClass();
+			JpaPid resourcePid = next.getResourceId();
+
+			versions.add(next);
+			futures.add(CompletableFuture.supplyAsync(
+					() -> {
+						String decodedResourceText = getResourceText(resourceBytes, resourceText, encoding);
+						IParser parser = new TolerantJsonParser(context, LENIENT_ERROR_HANDLER, resourcePid);
+						return parser.parseResource(resourceType, decodedResourceText);
+					},
+					theExecutor));
+		}
+
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				versions.get(i).setPreParsedResource(futures.get(i).join());
+			} catch (CompletionException e) {
+				// This resource will be parsed again by toResource(), which reports the failure properly
+				ourLog.debug(
+						"Failed to pre-parse resource with PID {}",
+						versions.get(i).getResourceId(),
+						e);
+			}
+		}
+	}
+
 	private <R extends IBaseResource> void populateResourcePartitionInformation(
 			IBaseResourceEntity theEntity, R retVal) {
 		if (myPartitionSettings.isPartitioningEnabled()) {
@@ -0,0 +1,78 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.data;
+
+import ca.uhn.fhir.jpa.entity.MdmBlockingKey;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface IMdmBlockingKeyJpaRepository
+		extends JpaRepository<MdmBlockingKey, MdmBlockingKey.MdmBlockingKeyPk>, IHapiFhirJpaRepository {
+
+	/**
+	 * Returns the distinct (resource PID, partition ID) pairs of the resources of the given type
+	 * which have at least one of the given keys
+	 */
+	@Query(
+			"SELECT DISTINCT k.myId.myResourcePid, k.myPartitionId FROM MdmBlockingKey k WHERE k.myId.myKeyHash IN :hashes AND k.myResourceType = :res_type")
+	List<Object[]> findResourcePidsByKeyHashes(
+			@Param("res_type") String theResourceType,
+			@Param("hashes") Collection<Long> theKeyHashes,
+			Pageable thePage);
+
+	/**
+	 * Like {@link #findResourcePidsByKeyHashes(String, Collection, Pageable)}, but only for the resources
+	 * in the given partitions
+	 */
+	@Query(
+			"SELECT DISTINCT k.myId.myResourcePid, k.myPartitionId FROM MdmBlockingKey k WHERE k.myId.myKeyHash IN :hashes AND k.myResourceType = :res_type AND k.myPartitionId IN :partition_ids")
+	List<Object[]> findResourcePidsByKeyHashesAndPartitionIds(
+			@Param("res_type") String theResourceType,
+			@Param("hashes") Collection<Long> theKeyHashes,
+			@Param("partition_ids") Collection<Integer> thePartitionIds,
+			Pageable thePage);
+
+	/**
+	 * Like {@link #findResourcePidsByKeyHashes(String, Collection, Pageable)}, but only for the resources
+	 * without a partition ID
+	 */
+	@Query(
+			"SELECT DISTINCT k.myId.myResourcePid, k.myPartitionId FROM MdmBlockingKey k WHERE k.myId.myKeyHash IN :hashes AND k.myResourceType = :res_type AND k.myPartitionId IS NULL")
+	List<Object[]> findResourcePidsByKeyHashesAndNullPartitionId(
+			@Param("res_type") String theResourceType,
+			@Param("hashes") Collection<Long> theKeyHashes,
+			Pageable thePage);
+
+	@Query("SELECT k.myId.myKeyHash FROM MdmBlockingKey k WHERE k.myId.myResourcePid = :pid")
+	List<Long> findKeyHashesByResourcePid(@Param("pid") Long theResourcePid);
+
+	@Modifying
+	@Query("DELETE FROM MdmBlockingKey k WHERE k.myId.myResourcePid = :pid AND k.myId.myKeyHash IN :hashes")
+	@CanIgnoreReturnValue
+	int deleteByResourcePidAndKeyHashes(
+			@Param("pid") Long theResourcePid, @Param("hashes") Collection<Long> theKeyHashes);
+}
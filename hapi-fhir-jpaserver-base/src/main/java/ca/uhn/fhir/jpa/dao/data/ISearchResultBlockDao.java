@@ -0,0 +1,51 @@
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.data;
+
+import ca.uhn.fhir.jpa.entity.SearchResultBlock;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ISearchResultBlockDao
+		extends JpaRepository<SearchResultBlock, SearchResultBlock.BlockPk>, IHapiFhirJpaRepository {
+
+	/**
+	 * Returns the blocks for the given search which overlap the result positions
+	 * <code>[theFrom, theTo)</code>, in result order
+	 */
+	@Query(
+			"SELECT b FROM SearchResultBlock b WHERE b.myId.mySearchPid = :search AND b.myId.myFirstOrder < :to AND b.myId.myFirstOrder + b.myResultCount > :from ORDER BY b.myId.myFirstOrder ASC")
+	List<SearchResultBlock> findOverlappingRange(
+			@Param("search") Long theSearchPid, @Param("from") int theFrom, @Param("to") int theTo);
+
+	@Query("SELECT b FROM SearchResultBlock b WHERE b.myId.mySearchPid = :search ORDER BY b.myId.myFirstOrder ASC")
+	List<SearchResultBlock> findAllForSearch(@Param("search") Long theSearchPid);
+
+	@Modifying
+	@Query("DELETE FROM SearchResultBlock b WHERE b.myId.mySearchPid IN :searchIds")
+	@CanIgnoreReturnValue
+	int deleteBySearchIds(@Param("searchIds") Collection<Long> theSearchIds);
+}
@@ -0,0 +1,92 @@
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.data;
+
+import ca.uhn.fhir.jpa.entity.TermConcept;
+import ca.uhn.fhir.jpa.entity.TermConceptClosure;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ITermConceptClosureDao
+		extends JpaRepository<TermConceptClosure, TermConceptClosure.TermConceptClosurePk>, IHapiFhirJpaRepository {
+
+	/**
+	 * Returns <code>true</code> if the closure rows for the given concept have been generated
+	 */
+	@Query(
+			"SELECT COUNT(c) > 0 FROM TermConceptClosure c WHERE c.myId.myAncestorPid = :pid AND c.myId.myDescendantPid = :pid")
+	boolean hasClosure(@Param("pid") Long theConceptPid);
+
+	/**
+	 * Returns <code>true</code> if the given ancestor is a strict ancestor of the given descendant
+	 */
+	@Query(
+			"SELECT COUNT(c) > 0 FROM TermConceptClosure c WHERE c.myId.myAncestorPid = :ancestor AND c.myId.myDescendantPid = :descendant AND c.myDepth > 0")
+	boolean isStrictAncestor(@Param("ancestor") Long theAncestorPid, @Param("descendant") Long theDescendantPid);
+
+	/**
+	 * Returns the given concept and all of its descendants
+	 */
+	@Query(
+			"SELECT t FROM TermConcept t WHERE t.myId.myId IN (SELECT c.myId.myDescendantPid FROM TermConceptClosure c WHERE c.myId.myAncestorPid = :pid)")
+	List<TermConcept> findSelfAndDescendantConcepts(@Param("pid") Long theConceptPid);
+
+	/**
+	 * Returns the given concept and all of its ancestors
+	 */
+	@Query(
+			"SELECT t FROM TermConcept t WHERE t.myId.myId IN (SELECT c.myId.myAncestorPid FROM TermConceptClosure c WHERE c.myId.myDescendantPid = :pid)")
+	List<TermConcept> findSelfAndAncestorConcepts(@Param("pid") Long theConceptPid);
+
+	/**
+	 * Returns one page of the PIDs of the descendants of the given concept which are at least
+	 * the given depth below it, in ascending PID order and starting after the given PID
+	 */
+	@Query(
+			"SELECT c.myId.myDescendantPid FROM TermConceptClosure c WHERE c.myId.myAncestorPid = :ancestor AND c.myDepth >= :minDepth AND c.myId.myDescendantPid > :after ORDER BY c.myId.myDescendantPid ASC")
+	List<Long> findDescendantPids(
+			@Param("ancestor") Long theAncestorPid,
+			@Param("minDepth") int theMinDepth,
+			@Param("after") Long theAfterPid,
+			Pageable thePage);
+
+	/**
+	 * Returns <code>true</code> if any closure rows exist for the given code system version
+	 */
+	@Query("SELECT COUNT(c) > 0 FROM TermConceptClosure c WHERE c.myCodeSystemVersionPid = :cs_pid")
+	boolean existsByCodeSystemVersion(@Param("cs_pid") Long theCodeSystemVersionPid);
+
+	@Modifying
+	@Query("DELETE FROM TermConceptClosure c WHERE c.myId.myDescendantPid IN :pids")
+	@CanIgnoreReturnValue
+	int deleteByDescendantPids(@Param("pids") Collection<Long> theDescendantPids);
+
+	@Modifying
+	@Query("DELETE FROM TermConceptClosure c WHERE c.myCodeSystemVersionPid = :cs_pid")
+	@CanIgnoreReturnValue
+	int deleteByCodeSystemVersion(@Param("cs_pid") Long theCodeSystemVersionPid);
+}
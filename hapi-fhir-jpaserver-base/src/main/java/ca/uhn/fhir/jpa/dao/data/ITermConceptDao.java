@@ -85,6 +85,12 @@ public interface ITermConceptDao extends JpaRepository<TermConcept, TermConcept.
 	Optional<TermConcept> findByCodeSystemAndCode(
 			@Param("csv_pid") Long theCodeSystemVersionPid, @Param("code") String theCode);
 
+	/**
+	 * Returns the code and display of every concept in the given code system version
+	 */
+	@Query("SELECT c.myCode, c.myDisplay FROM TermConcept c WHERE c.myCodeSystemVersionPid = :csv_pid")
+	Stream<Object[]> streamCodesAndDisplaysByCodeSystemVersion(@Param("csv_pid") Long theCodeSystemVersionPid);
+
 	@Query("FROM TermConcept WHERE myCodeSystemVersionPid = :csv_pid AND myCode in (:codeList)")
 	List<TermConcept> findByCodeSystemAndCodeList(
 			@Param("csv_pid") Long theCodeSystemVersionPid, @Param("codeList") List<String> theCodeList);
@@ -34,23 +34,32 @@ import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
 import ca.uhn.fhir.jpa.sp.SearchParamIdentityCacheSvcImpl;
 import ca.uhn.fhir.jpa.util.AddRemoveCount;
+import ca.uhn.fhir.jpa.util.QueryChunker;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
 import com.google.common.annotations.VisibleForTesting;
 import jakarta.annotation.Nullable;
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.PersistenceContextType;
+import jakarta.persistence.Query;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Service
@@ -74,6 +83,9 @@ public class DaoSearchParamSynchronizer {
 	@Autowired
 	private IHapiTransactionService myTransactionService;
 
+	@Autowired(required = false)
+	private ResourceExistenceBloomFilterSvc myResourceExistenceBloomFilterSvc;
+
 	private UniqueIndexPreExistenceChecker myUniqueIndexPreExistenceChecker;
 
 	@PostConstruct
@@ -106,6 +118,9 @@ public class DaoSearchParamSynchronizer {
 				theParams.myTokenParams,
 				existingParams.myTokenParams,
 				null);
+		if (myResourceExistenceBloomFilterSvc != null) {
+			myResourceExistenceBloomFilterSvc.addIdentifiers(theParams.myTokenParams);
+		}
 		synchronize(
 				theRequestDetails,
 				theTransactionDetails,
@@ -238,12 +253,13 @@ public class DaoSearchParamSynchronizer {
 		 * remove them.
 		 */
 		Set<T> existingParamsAsSet = new HashSet<>(theExistingParams.size());
+		List<T> duplicatesToRemove = new ArrayList<>();
 		for (Iterator<T> iterator = theExistingParams.iterator(); iterator.hasNext(); ) {
 			T next = iterator.next();
 			next.setPlaceholderHashesIfMissing();
 			if (!existingParamsAsSet.add(next)) {
 				iterator.remove();
-				myEntityManager.remove(next);
+				duplicatesToRemove.add(next);
 			}
 		}
 
@@ -263,6 +279,8 @@ public class DaoSearchParamSynchronizer {
 		tryToReuseIndexEntities(paramsToRemove, paramsToAdd);
 		updateExistingParamsIfRequired(theExistingParams, paramsToAdd, newParams, paramsToRemove);
 
+		List<T> entitiesToRemove = new ArrayList<>(duplicatesToRemove.size() + paramsToRemove.size());
+		entitiesToRemove.addAll(duplicatesToRemove);
 		for (T next : paramsToRemove) {
 			if (!myEntityManager.contains(next)) {
 				// If a resource is created and deleted in the same transaction, we can end up
@@ -270,8 +288,9 @@ public class DaoSearchParamSynchronizer {
 				// 6 is stricter about this, so we skip here.
 				continue;
 			}
-			myEntityManager.remove(next);
+			entitiesToRemove.add(next);
 		}
+		removeIndexEntities(entitiesToRemove);
 
 		for (T next : paramsToAdd) {
 			findOrCreateSearchParamIdentity(next);
@@ -295,6 +314,71 @@ public class DaoSearchParamSynchronizer {
 		theNewParams.removeAll(paramsToRemove);
 	}
 
+	/**
+	 * Removes index rows belonging to a single index table. If
+	 * {@link JpaStorageSettings#isIndexRowBulkDeleteEnabled() bulk deletes} are enabled,
+	 * rows which already exist in the database are deleted using one multi-row
+	 * <code>DELETE</code> statement (per chunk of IDs) and then detached from the session,
+	 * instead of scheduling one delete per row. Rows which haven't been written to the
+	 * database yet are always removed through the entity manager so that their pending
+	 * inserts are cancelled.
+	 */
+	private <T extends BaseResourceIndex> void removeIndexEntities(List<T> theEntities) {
+		List<T> entitiesToRemoveIndividually = theEntities;
+
+		if (myStorageSettings.isIndexRowBulkDeleteEnabled() && theEntities.size() > 1) {
+			SessionImplementor session = myEntityManager.unwrap(SessionImplementor.class);
+			List<T> entitiesToBulkDelete = new ArrayList<>(theEntities.size());
+			entitiesToRemoveIndividually = new ArrayList<>();
+			for (T next : theEntities) {
+				EntityEntry entry = session.getPersistenceContextInternal().getEntry(next);
+				if (entry != null && entry.getStatus() == Status.MANAGED && entry.isExistsInDatabase()) {
+					entitiesToBulkDelete.add(next);
+				} else {
+					entitiesToRemoveIndividually.add(next);
+				}
+			}
+
+			if (!entitiesToBulkDelete.isEmpty()) {
+				String entityName = myEntityManager
+						.getMetamodel()
+						.entity(Hibernate.getClass(entitiesToBulkDelete.get(0)))
+						.getName();
+				// The index tables are keyed (and partitioned) on the partition ID, so include it
+				// in the WHERE clause. All rows normally belong to the same resource, and so to
+				// the same partition.
+				Map<Integer, List<T>> partitionIdToEntities = new HashMap<>();
+				for (T next : entitiesToBulkDelete) {
+					partitionIdToEntities
+							.computeIfAbsent(next.getPartitionId().getPartitionId(), t -> new ArrayList<>())
+							.add(next);
+				}
+				partitionIdToEntities.forEach((partitionId, entities) -> {
+					String partitionPredicate = partitionId != null
+							? "e.myPartitionIdValue = :partitionId"
+							: "e.myPartitionIdValue IS NULL";
+					String jpql = "DELETE FROM " + entityName + " e WHERE e.myId IN (:ids) AND " + partitionPredicate;
+					QueryChunker.chunk(entities, chunk -> {
+						List<Long> ids = chunk.stream().map(BaseResourceIndex::getId).toList();
+						// The rows being deleted are already in the database, so there is no
+						// need to flush pending changes before the delete
+						Query query = myEntityManager
+								.createQuery(jpql)
+								.setFlushMode(FlushModeType.COMMIT)
+								.setParameter("ids", ids);
+						if (partitionId != null) {
+							query.setParameter("partitionId", partitionId);
+						}
+						query.executeUpdate();
+					});
+				});
+				entitiesToBulkDelete.forEach(myEntityManager::detach);
+			}
+		}
+
+		entitiesToRemoveIndividually.forEach(myEntityManager::remove);
+	}
+
 	/**
 	 * Checks whether the Indexed Search Parameter hash identity exists in the cache.
 	 * If the identity is missing, a new {@link IndexedSearchParamIdentity} will be
@@ -129,6 +129,9 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 	@Autowired
 	private PartitionSettings myPartitionSettings;
 
+	@Autowired(required = false)
+	private ResourceExistenceBloomFilterSvc myResourceExistenceBloomFilterSvc;
+
 	private boolean myDontCheckActiveTransactionForUnitTest;
 
 	@VisibleForTesting
@@ -227,6 +230,15 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 			resolveResourceIdentitiesForFhirIdsUsingCache(requestPartitionId, theMode, ids, idToLookup);
 		}
 
+		// Skip IDs which have never been stored, if the caller is going to create them anyhow
+		if (!ids.isEmpty()
+				&& theMode.isUseExistenceFilter()
+				&& myResourceExistenceBloomFilterSvc != null
+				&& myResourceExistenceBloomFilterSvc.isReady()) {
+			ids.removeIf(id -> id.hasResourceType()
+					&& myResourceExistenceBloomFilterSvc.isDefinitelyAbsent(id.getResourceType(), id.getIdPart()));
+		}
+
 		// We still haven't found IDs, let's look them up in the DB
 		if (!ids.isEmpty()) {
 			myTransactionService
@@ -566,6 +578,10 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 			populateAssociatedResourceId(theResourceType, theFhirId, theJpaPid);
 		}
 
+		if (myResourceExistenceBloomFilterSvc != null) {
+			myResourceExistenceBloomFilterSvc.addResourceId(theResourceType, theFhirId);
+		}
+
 		myMemoryCacheService.putAfterCommit(
 				MemoryCacheService.CacheEnum.PID_TO_FORCED_ID,
 				theJpaPid,
@@ -578,6 +594,9 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 				new MemoryCacheService.ForcedIdCacheKey(theResourceType, theFhirId, theRequestPartitionId);
 		myMemoryCacheService.putAfterCommit(
 				MemoryCacheService.CacheEnum.RESOURCE_LOOKUP_BY_FORCED_ID, fhirIdKey, List.of(lookup));
+		// Other servers may have cached this resource in a different state (e.g. not deleted)
+		myMemoryCacheService.invalidateKeyOnOtherServersAfterCommit(
+				MemoryCacheService.CacheEnum.RESOURCE_LOOKUP_BY_FORCED_ID, fhirIdKey);
 
 		// If it's a pure-numeric ID, store it in the cache without a type as well
 		// so that we can resolve it this way when loading entities for update
@@ -587,6 +606,8 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 					new MemoryCacheService.ForcedIdCacheKey(null, theFhirId, theRequestPartitionId);
 			myMemoryCacheService.putAfterCommit(
 					MemoryCacheService.CacheEnum.RESOURCE_LOOKUP_BY_FORCED_ID, fhirIdKeyWithoutType, List.of(lookup));
+			myMemoryCacheService.invalidateKeyOnOtherServersAfterCommit(
+					MemoryCacheService.CacheEnum.RESOURCE_LOOKUP_BY_FORCED_ID, fhirIdKeyWithoutType);
 		}
 	}
 
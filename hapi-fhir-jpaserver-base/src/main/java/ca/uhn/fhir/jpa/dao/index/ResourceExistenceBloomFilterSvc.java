@@ -0,0 +1,339 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.index;
+
+import ca.uhn.fhir.context.ConfigurationException;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.IResourceExistenceFilter;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.util.StopWatch;
+import ca.uhn.fhir.util.ThreadPoolUtil;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceContextType;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Keeps Bloom filters over the FHIR IDs of every stored resource and over the
+ * <code>identifier</code> token hashes of every stored resource, so that lookups
+ * for resources which don't exist yet (e.g. conditional creates on an identifier,
+ * or client-assigned IDs being created with an update) can skip the database.
+ * <p>
+ * The filters are populated from the resource and token index tables in a
+ * background thread when the server starts, and entries are added as resources
+ * are created and indexed. Until the initial load has finished, every lookup goes
+ * to the database. Entries are never removed, so
+ * deleted resources and false positives simply cause a normal database lookup.
+ * </p>
+ * <p>
+ * The filters only know about resources written through this server process,
+ * so they are only used when {@link JpaStorageSettings#isResourceExistenceBloomFilterSingleWriter()}
+ * declares that a single server writes to the database. They are also only
+ * consulted by callers which create the resource if no match is found, never
+ * by reads.
+ * </p>
+ *
+ * @see JpaStorageSettings#setResourceExistenceBloomFilterEnabled(boolean)
+ * @since 8.12.0
+ */
+public class ResourceExistenceBloomFilterSvc implements IResourceExistenceFilter {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(ResourceExistenceBloomFilterSvc.class);
+	static final String IDENTIFIER_PARAM = "identifier";
+	private static final int FETCH_SIZE = 10_000;
+
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+
+	@Autowired
+	private PartitionSettings myPartitionSettings;
+
+	@Autowired
+	private FhirContext myFhirContext;
+
+	@Autowired
+	private IHapiTransactionService myTransactionService;
+
+	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
+	private EntityManager myEntityManager;
+
+	private volatile BloomFilter<CharSequence> myResourceIdFilter;
+	private volatile BloomFilter<Long> myIdentifierFilter;
+	private volatile boolean myReady;
+	private ThreadPoolTaskExecutor myExecutor;
+
+	@EventListener(classes = {ContextRefreshedEvent.class})
+	public void start() {
+		if (!myStorageSettings.isResourceExistenceBloomFilterEnabled() || myExecutor != null) {
+			return;
+		}
+		if (!myStorageSettings.isResourceExistenceBloomFilterSingleWriter()) {
+			throw new ConfigurationException(Msg.code(3010)
+					+ "The resource existence Bloom filter can only be enabled if this server is declared as the single writer, see JpaStorageSettings#setResourceExistenceBloomFilterSingleWriter(boolean)");
+		}
+		myExecutor = ThreadPoolUtil.newThreadPool(1, "resource-existence-filter");
+		myExecutor.execute(this::rebuild);
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (myExecutor != null) {
+			myExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * Discards the current filters and reloads them from the database. Lookups go
+	 * to the database until this method returns.
+	 */
+	@VisibleForTesting
+	public void rebuild() {
+		myReady = false;
+		long expectedInsertions = myStorageSettings.getResourceExistenceBloomFilterExpectedInsertions();
+		double fpp = myStorageSettings.getResourceExistenceBloomFilterFalsePositiveRate();
+
+		/*
+		 * The new filters are published before loading so that resources committed
+		 * while the load is running aren't missed
+		 */
+		myResourceIdFilter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, fpp);
+		myIdentifierFilter = isIdentifierFilterSupported()
+				? BloomFilter.create(Funnels.longFunnel(), expectedInsertions, fpp)
+				: null;
+
+		StopWatch sw = new StopWatch();
+		try {
+			long resourceCount = loadResourceIds();
+			long identifierCount = loadIdentifiers();
+			myReady = true;
+			ourLog.info(
+					"Loaded resource existence filters with {} resource IDs and {} identifiers in {}",
+					resourceCount,
+					identifierCount,
+					sw);
+		} catch (Exception e) {
+			ourLog.error("Failed to load resource existence filters, lookups will use the database", e);
+		}
+	}
+
+	private long loadResourceIds() {
+		BloomFilter<CharSequence> filter = myResourceIdFilter;
+		return myTransactionService
+				.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+				.readOnly()
+				.execute(() -> {
+					long count = 0;
+					try (Stream<Object[]> rows = myEntityManager
+							.createQuery("SELECT r.myResourceType, r.myFhirId FROM ResourceTable r", Object[].class)
+							.setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+							.setHint(HibernateHints.HINT_READ_ONLY, true)
+							.getResultStream()) {
+						for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+							filter.put(toResourceIdKey((String) row[0], (String) row[1]));
+							count++;
+						}
+					}
+					return count;
+				});
+	}
+
+	private long loadIdentifiers() {
+		BloomFilter<Long> filter = myIdentifierFilter;
+		if (filter == null) {
+			return 0;
+		}
+
+		List<Long> hashIdentities = new ArrayList<>();
+		for (String resourceType : myFhirContext.getResourceTypes()) {
+			hashIdentities.add(BaseResourceIndexedSearchParam.calculateHashIdentity(
+					myPartitionSettings,
+					myPartitionSettings.getDefaultRequestPartitionId(),
+					resourceType,
+					IDENTIFIER_PARAM));
+		}
+
+		return myTransactionService
+				.withSystemRequestOnPartition(RequestPartitionId.allPartitions())
+				.readOnly()
+				.execute(() -> {
+					long count = 0;
+					try (Stream<Long> rows = myEntityManager
+							.createQuery(
+									"SELECT t.myHashSystemAndValue FROM ResourceIndexedSearchParamToken t WHERE t.myHashIdentity IN (:hash_identities)",
+									Long.class)
+							.setParameter("hash_identities", hashIdentities)
+							.setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+							.setHint(HibernateHints.HINT_READ_ONLY, true)
+							.getResultStream()) {
+						for (Long next : (Iterable<Long>) rows::iterator) {
+							if (next != null) {
+								filter.put(next);
+								count++;
+							}
+						}
+					}
+					return count;
+				});
+	}
+
+	/**
+	 * Identifier hashes only identify a search parameter independently of the
+	 * partition if partition IDs aren't included in the search hashes
+	 */
+	private boolean isIdentifierFilterSupported() {
+		return !myPartitionSettings.isIncludePartitionInSearchHashes();
+	}
+
+	/**
+	 * Returns <code>true</code> if the filters are enabled for a single writer and have finished loading
+	 */
+	public boolean isReady() {
+		return myReady
+				&& myStorageSettings.isResourceExistenceBloomFilterEnabled()
+				&& myStorageSettings.isResourceExistenceBloomFilterSingleWriter();
+	}
+
+	/**
+	 * Returns <code>true</code> if no resource with the given type and FHIR ID exists,
+	 * in any partition
+	 */
+	public boolean isDefinitelyAbsent(@Nonnull String theResourceType, @Nonnull String theFhirId) {
+		BloomFilter<CharSequence> filter = myResourceIdFilter;
+		return filter != null && isReady() && !filter.mightContain(toResourceIdKey(theResourceType, theFhirId));
+	}
+
+	/**
+	 * Returns <code>true</code> if one of the AND clauses of the given parameters consists
+	 * only of <code>identifier</code> tokens with a system and value, none of which are
+	 * indexed on any resource of the given type.
+	 */
+	@Override
+	public boolean isDefinitelyNoMatch(@Nonnull String theResourceType, @Nonnull SearchParameterMap theParamMap) {
+		BloomFilter<Long> filter = myIdentifierFilter;
+		if (filter == null || !isReady()) {
+			return false;
+		}
+
+		List<List<IQueryParameterType>> andList = theParamMap.get(IDENTIFIER_PARAM);
+		if (andList == null) {
+			return false;
+		}
+
+		for (List<IQueryParameterType> orList : andList) {
+			if (isNoneIndexed(theResourceType, orList, filter)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isNoneIndexed(
+			String theResourceType, List<IQueryParameterType> theOrList, BloomFilter<Long> theFilter) {
+		if (theOrList.isEmpty()) {
+			return false;
+		}
+		for (IQueryParameterType next : theOrList) {
+			if (!(next instanceof TokenParam token)
+					|| token.getModifier() != null
+					|| token.isMdmExpand()
+					|| isBlank(token.getSystem())
+					|| isBlank(token.getValue())) {
+				return false;
+			}
+			long hash = ResourceIndexedSearchParamToken.calculateHashSystemAndValue(
+					myPartitionSettings,
+					myPartitionSettings.getDefaultRequestPartitionId(),
+					theResourceType,
+					IDENTIFIER_PARAM,
+					token.getSystem(),
+					token.getValue());
+			if (theFilter.mightContain(hash)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Records a newly created resource. This is done immediately rather than after the
+	 * current transaction commits, since later operations in the same transaction must
+	 * be able to find the resource. If the transaction rolls back, the stale entry only
+	 * causes a database lookup.
+	 */
+	public void addResourceId(@Nonnull String theResourceType, @Nonnull String theFhirId) {
+		BloomFilter<CharSequence> filter = myResourceIdFilter;
+		if (filter != null) {
+			filter.put(toResourceIdKey(theResourceType, theFhirId));
+		}
+	}
+
+	/**
+	 * Records the <code>identifier</code> tokens of a stored resource
+	 *
+	 * @see #addResourceId(String, String)
+	 */
+	public void addIdentifiers(@Nonnull Collection<ResourceIndexedSearchParamToken> theTokens) {
+		BloomFilter<Long> filter = myIdentifierFilter;
+		if (filter == null) {
+			return;
+		}
+
+		for (ResourceIndexedSearchParamToken next : theTokens) {
+			if (IDENTIFIER_PARAM.equals(next.getParamName())
+					&& isNotBlank(next.getSystem())
+					&& next.getHashSystemAndValue() != null) {
+				filter.put(next.getHashSystemAndValue());
+			}
+		}
+	}
+
+	private static String toResourceIdKey(String theResourceType, String theFhirId) {
+		return theResourceType + "/" + theFhirId;
+	}
+}
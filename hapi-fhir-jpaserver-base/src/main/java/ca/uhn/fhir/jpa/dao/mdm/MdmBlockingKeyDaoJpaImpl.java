@@ -0,0 +1,133 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.mdm;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.dao.data.IMdmBlockingKeyJpaRepository;
+import ca.uhn.fhir.jpa.entity.MdmBlockingKey;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.mdm.dao.IMdmBlockingKeyDao;
+import com.google.common.collect.Lists;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceContextType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class MdmBlockingKeyDaoJpaImpl implements IMdmBlockingKeyDao<JpaPid> {
+
+	/**
+	 * The number of key hashes to include in a single IN clause
+	 */
+	static final int MAX_HASHES_PER_QUERY = 500;
+
+	@Autowired
+	private IMdmBlockingKeyJpaRepository myMdmBlockingKeyRepository;
+
+	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
+	private EntityManager myEntityManager;
+
+	@Override
+	public void replaceBlockingKeys(JpaPid theResourcePid, String theResourceType, Collection<Long> theKeyHashes) {
+		Long resourcePid = theResourcePid.getId();
+		Set<Long> existingHashes = new HashSet<>(myMdmBlockingKeyRepository.findKeyHashesByResourcePid(resourcePid));
+		Set<Long> newHashes = new HashSet<>(theKeyHashes);
+
+		// Most updates don't touch the values that keys are derived from, so only write the difference
+		List<Long> hashesToDelete = new ArrayList<>(existingHashes);
+		hashesToDelete.removeAll(newHashes);
+		for (List<Long> nextChunk : Lists.partition(hashesToDelete, MAX_HASHES_PER_QUERY)) {
+			myMdmBlockingKeyRepository.deleteByResourcePidAndKeyHashes(resourcePid, nextChunk);
+		}
+
+		// The entity has an assigned ID, so saveAll() would merge each new row and SELECT it
+		// first. These keys are known not to exist, so persist them as plain inserts instead.
+		for (Long nextHash : newHashes) {
+			if (!existingHashes.contains(nextHash)) {
+				myEntityManager.persist(
+						new MdmBlockingKey(resourcePid, theResourcePid.getPartitionId(), theResourceType, nextHash));
+			}
+		}
+	}
+
+	@Override
+	public List<JpaPid> findResourcePidsByBlockingKeys(
+			String theResourceType,
+			Collection<Long> theKeyHashes,
+			RequestPartitionId theRequestPartitionId,
+			int theLimit) {
+		Map<Long, JpaPid> retVal = new LinkedHashMap<>();
+		for (List<Long> nextChunk : Lists.partition(new ArrayList<>(theKeyHashes), MAX_HASHES_PER_QUERY)) {
+			if (retVal.size() >= theLimit) {
+				break;
+			}
+			PageRequest page = PageRequest.of(0, theLimit);
+			if (theRequestPartitionId == null
+					|| theRequestPartitionId.isAllPartitions()
+					|| !theRequestPartitionId.hasPartitionIds()) {
+				addRows(
+						retVal,
+						myMdmBlockingKeyRepository.findResourcePidsByKeyHashes(theResourceType, nextChunk, page),
+						theResourceType,
+						theLimit);
+				continue;
+			}
+
+			List<Integer> partitionIds = theRequestPartitionId.getPartitionIdsWithoutDefault();
+			if (!partitionIds.isEmpty()) {
+				addRows(
+						retVal,
+						myMdmBlockingKeyRepository.findResourcePidsByKeyHashesAndPartitionIds(
+								theResourceType, nextChunk, partitionIds, page),
+						theResourceType,
+						theLimit);
+			}
+			if (theRequestPartitionId.getPartitionIds().contains(null) && retVal.size() < theLimit) {
+				addRows(
+						retVal,
+						myMdmBlockingKeyRepository.findResourcePidsByKeyHashesAndNullPartitionId(
+								theResourceType, nextChunk, page),
+						theResourceType,
+						theLimit);
+			}
+		}
+		return new ArrayList<>(retVal.values());
+	}
+
+	private static void addRows(
+			Map<Long, JpaPid> theResourcePidToPid, List<Object[]> theRows, String theResourceType, int theLimit) {
+		for (Object[] nextRow : theRows) {
+			Long resourcePid = (Long) nextRow[0];
+			if (theResourcePidToPid.size() < theLimit && !theResourcePidToPid.containsKey(resourcePid)) {
+				JpaPid pid = JpaPid.fromId(resourcePid, (Integer) nextRow[1]);
+				pid.setResourceType(theResourceType);
+				theResourcePidToPid.put(resourcePid, pid);
+			}
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.entity;
+
+import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One MDM blocking key for an MDM source resource. The key is a hash of the resource type,
+ * one entry from the <code>candidateSearchParams</code> in the MDM rules, and one normalized
+ * value of the resource for each search parameter in that entry. Two resources which share a
+ * key would be found by the candidate search for that entry.
+ * <p>
+ * Rows are replaced whenever a resource is processed by MDM, and can be rebuilt for existing
+ * resources with the <code>MDM_BLOCKING_KEY_REBUILD</code> job. There is no foreign key to the
+ * resource because the table holds derived data, and stale rows are harmless since candidates
+ * are always loaded through a regular search.
+ * </p>
+ *
+ * @since 8.12.0
+ */
+@Entity
+@Table(
+		name = MdmBlockingKey.HFJ_MDM_BLOCK_KEY,
+		indexes = {
+			@Index(name = "IDX_MDM_BLOCK_KEY_HASH", columnList = "KEY_HASH, RES_TYPE, RES_ID, PARTITION_ID")
+		})
+public class MdmBlockingKey implements Serializable {
+
+	public static final String HFJ_MDM_BLOCK_KEY = "HFJ_MDM_BLOCK_KEY";
+	private static final long serialVersionUID = 1L;
+
+	@EmbeddedId
+	private MdmBlockingKeyPk myId;
+
+	@Column(name = "PARTITION_ID", updatable = false, nullable = true)
+	private Integer myPartitionId;
+
+	@Column(name = "RES_TYPE", length = ResourceTable.RESTYPE_LEN, updatable = false, nullable = false)
+	private String myResourceType;
+
+	/**
+	 * Constructor
+	 */
+	public MdmBlockingKey() {
+		// nothing
+	}
+
+	/**
+	 * Constructor
+	 */
+	public MdmBlockingKey(Long theResourcePid, Integer thePartitionId, String theResourceType, long theKeyHash) {
+		myId = new MdmBlockingKeyPk(theResourcePid, theKeyHash);
+		myPartitionId = thePartitionId;
+		myResourceType = theResourceType;
+	}
+
+	public MdmBlockingKeyPk getId() {
+		return myId;
+	}
+
+	public Long getResourcePid() {
+		return myId.myResourcePid;
+	}
+
+	public Long getKeyHash() {
+		return myId.myKeyHash;
+	}
+
+	public Integer getPartitionId() {
+		return myPartitionId;
+	}
+
+	public String getResourceType() {
+		return myResourceType;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+				.append("resourcePid", myId.myResourcePid)
+				.append("partitionId", myPartitionId)
+				.append("resourceType", myResourceType)
+				.append("keyHash", myId.myKeyHash)
+				.toString();
+	}
+
+	@Embeddable
+	public static class MdmBlockingKeyPk implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		@Column(name = "RES_ID", updatable = false, nullable = false)
+		private Long myResourcePid;
+
+		@Column(name = "KEY_HASH", updatable = false, nullable = false)
+		private Long myKeyHash;
+
+		/**
+		 * Constructor
+		 */
+		public MdmBlockingKeyPk() {
+			// nothing
+		}
+
+		/**
+		 * Constructor
+		 */
+		public MdmBlockingKeyPk(Long theResourcePid, Long theKeyHash) {
+			myResourcePid = theResourcePid;
+			myKeyHash = theKeyHash;
+		}
+
+		@Override
+		public boolean equals(Object theO) {
+			return (theO instanceof MdmBlockingKeyPk that)
+					&& Objects.equals(myResourcePid, that.myResourcePid)
+					&& Objects.equals(myKeyHash, that.myKeyHash);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(myResourcePid, myKeyHash);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.hibernate.Length;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A contiguous block of search results, stored as a single compact encoded row
+ * instead of one {@link SearchResult} row per result. Blocks are only ever
+ * inserted, never updated, and a block covers the result positions
+ * <code>[FIRST_ORDER, FIRST_ORDER + RESULT_COUNT)</code> of its search.
+ *
+ * @see ca.uhn.fhir.jpa.search.cache.DatabaseBlockSearchResultCacheSvcImpl
+ * @since 8.12.0
+ */
+@Entity
+@Table(name = "HFJ_SEARCH_RESULT_BLK")
+public class SearchResultBlock implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@EmbeddedId
+	private BlockPk myId;
+
+	@Column(name = "RESULT_COUNT", updatable = false, nullable = false)
+	private int myResultCount;
+
+	@Column(name = "RESULT_DATA", length = Length.LONG32, updatable = false, nullable = false)
+	private byte[] myResultData;
+
+	/**
+	 * Constructor
+	 */
+	public SearchResultBlock() {
+		// nothing
+	}
+
+	/**
+	 * Constructor
+	 */
+	public SearchResultBlock(Long theSearchPid, int theFirstOrder, int theResultCount, byte[] theResultData) {
+		myId = new BlockPk(theSearchPid, theFirstOrder);
+		myResultCount = theResultCount;
+		myResultData = theResultData;
+	}
+
+	public BlockPk getId() {
+		return myId;
+	}
+
+	public int getFirstOrder() {
+		return myId.myFirstOrder;
+	}
+
+	public int getResultCount() {
+		return myResultCount;
+	}
+
+	public byte[] getResultData() {
+		return myResultData;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this)
+				.append("search", myId.mySearchPid)
+				.append("firstOrder", myId.myFirstOrder)
+				.append("resultCount", myResultCount)
+				.append("bytes", myResultData != null ? myResultData.length : null)
+				.toString();
+	}
+
+	@Embeddable
+	public static class BlockPk implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		@Column(name = "SEARCH_PID", updatable = false, nullable = false)
+		private Long mySearchPid;
+
+		@Column(name = "FIRST_ORDER", updatable = false, nullable = false)
+		private int myFirstOrder;
+
+		/**
+		 * Constructor
+		 */
+		public BlockPk() {
+			// nothing
+		}
+
+		/**
+		 * Constructor
+		 */
+		public BlockPk(Long theSearchPid, int theFirstOrder) {
+			mySearchPid = theSearchPid;
+			myFirstOrder = theFirstOrder;
+		}
+
+		public Long getSearchPid() {
+			return mySearchPid;
+		}
+
+		public int getFirstOrder() {
+			return myFirstOrder;
+		}
+
+		@Override
+		public boolean equals(Object theO) {
+			return (theO instanceof BlockPk that)
+					&& Objects.equals(mySearchPid, that.mySearchPid)
+					&& myFirstOrder == that.myFirstOrder;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(mySearchPid, myFirstOrder);
+		}
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One row of the transitive closure of the concept hierarchy of a code system version.
+ * There is a row for every (ancestor, descendant) pair, at the minimum number of
+ * parent-child links separating them, plus a row with a depth of <code>0</code>
+ * pairing every concept with itself. The self row also marks that the closure for
+ * a given concept has been generated.
+ * <p>
+ * Rows are generated by the terminology import jobs and are deleted whenever the
+ * hierarchy of the code system version is modified by other means, in which case
+ * callers fall back to the {@link TermConcept#getParentPidsAsString() parent PIDs}
+ * of each concept.
+ * </p>
+ *
+ * @since 8.12.0
+ */
+@Entity
+@Table(
+		name = TermConceptClosure.TRM_CONCEPT_CLOSURE,
+		indexes = {
+			@Index(name = "IDX_TRM_CLOSURE_DESC", columnList = "DESCENDANT_PID, ANCESTOR_PID, DEPTH"),
+			@Index(name = "IDX_TRM_CLOSURE_CSV", columnList = "CODESYSTEM_PID")
+		})
+public class TermConceptClosure implements Serializable {
+
+	public static final String TRM_CONCEPT_CLOSURE = "TRM_CONCEPT_CLOSURE";
+	private static final long serialVersionUID = 1L;
+
+	@EmbeddedId
+	private TermConceptClosurePk myId;
+
+	@Column(name = "CODESYSTEM_PID", updatable = false, nullable = false)
+	private Long myCodeSystemVersionPid;
+
+	@Column(name = "DEPTH", updatable = false, nullable = false)
+	private int myDepth;
+
+	/**
+	 * Constructor
+	 */
+	public TermConceptClosure() {
+		// nothing
+	}
+
+	/**
+	 * Constructor
+	 */
+	public TermConceptClosure(Long theAncestorPid, Long theDescendantPid, Long theCodeSystemVersionPid, int theDepth) {
+		myId = new TermConceptClosurePk(theAncestorPid, theDescendantPid);
+		myCodeSystemVersionPid = theCodeSystemVersionPid;
+		myDepth = theDepth;
+	}
+
+	public TermConceptClosurePk getId() {
+		return myId;
+	}
+
+	public Long getAncestorPid() {
+		return myId.myAncestorPid;
+	}
+
+	public Long getDescendantPid() {
+		return myId.myDescendantPid;
+	}
+
+	public Long getCodeSystemVersionPid() {
+		return myCodeSystemVersionPid;
+	}
+
+	public int getDepth() {
+		return myDepth;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+				.append("ancestor", myId.myAncestorPid)
+				.append("descendant", myId.myDescendantPid)
+				.append("csvPid", myCodeSystemVersionPid)
+				.append("depth", myDepth)
+				.toString();
+	}
+
+	@Embeddable
+	public static class TermConceptClosurePk implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		@Column(name = "ANCESTOR_PID", updatable = false, nullable = false)
+		private Long myAncestorPid;
+
+		@Column(name = "DESCENDANT_PID", updatable = false, nullable = false)
+		private Long myDescendantPid;
+
+		/**
+		 * Constructor
+		 */
+		public TermConceptClosurePk() {
+			// nothing
+		}
+
+		/**
+		 * Constructor
+		 */
+		public TermConceptClosurePk(Long theAncestorPid, Long theDescendantPid) {
+			myAncestorPid = theAncestorPid;
+			myDescendantPid = theDescendantPid;
+		}
+
+		@Override
+		public boolean equals(Object theO) {
+			return (theO instanceof TermConceptClosurePk that)
+					&& Objects.equals(myAncestorPid, that.myAncestorPid)
+					&& Objects.equals(myDescendantPid, that.myDescendantPid);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(myAncestorPid, myDescendantPid);
+		}
+	}
+}
@@ -196,6 +196,41 @@ public class HapiFhirJpaMigrationTasks extends BaseMigrationTasks<VersionEnum> {
 				.addColumn("20260706.10", "EXPANSION_ERROR")
 				.nullable()
 				.type(ColumnTypeEnum.TEXT);
+
+		Builder.BuilderAddTableByColumns searchResultBlock =
+				version.addTableByColumns("20260801.10", "HFJ_SEARCH_RESULT_BLK", "SEARCH_PID", "FIRST_ORDER");
+		searchResultBlock.addColumn("SEARCH_PID").nonNullable().type(ColumnTypeEnum.LONG);
+		searchResultBlock.addColumn("FIRST_ORDER").nonNullable().type(ColumnTypeEnum.INT);
+		searchResultBlock.addColumn("RESULT_COUNT").nonNullable().type(ColumnTypeEnum.INT);
+		searchResultBlock.addColumn("RESULT_DATA").nonNullable().type(ColumnTypeEnum.BINARY);
+
+		// Terminology hierarchy closure table
+		Builder.BuilderAddTableByColumns conceptClosure =
+				version.addTableByColumns("20260815.10", "TRM_CONCEPT_CLOSURE", "ANCESTOR_PID", "DESCENDANT_PID");
+		conceptClosure.addColumn("ANCESTOR_PID").nonNullable().type(ColumnTypeEnum.LONG);
+		conceptClosure.addColumn("DESCENDANT_PID").nonNullable().type(ColumnTypeEnum.LONG);
+		conceptClosure.addColumn("CODESYSTEM_PID").nonNullable().type(ColumnTypeEnum.LONG);
+		conceptClosure.addColumn("DEPTH").nonNullable().type(ColumnTypeEnum.INT);
+		conceptClosure
+				.addIndex("20260815.20", "IDX_TRM_CLOSURE_DESC")
+				.unique(false)
+				.withColumns("DESCENDANT_PID", "ANCESTOR_PID", "DEPTH");
+		conceptClosure
+				.addIndex("20260815.30", "IDX_TRM_CLOSURE_CSV")
+				.unique(false)
+				.withColumns("CODESYSTEM_PID");
+
+		// MDM blocking key index
+		Builder.BuilderAddTableByColumns mdmBlockingKey =
+				version.addTableByColumns("20261001.10", "HFJ_MDM_BLOCK_KEY", "RES_ID", "KEY_HASH");
+		mdmBlockingKey.addColumn("RES_ID").nonNullable().type(ColumnTypeEnum.LONG);
+		mdmBlockingKey.addColumn("KEY_HASH").nonNullable().type(ColumnTypeEnum.LONG);
+		mdmBlockingKey.addColumn("PARTITION_ID").nullable().type(ColumnTypeEnum.INT);
+		mdmBlockingKey.addColumn("RES_TYPE").nonNullable().type(ColumnTypeEnum.STRING, 40);
+		mdmBlockingKey
+				.addIndex("20261001.20", "IDX_MDM_BLOCK_KEY_HASH")
+				.unique(false)
+				.withColumns("KEY_HASH", "RES_TYPE", "RES_ID", "PARTITION_ID");
 	}
 
 	protected void init8_10_0() {
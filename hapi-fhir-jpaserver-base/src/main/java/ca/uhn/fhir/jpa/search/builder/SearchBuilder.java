@@ -49,6 +49,7 @@ import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.jpa.model.entity.ResourceLink;
+import ca.uhn.fhir.jpa.model.search.PidPositionMap;
 import ca.uhn.fhir.jpa.model.search.SearchBuilderLoadIncludesParameters;
 import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
 import ca.uhn.fhir.jpa.model.search.StorageProcessingMessage;
@@ -1359,10 +1360,10 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	private void doLoadPids(
 			RequestDetails theRequest,
 			Collection<JpaPid> thePids,
-			Collection<JpaPid> theIncludedPids,
-			List<IBaseResource> theResourceListToPopulate,
 			boolean theForHistoryOperation,
-			Map<Long, Integer> thePosition) {
+			PidPositionMap thePositions,
+			boolean[] theIncludedPositions,
+			IBaseResource[] theResults) {
 
 		Map<JpaPid, Long> resourcePidToVersion = null;
 		for (JpaPid next : thePids) {
@@ -1383,23 +1384,30 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 		/*
 		 * If we have specific versions to load, replace the history entries with the
-		 * correct ones
+		 * correct ones. The replacements are fetched in batches rather than one at a
+		 * time, since documents with versioned references can include hundreds of them.
 		 *
-		 * TODO: this could definitely be made more efficient, probably by not loading the wrong
-		 * version entity first, and by batching the fetches. But this is a fairly infrequently
-		 * used feature, and loading history entities by PK is a very efficient query so it's
-		 * not the end of the world
+		 * TODO: this could be made more efficient still by not loading the wrong version
+		 * entity first
 		 */
 		if (resourcePidToVersion != null) {
+			Map<JpaPid, Integer> replacementIndexes = new HashMap<>();
 			for (int i = 0; i < resourceSearchViewList.size(); i++) {
 				ResourceHistoryTable next = resourceSearchViewList.get(i);
 				JpaPid resourceId = next.getPersistentId();
 				Long version = resourcePidToVersion.get(resourceId);
 				resourceId.setVersion(version);
 				if (version != null && !version.equals(next.getVersion())) {
-					ResourceHistoryTable replacement = myResourceHistoryTableDao.findForIdAndVersion(
-							next.getResourceId().toFk(), version);
-					resourceSearchViewList.set(i, replacement);
+					replacementIndexes.put(resourceId, i);
+				}
+			}
+
+			if (!replacementIndexes.isEmpty()) {
+				for (ResourceHistoryTable replacement : loadSpecificResourceVersions(replacementIndexes.keySet())) {
+					Integer index = replacementIndexes.get(replacement.getResourceId());
+					if (index != null) {
+						resourceSearchViewList.set(index, replacement);
+					}
 				}
 			}
 		}
@@ -1440,23 +1448,19 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				resourceId.setVersion(version);
 			}
 
-			Integer index = thePosition.get(resourceId.getId());
-			if (index == null) {
+			int index = thePositions.getPosition(resourceId.getId());
+			if (index == PidPositionMap.NOT_FOUND) {
 				ourLog.warn("Got back unexpected resource PID {}", resourceId);
 				continue;
 			}
 
-			if (theIncludedPids.contains(resourceId)) {
+			if (theIncludedPositions[index]) {
 				ResourceMetadataKeyEnum.ENTRY_SEARCH_MODE.put(next.resource(), BundleEntrySearchModeEnum.INCLUDE);
 			} else {
 				ResourceMetadataKeyEnum.ENTRY_SEARCH_MODE.put(next.resource(), BundleEntrySearchModeEnum.MATCH);
 			}
 
-			// ensure there's enough space; "<=" because of 0-indexing
-			while (theResourceListToPopulate.size() <= index) {
-				theResourceListToPopulate.add(null);
-			}
-			theResourceListToPopulate.set(index, next.resource());
+			theResults[index] = next.resource();
 		}
 	}
 
@@ -1472,6 +1476,43 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		return resourceSearchViewList;
 	}
 
+	/**
+	 * Loads the history entities for the exact resource versions in the given PIDs. Each
+	 * (resource, version) pair becomes one disjunct of the WHERE clause, so this issues a
+	 * single query per chunk instead of one query per version. Versions which don't exist
+	 * are simply absent from the results.
+	 */
+	private List<ResourceHistoryTable> loadSpecificResourceVersions(Collection<JpaPid> theVersionedPids) {
+		List<ResourceHistoryTable> retVal = new ArrayList<>(theVersionedPids.size());
+		boolean includePartitionId = myPartitionSettings.isDatabasePartitionMode();
+
+		// Each PID binds two or three parameters, so use smaller chunks than usual
+		int chunkSize = Math.max(1, getMaximumPageSize() / (includePartitionId ? 3 : 2));
+		QueryChunker.chunk(theVersionedPids, chunkSize, chunk -> {
+			CriteriaBuilder cb = myEntityManager.getCriteriaBuilder();
+			CriteriaQuery<ResourceHistoryTable> cq = cb.createQuery(ResourceHistoryTable.class);
+			Root<ResourceHistoryTable> from = cq.from(ResourceHistoryTable.class);
+			from.fetch("myResourceTable", JoinType.INNER);
+
+			List<Predicate> pidAndVersionPredicates = new ArrayList<>(chunk.size());
+			for (JpaPid next : chunk) {
+				Predicate pidPredicate = cb.equal(from.get("myResourcePid").get("myId"), next.getId());
+				Predicate versionPredicate = cb.equal(from.get("myResourceVersion"), next.getVersion());
+				if (includePartitionId) {
+					Predicate partitionIdPredicate =
+							cb.equal(from.get("myResourcePid").get("myPartitionIdValue"), next.getPartitionId());
+					pidAndVersionPredicates.add(cb.and(partitionIdPredicate, pidPredicate, versionPredicate));
+				} else {
+					pidAndVersionPredicates.add(cb.and(pidPredicate, versionPredicate));
+				}
+			}
+
+			cq.where(cb.or(pidAndVersionPredicates.toArray(EMPTY_PREDICATE_ARRAY)));
+			retVal.addAll(myEntityManager.createQuery(cq).getResultList());
+		});
+		return retVal;
+	}
+
 	/**
 	 * In Database Partition Mode, when loading resource bodies for most databases we issue
 	 * SQL like <code>WHERE (PARITION_ID,RES_ID) IN (1,2), (1,3)</code> but this syntax is
@@ -1592,12 +1633,6 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		// when running asserts
 		assert new HashSet<>(thePids).size() == thePids.size() : "PID list contains duplicates: " + thePids;
 
-		Map<Long, Integer> position = new HashMap<>();
-		int index = 0;
-		for (JpaPid next : thePids) {
-			position.put(next.getId(), index++);
-		}
-
 		// Can we fast track this loading by checking elastic search?
 		boolean isUsingElasticSearch = isLoadingFromElasticSearchSupported(thePids);
 		if (isUsingElasticSearch) {
@@ -1612,16 +1647,47 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			}
 		}
 
+		/*
+		 * Resources come back from the database in arbitrary order, so we record the position
+		 * of each PID in the page and which positions are includes up front, and then drop each
+		 * loaded resource straight into a presized array. Pages can have thousands of entries
+		 * (e.g. _count=1000 exports) so we avoid boxing a key and value for every PID.
+		 */
+		PidPositionMap positions = new PidPositionMap(thePids.size());
+		for (JpaPid next : thePids) {
+			positions.add(next.getId());
+		}
+		boolean[] includedPositions = new boolean[positions.size()];
+		for (JpaPid next : theIncludedPids) {
+			int index = positions.getPosition(next.getId());
+			if (index != PidPositionMap.NOT_FOUND) {
+				includedPositions[index] = true;
+			}
+		}
+		IBaseResource[] results = new IBaseResource[positions.size()];
+
 		// We only chunk because some jdbc drivers can't handle long param lists.
 		QueryChunker.chunk(
 				thePids,
 				t -> doLoadPids(
-						theRequestDetails,
-						t,
-						theIncludedPids,
-						theResourceListToPopulate,
-						theForHistoryOperation,
-						position));
+						theRequestDetails, t, theForHistoryOperation, positions, includedPositions, results));
+
+		// Positions after the last loaded resource aren't padded with nulls
+		int populatedCount = results.length;
+		while (populatedCount > 0 && results[populatedCount - 1] == null) {
+			populatedCount--;
+		}
+		if (theResourceListToPopulate instanceof ArrayList<IBaseResource> arrayList) {
+			arrayList.ensureCapacity(populatedCount);
+		}
+		while (theResourceListToPopulate.size() < populatedCount) {
+			theResourceListToPopulate.add(null);
+		}
+		for (int i = 0; i < populatedCount; i++) {
+			if (results[i] != null) {
+				theResourceListToPopulate.set(i, results[i]);
+			}
+		}
 	}
 
 	/**
@@ -0,0 +1,193 @@
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.dao.data.ISearchResultBlockDao;
+import ca.uhn.fhir.jpa.dao.data.ISearchResultDao;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.entity.Search;
+import ca.uhn.fhir.jpa.entity.SearchResultBlock;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import com.google.common.collect.Lists;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static ca.uhn.fhir.jpa.search.SearchCoordinatorSvcImpl.toPage;
+
+/**
+ * Search result cache which stores the result PIDs of each search as compact encoded
+ * {@link SearchResultBlock blocks} of up to {@link #getBlockSize()} results per row
+ * (see {@link SearchResultBlockCodec} for the encoding), instead of one row per result
+ * as {@link DatabaseSearchResultCacheSvcImpl} does. Fetching a page only loads and decodes
+ * the blocks which overlap the requested range.
+ * <p>
+ * Searches which have no blocks (e.g. because they were stored before this implementation
+ * was enabled) are read from the <code>HFJ_SEARCH_RESULT</code> table instead.
+ * </p>
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setSearchResultBlockStorageEnabled(boolean)
+ * @since 8.12.0
+ */
+public class DatabaseBlockSearchResultCacheSvcImpl implements ISearchResultCacheSvc {
+	public static final int DEFAULT_BLOCK_SIZE = 1000;
+	private static final Logger ourLog = LoggerFactory.getLogger(DatabaseBlockSearchResultCacheSvcImpl.class);
+
+	@Autowired
+	private ISearchResultBlockDao mySearchResultBlockDao;
+
+	@Autowired
+	private ISearchResultDao mySearchResultDao;
+
+	@Autowired
+	private IHapiTransactionService myTransactionService;
+
+	private int myBlockSize = DEFAULT_BLOCK_SIZE;
+
+	/**
+	 * The maximum number of results which are stored in a single block
+	 */
+	public int getBlockSize() {
+		return myBlockSize;
+	}
+
+	/**
+	 * The maximum number of results which are stored in a single block
+	 */
+	public void setBlockSize(int theBlockSize) {
+		Validate.isTrue(theBlockSize > 0, "theBlockSize must be positive");
+		myBlockSize = theBlockSize;
+	}
+
+	@Override
+	public List<JpaPid> fetchResultPids(
+			Search theSearch,
+			int theFrom,
+			int theTo,
+			RequestDetails theRequestDetails,
+			RequestPartitionId theRequestPartitionId) {
+		return myTransactionService
+				.withRequest(theRequestDetails)
+				.withRequestPartitionId(theRequestPartitionId)
+				.execute(() -> {
+					if (theTo <= theFrom) {
+						return Collections.emptyList();
+					}
+
+					List<SearchResultBlock> blocks =
+							mySearchResultBlockDao.findOverlappingRange(theSearch.getId(), theFrom, theTo);
+					if (blocks.isEmpty()) {
+						return fetchLegacyResultPids(theSearch, theFrom, theTo);
+					}
+
+					List<JpaPid> retVal = new ArrayList<>(theTo - theFrom);
+					for (SearchResultBlock next : blocks) {
+						int firstOrder = next.getFirstOrder();
+						retVal.addAll(SearchResultBlockCodec.decode(
+								next.getResultData(), theFrom - firstOrder, theTo - firstOrder));
+					}
+
+					ourLog.debug(
+							"fetchResultPids for range {}-{} decoded {} blocks and returned {} pids",
+							theFrom,
+							theTo,
+							blocks.size(),
+							retVal.size());
+					return retVal;
+				});
+	}
+
+	@Override
+	public List<JpaPid> fetchAllResultPids(
+			Search theSearch, RequestDetails theRequestDetails, RequestPartitionId theRequestPartitionId) {
+		return myTransactionService
+				.withRequest(theRequestDetails)
+				.withRequestPartitionId(theRequestPartitionId)
+				.execute(() -> {
+					List<SearchResultBlock> blocks = mySearchResultBlockDao.findAllForSearch(theSearch.getId());
+					if (blocks.isEmpty()) {
+						return ISearchResultDao.toJpaPidList(
+								mySearchResultDao.findWithSearchPidOrderIndependent(theSearch.getId()));
+					}
+
+					List<JpaPid> retVal = new ArrayList<>();
+					for (SearchResultBlock next : blocks) {
+						retVal.addAll(SearchResultBlockCodec.decode(next.getResultData()));
+					}
+					ourLog.trace("fetchAllResultPids returned {} pids", retVal.size());
+					return retVal;
+				});
+	}
+
+	@Override
+	public void storeResults(
+			Search theSearch,
+			List<JpaPid> thePreviouslyStoredResourcePids,
+			List<JpaPid> theNewResourcePids,
+			RequestDetails theRequestDetails,
+			RequestPartitionId theRequestPartitionId) {
+		if (theNewResourcePids.isEmpty()) {
+			return;
+		}
+
+		myTransactionService
+				.withRequest(theRequestDetails)
+				.withRequestPartitionId(theRequestPartitionId)
+				.execute(() -> {
+					ourLog.debug(
+							"Storing {} results with {} previous for search",
+							theNewResourcePids.size(),
+							thePreviouslyStoredResourcePids.size());
+
+					List<SearchResultBlock> blocksToSave = new ArrayList<>();
+					int order = thePreviouslyStoredResourcePids.size();
+					for (List<JpaPid> nextPartition : Lists.partition(theNewResourcePids, myBlockSize)) {
+						byte[] data = SearchResultBlockCodec.encode(nextPartition);
+						blocksToSave.add(new SearchResultBlock(theSearch.getId(), order, nextPartition.size(), data));
+						ourLog.trace(
+								"Saving block at ORDER[{}] with {} results in {} bytes",
+								order,
+								nextPartition.size(),
+								data.length);
+						order += nextPartition.size();
+					}
+
+					mySearchResultBlockDao.saveAll(blocksToSave);
+				});
+	}
+
+	private List<JpaPid> fetchLegacyResultPids(Search theSearch, int theFrom, int theTo) {
+		Pageable page = toPage(theFrom, theTo);
+		if (page == null) {
+			return Collections.emptyList();
+		}
+		List<Object[]> retVal =
+				mySearchResultDao.findWithSearchPid(theSearch.getId(), page).getContent();
+		return ISearchResultDao.toJpaPidList(retVal);
+	}
+}
@@ -24,6 +24,7 @@ import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.dao.data.ISearchDao;
 import ca.uhn.fhir.jpa.dao.data.ISearchIncludeDao;
+import ca.uhn.fhir.jpa.dao.data.ISearchResultBlockDao;
 import ca.uhn.fhir.jpa.dao.data.ISearchResultDao;
 import ca.uhn.fhir.jpa.dao.data.SearchIdAndResultSize;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
@@ -50,6 +51,7 @@ import java.time.Instant;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -85,6 +87,9 @@ public class DatabaseSearchCacheSvcImpl implements ISearchCacheSvc {
 	@Autowired
 	private ISearchResultDao mySearchResultDao;
 
+	@Autowired
+	private ISearchResultBlockDao mySearchResultBlockDao;
+
 	@Autowired
 	private ISearchIncludeDao mySearchIncludeDao;
 
@@ -310,6 +315,10 @@ public class DatabaseSearchCacheSvcImpl implements ISearchCacheSvc {
 				mySearchResultDao.deleteBySearchIdInRange(theSearchPid, rangeStart, rangeEnd);
 				commitOpenChanges();
 			}
+			if (myStorageSettings.isSearchResultBlockStorageEnabled()) {
+				mySearchResultBlockDao.deleteBySearchIds(List.of(theSearchPid));
+				commitOpenChanges();
+			}
 		}
 
 		private void flushSearchAndIncludeDeletes() {
@@ -333,6 +342,9 @@ public class DatabaseSearchCacheSvcImpl implements ISearchCacheSvc {
 					myDeleteSearchResultsBatchCount,
 					myDeleteSearchResultsBatch.size());
 			mySearchResultDao.deleteBySearchIds(myDeleteSearchResultsBatch);
+			if (myStorageSettings.isSearchResultBlockStorageEnabled()) {
+				mySearchResultBlockDao.deleteBySearchIds(myDeleteSearchResultsBatch);
+			}
 			myDeleteSearchResultsBatch.clear();
 			myDeleteSearchResultsBatchCount = 0;
 			commitOpenChanges();
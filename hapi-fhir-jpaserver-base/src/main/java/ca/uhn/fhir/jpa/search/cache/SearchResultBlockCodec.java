@@ -0,0 +1,176 @@
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Encodes a list of search result {@link JpaPid}s into the compact form stored in
+ * {@link ca.uhn.fhir.jpa.entity.SearchResultBlock#getResultData()}.
+ * <p>
+ * The encoding is a version byte and a flags byte, followed by the number of results
+ * as a varint. If every result is in the same partition, that partition is written once
+ * after the count. Each result is then written as an optional partition varint (only if
+ * the partitions differ) followed by the zigzag varint encoded difference between its
+ * resource PID and the previous result's resource PID. Search results are very often
+ * sorted by PID or are close together, so most results take one or two bytes.
+ * </p>
+ * <p>
+ * Partition IDs are written as <code>0</code> for a <code>null</code> partition, and
+ * as the zigzag encoded partition ID plus one otherwise.
+ * </p>
+ */
+public final class SearchResultBlockCodec {
+
+	static final byte VERSION_1 = 1;
+	private static final int FLAG_SHARED_PARTITION = 1;
+
+	/**
+	 * Non-instantiable
+	 */
+	private SearchResultBlockCodec() {
+		// nothing
+	}
+
+	public static byte[] encode(List<JpaPid> thePids) {
+		boolean sharedPartition = true;
+		Integer firstPartition = thePids.isEmpty() ? null : thePids.get(0).getPartitionId();
+		for (JpaPid next : thePids) {
+			if (!Objects.equals(firstPartition, next.getPartitionId())) {
+				sharedPartition = false;
+				break;
+			}
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(4 + thePids.size() * 3);
+		out.write(VERSION_1);
+		out.write(sharedPartition ? FLAG_SHARED_PARTITION : 0);
+		writeVarLong(out, thePids.size());
+		if (sharedPartition) {
+			writeVarLong(out, encodePartition(firstPartition));
+		}
+
+		long previous = 0;
+		for (JpaPid next : thePids) {
+			if (!sharedPartition) {
+				writeVarLong(out, encodePartition(next.getPartitionId()));
+			}
+			long pid = next.getId();
+			writeVarLong(out, zigZag(pid - previous));
+			previous = pid;
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decodes every result in the block
+	 */
+	public static List<JpaPid> decode(byte[] theData) {
+		return decode(theData, 0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Decodes the results at positions <code>[theFrom, theTo)</code> within the block (positions
+	 * are relative to the start of the block). Decoding stops as soon as <code>theTo</code> is
+	 * reached, and results before <code>theFrom</code> are skipped without being materialized.
+	 */
+	public static List<JpaPid> decode(byte[] theData, int theFrom, int theTo) {
+		Reader reader = new Reader(theData);
+		byte version = theData.length > 0 ? theData[reader.myPos++] : 0;
+		if (version != VERSION_1) {
+			throw new InternalErrorException(Msg.code(3002) + "Unsupported search result block version: " + version);
+		}
+		int flags = theData[reader.myPos++];
+		boolean sharedPartition = (flags & FLAG_SHARED_PARTITION) != 0;
+		int count = (int) reader.readVarLong();
+		Integer partition = sharedPartition ? decodePartition(reader.readVarLong()) : null;
+
+		int from = Math.max(theFrom, 0);
+		int to = Math.min(theTo, count);
+		List<JpaPid> retVal = new ArrayList<>(Math.max(to - from, 0));
+		long pid = 0;
+		for (int i = 0; i < to; i++) {
+			if (!sharedPartition) {
+				partition = decodePartition(reader.readVarLong());
+			}
+			pid += unZigZag(reader.readVarLong());
+			if (i >= from) {
+				retVal.add(JpaPid.fromId(pid, partition));
+			}
+		}
+		return retVal;
+	}
+
+	private static long encodePartition(Integer thePartitionId) {
+		return thePartitionId == null ? 0 : zigZag(thePartitionId) + 1;
+	}
+
+	private static Integer decodePartition(long theValue) {
+		return theValue == 0 ? null : (int) unZigZag(theValue - 1);
+	}
+
+	private static long zigZag(long theValue) {
+		return (theValue << 1) ^ (theValue >> 63);
+	}
+
+	private static long unZigZag(long theValue) {
+		return (theValue >>> 1) ^ -(theValue & 1);
+	}
+
+	private static void writeVarLong(ByteArrayOutputStream theOut, long theValue) {
+		long value = theValue;
+		while ((value & ~0x7FL) != 0) {
+			theOut.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		theOut.write((int) value);
+	}
+
+	private static class Reader {
+		private final byte[] myData;
+		private int myPos;
+
+		private Reader(byte[] theData) {
+			myData = theData;
+		}
+
+		private long readVarLong() {
+			long retVal = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				if (myPos >= myData.length) {
+					break;
+				}
+				byte next = myData[myPos++];
+				retVal |= (long) (next & 0x7F) << shift;
+				if ((next & 0x80) == 0) {
+					return retVal;
+				}
+			}
+			throw new InternalErrorException(Msg.code(3003) + "Truncated search result block");
+		}
+	}
+}
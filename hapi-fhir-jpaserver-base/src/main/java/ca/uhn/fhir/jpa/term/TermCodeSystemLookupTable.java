@@ -0,0 +1,224 @@
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.term;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact, read-only dictionary of the codes and displays in a single
+ * code system version, used to answer code validation without querying the
+ * database.
+ * <p>
+ * Codes and displays are stored as UTF-8 in a direct (off-heap) buffer, with
+ * a second direct buffer holding a fixed-width offset table sorted by the
+ * unsigned byte order of the code. Lookups are a binary search over the
+ * offset table, so the only heap allocated per lookup is the encoded key and
+ * the returned strings.
+ * </p>
+ *
+ * @since 8.12.0
+ */
+public final class TermCodeSystemLookupTable {
+
+	/**
+	 * Each entry in the offset table is: code offset, code length, display offset, display length
+	 */
+	private static final int ENTRY_BYTES = 4 * Integer.BYTES;
+
+	private static final int NULL_DISPLAY = -1;
+
+	private final long myCodeSystemVersionPid;
+	private final String myCodeSystemVersionId;
+	private final int myCount;
+	private final ByteBuffer myOffsets;
+	private final ByteBuffer myData;
+
+	private TermCodeSystemLookupTable(
+			long theCodeSystemVersionPid,
+			String theCodeSystemVersionId,
+			int theCount,
+			ByteBuffer theOffsets,
+			ByteBuffer theData) {
+		myCodeSystemVersionPid = theCodeSystemVersionPid;
+		myCodeSystemVersionId = theCodeSystemVersionId;
+		myCount = theCount;
+		myOffsets = theOffsets;
+		myData = theData;
+	}
+
+	public long getCodeSystemVersionPid() {
+		return myCodeSystemVersionPid;
+	}
+
+	public String getCodeSystemVersionId() {
+		return myCodeSystemVersionId;
+	}
+
+	public int size() {
+		return myCount;
+	}
+
+	/**
+	 * Returns the number of off-heap bytes held by this table
+	 */
+	public long getOffHeapBytes() {
+		return (long) myOffsets.capacity() + myData.capacity();
+	}
+
+	/**
+	 * Returns the concept with the given code, or <code>null</code> if this
+	 * code system version does not contain it
+	 */
+	@Nullable
+	public Concept lookup(@Nonnull String theCode) {
+		int index = indexOf(theCode.getBytes(StandardCharsets.UTF_8));
+		if (index < 0) {
+			return null;
+		}
+
+		int entry = index * ENTRY_BYTES;
+		int displayLength = myOffsets.getInt(entry + 3 * Integer.BYTES);
+		String display = null;
+		if (displayLength != NULL_DISPLAY) {
+			display = readString(myOffsets.getInt(entry + 2 * Integer.BYTES), displayLength);
+		}
+		return new Concept(theCode, display);
+	}
+
+	public boolean contains(@Nonnull String theCode) {
+		return indexOf(theCode.getBytes(StandardCharsets.UTF_8)) >= 0;
+	}
+
+	private int indexOf(byte[] theKey) {
+		int low = 0;
+		int high = myCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int entry = mid * ENTRY_BYTES;
+			int cmp = compareCode(myOffsets.getInt(entry), myOffsets.getInt(entry + Integer.BYTES), theKey);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	private int compareCode(int theOffset, int theLength, byte[] theKey) {
+		int length = Math.min(theLength, theKey.length);
+		for (int i = 0; i < length; i++) {
+			int cmp = Integer.compare(Byte.toUnsignedInt(myData.get(theOffset + i)), Byte.toUnsignedInt(theKey[i]));
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return Integer.compare(theLength, theKey.length);
+	}
+
+	private String readString(int theOffset, int theLength) {
+		byte[] bytes = new byte[theLength];
+		myData.get(theOffset, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * A code and its display
+	 */
+	public record Concept(String code, @Nullable String display) {}
+
+	/**
+	 * Accumulates the concepts of a code system version and then builds the
+	 * table. The builder holds the encoded concepts on the heap until
+	 * {@link #build()} is called.
+	 */
+	public static class Builder {
+
+		private final long myCodeSystemVersionPid;
+		private final String myCodeSystemVersionId;
+		private final List<byte[][]> myEntries = new ArrayList<>();
+		private long myDataBytes;
+
+		public Builder(long theCodeSystemVersionPid, String theCodeSystemVersionId) {
+			myCodeSystemVersionPid = theCodeSystemVersionPid;
+			myCodeSystemVersionId = theCodeSystemVersionId;
+		}
+
+		public Builder add(@Nonnull String theCode, @Nullable String theDisplay) {
+			byte[] code = theCode.getBytes(StandardCharsets.UTF_8);
+			byte[] display = theDisplay != null ? theDisplay.getBytes(StandardCharsets.UTF_8) : null;
+			myEntries.add(new byte[][] {code, display});
+			myDataBytes += code.length + (display != null ? display.length : 0);
+			return this;
+		}
+
+		/**
+		 * Returns <code>true</code> if the concepts added so far fit into a single table
+		 */
+		public boolean isWithinCapacity() {
+			return myDataBytes <= Integer.MAX_VALUE && (long) myEntries.size() * ENTRY_BYTES <= Integer.MAX_VALUE;
+		}
+
+		public TermCodeSystemLookupTable build() {
+			Validate.isTrue(isWithinCapacity(), "Too many concepts for a lookup table");
+
+			myEntries.sort((o1, o2) -> Arrays.compareUnsigned(o1[0], o2[0]));
+
+			int count = myEntries.size();
+			ByteBuffer offsets = ByteBuffer.allocateDirect(Math.max(1, count * ENTRY_BYTES));
+			ByteBuffer data = ByteBuffer.allocateDirect((int) Math.max(1, myDataBytes));
+			for (int i = 0; i < count; i++) {
+				byte[] code = myEntries.get(i)[0];
+				byte[] display = myEntries.get(i)[1];
+
+				offsets.putInt(data.position());
+				offsets.putInt(code.length);
+				data.put(code);
+
+				if (display != null) {
+					offsets.putInt(data.position());
+					offsets.putInt(display.length);
+					data.put(display);
+				} else {
+					offsets.putInt(0);
+					offsets.putInt(NULL_DISPLAY);
+				}
+			}
+			myEntries.clear();
+
+			return new TermCodeSystemLookupTable(
+					myCodeSystemVersionPid,
+					myCodeSystemVersionId,
+					count,
+					offsets.asReadOnlyBuffer(),
+					data.asReadOnlyBuffer());
+		}
+	}
+}
@@ -31,6 +31,7 @@ import ca.uhn.fhir.jpa.api.svc.ResolveIdentityMode;
 import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemDao;
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemVersionDao;
+import ca.uhn.fhir.jpa.dao.data.ITermConceptClosureDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptDesignationDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptParentChildLinkDao;
@@ -141,6 +142,9 @@ public class TermCodeSystemStorageSvcImpl implements ITermCodeSystemStorageSvc {
 	@Autowired
 	private ITermConceptParentChildLinkDao myConceptParentChildLinkDao;
 
+	@Autowired
+	private ITermConceptClosureDao myConceptClosureDao;
+
 	@Autowired
 	private ITermVersionAdapterSvc myTerminologyVersionAdapterSvc;
 
@@ -225,7 +229,9 @@ public class TermCodeSystemStorageSvcImpl implements ITermCodeSystemStorageSvc {
 			addConceptInHierarchy(theCodeSystemVersion, parentCodes, nextRootConcept, retVal, codeToConcept, 0);
 		}
 
-		myTerminologySvc.invalidateCodeSystemCaches();
+		// Otherwise another thread could rebuild the caches from the data as it was before this commit
+		HapiTransactionService.executeAfterCommitOrExecuteNowIfNoTransactionIsActive(
+				myTerminologySvc::invalidateCodeSystemCaches);
 		return retVal;
 	}
 
@@ -1036,6 +1042,9 @@ public class TermCodeSystemStorageSvcImpl implements ITermCodeSystemStorageSvc {
 					systemUrl,
 					systemVersionId);
 
+			// The hierarchy is about to change, so any precomputed closure is no longer valid
+			invalidateConceptClosure(codeSystemVersionEntity.getPid());
+
 			List<TermConcept> additions = new ArrayList<>();
 			for (CodeSystem.ConceptDefinitionComponent sourceConcept : codeSystem.getConcept()) {
 				TermConcept concept = convertResourceConceptAndChildrenToStorageConcepts(
@@ -1052,6 +1061,18 @@ public class TermCodeSystemStorageSvcImpl implements ITermCodeSystemStorageSvc {
 		});
 	}
 
+	/**
+	 * Discards the precomputed hierarchy closure for the given code system version, if
+	 * there is one, so that hierarchy queries fall back to the concept parent PIDs
+	 */
+	private void invalidateConceptClosure(Long theCodeSystemVersionPid) {
+		if (myConceptClosureDao.existsByCodeSystemVersion(theCodeSystemVersionPid)) {
+			int deleted = myConceptClosureDao.deleteByCodeSystemVersion(theCodeSystemVersionPid);
+			ourLog.info(
+					"Deleted {} hierarchy closure rows for code system version {}", deleted, theCodeSystemVersionPid);
+		}
+	}
+
 	private void delectHierarchyCycleAndThrowExceptionIfFound(
 			List<CodeSystem.ConceptDefinitionComponent> theConcepts, Set<String> theCodesInHierarchy) {
 		for (CodeSystem.ConceptDefinitionComponent concept : theConcepts) {
@@ -1116,6 +1137,13 @@ public class TermCodeSystemStorageSvcImpl implements ITermCodeSystemStorageSvc {
 		UploadStatistics retVal = new UploadStatistics(codeSystemId);
 
 		myTxService.withSystemRequestOnDefaultPartition().execute(() -> {
+			// The hierarchy is about to change, so any precomputed closure is no longer valid
+			TermCodeSystemVersion codeSystemVersion =
+					myCodeSystemVersionDao.findByCodeSystemUriAndVersion(systemUrl, systemVersionId);
+			if (codeSystemVersion != null) {
+				invalidateConceptClosure(codeSystemVersion.getPid());
+			}
+
 			Set<String> codesToRemove = codeSystem.getConcept().stream()
 					.map(CodeSystem.ConceptDefinitionComponent::getCode)
 					.collect(Collectors.toSet());
@@ -42,6 +42,7 @@ import ca.uhn.fhir.jpa.dao.IFulltextSearchSvc;
 import ca.uhn.fhir.jpa.dao.IJpaStorageResourceParser;
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemDao;
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemVersionDao;
+import ca.uhn.fhir.jpa.dao.data.ITermConceptClosureDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptDao;
 import ca.uhn.fhir.jpa.dao.data.ITermValueSetConceptDao;
 import ca.uhn.fhir.jpa.dao.data.ITermValueSetConceptViewDao;
@@ -164,6 +165,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static ca.uhn.fhir.jpa.batch2.jobs.term.base.TerminologyConstants.LOINC_URI;
 import static ca.uhn.fhir.jpa.entity.TermConceptPropertyBinder.CONCEPT_PROPERTY_PREFIX_NAME;
@@ -236,6 +238,9 @@ public class TermReadSvcImpl implements ITermReadSvc {
 	@Autowired
 	private ITermConceptDao myTermConceptDao;
 
+	@Autowired
+	private ITermConceptClosureDao myConceptClosureDao;
+
 	@Autowired
 	private ITermValueSetConceptViewDao myTermValueSetConceptViewDao;
 
@@ -989,6 +994,25 @@ public class TermReadSvcImpl implements ITermReadSvc {
 		StopWatch fullOperationSw = new StopWatch();
 		String includeOrExcludeVersion = theIncludeOrExclude.getVersion();
 
+		/*
+		 * Simple is-a/descendent-of filters can be answered directly from the
+		 * hierarchy closure table if it has been generated for this code system
+		 */
+		if (expandValueSetHandleIncludeOrExcludeUsingClosure(
+				theExpansionOptions,
+				theValueSetCodeAccumulator,
+				theIncludeOrExclude,
+				theAdd,
+				theExpansionFilter,
+				theSystem,
+				theTermCodeSystemVersion)) {
+			ourLog.debug(
+					"Expansion for {} using hierarchy closure completed in {}ms",
+					(theAdd ? "inclusion" : "exclusion"),
+					fullOperationSw.getMillis());
+			return;
+		}
+
 		/*
 		 * If FullText searching is not enabled, we can handle only basic expansions
 		 * since we're going to do it without the database.
@@ -1110,6 +1134,96 @@ public class TermReadSvcImpl implements ITermReadSvc {
 		}
 	}
 
+	/**
+	 * Handles an include/exclude consisting of exactly one <code>is-a</code> or <code>descendent-of</code>
+	 * filter on the <code>concept</code>/<code>code</code> property by paging through the
+	 * {@link ca.uhn.fhir.jpa.entity.TermConceptClosure hierarchy closure} of the filter code.
+	 *
+	 * @return Returns <code>false</code> (having done nothing) if the include/exclude can't be handled this way
+	 */
+	private boolean expandValueSetHandleIncludeOrExcludeUsingClosure(
+			ValueSetExpansionOptions theExpansionOptions,
+			IValueSetConceptAccumulator theValueSetCodeAccumulator,
+			ValueSet.ConceptSetComponent theIncludeOrExclude,
+			boolean theAdd,
+			@Nonnull ExpansionFilter theExpansionFilter,
+			String theSystem,
+			TermCodeSystemVersion theTermCodeSystemVersion) {
+		if (!theIncludeOrExclude.getConcept().isEmpty()
+				|| theIncludeOrExclude.getFilter().size() != 1
+				|| theExpansionFilter.hasCode()
+				|| !theExpansionFilter.getFilters().isEmpty()) {
+			return false;
+		}
+
+		ValueSet.ConceptSetFilterComponent filter = theIncludeOrExclude.getFilterFirstRep();
+		if (!"concept".equals(filter.getProperty()) && !"code".equals(filter.getProperty())) {
+			return false;
+		}
+		int minDepth;
+		if (filter.getOp() == ValueSet.FilterOperator.ISA) {
+			minDepth = 0;
+		} else if (filter.getOp() == ValueSet.FilterOperator.DESCENDENTOF) {
+			minDepth = 1;
+		} else {
+			return false;
+		}
+		if (isBlank(filter.getValue())) {
+			return false;
+		}
+
+		String includeOrExcludeVersion = theIncludeOrExclude.getVersion();
+		Optional<TermConcept> filterCode =
+				findCode(buildCodeSystemUrlAndVersion(theSystem, includeOrExcludeVersion), filter.getValue());
+		if (filterCode.isEmpty()
+				|| !Objects.equals(filterCode.get().getCodeSystemVersion().getPid(), theTermCodeSystemVersion.getPid())
+				|| !myConceptClosureDao.hasClosure(filterCode.get().getId())) {
+			return false;
+		}
+		Long filterCodePid = filterCode.get().getId();
+
+		Optional<Integer> chunkSizeOpt = getScrollChunkSize(theAdd, theValueSetCodeAccumulator);
+		if (chunkSizeOpt.isEmpty()) {
+			return true;
+		}
+		int chunkSize = chunkSizeOpt.get();
+
+		Long lastPid = Long.MIN_VALUE;
+		while (true) {
+			List<Long> pids = myConceptClosureDao.findDescendantPids(
+					filterCodePid, minDepth, lastPid, Pageable.ofSize(chunkSize));
+			if (pids.isEmpty()) {
+				break;
+			}
+			lastPid = pids.get(pids.size() - 1);
+
+			List<TermConcept.TermConceptPk> conceptPks = pids.stream()
+					.map(t -> new TermConcept.TermConceptPk(t, myPartitionSettings.getDefaultPartitionId()))
+					.collect(Collectors.toList());
+			List<TermConcept> termConcepts = myTermConceptDao.fetchConceptsAndDesignationsByPid(conceptPks);
+			for (TermConcept concept : termConcepts) {
+				addCodeIfNotAlreadyAdded(
+						theExpansionOptions,
+						theValueSetCodeAccumulator,
+						concept,
+						concept.getDisplay(),
+						theAdd,
+						includeOrExcludeVersion);
+			}
+			theValueSetCodeAccumulator.incrementOrDecrementTotalConcepts(theAdd, termConcepts.size());
+
+			// keep session bounded
+			myEntityManager.flush();
+			myEntityManager.clear();
+
+			if (pids.size() < chunkSize) {
+				break;
+			}
+		}
+
+		return true;
+	}
+
 	private List<TermConcept> sortTermConcepts(SearchProperties searchProps, List<TermConcept> termConcepts) {
 		List<String> codes = searchProps.getIncludeOrExcludeCodes();
 		if (codes.size() > 1) {
@@ -2227,10 +2341,15 @@ public class TermReadSvcImpl implements ITermReadSvc {
 			return Collections.emptySet();
 		}
 
-		Set<TermConcept> retVal = new HashSet<>();
-		retVal.add(concept.get());
-
-		fetchParents(concept.get(), retVal);
+		Set<TermConcept> retVal;
+		if (myConceptClosureDao.hasClosure(concept.get().getId())) {
+			retVal = new HashSet<>(myConceptClosureDao.findSelfAndAncestorConcepts(
+					concept.get().getId()));
+		} else {
+			retVal = new HashSet<>();
+			retVal.add(concept.get());
+			fetchParents(concept.get(), retVal);
+		}
 
 		ourLog.debug("Fetched {} codes above code {} in {}ms", retVal.size(), theCode, stopwatch.getMillis());
 		return retVal;
@@ -2260,10 +2379,15 @@ public class TermReadSvcImpl implements ITermReadSvc {
 			return Collections.emptySet();
 		}
 
-		Set<TermConcept> retVal = new HashSet<>();
-		retVal.add(concept.get());
-
-		fetchChildren(concept.get(), retVal);
+		Set<TermConcept> retVal;
+		if (myConceptClosureDao.hasClosure(concept.get().getId())) {
+			retVal = new HashSet<>(myConceptClosureDao.findSelfAndDescendantConcepts(
+					concept.get().getId()));
+		} else {
+			retVal = new HashSet<>();
+			retVal.add(concept.get());
+			fetchChildren(concept.get(), retVal);
+		}
 
 		ourLog.debug(
 				"Fetched {} codes below code {} in {}ms",
@@ -2305,7 +2429,10 @@ public class TermReadSvcImpl implements ITermReadSvc {
 
 	@Override
 	public void invalidateCodeSystemCaches() {
-		myMemoryCache.invalidateCaches(MemoryCacheService.CacheEnum.CODESYSTEM_URL_TO_CURRENT_VERSION_DETAILS);
+		myMemoryCache.invalidateCaches(
+				MemoryCacheService.CacheEnum.CODESYSTEM_URL_TO_CURRENT_VERSION_DETAILS,
+				MemoryCacheService.CacheEnum.CODESYSTEM_VERSION_TO_LOOKUP_TABLE,
+				MemoryCacheService.CacheEnum.CODESYSTEM_VERSION_WITHOUT_LOOKUP_TABLE);
 	}
 
 	@Override
@@ -2322,6 +2449,74 @@ public class TermReadSvcImpl implements ITermReadSvc {
 						new TermCodeSystemVersionDetails(theVersion.getPid(), theVersion.getCodeSystemVersionId())));
 	}
 
+	/**
+	 * Returns the compact lookup table for the current version of the given code system,
+	 * building it if needed, or <code>null</code> if lookup tables are disabled or the code
+	 * system isn't stored in the terminology tables.
+	 */
+	@Nullable
+	private TermCodeSystemLookupTable getCodeSystemLookupTable(String theCodeSystem) {
+		if (!myStorageSettings.isCodeSystemLookupTableEnabled() || isBlank(theCodeSystem)) {
+			return null;
+		}
+		TermCodeSystemVersionDetails csv = getCurrentCodeSystemVersion(theCodeSystem);
+		if (csv == null) {
+			return null;
+		}
+		if (myMemoryCache.getIfPresent(
+						MemoryCacheService.CacheEnum.CODESYSTEM_VERSION_WITHOUT_LOOKUP_TABLE, csv.pid())
+				!= null) {
+			return null;
+		}
+
+		TermCodeSystemLookupTable retVal = myMemoryCache.get(
+				MemoryCacheService.CacheEnum.CODESYSTEM_VERSION_TO_LOOKUP_TABLE,
+				csv.pid(),
+				pid -> buildCodeSystemLookupTable(pid, csv.codeSystemVersionId()));
+		if (retVal == null) {
+			myMemoryCache.put(
+					MemoryCacheService.CacheEnum.CODESYSTEM_VERSION_WITHOUT_LOOKUP_TABLE, csv.pid(), Boolean.TRUE);
+		}
+		return retVal;
+	}
+
+	@Nullable
+	private TermCodeSystemLookupTable buildCodeSystemLookupTable(Long theCodeSystemVersionPid, String theVersionId) {
+		/*
+		 * Concepts which are still waiting to be stored would be missing from the
+		 * table, so don't build one until the deferred storage queue has drained
+		 */
+		if (isNotSafeToPreExpandValueSets()) {
+			return null;
+		}
+
+		StopWatch sw = new StopWatch();
+		TermCodeSystemLookupTable.Builder builder =
+				new TermCodeSystemLookupTable.Builder(theCodeSystemVersionPid, theVersionId);
+		TransactionTemplate txTemplate = new TransactionTemplate(myTransactionManager);
+		txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+		txTemplate.setReadOnly(true);
+		txTemplate.executeWithoutResult(tx -> {
+			try (Stream<Object[]> rows =
+					myConceptDao.streamCodesAndDisplaysByCodeSystemVersion(theCodeSystemVersionPid)) {
+				rows.forEach(row -> builder.add((String) row[0], (String) row[1]));
+			}
+		});
+		if (!builder.isWithinCapacity()) {
+			ourLog.warn("Code system version {} is too large for a lookup table", theCodeSystemVersionPid);
+			return null;
+		}
+
+		TermCodeSystemLookupTable retVal = builder.build();
+		ourLog.info(
+				"Built lookup table for code system version {} with {} concepts ({} off-heap bytes) in {}",
+				theCodeSystemVersionPid,
+				retVal.size(),
+				retVal.getOffHeapBytes(),
+				sw);
+		return retVal;
+	}
+
 	private boolean isNotSafeToPreExpandValueSets() {
 		return myDeferredStorageSvc != null && !myDeferredStorageSvc.isStorageQueueEmpty(false);
 	}
@@ -2365,15 +2560,24 @@ public class TermReadSvcImpl implements ITermReadSvc {
 		TermConcept codeB = findCode(codeBSystemIdentifier, conceptB.getCode())
 				.orElseThrow(() -> new InvalidRequestException("Unknown code: " + conceptB));
 
-		SearchSession searchSession = Search.session(myEntityManager);
-
 		ConceptSubsumptionOutcome subsumes;
-		subsumes = testForSubsumption(searchSession, codeA, codeB, ConceptSubsumptionOutcome.SUBSUMES);
-		if (subsumes == null) {
-			subsumes = testForSubsumption(searchSession, codeB, codeA, ConceptSubsumptionOutcome.SUBSUMEDBY);
-		}
-		if (subsumes == null) {
-			subsumes = ConceptSubsumptionOutcome.NOTSUBSUMED;
+		if (myConceptClosureDao.hasClosure(codeA.getId()) && myConceptClosureDao.hasClosure(codeB.getId())) {
+			if (myConceptClosureDao.isStrictAncestor(codeA.getId(), codeB.getId())) {
+				subsumes = ConceptSubsumptionOutcome.SUBSUMES;
+			} else if (myConceptClosureDao.isStrictAncestor(codeB.getId(), codeA.getId())) {
+				subsumes = ConceptSubsumptionOutcome.SUBSUMEDBY;
+			} else {
+				subsumes = ConceptSubsumptionOutcome.NOTSUBSUMED;
+			}
+		} else {
+			SearchSession searchSession = Search.session(myEntityManager);
+			subsumes = testForSubsumption(searchSession, codeA, codeB, ConceptSubsumptionOutcome.SUBSUMES);
+			if (subsumes == null) {
+				subsumes = testForSubsumption(searchSession, codeB, codeA, ConceptSubsumptionOutcome.SUBSUMEDBY);
+			}
+			if (subsumes == null) {
+				subsumes = ConceptSubsumptionOutcome.NOTSUBSUMED;
+			}
 		}
 
 		return new IFhirResourceDaoCodeSystem.SubsumesResult(subsumes);
@@ -2382,10 +2586,16 @@ public class TermReadSvcImpl implements ITermReadSvc {
 	@Override
 	public IValidationSupport.LookupCodeResult lookupCode(
 			ValidationSupportContext theValidationSupportContext, @Nonnull LookupCodeRequest theLookupCodeRequest) {
+		TermCodeSystemLookupTable lookupTable = getCodeSystemLookupTable(theLookupCodeRequest.getSystem());
 		return myTxTemplate.execute(t -> {
 			final String theSystem = theLookupCodeRequest.getSystem();
 			final String theCode = theLookupCodeRequest.getCode();
-			Optional<TermConcept> codeOpt = findCode(theSystem, theCode);
+			Optional<TermConcept> codeOpt;
+			if (lookupTable != null && (theCode == null || !lookupTable.contains(theCode))) {
+				codeOpt = Optional.empty();
+			} else {
+				codeOpt = findCode(theSystem, theCode);
+			}
 			if (codeOpt.isPresent()) {
 				TermConcept code = codeOpt.get();
 
@@ -2543,13 +2753,21 @@ public class TermReadSvcImpl implements ITermReadSvc {
 		TransactionTemplate txTemplate = new TransactionTemplate(myTransactionManager);
 		txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
 		txTemplate.setReadOnly(true);
-		Optional<FhirVersionIndependentConcept> codeOpt =
-				txTemplate.execute(tx -> findCode(theCodeSystemUrl, theCode).map(c -> {
-					TermCodeSystemVersionDetails csv = getCurrentCodeSystemVersion(theCodeSystemUrl);
-					String codeSystemVersionId = csv != null ? csv.codeSystemVersionId() : null;
-					return new FhirVersionIndependentConcept(
-							theCodeSystemUrl, c.getCode(), c.getDisplay(), codeSystemVersionId);
-				}));
+		Optional<FhirVersionIndependentConcept> codeOpt;
+		TermCodeSystemLookupTable lookupTable = getCodeSystemLookupTable(theCodeSystemUrl);
+		if (lookupTable != null) {
+			codeOpt = Optional.ofNullable(theCode != null ? lookupTable.lookup(theCode) : null)
+					.map(c -> new FhirVersionIndependentConcept(
+							theCodeSystemUrl, c.code(), c.display(), lookupTable.getCodeSystemVersionId()));
+		} else {
+			codeOpt =
+					txTemplate.execute(tx -> findCode(theCodeSystemUrl, theCode).map(c -> {
+						TermCodeSystemVersionDetails csv = getCurrentCodeSystemVersion(theCodeSystemUrl);
+						String codeSystemVersionId = csv != null ? csv.codeSystemVersionId() : null;
+						return new FhirVersionIndependentConcept(
+								theCodeSystemUrl, c.getCode(), c.getDisplay(), codeSystemVersionId);
+					}));
+		}
 
 		if (codeOpt != null && codeOpt.isPresent()) {
 			FhirVersionIndependentConcept code = codeOpt.get();
@@ -0,0 +1,114 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - HFQL Driver
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.fql.executor;
+
+import ca.uhn.fhir.jpa.fql.parser.HfqlStatement;
+import ca.uhn.fhir.jpa.fql.util.HfqlConstants;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * This is used for <code>ORDER BY</code> statements that return more rows than
+ * {@link HfqlConstants#ORDER_AND_GROUP_LIMIT}. The rows are sorted in runs which are
+ * spilled to disk and merged back together by an {@link ExternalSortRunMerger}, and
+ * each instance of this class reads one page of rows from that merger.
+ * <p>
+ * Since the result can be much larger than a single page, it has a search ID which the
+ * {@link HfqlExecutor} uses to find the merger again when the client requests the next
+ * page. The result only exists on the server which executed the search. Only one page
+ * of a given result can be read at a time, so a page holds the merger until it is
+ * {@link #close() closed} or has been read to the end.
+ * </p>
+ * <p>
+ * Unlike continuations of a regular search, pages can only be read in order. Once a page
+ * has been read its rows are gone, so a client which requests an offset that it has
+ * already passed (e.g. retrying a page after a dropped response) gets an error, and has
+ * to run the statement again.
+ * </p>
+ *
+ * @see IHfqlExecutionResult for information about the purpose of this class
+ * @since 8.12.0
+ */
+public class ExternalSortHfqlExecutionResult implements IHfqlExecutionResult {
+	/**
+	 * Prefix for the search IDs of this type of result
+	 */
+	public static final String SEARCH_ID_PREFIX = "hfql-sort-";
+
+	private final ExternalSortRunMerger myMerger;
+	private boolean myClosed;
+
+	/**
+	 * Constructor. The caller must hold the page permit of the merger, which is
+	 * released when this page is closed.
+	 */
+	ExternalSortHfqlExecutionResult(ExternalSortRunMerger theMerger) {
+		myMerger = theMerger;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (myClosed) {
+			return false;
+		}
+		boolean retVal = myMerger.hasNext();
+		if (!retVal) {
+			close();
+		}
+		return retVal;
+	}
+
+	@Override
+	public Row getNextRow() {
+		Validate.isTrue(hasNext(), "No more results");
+		return myMerger.nextRow();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return myClosed;
+	}
+
+	/**
+	 * Ends this page. The rows which haven't been read yet remain available to the next page.
+	 */
+	@Override
+	public void close() {
+		if (myClosed) {
+			return;
+		}
+		myClosed = true;
+		myMerger.releasePage();
+	}
+
+	@Override
+	public String getSearchId() {
+		return myMerger.getSearchId();
+	}
+
+	@Override
+	public int getLimit() {
+		return 0;
+	}
+
+	@Override
+	public HfqlStatement getStatement() {
+		return myMerger.getStatement();
+	}
+}
@@ -0,0 +1,527 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - HFQL Driver
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.fql.executor;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.fql.executor.IHfqlExecutionResult.Row;
+import ca.uhn.fhir.jpa.fql.parser.HfqlStatement;
+import ca.uhn.fhir.jpa.fql.util.HfqlConstants;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the sorted runs of an <code>ORDER BY</code> that returned more rows than
+ * {@link HfqlConstants#ORDER_AND_GROUP_LIMIT}, and merges them back together as rows are
+ * read. Each run is spilled to a temporary file using {@link RunWriter}, and only the next
+ * row of each run is held in memory.
+ * <p>
+ * At most {@link #DEFAULT_MAX_MERGE_FAN_IN} runs are merged at once. If there are more runs
+ * than that, groups of runs are first merged into larger runs (possibly over several passes),
+ * so that the number of open files doesn't grow with the size of the result.
+ * </p>
+ * <p>
+ * The rows are read one page at a time by {@link ExternalSortHfqlExecutionResult}, which holds
+ * the page permit of this object until the page has been written. Reading a page can only
+ * move forward: once a row has been returned it is gone, so a page can't be requested again.
+ * </p>
+ * <p>
+ * The temporary files are deleted as soon as each run is exhausted, or when this object is
+ * {@link #close() closed}.
+ * </p>
+ *
+ * @since 8.12.0
+ */
+class ExternalSortRunMerger {
+
+	/**
+	 * The maximum number of runs which are merged at once, and so the maximum number of
+	 * run files which are open at once for a single result
+	 */
+	static final int DEFAULT_MAX_MERGE_FAN_IN = 64;
+	/**
+	 * How long a request waits for another request which is reading a page of the same result
+	 */
+	static final long PAGE_PERMIT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+	private static final Logger ourLog = LoggerFactory.getLogger(ExternalSortRunMerger.class);
+	private static int ourMaxMergeFanIn = DEFAULT_MAX_MERGE_FAN_IN;
+
+	private final String mySearchId;
+	private final HfqlStatement myStatement;
+	private final Integer myLimit;
+	private final List<Path> myRunFiles;
+	private final List<FileRun> myFileRuns = new ArrayList<>();
+	private final PriorityQueue<RunHead> myRunHeads;
+	private final Semaphore myPagePermit = new Semaphore(1);
+	private int myNextRowOffset;
+	private boolean myExhausted;
+	private volatile boolean myClosed;
+	private volatile long myLastAccessedMillis;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theSearchId   The search ID the result is kept under
+	 * @param theStatement  The statement being executed
+	 * @param theComparator The ORDER BY comparator. This must be the same comparator that
+	 *                      the runs were sorted with.
+	 * @param theRunFiles   The sorted runs that were written using {@link RunWriter}. The
+	 *                      files are owned by this object from now on, and will be deleted by it.
+	 * @param theLastRun    A final sorted run which is held in memory instead of being spilled
+	 * @param theLimit      The maximum number of rows to return, or {@literal null} for no limit
+	 */
+	ExternalSortRunMerger(
+			String theSearchId,
+			HfqlStatement theStatement,
+			Comparator<Row> theComparator,
+			List<Path> theRunFiles,
+			List<Row> theLastRun,
+			@Nullable Integer theLimit) {
+		mySearchId = theSearchId;
+		myStatement = theStatement;
+		myLimit = theLimit;
+		myLastAccessedMillis = System.currentTimeMillis();
+		myRunFiles = reduceRuns(theRunFiles, theComparator, ourMaxMergeFanIn);
+		myRunHeads =
+				new PriorityQueue<>(myRunFiles.size() + 1, Comparator.comparing(RunHead::getRow, theComparator));
+
+		try {
+			for (Path nextRunFile : myRunFiles) {
+				FileRun fileRun = new FileRun(nextRunFile);
+				myFileRuns.add(fileRun);
+				addRunHead(myRunHeads, fileRun);
+			}
+		} catch (RuntimeException e) {
+			close();
+			throw e;
+		}
+		addRunHead(myRunHeads, theLastRun.iterator());
+
+		ourLog.debug("HFQL merging {} sorted runs spilled to disk", myRunFiles.size());
+	}
+
+	/**
+	 * Waits for any other request reading a page of this result to finish, and then positions
+	 * this result so that the next row returned has the given offset. The page permit is held
+	 * by the returned page until it is {@link ExternalSortHfqlExecutionResult#close() closed}.
+	 *
+	 * @return Returns <code>null</code> if the given offset has already been passed, if this
+	 * 		result has been closed before it was read to the end, or if another request has been
+	 * 		reading a page of it for longer than {@link #PAGE_PERMIT_TIMEOUT_MILLIS}
+	 */
+	@Nullable
+	ExternalSortHfqlExecutionResult openPage(int theRowOffset) {
+		try {
+			if (!myPagePermit.tryAcquire(PAGE_PERMIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+				return null;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+
+		boolean opened = false;
+		try {
+			myLastAccessedMillis = System.currentTimeMillis();
+			if ((myClosed && !myExhausted) || theRowOffset < myNextRowOffset) {
+				return null;
+			}
+			while (myNextRowOffset < theRowOffset && hasNext()) {
+				nextRow();
+			}
+			opened = true;
+			return new ExternalSortHfqlExecutionResult(this);
+		} finally {
+			if (!opened) {
+				myPagePermit.release();
+			}
+		}
+	}
+
+	/**
+	 * Called by the page once it has been read
+	 */
+	void releasePage() {
+		myLastAccessedMillis = System.currentTimeMillis();
+		myPagePermit.release();
+	}
+
+	/**
+	 * May only be called while holding the page permit
+	 */
+	boolean hasNext() {
+		boolean retVal = !myRunHeads.isEmpty() && (myLimit == null || myNextRowOffset < myLimit);
+		if (!retVal && !myClosed) {
+			myExhausted = true;
+			close();
+		}
+		return retVal;
+	}
+
+	/**
+	 * May only be called while holding the page permit
+	 */
+	Row nextRow() {
+		Validate.isTrue(hasNext(), "No more results");
+
+		RunHead head = myRunHeads.poll();
+		Row retVal = head.getRow();
+		addRunHead(myRunHeads, head.getRun());
+		return retVal.toRowOffset(myNextRowOffset++);
+	}
+
+	/**
+	 * Closes this result unless a page of it is currently being read
+	 *
+	 * @return Returns <code>true</code> if the result is now closed
+	 */
+	boolean tryClose() {
+		if (myClosed) {
+			return true;
+		}
+		if (!myPagePermit.tryAcquire()) {
+			return false;
+		}
+		try {
+			close();
+			return true;
+		} finally {
+			myPagePermit.release();
+		}
+	}
+
+	synchronized void close() {
+		if (myClosed) {
+			return;
+		}
+		myClosed = true;
+		myRunHeads.clear();
+		myFileRuns.forEach(FileRun::close);
+		deleteRunFiles(myRunFiles);
+	}
+
+	boolean isClosed() {
+		return myClosed;
+	}
+
+	long getLastAccessedMillis() {
+		return myLastAccessedMillis;
+	}
+
+	String getSearchId() {
+		return mySearchId;
+	}
+
+	HfqlStatement getStatement() {
+		return myStatement;
+	}
+
+	@VisibleForTesting
+	static void setMaxMergeFanInForUnitTest(int theMaxMergeFanIn) {
+		ourMaxMergeFanIn = theMaxMergeFanIn;
+	}
+
+	/**
+	 * Writes a run of rows to a new temporary file. The rows must already be sorted.
+	 *
+	 * @return The temporary file. The caller is responsible for deleting it, either by passing it to
+	 * 		the constructor of this class or by calling {@link #deleteRunFiles(Collection)}.
+	 */
+	static Path writeRun(List<Row> theSortedRows) {
+		try (RunWriter writer = new RunWriter()) {
+			for (Row nextRow : theSortedRows) {
+				writer.write(nextRow);
+			}
+			return writer.finish();
+		}
+	}
+
+	static void deleteRunFiles(Collection<Path> theRunFiles) {
+		for (Path next : theRunFiles) {
+			try {
+				Files.deleteIfExists(next);
+			} catch (IOException e) {
+				ourLog.warn("Failed to delete HFQL sort run {}: {}", next, e.toString());
+			}
+		}
+	}
+
+	/**
+	 * Merges groups of at most <code>theMaxFanIn</code> runs into larger runs until no more than
+	 * <code>theMaxFanIn</code> runs are left. The merged runs are deleted as they are consumed.
+	 */
+	private static List<Path> reduceRuns(List<Path> theRunFiles, Comparator<Row> theComparator, int theMaxFanIn) {
+		Validate.isTrue(theMaxFanIn >= 2, "The merge fan-in must be at least 2");
+		List<Path> runFiles = new ArrayList<>(theRunFiles);
+		List<Path> nextPass = new ArrayList<>();
+		try {
+			while (runFiles.size() > theMaxFanIn) {
+				ourLog.debug("HFQL merging {} sorted runs in groups of {}", runFiles.size(), theMaxFanIn);
+				for (int i = 0; i < runFiles.size(); i += theMaxFanIn) {
+					List<Path> group = runFiles.subList(i, Math.min(i + theMaxFanIn, runFiles.size()));
+					nextPass.add(group.size() == 1 ? group.get(0) : mergeRuns(group, theComparator));
+				}
+				runFiles = nextPass;
+				nextPass = new ArrayList<>();
+			}
+			return runFiles;
+		} catch (RuntimeException e) {
+			deleteRunFiles(theRunFiles);
+			deleteRunFiles(runFiles);
+			deleteRunFiles(nextPass);
+			throw e;
+		}
+	}
+
+	/**
+	 * Merges the given runs into a single new run. The given runs are deleted.
+	 */
+	private static Path mergeRuns(List<Path> theRunFiles, Comparator<Row> theComparator) {
+		List<FileRun> fileRuns = new ArrayList<>(theRunFiles.size());
+		PriorityQueue<RunHead> runHeads =
+				new PriorityQueue<>(theRunFiles.size(), Comparator.comparing(RunHead::getRow, theComparator));
+		try (RunWriter writer = new RunWriter()) {
+			for (Path nextRunFile : theRunFiles) {
+				FileRun fileRun = new FileRun(nextRunFile);
+				fileRuns.add(fileRun);
+				addRunHead(runHeads, fileRun);
+			}
+			while (!runHeads.isEmpty()) {
+				RunHead head = runHeads.poll();
+				writer.write(head.getRow());
+				addRunHead(runHeads, head.getRun());
+			}
+			return writer.finish();
+		} finally {
+			fileRuns.forEach(FileRun::close);
+		}
+	}
+
+	private static void addRunHead(PriorityQueue<RunHead> theRunHeads, Iterator<Row> theRun) {
+		if (theRun.hasNext()) {
+			theRunHeads.add(new RunHead(theRun.next(), theRun));
+		}
+	}
+
+	private static class RunHead {
+		private final Row myRow;
+		private final Iterator<Row> myRun;
+
+		private RunHead(Row theRow, Iterator<Row> theRun) {
+			myRow = theRow;
+			myRun = theRun;
+		}
+
+		public Row getRow() {
+			return myRow;
+		}
+
+		public Iterator<Row> getRun() {
+			return myRun;
+		}
+	}
+
+	/**
+	 * Writes a sorted run to a new temporary file. Every row starts with a marker, followed by
+	 * its offset and its values. The values are always strings (see
+	 * {@link LocalSearchHfqlExecutionResult}), so each one is written as a null flag followed by
+	 * its length-prefixed UTF-8 bytes. {@link DataOutputStream#writeUTF(String)} isn't used
+	 * because JSON column values can be longer than it allows.
+	 */
+	static class RunWriter implements AutoCloseable {
+		private final Path myFile;
+		private final DataOutputStream myOutput;
+		private boolean myFinished;
+
+		RunWriter() {
+			Path file = null;
+			try {
+				file = Files.createTempFile("hfql-sort-", ".run");
+				myOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+				myFile = file;
+			} catch (IOException e) {
+				if (file != null) {
+					deleteRunFiles(List.of(file));
+				}
+				throw newWriteFailureException(e);
+			}
+		}
+
+		void write(Row theRow) {
+			try {
+				myOutput.writeBoolean(true);
+				myOutput.writeInt(theRow.getRowOffset());
+				myOutput.writeInt(theRow.getRowValues().size());
+				for (Object nextValue : theRow.getRowValues()) {
+					Validate.isTrue(
+							nextValue == null || nextValue instanceof String,
+							"Can't spill HFQL value of type %s",
+							nextValue != null ? nextValue.getClass() : null);
+					myOutput.writeBoolean(nextValue != null);
+					if (nextValue != null) {
+						byte[] bytes = ((String) nextValue).getBytes(StandardCharsets.UTF_8);
+						myOutput.writeInt(bytes.length);
+						myOutput.write(bytes);
+					}
+				}
+			} catch (IOException e) {
+				throw newWriteFailureException(e);
+			}
+		}
+
+		/**
+		 * Writes the end marker and closes the file
+		 *
+		 * @return The file that was written
+		 */
+		Path finish() {
+			try {
+				myOutput.writeBoolean(false);
+				myOutput.close();
+				myFinished = true;
+				return myFile;
+			} catch (IOException e) {
+				throw newWriteFailureException(e);
+			}
+		}
+
+		/**
+		 * Closes the file, and deletes it unless it was {@link #finish() finished}
+		 */
+		@Override
+		public void close() {
+			if (myFinished) {
+				return;
+			}
+			try {
+				myOutput.close();
+			} catch (IOException e) {
+				ourLog.warn("Failed to close HFQL sort run {}: {}", myFile, e.toString());
+			}
+			deleteRunFiles(List.of(myFile));
+		}
+
+		private static InternalErrorException newWriteFailureException(IOException theCause) {
+			return new InternalErrorException(
+					Msg.code(3008) + "Failed to write HFQL sort run: " + theCause.getMessage(), theCause);
+		}
+	}
+
+	/**
+	 * Reads back a run that was written by {@link RunWriter}
+	 */
+	private static class FileRun implements Iterator<Row> {
+		private final Path myFile;
+		private final DataInputStream myInput;
+		private boolean myHasNext;
+		private boolean myClosed;
+
+		private FileRun(Path theFile) {
+			myFile = theFile;
+			try {
+				myInput = new DataInputStream(new BufferedInputStream(Files.newInputStream(theFile)));
+			} catch (IOException e) {
+				throw newReadFailureException(e);
+			}
+			readMarker();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return myHasNext;
+		}
+
+		@Override
+		public Row next() {
+			Validate.isTrue(hasNext(), "No more results");
+			try {
+				int rowOffset = myInput.readInt();
+				int valueCount = myInput.readInt();
+				List<Object> values = new ArrayList<>(valueCount);
+				for (int i = 0; i < valueCount; i++) {
+					String value = null;
+					if (myInput.readBoolean()) {
+						byte[] bytes = new byte[myInput.readInt()];
+						myInput.readFully(bytes);
+						value = new String(bytes, StandardCharsets.UTF_8);
+					}
+					values.add(value);
+				}
+				readMarker();
+				return new Row(rowOffset, values);
+			} catch (IOException e) {
+				close();
+				throw newReadFailureException(e);
+			}
+		}
+
+		private void readMarker() {
+			try {
+				myHasNext = myInput.readBoolean();
+			} catch (IOException e) {
+				close();
+				throw newReadFailureException(e);
+			}
+			if (!myHasNext) {
+				close();
+			}
+		}
+
+		private void close() {
+			if (myClosed) {
+				return;
+			}
+			myClosed = true;
+			myHasNext = false;
+			try {
+				myInput.close();
+			} catch (IOException e) {
+				ourLog.warn("Failed to close HFQL sort run {}: {}", myFile, e.toString());
+			}
+			deleteRunFiles(List.of(myFile));
+		}
+
+		private static InternalErrorException newReadFailureException(Exception theCause) {
+			return new InternalErrorException(
+					Msg.code(3009) + "Failed to read HFQL sort run: " + theCause.getMessage(), theCause);
+		}
+	}
+}
@@ -38,6 +38,8 @@ import ca.uhn.fhir.model.api.IQueryParameterAnd;
 import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.QualifiedParamList;
+import ca.uhn.fhir.rest.api.SortOrderEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.param.DateOrListParam;
@@ -54,9 +56,11 @@ import ca.uhn.fhir.util.UrlUtil;
 import com.google.common.collect.Lists;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
 import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.time.DateUtils;
 import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
@@ -66,6 +70,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -75,8 +80,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -99,6 +107,14 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 public class HfqlExecutor implements IHfqlExecutor {
 	public static final int BATCH_SIZE = 1000;
 	public static final String[] EMPTY_STRING_ARRAY = new String[0];
+	/**
+	 * How long a sorted result which was spilled to disk is kept after the client last fetched a page from it
+	 */
+	public static final long EXTERNAL_SORT_RESULT_EXPIRY_MILLIS = 10 * DateUtils.MILLIS_PER_MINUTE;
+	/**
+	 * The default for {@link #setMaxOpenExternalSortResults(int)}
+	 */
+	public static final int DEFAULT_MAX_OPEN_EXTERNAL_SORT_RESULTS = 10;
 	public static final Set<GroupByKey> NULL_GROUP_BY_KEY = Set.of(new GroupByKey(List.of()));
 	private static final Logger ourLog = LoggerFactory.getLogger(HfqlExecutor.class);
 
@@ -114,6 +130,9 @@ public class HfqlExecutor implements IHfqlExecutor {
 	@Autowired
 	private ISearchParamRegistry mySearchParamRegistry;
 
+	private final Map<String, ExternalSortRunMerger> myExternalSortResults = new ConcurrentHashMap<>();
+	private int myMaxOpenExternalSortResults = DEFAULT_MAX_OPEN_EXTERNAL_SORT_RESULTS;
+
 	/**
 	 * Constructor
 	 */
@@ -121,9 +140,33 @@ public class HfqlExecutor implements IHfqlExecutor {
 		super();
 	}
 
+	/**
+	 * Sets the maximum number of sorted results which have been spilled to disk that can be
+	 * kept open at once on this server. When the limit is reached, the result which was
+	 * least recently read is closed to make room for a new one. If every open result is
+	 * being read at that moment, the new statement fails instead. The default is
+	 * {@link #DEFAULT_MAX_OPEN_EXTERNAL_SORT_RESULTS}.
+	 *
+	 * @since 8.12.0
+	 */
+	public void setMaxOpenExternalSortResults(int theMaxOpenExternalSortResults) {
+		Validate.isTrue(theMaxOpenExternalSortResults > 0, "theMaxOpenExternalSortResults must be positive");
+		myMaxOpenExternalSortResults = theMaxOpenExternalSortResults;
+	}
+
+	/**
+	 * Closes every sorted result which is still open, and deletes its temporary files
+	 */
+	@PreDestroy
+	public void closeExternalSortResults() {
+		myExternalSortResults.values().forEach(ExternalSortRunMerger::close);
+		myExternalSortResults.clear();
+	}
+
 	@Override
 	public IHfqlExecutionResult executeInitialSearch(
 			String theStatement, Integer theLimit, RequestDetails theRequestDetails) {
+		expireExternalSortResults();
 		try {
 			return doExecuteInitialSearch(theStatement, theLimit, theRequestDetails);
 		} catch (Exception e) {
@@ -152,17 +195,21 @@ public class HfqlExecutor implements IHfqlExecutor {
 		addHfqlWhereClausesToSearchParameterMap(statement, map);
 
 		Integer limit = theLimit;
-		if (statement.hasOrderClause()) {
+		if (statement.getLimit() != null) {
+			limit = limit == null ? statement.getLimit() : Math.min(limit, statement.getLimit());
+		}
+
+		boolean orderInApplication = false;
+		Integer searchLimit = limit;
+		if (statement.hasOrderClause() && !addHfqlOrderClausesToSearchParameterMap(statement, map)) {
 			/*
-			 * If we're ordering search results, we need to load all available data in order
-			 * to sort it because we handle ordering in application code currently. A good
-			 * future optimization would be to handle ordering in the database when possible,
-			 * but we can't always do that because the query can specify an order on any
-			 * arbitrary FHIRPath expression.
+			 * If the ordering can't be handled by the database, we need to look at all
+			 * available data in order to sort it, since the query can specify an order on
+			 * any arbitrary FHIRPath expression. The LIMIT is applied after sorting
+			 * instead, which means we only need to hold on to the top rows.
 			 */
-			limit = null;
-		} else if (statement.getLimit() != null) {
-			limit = limit == null ? statement.getLimit() : Math.min(limit, statement.getLimit());
+			orderInApplication = true;
+			searchLimit = null;
 		}
 
 		HfqlExecutionContext executionContext = new HfqlExecutionContext(myFhirContext.newFhirPath());
@@ -174,11 +221,11 @@ public class HfqlExecutor implements IHfqlExecutor {
 			executionResult = executeCountClause(statement, executionContext, outcome, whereClausePredicate);
 		} else {
 			executionResult = new LocalSearchHfqlExecutionResult(
-					statement, outcome, executionContext, limit, 0, whereClausePredicate, myFhirContext);
+					statement, outcome, executionContext, searchLimit, 0, whereClausePredicate, myFhirContext);
 		}
 
-		if (statement.hasOrderClause()) {
-			executionResult = createOrderedResult(statement, executionResult);
+		if (orderInApplication) {
+			executionResult = createOrderedResult(statement, executionResult, limit);
 		}
 
 		return executionResult;
@@ -329,18 +376,151 @@ public class HfqlExecutor implements IHfqlExecutor {
 		}
 	}
 
+	/**
+	 * If every ORDER BY clause can be satisfied by sorting on a search parameter, we add
+	 * a <code>_sort</code> to the search and let the database do the ordering, so that
+	 * rows can be streamed and the LIMIT applied without loading everything.
+	 * <p>
+	 * Currently this only applies to <code>meta.lastUpdated</code>, since every resource
+	 * has exactly one value for it, so the database ordering is guaranteed to be the same
+	 * as the in-memory ordering. Other search parameters can have missing or repeating
+	 * values, which the database would order differently than the FHIRPath expression.
+	 * </p>
+	 *
+	 * @return Returns {@literal true} if the ordering was added to the search
+	 */
+	private boolean addHfqlOrderClausesToSearchParameterMap(HfqlStatement theStatement, SearchParameterMap theMap) {
+		if (theStatement.hasCountClauses()) {
+			return false;
+		}
+
+		SortSpec firstSort = null;
+		SortSpec lastSort = null;
+		for (HfqlStatement.OrderByClause nextOrderClause : theStatement.getOrderByClauses()) {
+			int index = theStatement.findSelectClauseIndex(nextOrderClause.getClause());
+			if (index == -1) {
+				return false;
+			}
+
+			String expression = theStatement.getSelectClauses().get(index).getClause();
+			if (!isFhirPathExpressionEquivalent("meta.lastUpdated", expression, theStatement.getFromResourceName())) {
+				return false;
+			}
+
+			SortOrderEnum order = nextOrderClause.isAscending() ? SortOrderEnum.ASC : SortOrderEnum.DESC;
+			SortSpec nextSort = new SortSpec(Constants.PARAM_LASTUPDATED, order);
+			if (firstSort == null) {
+				firstSort = nextSort;
+			} else {
+				lastSort.setChain(nextSort);
+			}
+			lastSort = nextSort;
+		}
+
+		theMap.setSort(firstSort);
+		return true;
+	}
+
+	/**
+	 * Sorts the rows in application memory. If there is a limit that is small enough,
+	 * only the top rows are kept in a bounded heap. Otherwise the rows are sorted in runs
+	 * of at most {@link HfqlConstants#ORDER_AND_GROUP_LIMIT}, and if there is more than one
+	 * run they are spilled to disk and merged by an {@link ExternalSortRunMerger}.
+	 * That result is kept under its search ID so that the client can fetch subsequent pages
+	 * using {@link #executeContinuation(HfqlStatement, String, int, Integer, RequestDetails)}.
+	 */
 	private IHfqlExecutionResult createOrderedResult(
-			HfqlStatement theStatement, IHfqlExecutionResult theExecutionResult) {
+			HfqlStatement theStatement, IHfqlExecutionResult theExecutionResult, @Nullable Integer theLimit) {
+		Comparator<IHfqlExecutionResult.Row> comparator = newOrderByComparator(theStatement, theExecutionResult);
+
+		if (theLimit != null && theLimit <= HfqlConstants.ORDER_AND_GROUP_LIMIT) {
+			return createTopRowsOrderedResult(theStatement, theExecutionResult, comparator, theLimit);
+		}
+
 		List<IHfqlExecutionResult.Row> rows = new ArrayList<>();
+		List<Path> runFiles = new ArrayList<>();
+		try {
+			while (theExecutionResult.hasNext()) {
+				IHfqlExecutionResult.Row nextRow = theExecutionResult.getNextRow();
+				if (nextRow.getRowOffset() == IHfqlExecutionResult.ROW_OFFSET_ERROR) {
+					ExternalSortRunMerger.deleteRunFiles(runFiles);
+					return toErrorResult(nextRow);
+				}
+				rows.add(nextRow);
+				if (rows.size() >= HfqlConstants.ORDER_AND_GROUP_LIMIT) {
+					if (runFiles.isEmpty()) {
+						makeRoomForExternalSortResult();
+					}
+					rows.sort(comparator);
+					runFiles.add(ExternalSortRunMerger.writeRun(rows));
+					rows.clear();
+				}
+			}
+		} catch (RuntimeException e) {
+			ExternalSortRunMerger.deleteRunFiles(runFiles);
+			throw e;
+		}
+
+		rows.sort(comparator);
+		if (!runFiles.isEmpty()) {
+			String searchId = ExternalSortHfqlExecutionResult.SEARCH_ID_PREFIX + UUID.randomUUID();
+			ExternalSortRunMerger merger =
+					new ExternalSortRunMerger(searchId, theStatement, comparator, runFiles, rows, theLimit);
+			myExternalSortResults.put(searchId, merger);
+			// Nobody else knows about the new merger yet, so the first page is always available
+			return merger.openPage(0);
+		}
+
+		if (theLimit != null && rows.size() > theLimit) {
+			rows = rows.subList(0, theLimit);
+		}
+		return toStaticResult(theStatement, rows);
+	}
+
+	/**
+	 * Keeps only the first <code>theLimit</code> rows in a heap whose root is the worst
+	 * row retained so far, so memory use is bounded by the limit rather than the number
+	 * of rows in the search.
+	 */
+	private static IHfqlExecutionResult createTopRowsOrderedResult(
+			HfqlStatement theStatement,
+			IHfqlExecutionResult theExecutionResult,
+			Comparator<IHfqlExecutionResult.Row> theComparator,
+			int theLimit) {
+		PriorityQueue<IHfqlExecutionResult.Row> topRows =
+				new PriorityQueue<>(theLimit + 1, theComparator.reversed());
 		while (theExecutionResult.hasNext()) {
 			IHfqlExecutionResult.Row nextRow = theExecutionResult.getNextRow();
-			rows.add(nextRow);
-			Validate.isTrue(
-					rows.size() <= HfqlConstants.ORDER_AND_GROUP_LIMIT,
-					"Can not ORDER BY result sets over %d results",
-					HfqlConstants.ORDER_AND_GROUP_LIMIT);
+			if (nextRow.getRowOffset() == IHfqlExecutionResult.ROW_OFFSET_ERROR) {
+				return toErrorResult(nextRow);
+			}
+			if (topRows.size() < theLimit) {
+				topRows.add(nextRow);
+			} else if (!topRows.isEmpty() && theComparator.compare(nextRow, topRows.peek()) < 0) {
+				topRows.poll();
+				topRows.add(nextRow);
+			}
 		}
 
+		List<IHfqlExecutionResult.Row> rows = new ArrayList<>(topRows);
+		rows.sort(theComparator);
+		return toStaticResult(theStatement, rows);
+	}
+
+	private static IHfqlExecutionResult toStaticResult(
+			HfqlStatement theStatement, List<IHfqlExecutionResult.Row> theSortedRows) {
+		List<List<Object>> rowData = theSortedRows.stream()
+				.map(IHfqlExecutionResult.Row::getRowValues)
+				.collect(Collectors.toList());
+		return new StaticHfqlExecutionResult(null, theStatement, rowData);
+	}
+
+	private static IHfqlExecutionResult toErrorResult(IHfqlExecutionResult.Row theErrorRow) {
+		return StaticHfqlExecutionResult.withError((String) theErrorRow.getRowValues().get(0));
+	}
+
+	private static Comparator<IHfqlExecutionResult.Row> newOrderByComparator(
+			HfqlStatement theStatement, IHfqlExecutionResult theExecutionResult) {
 		List<Integer> orderColumnIndexes = theStatement.getOrderByClauses().stream()
 				.map(t -> {
 					int index = theStatement.findSelectClauseIndex(t.getClause());
@@ -374,14 +554,11 @@ public class HfqlExecutor implements IHfqlExecutor {
 			}
 		}
 
-		rows.sort(comparator);
-		for (int i = 0; i < rows.size(); i++) {
-			rows.set(i, rows.get(i).toRowOffset(i));
-		}
-
-		List<List<Object>> rowData =
-				rows.stream().map(IHfqlExecutionResult.Row::getRowValues).collect(Collectors.toList());
-		return new StaticHfqlExecutionResult(null, theStatement, rowData);
+		/*
+		 * Rows that are otherwise equal keep the order they came back from the search in,
+		 * so that the result is the same no matter how the rows were sorted
+		 */
+		return comparator.thenComparingInt(IHfqlExecutionResult.Row::getRowOffset);
 	}
 
 	@Override
@@ -391,6 +568,20 @@ public class HfqlExecutor implements IHfqlExecutor {
 			int theStartingOffset,
 			Integer theLimit,
 			RequestDetails theRequestDetails) {
+		expireExternalSortResults();
+		if (theSearchId.startsWith(ExternalSortHfqlExecutionResult.SEARCH_ID_PREFIX)) {
+			ExternalSortRunMerger merger = myExternalSortResults.get(theSearchId);
+			ExternalSortHfqlExecutionResult page = merger != null ? merger.openPage(theStartingOffset) : null;
+			if (page == null) {
+				return StaticHfqlExecutionResult.withError(Msg.code(3011) + "Sorted HFQL result " + theSearchId
+						+ " is no longer available on this server, is being read by another request, or can not"
+						+ " continue from offset " + theStartingOffset
+						+ ". The pages of a sorted result can only be read in order, and a page can not be"
+						+ " requested again once a later page has been read. Run the statement again.");
+			}
+			return page;
+		}
+
 		IBundleProvider resultList = myPagingProvider.retrieveResultList(theRequestDetails, theSearchId);
 		HfqlExecutionContext executionContext = new HfqlExecutionContext(myFhirContext.newFhirPath());
 		Predicate<IBaseResource> whereClausePredicate = newWhereClausePredicate(executionContext, theStatement);
@@ -404,6 +595,42 @@ public class HfqlExecutor implements IHfqlExecutor {
 				myFhirContext);
 	}
 
+	/**
+	 * Closes (and deletes the temporary files of) any sorted results which have been fully
+	 * read, or which the client hasn't fetched a page from for a while
+	 */
+	private void expireExternalSortResults() {
+		long cutoff = System.currentTimeMillis() - EXTERNAL_SORT_RESULT_EXPIRY_MILLIS;
+		myExternalSortResults
+				.values()
+				.removeIf(t -> t.isClosed() || (t.getLastAccessedMillis() < cutoff && t.tryClose()));
+	}
+
+	/**
+	 * Makes sure there is room for one more sorted result, closing the least recently read
+	 * results which aren't being read right now if necessary
+	 */
+	private void makeRoomForExternalSortResult() {
+		expireExternalSortResults();
+
+		List<ExternalSortRunMerger> candidates = new ArrayList<>(myExternalSortResults.values());
+		candidates.sort(Comparator.comparingLong(ExternalSortRunMerger::getLastAccessedMillis));
+		for (ExternalSortRunMerger next : candidates) {
+			if (myExternalSortResults.size() < myMaxOpenExternalSortResults) {
+				break;
+			}
+			if (next.tryClose()) {
+				ourLog.info("Closing sorted HFQL result {} to make room for a new one", next.getSearchId());
+				myExternalSortResults.remove(next.getSearchId());
+			}
+		}
+
+		if (myExternalSortResults.size() >= myMaxOpenExternalSortResults) {
+			throw new InvalidRequestException(Msg.code(3012) + "Too many large sorted HFQL results are being read on"
+					+ " this server, try again later or add a LIMIT of at most " + HfqlConstants.ORDER_AND_GROUP_LIMIT);
+		}
+	}
+
 	private IHfqlExecutionResult executeCountClause(
 			HfqlStatement theStatement,
 			HfqlExecutionContext theExecutionContext,
@@ -39,6 +39,10 @@ import java.util.List;
  *    usually used to represent errors and failed queries inside the HAPI FHIR server.
  * </li>
  * <li>
+ *    {@link ExternalSortHfqlExecutionResult} - Merges sorted runs that were spilled to disk
+ *    when an ORDER BY covers more rows than can be sorted in memory.
+ * </li>
+ * <li>
  *    {@link ca.uhn.fhir.jpa.fql.jdbc.RemoteHfqlExecutionResult} - This is used inside the
  *    JDBC driver (ie. remote from the HAPI FHIR server) and holds results that have
  *    been received over the wire.
@@ -207,6 +207,10 @@ public class HfqlRestProvider {
 					csvWriter.printRecord(nextRow.getRowValues());
 				}
 				csvWriter.flush();
+			} finally {
+				// Results that can be continued keep their state in the executor, so for them
+				// this only ends the page. Anything else releases whatever it holds.
+				theResult.close();
 			}
 		}
 	}
@@ -0,0 +1,115 @@
+package ca.uhn.fhir.jpa.fql.executor;
+
+import ca.uhn.fhir.jpa.fql.executor.IHfqlExecutionResult.Row;
+import ca.uhn.fhir.jpa.fql.parser.HfqlStatement;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExternalSortRunMergerTest {
+
+	private static final Comparator<Row> COMPARATOR = Comparator.<Row, String>comparing(
+			t -> (String) t.getRowValues().get(0), Comparator.nullsFirst(Comparator.naturalOrder()))
+		.thenComparingInt(Row::getRowOffset);
+
+	@AfterEach
+	public void afterEach() {
+		ExternalSortRunMerger.setMaxMergeFanInForUnitTest(ExternalSortRunMerger.DEFAULT_MAX_MERGE_FAN_IN);
+	}
+
+	@Test
+	public void testMergeInSeveralPasses() {
+		// Setup - 8 runs with a fan-in of 2 needs 2 passes before the final merge
+		ExternalSortRunMerger.setMaxMergeFanInForUnitTest(2);
+		String longValue = StringUtils.repeat("é", 70000);
+		List<Path> runFiles = new ArrayList<>();
+		List<String> expected = new ArrayList<>();
+		int offset = 0;
+		for (int run = 0; run < 7; run++) {
+			List<Row> rows = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				String value = String.format("%03d", i * 7 + run);
+				rows.add(new Row(offset++, Arrays.asList(value, null)));
+				expected.add(value);
+			}
+			runFiles.add(ExternalSortRunMerger.writeRun(rows));
+		}
+		// Values which are too long for DataOutputStream#writeUTF
+		runFiles.add(ExternalSortRunMerger.writeRun(List.of(new Row(offset++, Arrays.asList(null, longValue)))));
+		expected.add(null);
+		List<Row> lastRun = new ArrayList<>();
+		lastRun.add(new Row(offset++, Arrays.asList("zzz", null)));
+		expected.add("zzz");
+
+		// Test
+		ExternalSortRunMerger merger =
+				new ExternalSortRunMerger("id", new HfqlStatement(), COMPARATOR, runFiles, lastRun, null);
+		ExternalSortHfqlExecutionResult page = merger.openPage(0);
+
+		// Verify
+		assertNotNull(page);
+		List<String> actual = new ArrayList<>();
+		while (page.hasNext()) {
+			Row next = page.getNextRow();
+			assertEquals(actual.size(), next.getRowOffset());
+			actual.add((String) next.getRowValues().get(0));
+			if (next.getRowValues().get(0) == null) {
+				assertEquals(longValue, next.getRowValues().get(1));
+			} else {
+				assertNull(next.getRowValues().get(1));
+			}
+		}
+		assertEquals(expected.stream().sorted(Comparator.nullsFirst(Comparator.naturalOrder())).toList(), actual);
+		assertTrue(page.isClosed());
+		assertTrue(merger.isClosed());
+		assertThat(runFiles).noneMatch(Files::exists);
+	}
+
+	@Test
+	public void testPagesAreReadOneAtATimeAndInOrder() {
+		// Setup
+		List<Row> rows = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			rows.add(new Row(i, List.of(String.format("%03d", i))));
+		}
+		List<Path> runFiles = List.of(ExternalSortRunMerger.writeRun(rows.subList(0, 5)));
+		ExternalSortRunMerger merger = new ExternalSortRunMerger(
+				"id", new HfqlStatement(), COMPARATOR, runFiles, rows.subList(5, 10), null);
+
+		// Test / Verify
+		ExternalSortHfqlExecutionResult page = merger.openPage(0);
+		assertNotNull(page);
+		assertEquals("000", page.getNextRow().getRowValues().get(0));
+
+		// A result can't be closed while a page of it is being read
+		assertFalse(merger.tryClose());
+		page.close();
+		assertFalse(page.hasNext());
+
+		page = merger.openPage(3);
+		assertNotNull(page);
+		assertEquals("003", page.getNextRow().getRowValues().get(0));
+		page.close();
+
+		// Offsets which have already been read can't be requested again
+		assertNull(merger.openPage(1));
+
+		assertTrue(merger.tryClose());
+		assertNull(merger.openPage(4));
+		assertThat(runFiles).noneMatch(Files::exists);
+	}
+}
@@ -2,6 +2,7 @@ package ca.uhn.fhir.jpa.fql.executor;
 
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.SortOrderEnum;
 import ca.uhn.fhir.rest.param.DateParam;
 import ca.uhn.fhir.rest.param.ParamPrefixEnum;
 import ca.uhn.fhir.rest.param.TokenParam;
@@ -98,5 +99,44 @@ public class HfqlExecutorFhirPathTranslationToSearchParamTest extends BaseHfqlEx
 		assertEquals(theExpectedParamPrefix, ((DateParam) map.get("_lastUpdated").get(0).get(0)).getPrefix());
 	}
 
+	@ParameterizedTest
+	@CsvSource(textBlock = """
+		meta.lastUpdated ASC  , _lastUpdated , ASC
+		meta.lastUpdated DESC , _lastUpdated , DESC
+		birthDate DESC        ,              ,
+		"""
+	)
+	public void testOrderBy(String theOrderBy, String theExpectedSortParam, SortOrderEnum theExpectedSortOrder) {
+		IFhirResourceDao<Patient> patientDao = initDao(Patient.class);
+		when(patientDao.search(any(), any())).thenReturn(createProviderWithSomeSimpsonsAndFlanders());
+
+		String statement = """
+			SELECT
+			   id, birthDate, meta.lastUpdated
+			FROM
+			   Patient
+			ORDER BY
+			   meta.lastUpdated ASC
+			LIMIT 2
+			""";
+		statement = statement.replace("meta.lastUpdated ASC", theOrderBy);
+
+		IHfqlExecutionResult result = myHfqlExecutor.executeInitialSearch(statement, null, mySrd);
+
+		verify(patientDao, times(1)).search(mySearchParameterMapCaptor.capture(), any());
+		SearchParameterMap map = mySearchParameterMapCaptor.getValue();
+		if (theExpectedSortParam != null) {
+			assertEquals(theExpectedSortParam, map.getSort().getParamName());
+			assertEquals(theExpectedSortOrder, map.getSort().getOrder());
+			assertNull(map.getSort().getChain());
+			// The database handles the ordering, so the search results are streamed
+			assertThat(result).isInstanceOf(LocalSearchHfqlExecutionResult.class);
+		} else {
+			assertNull(map.getSort());
+			assertThat(result).isInstanceOf(StaticHfqlExecutionResult.class);
+		}
+		assertThat(readAllRowValues(result)).hasSize(2);
+	}
+
 
 }
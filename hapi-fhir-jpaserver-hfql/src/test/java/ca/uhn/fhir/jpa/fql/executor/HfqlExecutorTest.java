@@ -16,6 +16,7 @@ import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Quantity;
 import org.hl7.fhir.r4.model.StringType;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -39,6 +40,18 @@ import static org.mockito.Mockito.when;
 
 public class HfqlExecutorTest extends BaseHfqlExecutorTest {
 
+	private static final String ORDER_BY_VERSION_STATEMENT = """
+				FROM Patient
+				SELECT
+					meta.versionId.toInteger() AS versionId
+				ORDER BY versionId ASC
+		""";
+
+	@AfterEach
+	public void afterEach() {
+		myHfqlExecutor.closeExternalSortResults();
+	}
+
 	@Test
 	public void testContinuation() {
 		// Setup
@@ -154,6 +167,148 @@ public class HfqlExecutorTest extends BaseHfqlExecutorTest {
 		assertFalse(result.hasNext());
 	}
 
+	@Test
+	public void testSelect_OrderBy_Limit() {
+
+		// Setup
+
+		IFhirResourceDao<Patient> patientDao = initDao(Patient.class);
+		List<Patient> patients = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			Patient patient = new Patient();
+			patient.getMeta().setVersionId(Integer.toString((i * 7) % 5000));
+			patient.addName().setFamily("PT" + i);
+			patients.add(patient);
+		}
+		when(patientDao.search(any(), any())).thenReturn(new SimpleBundleProvider(patients));
+		String statement = """
+					FROM Patient
+					SELECT
+						meta.versionId.toInteger() AS versionId
+					ORDER BY versionId DESC
+					LIMIT 10
+			""";
+
+		// Test
+
+		IHfqlExecutionResult result = myHfqlExecutor.executeInitialSearch(statement, null, mySrd);
+
+		// Verify
+		IHfqlExecutionResult.Row nextRow;
+		for (int i = 0; i < 10; i++) {
+			assertTrue(result.hasNext());
+			nextRow = result.getNextRow();
+			assertEquals(i, nextRow.getRowOffset());
+			assertThat(nextRow.getRowValues()).as(nextRow.getRowValues().toString()).containsExactly(String.valueOf(4999 - i));
+		}
+		assertFalse(result.hasNext());
+	}
+
+	@Test
+	public void testSelect_OrderBy_MoreRowsThanOrderLimit() {
+
+		// Setup
+
+		int count = ORDER_AND_GROUP_LIMIT * 2 + 5;
+		IFhirResourceDao<Patient> patientDao = initDao(Patient.class);
+		List<Patient> patients = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Patient patient = new Patient();
+			patient.getMeta().setVersionId(Integer.toString((i * 7) % count));
+			patients.add(patient);
+		}
+		when(patientDao.search(any(), any())).thenReturn(new SimpleBundleProvider(patients));
+		String statement = """
+					FROM Patient
+					SELECT
+						meta.versionId.toInteger() AS versionId
+					ORDER BY versionId ASC
+			""";
+
+		// Test
+
+		IHfqlExecutionResult result = myHfqlExecutor.executeInitialSearch(statement, null, mySrd);
+
+		// Verify
+		assertThat(result).isInstanceOf(ExternalSortHfqlExecutionResult.class);
+		IHfqlExecutionResult.Row nextRow;
+		for (int i = 0; i < count; i++) {
+			assertTrue(result.hasNext());
+			nextRow = result.getNextRow();
+			assertEquals(i, nextRow.getRowOffset());
+			assertThat(nextRow.getRowValues()).as(nextRow.getRowValues().toString()).containsExactly(String.valueOf(i));
+		}
+		assertFalse(result.hasNext());
+		assertTrue(result.isClosed());
+	}
+
+	@Test
+	public void testSelect_OrderBy_MoreRowsThanOrderLimit_PagesReadInOrder() {
+		// Setup
+		int count = ORDER_AND_GROUP_LIMIT * 2 + 5;
+		initDaoWithPatientVersions(count);
+
+		// Test
+		IHfqlExecutionResult firstPage = myHfqlExecutor.executeInitialSearch(ORDER_BY_VERSION_STATEMENT, null, mySrd);
+		String searchId = firstPage.getSearchId();
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i, firstPage.getNextRow().getRowOffset());
+		}
+		firstPage.close();
+
+		// Verify
+		IHfqlExecutionResult secondPage = myHfqlExecutor.executeContinuation(null, searchId, 20, null, mySrd);
+		IHfqlExecutionResult.Row nextRow = secondPage.getNextRow();
+		assertEquals(20, nextRow.getRowOffset());
+		assertThat(nextRow.getRowValues()).containsExactly("20");
+		secondPage.close();
+
+		// Going back to an offset which has already been read isn't possible
+		IHfqlExecutionResult replayedPage = myHfqlExecutor.executeContinuation(null, searchId, 10, null, mySrd);
+		nextRow = replayedPage.getNextRow();
+		assertEquals(IHfqlExecutionResult.ROW_OFFSET_ERROR, nextRow.getRowOffset());
+		assertThat((String) nextRow.getRowValues().get(0)).contains(Msg.code(3011), "can only be read in order");
+	}
+
+	@Test
+	public void testSelect_OrderBy_MoreRowsThanOrderLimit_TooManyOpenResults() {
+		// Setup
+		myHfqlExecutor.setMaxOpenExternalSortResults(1);
+		initDaoWithPatientVersions(ORDER_AND_GROUP_LIMIT + 5);
+
+		// The page of the first result is still being read, so it can't be closed to make room
+		IHfqlExecutionResult first = myHfqlExecutor.executeInitialSearch(ORDER_BY_VERSION_STATEMENT, null, mySrd);
+		assertThat(first.getSearchId()).startsWith(ExternalSortHfqlExecutionResult.SEARCH_ID_PREFIX);
+		IHfqlExecutionResult rejected = myHfqlExecutor.executeInitialSearch(ORDER_BY_VERSION_STATEMENT, null, mySrd);
+		IHfqlExecutionResult.Row nextRow = rejected.getNextRow();
+		assertEquals(IHfqlExecutionResult.ROW_OFFSET_ERROR, nextRow.getRowOffset());
+		assertThat((String) nextRow.getRowValues().get(0)).contains(Msg.code(3012));
+
+		// Once the page has been written, the first result is closed to make room
+		first.close();
+		IHfqlExecutionResult second = myHfqlExecutor.executeInitialSearch(ORDER_BY_VERSION_STATEMENT, null, mySrd);
+		assertEquals(0, second.getNextRow().getRowOffset());
+		second.close();
+		nextRow = myHfqlExecutor.executeContinuation(null, first.getSearchId(), 0, null, mySrd).getNextRow();
+		assertEquals(IHfqlExecutionResult.ROW_OFFSET_ERROR, nextRow.getRowOffset());
+
+		// Shutting down closes everything
+		myHfqlExecutor.closeExternalSortResults();
+		nextRow = myHfqlExecutor.executeContinuation(null, second.getSearchId(), 1, null, mySrd).getNextRow();
+		assertEquals(IHfqlExecutionResult.ROW_OFFSET_ERROR, nextRow.getRowOffset());
+	}
+
+	private void initDaoWithPatientVersions(int theCount) {
+		IFhirResourceDao<Patient> patientDao = initDao(Patient.class);
+		List<Patient> patients = new ArrayList<>();
+		for (int i = 0; i < theCount; i++) {
+			Patient patient = new Patient();
+			patient.getMeta().setVersionId(Integer.toString((i * 7) % theCount));
+			patients.add(patient);
+		}
+		when(patientDao.search(any(), any())).thenAnswer(t -> new SimpleBundleProvider(patients));
+	}
+
 
 
 	@Test
@@ -0,0 +1,101 @@
+package ca.uhn.fhir.jpa.fql.provider;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.fql.executor.BaseHfqlExecutorTest;
+import ca.uhn.fhir.jpa.fql.executor.ExternalSortHfqlExecutionResult;
+import ca.uhn.fhir.jpa.fql.executor.IHfqlExecutionResult;
+import ca.uhn.fhir.jpa.fql.jdbc.HfqlRestClient;
+import ca.uhn.fhir.rest.server.SimpleBundleProvider;
+import ca.uhn.fhir.test.utilities.server.RestfulServerExtension;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ca.uhn.fhir.jpa.fql.util.HfqlConstants.DEFAULT_FETCH_SIZE;
+import static ca.uhn.fhir.jpa.fql.util.HfqlConstants.ORDER_AND_GROUP_LIMIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs ORDER BY statements which are too large to sort in memory through the REST provider
+ * and the JDBC client, to make sure that every page of the sorted result can be fetched
+ */
+public class HfqlRestProviderOrderByTest extends BaseHfqlExecutorTest {
+
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	@RegisterExtension
+	public RestfulServerExtension myServer = new RestfulServerExtension(ourCtx)
+		.registerProvider(new HfqlRestProvider(myHfqlExecutor));
+	private HfqlRestClient myClient;
+
+	@AfterEach
+	public void afterEach() {
+		if (myClient != null) {
+			myClient.close();
+		}
+	}
+
+	@Test
+	public void testOrderBy_MoreRowsThanOrderLimit_AllPagesReturned() throws SQLException {
+		// Setup
+		int count = ORDER_AND_GROUP_LIMIT * 2 + 5;
+		IFhirResourceDao<Patient> patientDao = initDao(Patient.class);
+		List<Patient> patients = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Patient patient = new Patient();
+			patient.getMeta().setVersionId(Integer.toString((i * 7) % count));
+			patients.add(patient);
+		}
+		when(patientDao.search(any(), any())).thenReturn(new SimpleBundleProvider(patients));
+		String statement = """
+					FROM Patient
+					SELECT
+						meta.versionId.toInteger() AS versionId
+					ORDER BY versionId ASC
+			""";
+
+		// Test
+		myClient = new HfqlRestClient(myServer.getBaseUrl(), null, null);
+		IHfqlExecutionResult result = myClient.execute(
+			HfqlRestClient.newQueryRequestParameters(statement, null, DEFAULT_FETCH_SIZE), true, DEFAULT_FETCH_SIZE);
+
+		// Verify
+		assertThat(result.getSearchId()).startsWith(ExternalSortHfqlExecutionResult.SEARCH_ID_PREFIX);
+		List<String> values = new ArrayList<>();
+		while (result.hasNext()) {
+			IHfqlExecutionResult.Row nextRow = result.getNextRow();
+			assertEquals(values.size(), nextRow.getRowOffset());
+			values.add(String.valueOf(nextRow.getRowValues().get(0)));
+		}
+		assertEquals(count, values.size());
+		for (int i = 0; i < count; i++) {
+			assertEquals(String.valueOf(i), values.get(i));
+		}
+
+		// The continuations were served by the sorted result, not the paging provider
+		verifyNoInteractions(myPagingProvider);
+	}
+
+	@Test
+	public void testOrderBy_ContinuationForUnknownSortedResult() {
+		// Test
+		IHfqlExecutionResult result = myHfqlExecutor.executeContinuation(
+			null, ExternalSortHfqlExecutionResult.SEARCH_ID_PREFIX + "unknown", 1000, null, mySrd);
+
+		// Verify
+		assertTrue(result.hasNext());
+		IHfqlExecutionResult.Row row = result.getNextRow();
+		assertEquals(IHfqlExecutionResult.ROW_OFFSET_ERROR, row.getRowOffset());
+		assertThat((String) row.getRowValues().get(0)).contains("is no longer available on this server");
+	}
+}
@@ -31,6 +31,7 @@ import ca.uhn.fhir.jpa.mdm.svc.BlockRuleEvaluationSvcImpl;
 import ca.uhn.fhir.jpa.mdm.svc.GoldenResourceMergerSvcImpl;
 import ca.uhn.fhir.jpa.mdm.svc.GoldenResourceSearchSvcImpl;
 import ca.uhn.fhir.jpa.mdm.svc.IMdmModelConverterSvc;
+import ca.uhn.fhir.jpa.mdm.svc.MdmBlockingKeySvcImpl;
 import ca.uhn.fhir.jpa.mdm.svc.MdmControllerSvcImpl;
 import ca.uhn.fhir.jpa.mdm.svc.MdmEidUpdateService;
 import ca.uhn.fhir.jpa.mdm.svc.MdmLinkCreateSvcImpl;
@@ -51,6 +52,7 @@ import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmCandidateSearchSvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmGoldenResourceFindingSvc;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
 import ca.uhn.fhir.mdm.api.IGoldenResourceMergerSvc;
+import ca.uhn.fhir.mdm.api.IMdmBlockingKeySvc;
 import ca.uhn.fhir.mdm.api.IMdmControllerSvc;
 import ca.uhn.fhir.mdm.api.IMdmLinkCreateSvc;
 import ca.uhn.fhir.mdm.api.IMdmLinkQuerySvc;
@@ -199,6 +201,11 @@ public class MdmConsumerConfig {
 		return new CandidateSearcher(theDaoRegistry, theMdmSettings, theMdmSearchParamSvc);
 	}
 
+	@Bean
+	IMdmBlockingKeySvc mdmBlockingKeySvc() {
+		return new MdmBlockingKeySvcImpl();
+	}
+
 	@Bean
 	MdmCandidateSearchCriteriaBuilderSvc mdmCriteriaBuilderSvc() {
 		return new MdmCandidateSearchCriteriaBuilderSvc();
@@ -0,0 +1,277 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Master Data Management
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.mdm.svc;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.model.util.SearchParamHash;
+import ca.uhn.fhir.mdm.api.IMdmBlockingKeySvc;
+import ca.uhn.fhir.mdm.api.IMdmSettings;
+import ca.uhn.fhir.mdm.dao.IMdmBlockingKeyDao;
+import ca.uhn.fhir.mdm.log.Logs;
+import ca.uhn.fhir.mdm.rules.json.MdmResourceSearchParamJson;
+import ca.uhn.fhir.mdm.svc.MdmSearchParamSvc;
+import ca.uhn.fhir.mdm.util.MdmResourceUtil;
+import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+import ca.uhn.fhir.util.StringUtil;
+import jakarta.annotation.Nullable;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static ca.uhn.fhir.mdm.api.MdmConstants.ALL_RESOURCE_SEARCH_PARAM_TYPE;
+
+/**
+ * Calculates and stores the MDM blocking keys for MDM source resources.
+ * <p>
+ * A resource gets one key for every combination of values it has for the search parameters of
+ * each applicable <code>candidateSearchParams</code> entry in the MDM rules. Since the candidate
+ * search for an entry ANDs its parameters and ORs the values of each one, two resources share a
+ * key for an entry exactly when one would find the other with that search, except that values
+ * are compared after normalization instead of with FHIR search semantics:
+ * </p>
+ * <ul>
+ *    <li>String values are normalized the way the string index is, including the phonetic encoder
+ *    of the search parameter if it has one, and must match exactly rather than by prefix.</li>
+ *    <li>Date values are bucketed by day.</li>
+ *    <li>Token, reference and URI values must match exactly.</li>
+ * </ul>
+ * Entries using any other kind of search parameter, a modifier, or a search parameter that can't
+ * be resolved can't be indexed, and candidate searches fall back to a regular search for them.
+ * <p>
+ * Since the number of combinations grows quickly with the number of values, a resource which would
+ * get more than {@link #MAX_KEYS_PER_ENTRY} keys for an entry gets a single overflow key for it
+ * instead. Every candidate search through the index also looks up the overflow key, so these
+ * resources remain candidates for everything, and searching for a resource which overflows itself
+ * falls back to a regular search.
+ * </p>
+ *
+ * @since 8.12.0
+ */
+public class MdmBlockingKeySvcImpl<P extends IResourcePersistentId<?>> implements IMdmBlockingKeySvc {
+
+	private static final Logger ourLog = Logs.getMdmTroubleshootingLog();
+
+	/**
+	 * Don't change this without careful consideration. You will break existing keys!
+	 */
+	private static final String KEY_PREFIX = "MDM_BLOCK";
+
+	/**
+	 * The length of a date at day precision, e.g. <code>2020-01-31</code>
+	 */
+	private static final int DAY_PRECISION_LENGTH = 10;
+
+	/**
+	 * The maximum number of keys a resource can have for a single <code>candidateSearchParams</code> entry
+	 */
+	static final int MAX_KEYS_PER_ENTRY = 100;
+
+	/**
+	 * Takes the place of the search parameter values in the overflow key of an entry
+	 */
+	private static final String OVERFLOW_MARKER = "OVERFLOW";
+
+	@Autowired
+	private FhirContext myFhirContext;
+
+	@Autowired
+	private IMdmSettings myMdmSettings;
+
+	@Autowired
+	private MdmSearchParamSvc myMdmSearchParamSvc;
+
+	@Autowired
+	private IIdHelperService<P> myIdHelperService;
+
+	@Autowired
+	private IMdmBlockingKeyDao<P> myMdmBlockingKeyDao;
+
+	@Override
+	@Transactional
+	public void updateBlockingKeys(List<? extends IBaseResource> theResources) {
+		if (!myMdmSettings.isBlockingKeyIndexEnabled()) {
+			return;
+		}
+
+		for (IBaseResource next : theResources) {
+			String resourceType = myFhirContext.getResourceType(next);
+			if (!myMdmSettings.isSupportedMdmType(resourceType)) {
+				continue;
+			}
+			P pid = myIdHelperService.getPidOrNull(RequestPartitionId.allPartitions(), next);
+			if (pid == null) {
+				continue;
+			}
+
+			// Golden resources are never candidates themselves
+			Set<Long> keys = new HashSet<>();
+			if (MdmResourceUtil.isMdmAllowed(next) && !MdmResourceUtil.isMdmManaged(next)) {
+				for (MdmResourceSearchParamJson nextSearchParams :
+						myMdmSettings.getMdmRules().getCandidateSearchParams()) {
+					if (isSearchParamForResource(resourceType, nextSearchParams)) {
+						Set<Long> nextKeys = calculateBlockingKeys(resourceType, next, nextSearchParams);
+						if (nextKeys != null) {
+							keys.addAll(nextKeys);
+						}
+					}
+				}
+			}
+
+			ourLog.trace("Storing {} MDM blocking keys for {}", keys.size(), pid);
+			myMdmBlockingKeyDao.replaceBlockingKeys(pid, resourceType, keys);
+		}
+	}
+
+	@Override
+	@Nullable
+	public Set<Long> calculateBlockingKeys(
+			String theResourceType, IBaseResource theResource, MdmResourceSearchParamJson theSearchParams) {
+		List<String> searchParamNames = theSearchParams.getSearchParams();
+		List<Set<String>> valuesPerSearchParam = new ArrayList<>(searchParamNames.size());
+		long combinationCount = 1;
+
+		for (String nextSearchParamName : searchParamNames) {
+			// Modifiers such as :nickname change what the search matches in ways a key can't capture
+			if (nextSearchParamName.indexOf(':') != -1) {
+				return null;
+			}
+			RuntimeSearchParam searchParam =
+					myMdmSearchParamSvc.getActiveSearchParam(theResourceType, nextSearchParamName);
+			if (searchParam == null || !isIndexable(searchParam)) {
+				return null;
+			}
+
+			Set<String> values = new LinkedHashSet<>();
+			for (String nextValue :
+					myMdmSearchParamSvc.getValueFromResourceForSearchParam(theResource, nextSearchParamName)) {
+				values.add(normalizeValue(searchParam, nextValue));
+			}
+			if (values.isEmpty()) {
+				return Collections.emptySet();
+			}
+			valuesPerSearchParam.add(values);
+			combinationCount = Math.min(combinationCount * values.size(), MAX_KEYS_PER_ENTRY + 1);
+		}
+
+		if (combinationCount > MAX_KEYS_PER_ENTRY) {
+			ourLog.debug(
+					"{} has more than {} MDM blocking key combinations for {}, storing the overflow key instead",
+					theResourceType,
+					MAX_KEYS_PER_ENTRY,
+					searchParamNames);
+			return Collections.singleton(calculateOverflowKey(theResourceType, theSearchParams));
+		}
+
+		List<String[]> combinations = new ArrayList<>();
+		combinations.add(new String[] {KEY_PREFIX, theResourceType});
+		for (int i = 0; i < searchParamNames.size(); i++) {
+			List<String[]> nextCombinations = new ArrayList<>();
+			for (String[] nextPrefix : combinations) {
+				for (String nextValue : valuesPerSearchParam.get(i)) {
+					String[] nextCombination = new String[nextPrefix.length + 2];
+					System.arraycopy(nextPrefix, 0, nextCombination, 0, nextPrefix.length);
+					nextCombination[nextPrefix.length] = searchParamNames.get(i);
+					nextCombination[nextPrefix.length + 1] = nextValue;
+					nextCombinations.add(nextCombination);
+				}
+			}
+			combinations = nextCombinations;
+		}
+
+		Set<Long> retVal = new HashSet<>(combinations.size());
+		for (String[] next : combinations) {
+			retVal.add(SearchParamHash.hashSearchParam(next));
+		}
+		return retVal;
+	}
+
+	@Override
+	@Nullable
+	public Set<Long> calculateCandidateSearchKeys(
+			String theResourceType, IBaseResource theResource, MdmResourceSearchParamJson theSearchParams) {
+		Set<Long> keys = calculateBlockingKeys(theResourceType, theResource, theSearchParams);
+		if (keys == null || keys.isEmpty()) {
+			return keys;
+		}
+
+		Long overflowKey = calculateOverflowKey(theResourceType, theSearchParams);
+		if (keys.contains(overflowKey)) {
+			return null;
+		}
+		Set<Long> retVal = new HashSet<>(keys);
+		retVal.add(overflowKey);
+		return retVal;
+	}
+
+	@Override
+	public List<P> findResourcePidsByBlockingKeys(
+			String theResourceType, Collection<Long> theKeys, RequestPartitionId theRequestPartitionId, int theLimit) {
+		return myMdmBlockingKeyDao.findResourcePidsByBlockingKeys(
+				theResourceType, theKeys, theRequestPartitionId, theLimit);
+	}
+
+	private static Long calculateOverflowKey(String theResourceType, MdmResourceSearchParamJson theSearchParams) {
+		return SearchParamHash.hashSearchParam(
+				KEY_PREFIX, theResourceType, OVERFLOW_MARKER, String.join(",", theSearchParams.getSearchParams()));
+	}
+
+	private static boolean isIndexable(RuntimeSearchParam theSearchParam) {
+		switch (theSearchParam.getParamType()) {
+			case STRING:
+			case DATE:
+			case TOKEN:
+			case REFERENCE:
+			case URI:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private static String normalizeValue(RuntimeSearchParam theSearchParam, String theValue) {
+		switch (theSearchParam.getParamType()) {
+			case STRING:
+				return theSearchParam.encode(StringUtil.normalizeStringForSearchIndexing(theValue));
+			case DATE:
+				return theValue.length() > DAY_PRECISION_LENGTH
+						? theValue.substring(0, DAY_PRECISION_LENGTH)
+						: theValue;
+			default:
+				return theValue;
+		}
+	}
+
+	private static boolean isSearchParamForResource(String theResourceType, MdmResourceSearchParamJson theSearchParams) {
+		String resourceType = theSearchParams.getResourceType();
+		return resourceType.equals(theResourceType) || resourceType.equalsIgnoreCase(ALL_RESOURCE_SEARCH_PARAM_TYPE);
+	}
+}
@@ -30,6 +30,7 @@ import ca.uhn.fhir.mdm.api.MatchedTarget;
 import ca.uhn.fhir.mdm.api.MdmMatchOutcome;
 import ca.uhn.fhir.mdm.log.Logs;
 import ca.uhn.fhir.mdm.model.CanonicalEID;
+import ca.uhn.fhir.mdm.rules.svc.MdmResourceFieldValues;
 import ca.uhn.fhir.mdm.rules.svc.MdmResourceMatcherSvc;
 import ca.uhn.fhir.mdm.util.EIDHelper;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
@@ -87,9 +88,11 @@ public class MdmMatchFinderSvcImpl implements IMdmMatchFinderSvc {
 		Collection<IAnyResource> targetCandidates =
 				myMdmCandidateSearchSvc.findCandidates(theResourceType, theResource, theRequestPartitionId);
 
+		// Extract the incoming resource's match fields once, rather than once per candidate
+		MdmResourceFieldValues resourceFieldValues = myMdmResourceMatcherSvc.extractFieldValues(theResource);
 		List<MatchedTarget> matches = targetCandidates.stream()
-				.map(candidate ->
-						new MatchedTarget(candidate, myMdmResourceMatcherSvc.getMatchResult(theResource, candidate)))
+				.map(candidate -> new MatchedTarget(
+						candidate, myMdmResourceMatcherSvc.getMatchResult(resourceFieldValues, candidate)))
 				.collect(Collectors.toList());
 
 		ourLog.trace("Found {} matched targets for {}.", matches.size(), idOrType(theResource, theResourceType));
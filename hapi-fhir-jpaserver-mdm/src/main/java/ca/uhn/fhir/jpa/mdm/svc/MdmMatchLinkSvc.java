@@ -25,6 +25,7 @@ import ca.uhn.fhir.jpa.mdm.svc.candidate.CandidateList;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.CandidateStrategyEnum;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MatchedGoldenResourceCandidate;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmGoldenResourceFindingSvc;
+import ca.uhn.fhir.mdm.api.IMdmBlockingKeySvc;
 import ca.uhn.fhir.mdm.api.IMdmLinkSvc;
 import ca.uhn.fhir.mdm.api.IMdmSurvivorshipService;
 import ca.uhn.fhir.mdm.api.MdmLinkSourceEnum;
@@ -44,6 +45,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -77,6 +79,9 @@ public class MdmMatchLinkSvc {
 	@Autowired
 	private IMdmSurvivorshipService myMdmSurvivorshipService;
 
+	@Autowired
+	private IMdmBlockingKeySvc myMdmBlockingKeySvc;
+
 	/**
 	 * Given an MDM source (consisting of any supported MDM type), find a suitable Golden Resource candidate for them,
 	 * or create one if one does not exist. Performs matching based on rules defined in mdm-rules.json.
@@ -90,7 +95,9 @@ public class MdmMatchLinkSvc {
 	public MdmTransactionContext updateMdmLinksForMdmSource(
 			IAnyResource theResource, MdmTransactionContext theMdmTransactionContext) {
 		if (MdmResourceUtil.isMdmAllowed(theResource)) {
-			return doMdmUpdate(theResource, theMdmTransactionContext);
+			MdmTransactionContext retVal = doMdmUpdate(theResource, theMdmTransactionContext);
+			myMdmBlockingKeySvc.updateBlockingKeys(Collections.singletonList(theResource));
+			return retVal;
 		} else {
 			return null;
 		}
@@ -61,13 +61,26 @@ public class CandidateSearcher {
 			String theResourceType, String theResourceCriteria, RequestPartitionId partitionId) {
 		SearchParameterMap searchParameterMap =
 				myMdmSearchParamSvc.mapFromCriteria(theResourceType, theResourceCriteria);
+		return search(theResourceType, searchParameterMap, partitionId);
+	}
 
-		searchParameterMap.setLoadSynchronousUpTo(myMdmSettings.getCandidateSearchLimit());
+	/**
+	 * Perform a search for mdm candidates.
+	 *
+	 * @param theResourceType       the type of resources searched on
+	 * @param theSearchParameterMap the criteria used to search for the candidates
+	 * @param partitionId           the partition for the search
+	 * @return Optional.empty() if >= IMdmSettings.getCandidateSearchLimit() candidates are found, otherwise
+	 * return the bundle provider for the search results.
+	 */
+	public Optional<IBundleProvider> search(
+			String theResourceType, SearchParameterMap theSearchParameterMap, RequestPartitionId partitionId) {
+		theSearchParameterMap.setLoadSynchronousUpTo(myMdmSettings.getCandidateSearchLimit());
 
 		IFhirResourceDao<?> resourceDao = myDaoRegistry.getResourceDao(theResourceType);
 		SystemRequestDetails systemRequestDetails = new SystemRequestDetails();
 		systemRequestDetails.setRequestPartitionId(partitionId);
-		IBundleProvider retval = resourceDao.search(searchParameterMap, systemRequestDetails);
+		IBundleProvider retval = resourceDao.search(theSearchParameterMap, systemRequestDetails);
 
 		if (retval.size() != null && retval.size() >= myMdmSettings.getCandidateSearchLimit()) {
 			return Optional.empty();
@@ -22,12 +22,19 @@ package ca.uhn.fhir.jpa.mdm.svc.candidate;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.mdm.api.IMdmBlockingKeySvc;
 import ca.uhn.fhir.mdm.api.IMdmSettings;
 import ca.uhn.fhir.mdm.log.Logs;
 import ca.uhn.fhir.mdm.rules.json.MdmFilterSearchParamJson;
 import ca.uhn.fhir.mdm.rules.json.MdmResourceSearchParamJson;
+import ca.uhn.fhir.mdm.svc.MdmSearchParamSvc;
+import ca.uhn.fhir.model.primitive.IdDt;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+import ca.uhn.fhir.rest.param.TokenOrListParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import com.google.common.collect.Lists;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.slf4j.Logger;
@@ -35,12 +42,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.jpa.mdm.svc.candidate.CandidateSearcher.idOrType;
@@ -51,6 +61,11 @@ public class MdmCandidateSearchSvc {
 
 	private static final Logger ourLog = Logs.getMdmTroubleshootingLog();
 
+	/**
+	 * The number of resource IDs to load with a single search when using the blocking key index
+	 */
+	private static final int MAX_IDS_PER_SEARCH = 500;
+
 	@Autowired
 	private IMdmSettings myMdmSettings;
 
@@ -63,6 +78,12 @@ public class MdmCandidateSearchSvc {
 	@Autowired
 	private CandidateSearcher myCandidateSearcher;
 
+	@Autowired
+	private IMdmBlockingKeySvc myMdmBlockingKeySvc;
+
+	@Autowired
+	private MdmSearchParamSvc myMdmSearchParamSvc;
+
 	public MdmCandidateSearchSvc() {}
 
 	/**
@@ -94,10 +115,19 @@ public class MdmCandidateSearchSvc {
 				myMdmSettings.getMdmRules().getCandidateSearchParams();
 
 		// If there are zero MdmResourceSearchParamJson, we end up only making a single search, otherwise we
-		// must perform one search per MdmResourceSearchParamJson.
+		// must perform one search per MdmResourceSearchParamJson, unless they can be served by the blocking
+		// key index.
 		if (candidateSearchParams.isEmpty()) {
 			searchForIdsAndAddToMap(
 					theResourceType, theResource, matchedPidsToResources, filterCriteria, null, theRequestPartitionId);
+		} else if (myMdmSettings.isBlockingKeyIndexEnabled()) {
+			searchBlockingKeyIndexAndAddToMap(
+					theResourceType,
+					theResource,
+					matchedPidsToResources,
+					filterCriteria,
+					candidateSearchParams,
+					theRequestPartitionId);
 		} else {
 			for (MdmResourceSearchParamJson resourceSearchParam : candidateSearchParams) {
 
@@ -186,6 +216,110 @@ public class MdmCandidateSearchSvc {
 		}
 	}
 
+	/*
+	 * Looks up the candidates for each MdmResourceSearchParamJson in the blocking key index, and then loads
+	 * them with a search by _id, so that the filter criteria are applied and deleted resources are left out.
+	 * Any MdmResourceSearchParamJson which can't be served by the index, including one which finds at least
+	 * the candidate limit in the index, is searched the regular way, so the limit is enforced exactly as it
+	 * is without the index.
+	 */
+	private void searchBlockingKeyIndexAndAddToMap(
+			String theResourceType,
+			IAnyResource theResource,
+			Map<IResourcePersistentId, IAnyResource> theMatchedPidsToResources,
+			List<String> theFilterCriteria,
+			List<MdmResourceSearchParamJson> theCandidateSearchParams,
+			RequestPartitionId theRequestPartitionId) {
+		for (MdmResourceSearchParamJson resourceSearchParam : theCandidateSearchParams) {
+			if (!isSearchParamForResource(theResourceType, resourceSearchParam)) {
+				continue;
+			}
+
+			Set<Long> keys =
+					myMdmBlockingKeySvc.calculateCandidateSearchKeys(theResourceType, theResource, resourceSearchParam);
+			if (keys != null && keys.isEmpty()) {
+				continue;
+			}
+			if (keys == null
+					|| !searchBlockingKeysAndAddToMap(
+							theResourceType,
+							keys,
+							theMatchedPidsToResources,
+							theFilterCriteria,
+							theRequestPartitionId)) {
+				searchForIdsAndAddToMap(
+						theResourceType,
+						theResource,
+						theMatchedPidsToResources,
+						theFilterCriteria,
+						resourceSearchParam,
+						theRequestPartitionId);
+			}
+		}
+	}
+
+	/*
+	 * Returns false without adding anything if the index holds at least the candidate limit for the keys
+	 */
+	@SuppressWarnings("rawtypes")
+	private boolean searchBlockingKeysAndAddToMap(
+			String theResourceType,
+			Set<Long> theKeys,
+			Map<IResourcePersistentId, IAnyResource> theMatchedPidsToResources,
+			List<String> theFilterCriteria,
+			RequestPartitionId theRequestPartitionId) {
+		int candidateSearchLimit = myMdmSettings.getCandidateSearchLimit();
+		List<? extends IResourcePersistentId<?>> pids = myMdmBlockingKeySvc.findResourcePidsByBlockingKeys(
+				theResourceType, theKeys, theRequestPartitionId, candidateSearchLimit);
+		ourLog.debug("Blocking key index found {} {} candidates", pids.size(), theResourceType);
+		if (pids.size() >= candidateSearchLimit) {
+			ourLog.debug(
+					"Blocking key index found at least {} candidates, falling back to a regular search",
+					candidateSearchLimit);
+			return false;
+		}
+
+		Set<IResourcePersistentId> pidsToLoad = new HashSet<>(pids);
+		pidsToLoad.removeAll(theMatchedPidsToResources.keySet());
+		if (pidsToLoad.isEmpty()) {
+			return true;
+		}
+
+		// Resources which have been expunged since they were indexed won't resolve
+		List<String> ids = new ArrayList<>();
+		@SuppressWarnings("unchecked")
+		Map<IResourcePersistentId, Optional<String>> resolvedIds =
+				myIdHelperService.translatePidsToForcedIds(pidsToLoad).getResourcePersistentIdOptionalMap();
+		for (Optional<String> next : resolvedIds.values()) {
+			next.ifPresent(id -> ids.add(new IdDt(id).getIdPart()));
+		}
+
+		String filterCriteria = String.join("&", theFilterCriteria);
+		List<IBaseResource> resources = new ArrayList<>();
+		for (List<String> nextIds : Lists.partition(ids, MAX_IDS_PER_SEARCH)) {
+			SearchParameterMap searchParameterMap =
+					myMdmSearchParamSvc.getSearchParameterMapFromCriteria(theResourceType, filterCriteria);
+			TokenOrListParam idParam = new TokenOrListParam();
+			nextIds.forEach(id -> idParam.addOr(new TokenParam(id)));
+			searchParameterMap.add(IAnyResource.SP_RES_ID, idParam);
+
+			// This can't find more than the index did, so it never hits the limit
+			Optional<IBundleProvider> bundleProvider =
+					myCandidateSearcher.search(theResourceType, searchParameterMap, theRequestPartitionId);
+			if (bundleProvider.isEmpty()) {
+				return false;
+			}
+			resources.addAll(bundleProvider.get().getAllResources());
+		}
+
+		for (IBaseResource resource : resources) {
+			theMatchedPidsToResources.put(
+					myIdHelperService.getPidOrNull(RequestPartitionId.allPartitions(), resource),
+					(IAnyResource) resource);
+		}
+		return true;
+	}
+
 	private List<String> buildFilterQuery(
 			List<MdmFilterSearchParamJson> theFilterSearchParams, String theResourceType) {
 		return Collections.unmodifiableList(theFilterSearchParams.stream()
@@ -1,15 +1,30 @@
 package ca.uhn.fhir.jpa.mdm.svc;
 
+import ca.uhn.fhir.batch2.api.IJobCoordinator;
+import ca.uhn.fhir.batch2.jobs.parameters.PartitionedUrl;
+import ca.uhn.fhir.batch2.model.JobInstanceStartRequest;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.batch.models.Batch2JobStartResponse;
+import ca.uhn.fhir.jpa.dao.data.IMdmBlockingKeyJpaRepository;
+import ca.uhn.fhir.jpa.entity.MdmBlockingKey;
+import ca.uhn.fhir.jpa.entity.PartitionEntity;
 import ca.uhn.fhir.jpa.mdm.BaseMdmR4Test;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmCandidateSearchSvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.TooManyCandidatesException;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.nickname.INicknameSvc;
 import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.searchparam.nickname.NicknameInterceptor;
+import ca.uhn.fhir.jpa.test.Batch2JobHelper;
+import ca.uhn.fhir.mdm.api.IMdmBlockingKeySvc;
+import ca.uhn.fhir.mdm.batch2.blockingkey.MdmBlockingKeyRebuildAppCtx;
+import ca.uhn.fhir.mdm.batch2.submit.MdmSubmitJobParameters;
+import ca.uhn.fhir.mdm.dao.IMdmBlockingKeyDao;
 import ca.uhn.fhir.mdm.rules.config.MdmSettings;
+import ca.uhn.fhir.mdm.rules.json.MdmResourceSearchParamJson;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Practitioner;
@@ -22,6 +37,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -38,6 +54,16 @@ public class MdmCandidateSearchSvcIT extends BaseMdmR4Test {
 
 	@Autowired
 	INicknameSvc myNicknameSvc;
+	@Autowired
+	IMdmBlockingKeySvc myMdmBlockingKeySvc;
+	@Autowired
+	IMdmBlockingKeyJpaRepository myMdmBlockingKeyRepository;
+	@Autowired
+	IMdmBlockingKeyDao<JpaPid> myMdmBlockingKeyDao;
+	@Autowired
+	IJobCoordinator myJobCoordinator;
+	@Autowired
+	Batch2JobHelper myBatch2JobHelper;
 
 	private NicknameInterceptor myNicknameInterceptor;
 
@@ -51,6 +77,8 @@ public class MdmCandidateSearchSvcIT extends BaseMdmR4Test {
 	@AfterEach
 	public void resetMdmSettings() {
 		myMdmSettings.setCandidateSearchLimit(MdmSettings.DEFAULT_CANDIDATE_SEARCH_LIMIT);
+		myMdmSettings.setBlockingKeyIndexEnabled(false);
+		myPartitionSettings.setPartitioningEnabled(false);
 		myInterceptorRegistry.unregisterInterceptor(myNicknameInterceptor);
 	}
 
@@ -63,6 +91,205 @@ public class MdmCandidateSearchSvcIT extends BaseMdmR4Test {
 		assertThat(result).hasSize(1);
 	}
 
+	@Test
+	public void testFindCandidatesWithBlockingKeyIndex() {
+		myMdmSettings.setBlockingKeyIndexEnabled(true);
+
+		// Only resources which have been processed by MDM are in the index
+		Patient indexedJane = createActivePatientAndUpdateLinks();
+		createActivePatient();
+
+		Patient newJane = buildJanePatient();
+		Collection<IAnyResource> result = runInTransaction(() ->
+			myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.allPartitions()));
+		assertThat(result)
+			.extracting(t -> t.getIdElement().toUnqualifiedVersionless().getValue())
+			.containsExactly(indexedJane.getIdElement().toUnqualifiedVersionless().getValue());
+
+		// Values that no other resource has don't find anything
+		Patient newJohn = buildPatientWithNameAndId("John", "ID.JOHN.456");
+		result = runInTransaction(() ->
+			myMdmCandidateSearchSvc.findCandidates("Patient", newJohn, RequestPartitionId.allPartitions()));
+		assertThat(result).isEmpty();
+	}
+
+	@Test
+	public void testFindCandidatesWithBlockingKeyIndex_UpdateReplacesKeys() {
+		myMdmSettings.setBlockingKeyIndexEnabled(true);
+
+		Patient indexedJane = createActivePatientAndUpdateLinks();
+		Long pid = runInTransaction(() ->
+			myIdHelperService.getPidOrNull(RequestPartitionId.allPartitions(), indexedJane).getId());
+		List<Long> keysBefore = runInTransaction(() -> myMdmBlockingKeyRepository.findKeyHashesByResourcePid(pid));
+		assertThat(keysBefore).hasSize(1);
+
+		indexedJane.getIdentifierFirstRep().setValue("ID.JANE.999");
+		updatePatientAndUpdateLinks(indexedJane);
+		List<Long> keysAfter = runInTransaction(() -> myMdmBlockingKeyRepository.findKeyHashesByResourcePid(pid));
+		assertThat(keysAfter).hasSize(1).doesNotContainAnyElementsOf(keysBefore);
+
+		Patient oldJane = buildJanePatient();
+		Collection<IAnyResource> result = runInTransaction(() ->
+			myMdmCandidateSearchSvc.findCandidates("Patient", oldJane, RequestPartitionId.allPartitions()));
+		assertThat(result).isEmpty();
+
+		Patient newJane = buildPatientWithNameAndId(NAME_GIVEN_JANE, "ID.JANE.999");
+		result = runInTransaction(() ->
+			myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.allPartitions()));
+		assertThat(result).hasSize(1);
+	}
+
+	@Test
+	public void testReplaceBlockingKeys_InsertsWithoutSelectingEachNewKey() {
+		JpaPid pid = (JpaPid) myPatientDao.create(new Patient(), mySrd).getPersistentId();
+		runInTransaction(() -> myMdmBlockingKeyDao.replaceBlockingKeys(pid, "Patient", List.of(1L, 2L)));
+
+		myCaptureQueriesListener.clear();
+		runInTransaction(() -> myMdmBlockingKeyDao.replaceBlockingKeys(pid, "Patient", List.of(2L, 3L, 4L, 5L, 6L)));
+
+		// Only the lookup of the existing keys, no SELECT per new key
+		myCaptureQueriesListener.logSelectQueries();
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+			.extracting(t -> t.getSql(false, false))
+			.filteredOn(t -> t.toUpperCase().contains(MdmBlockingKey.HFJ_MDM_BLOCK_KEY))
+			.hasSize(1);
+		assertThat(runInTransaction(() -> myMdmBlockingKeyRepository.findKeyHashesByResourcePid(pid.getId())))
+			.containsExactlyInAnyOrder(2L, 3L, 4L, 5L, 6L);
+	}
+
+	@Test
+	public void testFindCandidatesWithBlockingKeyIndex_EntryCantBeIndexed() {
+		myMdmSettings.setBlockingKeyIndexEnabled(true);
+
+		// This practitioner isn't in the index, but the given:nickname entry is searched the regular way
+		Practitioner formal = new Practitioner();
+		formal.getNameFirstRep().addGiven("William");
+		formal.getNameFirstRep().setFamily("Shatner");
+		formal.setActive(true);
+		myPractitionerDao.create(formal);
+
+		Practitioner nick = new Practitioner();
+		nick.getNameFirstRep().addGiven("Bill");
+		nick.getNameFirstRep().setFamily("Shatner");
+		MdmResourceSearchParamJson nicknameSearchParams = myMdmSettings.getMdmRules().getCandidateSearchParams().stream()
+			.filter(t -> t.getSearchParams().contains("given:nickname"))
+			.findFirst()
+			.orElseThrow();
+		assertThat(myMdmBlockingKeySvc.calculateBlockingKeys("Practitioner", nick, nicknameSearchParams)).isNull();
+
+		Collection<IAnyResource> result = runInTransaction(() ->
+			myMdmCandidateSearchSvc.findCandidates("Practitioner", nick, RequestPartitionId.allPartitions()));
+		assertThat(result).hasSize(1);
+	}
+
+	@Test
+	public void testFindCandidatesWithBlockingKeyIndex_TooManyInIndexFallsBackToRegularSearch() {
+		myMdmSettings.setBlockingKeyIndexEnabled(true);
+
+		// The index doesn't know about the filter criteria, so it holds more candidates than the search finds
+		Patient activeJane = createActivePatientAndUpdateLinks();
+		for (int i = 0; i < 3; i++) {
+			createPatientAndUpdateLinks(buildJanePatient());
+		}
+		myMdmSettings.setCandidateSearchLimit(3);
+
+		Patient newJane = buildJanePatient();
+		Collection<IAnyResource> result = runInTransaction(() ->
+			myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.allPartitions()));
+		assertThat(result)
+			.extracting(t -> t.getIdElement().toUnqualifiedVersionless().getValue())
+			.containsExactly(activeJane.getIdElement().toUnqualifiedVersionless().getValue());
+	}
+
+	@Test
+	public void testFindCandidatesWithBlockingKeyIndex_TooManyValues() {
+		myMdmSettings.setBlockingKeyIndexEnabled(true);
+
+		Patient manyIds = buildJanePatient();
+		manyIds.setActive(true);
+		for (int i = 0; i < MdmBlockingKeySvcImpl.MAX_KEYS_PER_ENTRY; i++) {
+			manyIds.addIdentifier().setSystem(TEST_ID_SYSTEM).setValue("ID.MANY." + i);
+		}
+		Patient indexedManyIds = createPatientAndUpdateLinks(manyIds);
+		Long pid = runInTransaction(() ->
+			myIdHelperService.getPidOrNull(RequestPartitionId.allPartitions(), indexedManyIds).getId());
+		assertThat(runInTransaction(() -> myMdmBlockingKeyRepository.findKeyHashesByResourcePid(pid))).hasSize(1);
+
+		// Resources with too many values are candidates for everything searched through the index
+		Patient newJane = buildPatientWithNameAndId(NAME_GIVEN_JANE, "ID.MANY.7");
+		Collection<IAnyResource> result = runInTransaction(() ->
+			myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.allPartitions()));
+		assertThat(result).hasSize(1);
+
+		// ..and searching for one falls back to a regular search
+		Patient newManyIds = manyIds.copy();
+		newManyIds.setId((String) null);
+		result = runInTransaction(() ->
+			myMdmCandidateSearchSvc.findCandidates("Patient", newManyIds, RequestPartitionId.allPartitions()));
+		assertThat(result).hasSize(1);
+	}
+
+	@Test
+	public void testFindCandidatesWithBlockingKeyIndex_Partitioned() {
+		myPartitionSettings.setPartitioningEnabled(true);
+		myPartitionLookupSvc.createPartition(new PartitionEntity().setId(1).setName(PARTITION_1), null);
+		myPartitionLookupSvc.createPartition(new PartitionEntity().setId(2).setName(PARTITION_2), null);
+		myMdmSettings.setBlockingKeyIndexEnabled(true);
+
+		RequestPartitionId partition1 = RequestPartitionId.fromPartitionId(1);
+		RequestPartitionId partition2 = RequestPartitionId.fromPartitionId(2);
+		Patient jane = buildJanePatient();
+		jane.setActive(true);
+		Patient janeOnPartition1 = createPatientAndUpdateLinksOnPartition(jane, partition1);
+		for (int i = 0; i < 3; i++) {
+			Patient nextJane = buildJanePatient();
+			nextJane.setActive(true);
+			createPatientAndUpdateLinksOnPartition(nextJane, partition2);
+		}
+
+		// The candidates in other partitions don't count towards the limit
+		myMdmSettings.setCandidateSearchLimit(3);
+		Patient newJane = buildJanePatient();
+		Collection<IAnyResource> result = runInTransaction(() ->
+			myMdmCandidateSearchSvc.findCandidates("Patient", newJane, partition1));
+		assertThat(result)
+			.extracting(t -> t.getIdElement().toUnqualifiedVersionless().getValue())
+			.containsExactly(janeOnPartition1.getIdElement().toUnqualifiedVersionless().getValue());
+
+		try {
+			runInTransaction(() -> myMdmCandidateSearchSvc.findCandidates("Patient", newJane, partition2));
+			fail();
+		} catch (TooManyCandidatesException e) {
+			assertThat(e.getMessage()).startsWith("HAPI-0762: More than 3 candidate matches found");
+		}
+	}
+
+	@Test
+	public void testFindCandidatesWithBlockingKeyIndex_RebuildJob() {
+		// Resources created while the index is disabled aren't in it
+		Patient jane = createActivePatientAndUpdateLinks();
+		myMdmSettings.setBlockingKeyIndexEnabled(true);
+
+		Patient newJane = buildJanePatient();
+		assertThat(runInTransaction(() ->
+			myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.allPartitions()))).isEmpty();
+
+		MdmSubmitJobParameters parameters = new MdmSubmitJobParameters();
+		parameters.addPartitionedUrl(
+			new PartitionedUrl().setUrl("Patient?").setRequestPartitionId(RequestPartitionId.allPartitions()));
+		JobInstanceStartRequest request = new JobInstanceStartRequest();
+		request.setJobDefinitionId(MdmBlockingKeyRebuildAppCtx.MDM_BLOCKING_KEY_REBUILD_JOB);
+		request.setParameters(parameters);
+		Batch2JobStartResponse response = myJobCoordinator.startInstance(new SystemRequestDetails(), request);
+		myBatch2JobHelper.awaitJobCompletion(response);
+
+		Collection<IAnyResource> result = runInTransaction(() ->
+			myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.allPartitions()));
+		assertThat(result)
+			.extracting(t -> t.getIdElement().toUnqualifiedVersionless().getValue())
+			.containsExactly(jane.getIdElement().toUnqualifiedVersionless().getValue());
+	}
+
 	@Test
 	public void testNickname() {
 		Practitioner formal = new Practitioner();
@@ -157,4 +384,10 @@ public class MdmCandidateSearchSvcIT extends BaseMdmR4Test {
 		jane.setActive(true);
 		return createPatient(jane);
 	}
+
+	private Patient createActivePatientAndUpdateLinks() {
+		Patient jane = buildJanePatient();
+		jane.setActive(true);
+		return createPatientAndUpdateLinks(jane);
+	}
 }
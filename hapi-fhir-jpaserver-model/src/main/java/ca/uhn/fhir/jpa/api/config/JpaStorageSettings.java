@@ -56,6 +56,10 @@ public class JpaStorageSettings extends StorageSettings {
 	 * Default value for {@link #getBulkExportFileMaximumSize()}: 100 MB
 	 */
 	public static final long DEFAULT_BULK_EXPORT_MAXIMUM_WORK_CHUNK_SIZE = 100 * FileUtils.ONE_MB;
+	/**
+	 * Default value for {@link #getBulkExportStreamingOutputBufferSize()}: 1 MB
+	 */
+	public static final int DEFAULT_BULK_EXPORT_STREAMING_OUTPUT_BUFFER_SIZE = (int) FileUtils.ONE_MB;
 	/**
 	 * Default value for {@link #setReuseCachedSearchResultsForMillis(Long)}: 60000ms (one minute)
 	 */
@@ -359,6 +363,54 @@ public class JpaStorageSettings extends StorageSettings {
 	 * Since 7.2.0
 	 */
 	private long myBulkExportFileMaximumSize = DEFAULT_BULK_EXPORT_MAXIMUM_WORK_CHUNK_SIZE;
+	/**
+	 * Since 8.12.0
+	 */
+	private boolean myBulkExportStreamingOutputEnabled = false;
+	/**
+	 * Since 8.12.0
+	 */
+	private int myBulkExportStreamingOutputBufferSize = DEFAULT_BULK_EXPORT_STREAMING_OUTPUT_BUFFER_SIZE;
+	/**
+	 * Since 8.12.0
+	 */
+	private boolean mySearchResultBlockStorageEnabled = false;
+	/**
+	 * Since 8.12.0
+	 */
+	private int myReindexParseThreadCount = 1;
+	/**
+	 * Since 8.12.0
+	 */
+	private boolean myIndexRowBulkDeleteEnabled = false;
+	/**
+	 * Since 8.12.0
+	 */
+	private boolean myCodeSystemLookupTableEnabled = false;
+	/**
+	 * Since 8.12.0
+	 */
+	private boolean myResourceExistenceBloomFilterEnabled = false;
+	/**
+	 * Since 8.12.0
+	 */
+	private boolean myResourceExistenceBloomFilterSingleWriter = false;
+	/**
+	 * Since 8.12.0
+	 */
+	private long myResourceExistenceBloomFilterExpectedInsertions = 10_000_000L;
+	/**
+	 * Since 8.12.0
+	 */
+	private double myResourceExistenceBloomFilterFalsePositiveRate = 0.01;
+	/**
+	 * Since 8.12.0
+	 */
+	private boolean myMemoryCacheInvalidationBroadcastEnabled = false;
+	/**
+	 * Since 8.12.0
+	 */
+	private long myMemoryCacheExpireAfterWriteInMinutes = 1;
 	/**
 	 * Since 6.4.0
 	 */
@@ -1091,6 +1143,30 @@ public class JpaStorageSettings extends StorageSettings {
 		myReindexThreadCount = Math.max(myReindexThreadCount, 1); // Minimum of 1
 	}
 
+	/**
+	 * This setting controls the number of threads used to parse the stored resource bodies
+	 * in each reindex work chunk. When set to a value greater than 1, the bodies of a whole
+	 * chunk are decoded and parsed in parallel before the resources are reindexed one at a
+	 * time in the chunk's database transaction, so that parsing doesn't hold up the database
+	 * connection.
+	 * <p>
+	 * The default value is 1, meaning that each resource is parsed just before it is reindexed.
+	 * </p>
+	 *
+	 * @since 8.12.0
+	 */
+	public int getReindexParseThreadCount() {
+		return myReindexParseThreadCount;
+	}
+
+	/**
+	 * @see #getReindexParseThreadCount()
+	 * @since 8.12.0
+	 */
+	public void setReindexParseThreadCount(int theReindexParseThreadCount) {
+		myReindexParseThreadCount = Math.max(theReindexParseThreadCount, 1); // Minimum of 1
+	}
+
 	/**
 	 * This setting controls the number of threads allocated to the expunge operation
 	 * <p>
@@ -2587,6 +2663,312 @@ public class JpaStorageSettings extends StorageSettings {
 		myBulkExportFileMaximumSize = theBulkExportFileMaximumSize;
 	}
 
+	/**
+	 * If enabled, bulk export jobs encode the exported resources directly into the
+	 * configured binary storage service instead of first collecting each output file
+	 * as a list of strings in memory. Files are still split according to
+	 * {@link #getBulkExportFileMaximumSize()} and {@link #getBulkExportFileMaximumCapacity()}.
+	 * <p>
+	 * This setting only has an effect if an <code>IBinaryStorageSvc</code>
+	 * is configured and the binary storage interceptor is registered, otherwise output
+	 * is written in memory as before. Default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 8.12.0
+	 */
+	public boolean isBulkExportStreamingOutputEnabled() {
+		return myBulkExportStreamingOutputEnabled;
+	}
+
+	/**
+	 * If enabled, bulk export jobs encode the exported resources directly into the
+	 * configured binary storage service instead of first collecting each output file
+	 * as a list of strings in memory. Files are still split according to
+	 * {@link #getBulkExportFileMaximumSize()} and {@link #getBulkExportFileMaximumCapacity()}.
+	 * <p>
+	 * This setting only has an effect if an <code>IBinaryStorageSvc</code>
+	 * is configured and the binary storage interceptor is registered, otherwise output
+	 * is written in memory as before. Default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 8.12.0
+	 */
+	public void setBulkExportStreamingOutputEnabled(boolean theBulkExportStreamingOutputEnabled) {
+		myBulkExportStreamingOutputEnabled = theBulkExportStreamingOutputEnabled;
+	}
+
+	/**
+	 * When {@link #isBulkExportStreamingOutputEnabled() streaming output} is enabled, this is
+	 * the number of bytes of each output file which are held in memory before the file is
+	 * spooled to a temporary file on disk.
+	 *
+	 * @since 8.12.0
+	 * @see #DEFAULT_BULK_EXPORT_STREAMING_OUTPUT_BUFFER_SIZE The default value for this setting
+	 */
+	public int getBulkExportStreamingOutputBufferSize() {
+		return myBulkExportStreamingOutputBufferSize;
+	}
+
+	/**
+	 * When {@link #isBulkExportStreamingOutputEnabled() streaming output} is enabled, this is
+	 * the number of bytes of each output file which are held in memory before the file is
+	 * spooled to a temporary file on disk.
+	 *
+	 * @since 8.12.0
+	 * @see #DEFAULT_BULK_EXPORT_STREAMING_OUTPUT_BUFFER_SIZE The default value for this setting
+	 */
+	public void setBulkExportStreamingOutputBufferSize(int theBulkExportStreamingOutputBufferSize) {
+		Validate.isTrue(
+				theBulkExportStreamingOutputBufferSize >= 0,
+				"theBulkExportStreamingOutputBufferSize must not be negative");
+		myBulkExportStreamingOutputBufferSize = theBulkExportStreamingOutputBufferSize;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), the result PIDs of searches are stored in the
+	 * database as compact encoded blocks (<code>HFJ_SEARCH_RESULT_BLK</code>) of many results
+	 * per row, instead of one <code>HFJ_SEARCH_RESULT</code> row per result. This greatly
+	 * reduces the number of rows which are written while a search is loading and deleted when
+	 * the search expires. Searches which were stored before this setting was enabled can still
+	 * be paged through.
+	 * <p>
+	 * This setting is read when the server starts, changing it afterward has no effect. While it
+	 * is disabled, expired searches are deleted without looking for blocks, so any blocks left
+	 * from when it was enabled are only removed by <code>$expunge</code> with
+	 * <code>expungeEverything</code>.
+	 * </p>
+	 *
+	 * @since 8.12.0
+	 */
+	public boolean isSearchResultBlockStorageEnabled() {
+		return mySearchResultBlockStorageEnabled;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), the result PIDs of searches are stored in the
+	 * database as compact encoded blocks (<code>HFJ_SEARCH_RESULT_BLK</code>) of many results
+	 * per row, instead of one <code>HFJ_SEARCH_RESULT</code> row per result. This greatly
+	 * reduces the number of rows which are written while a search is loading and deleted when
+	 * the search expires. Searches which were stored before this setting was enabled can still
+	 * be paged through.
+	 * <p>
+	 * This setting is read when the server starts, changing it afterward has no effect. While it
+	 * is disabled, expired searches are deleted without looking for blocks, so any blocks left
+	 * from when it was enabled are only removed by <code>$expunge</code> with
+	 * <code>expungeEverything</code>.
+	 * </p>
+	 *
+	 * @since 8.12.0
+	 */
+	public void setSearchResultBlockStorageEnabled(boolean theSearchResultBlockStorageEnabled) {
+		mySearchResultBlockStorageEnabled = theSearchResultBlockStorageEnabled;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), search index rows which are no longer needed when
+	 * a resource is updated or reindexed are deleted with a single multi-row <code>DELETE</code>
+	 * statement per index table, instead of one statement per row. New index rows are always
+	 * written using JDBC batching, so with this setting enabled the number of statements
+	 * needed to update the indexes of a resource is proportional to the number of index
+	 * tables rather than the number of index rows.
+	 *
+	 * @since 8.12.0
+	 */
+	public boolean isIndexRowBulkDeleteEnabled() {
+		return myIndexRowBulkDeleteEnabled;
+	}
+
+	/**
+	 * @see #isIndexRowBulkDeleteEnabled()
+	 * @since 8.12.0
+	 */
+	public void setIndexRowBulkDeleteEnabled(boolean theIndexRowBulkDeleteEnabled) {
+		myIndexRowBulkDeleteEnabled = theIndexRowBulkDeleteEnabled;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), the codes and displays of each code system
+	 * version stored in the terminology tables are loaded into a compact off-heap dictionary
+	 * the first time a code from that version is validated or looked up. Validating a code
+	 * against a code system (without a ValueSet) is then answered from the dictionary without
+	 * querying the database, and <code>$lookup</code> of codes which are not in the code system
+	 * no longer queries the concept table.
+	 * <p>
+	 * The dictionary is discarded whenever the concepts of a code system change on this server,
+	 * and otherwise expires after {@link #getTerminologyLookupCacheExpireAfterWriteInMinutes()}.
+	 * The dictionary needs roughly 16 bytes per concept plus the UTF-8 size of the codes and
+	 * displays.
+	 * </p>
+	 *
+	 * @since 8.12.0
+	 */
+	public boolean isCodeSystemLookupTableEnabled() {
+		return myCodeSystemLookupTableEnabled;
+	}
+
+	/**
+	 * @see #isCodeSystemLookupTableEnabled()
+	 * @since 8.12.0
+	 */
+	public void setCodeSystemLookupTableEnabled(boolean theCodeSystemLookupTableEnabled) {
+		myCodeSystemLookupTableEnabled = theCodeSystemLookupTableEnabled;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), the server keeps in-memory Bloom filters over
+	 * the IDs of all stored resources and over the <code>identifier</code> system and value of all
+	 * stored resources. Conditional creates and conditional updates whose match URL only tests
+	 * identifiers which have never been stored, and creates of resources with client-assigned IDs
+	 * which have never been used, can then skip the database lookup. The filters are loaded in the
+	 * background when the server starts, and lookups use the database until loading has finished.
+	 * <p>
+	 * The filters are only consulted by conditional creates, conditional updates and updates which
+	 * may create a new resource. Reads and other ID resolution always use the database. The identifier
+	 * filter is not used if {@link ca.uhn.fhir.jpa.model.config.PartitionSettings#isIncludePartitionInSearchHashes()} is enabled.
+	 * </p>
+	 * <p>
+	 * The filters only see resources written by this server process, so they are only used if
+	 * {@link #isResourceExistenceBloomFilterSingleWriter()} is also enabled. The server refuses to
+	 * start if this setting is enabled without it.
+	 * </p>
+	 *
+	 * @see #setResourceExistenceBloomFilterSingleWriter(boolean)
+	 * @see #setResourceExistenceBloomFilterExpectedInsertions(long)
+	 * @see #setResourceExistenceBloomFilterFalsePositiveRate(double)
+	 * @since 8.12.0
+	 */
+	public boolean isResourceExistenceBloomFilterEnabled() {
+		return myResourceExistenceBloomFilterEnabled;
+	}
+
+	/**
+	 * @see #isResourceExistenceBloomFilterEnabled()
+	 * @since 8.12.0
+	 */
+	public void setResourceExistenceBloomFilterEnabled(boolean theResourceExistenceBloomFilterEnabled) {
+		myResourceExistenceBloomFilterEnabled = theResourceExistenceBloomFilterEnabled;
+	}
+
+	/**
+	 * Declares (default is <code>false</code>) that this server process is the only one which writes
+	 * resources to the database. This must be enabled for {@link #isResourceExistenceBloomFilterEnabled()}
+	 * to take effect, since the Bloom filters on one server can not see resources created by another
+	 * server, and would otherwise cause conditional creates to write duplicates.
+	 *
+	 * @see #isResourceExistenceBloomFilterEnabled()
+	 * @since 8.12.0
+	 */
+	public boolean isResourceExistenceBloomFilterSingleWriter() {
+		return myResourceExistenceBloomFilterSingleWriter;
+	}
+
+	/**
+	 * @see #isResourceExistenceBloomFilterSingleWriter()
+	 * @since 8.12.0
+	 */
+	public void setResourceExistenceBloomFilterSingleWriter(boolean theResourceExistenceBloomFilterSingleWriter) {
+		myResourceExistenceBloomFilterSingleWriter = theResourceExistenceBloomFilterSingleWriter;
+	}
+
+	/**
+	 * The number of entries (default is 10,000,000) each resource existence Bloom filter is sized
+	 * for. Together with {@link #getResourceExistenceBloomFilterFalsePositiveRate()} this determines
+	 * the memory used by the filters, which is roughly 1.2 bytes per expected entry and filter at
+	 * the default false positive rate. Once a filter holds more entries than this, its false
+	 * positive rate increases and more lookups go to the database.
+	 *
+	 * @see #isResourceExistenceBloomFilterEnabled()
+	 * @since 8.12.0
+	 */
+	public long getResourceExistenceBloomFilterExpectedInsertions() {
+		return myResourceExistenceBloomFilterExpectedInsertions;
+	}
+
+	/**
+	 * @see #getResourceExistenceBloomFilterExpectedInsertions()
+	 * @since 8.12.0
+	 */
+	public void setResourceExistenceBloomFilterExpectedInsertions(
+			long theResourceExistenceBloomFilterExpectedInsertions) {
+		Validate.isTrue(
+				theResourceExistenceBloomFilterExpectedInsertions > 0, "Expected insertions must be greater than 0");
+		myResourceExistenceBloomFilterExpectedInsertions = theResourceExistenceBloomFilterExpectedInsertions;
+	}
+
+	/**
+	 * The target false positive rate (default is 0.01) of the resource existence Bloom filters,
+	 * i.e. the fraction of lookups for resources which don't exist that still go to the database.
+	 *
+	 * @see #isResourceExistenceBloomFilterEnabled()
+	 * @since 8.12.0
+	 */
+	public double getResourceExistenceBloomFilterFalsePositiveRate() {
+		return myResourceExistenceBloomFilterFalsePositiveRate;
+	}
+
+	/**
+	 * @see #getResourceExistenceBloomFilterFalsePositiveRate()
+	 * @since 8.12.0
+	 */
+	public void setResourceExistenceBloomFilterFalsePositiveRate(
+			double theResourceExistenceBloomFilterFalsePositiveRate) {
+		Validate.isTrue(
+				theResourceExistenceBloomFilterFalsePositiveRate > 0.0
+						&& theResourceExistenceBloomFilterFalsePositiveRate < 1.0,
+				"False positive rate must be between 0 and 1");
+		myResourceExistenceBloomFilterFalsePositiveRate = theResourceExistenceBloomFilterFalsePositiveRate;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), invalidations of the server's internal memory caches
+	 * (resource ID lookups, history counts, partition lookups, etc.) are published on the
+	 * <code>memory-cache-invalidation</code> channel of the configured message broker after the
+	 * transaction making the change commits, and invalidations published by the other servers in
+	 * the cluster are applied to the local caches. This makes it safe to use a longer
+	 * {@link #setMemoryCacheExpireAfterWriteInMinutes(long) cache expiry} when several servers
+	 * share a database.
+	 * <p>
+	 * Every server must receive every message on the channel. This setting is read when the
+	 * server starts, so changing it afterwards has no effect.
+	 * </p>
+	 *
+	 * @since 8.12.0
+	 */
+	public boolean isMemoryCacheInvalidationBroadcastEnabled() {
+		return myMemoryCacheInvalidationBroadcastEnabled;
+	}
+
+	/**
+	 * @see #isMemoryCacheInvalidationBroadcastEnabled()
+	 * @since 8.12.0
+	 */
+	public void setMemoryCacheInvalidationBroadcastEnabled(boolean theMemoryCacheInvalidationBroadcastEnabled) {
+		myMemoryCacheInvalidationBroadcastEnabled = theMemoryCacheInvalidationBroadcastEnabled;
+	}
+
+	/**
+	 * The number of minutes (default is 1) after which entries in the server's general purpose
+	 * internal memory caches (resource ID lookups, match URLs, tag definitions, partition lookups,
+	 * etc.) expire. This is ignored if {@link #isMassIngestionMode() mass ingestion mode} is
+	 * enabled. Values longer than the default should only be used on a single server, or with
+	 * {@link #setMemoryCacheInvalidationBroadcastEnabled(boolean)} enabled. This setting is read
+	 * when the server starts, so changing it afterwards has no effect.
+	 *
+	 * @since 8.12.0
+	 */
+	public long getMemoryCacheExpireAfterWriteInMinutes() {
+		return myMemoryCacheExpireAfterWriteInMinutes;
+	}
+
+	/**
+	 * @see #getMemoryCacheExpireAfterWriteInMinutes()
+	 * @since 8.12.0
+	 */
+	public void setMemoryCacheExpireAfterWriteInMinutes(long theMemoryCacheExpireAfterWriteInMinutes) {
+		Validate.isTrue(theMemoryCacheExpireAfterWriteInMinutes > 0, "Expiry must be greater than 0");
+		myMemoryCacheExpireAfterWriteInMinutes = theMemoryCacheExpireAfterWriteInMinutes;
+	}
+
 	/**
 	 * If this setting is enabled, then gated batch jobs that produce only one chunk will immediately trigger a batch
 	 * maintenance job.  This may be useful for testing, but is not recommended for production use.
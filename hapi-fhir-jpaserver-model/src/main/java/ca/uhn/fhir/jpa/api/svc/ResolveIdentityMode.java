@@ -27,14 +27,17 @@ public class ResolveIdentityMode {
 	private final boolean myIncludeDeleted;
 	private final boolean myUseCache;
 	private final boolean myFailOnDeleted;
+	private final boolean myUseExistenceFilter;
 
 	/**
 	 * Non-instantiable. Use the factory methods on this class.
 	 */
-	private ResolveIdentityMode(boolean theIncludeDeleted, boolean theFailOnDeleted, boolean theUseCache) {
+	private ResolveIdentityMode(
+			boolean theIncludeDeleted, boolean theFailOnDeleted, boolean theUseCache, boolean theUseExistenceFilter) {
 		myIncludeDeleted = theIncludeDeleted;
 		myUseCache = theUseCache;
 		myFailOnDeleted = theFailOnDeleted;
+		myUseExistenceFilter = theUseExistenceFilter;
 	}
 
 	public boolean isUseCache(boolean theDeleteEnabled) {
@@ -53,6 +56,26 @@ public class ResolveIdentityMode {
 		return myFailOnDeleted;
 	}
 
+	/**
+	 * @since 8.12.0
+	 */
+	public boolean isUseExistenceFilter() {
+		return myUseExistenceFilter;
+	}
+
+	/**
+	 * Returns a copy of this mode in which IDs may be reported as not found without a database
+	 * lookup if the resource existence filter is certain they have never been stored. This must
+	 * only be used by callers which create the resource when it isn't found (e.g. an update with
+	 * a client-assigned ID), never by reads.
+	 *
+	 * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#isResourceExistenceBloomFilterEnabled()
+	 * @since 8.12.0
+	 */
+	public ResolveIdentityMode withExistenceFilter() {
+		return new ResolveIdentityMode(myIncludeDeleted, myFailOnDeleted, myUseCache, true);
+	}
+
 	/**
 	 * Deleted resource identities can be included in the results
 	 */
@@ -91,7 +114,7 @@ public class ResolveIdentityMode {
 		 * deleted status has changed for a resource.
 		 */
 		public ResolveIdentityMode cacheOk() {
-			return new ResolveIdentityMode(myIncludeDeleted, myFailOnDeleted, true);
+			return new ResolveIdentityMode(myIncludeDeleted, myFailOnDeleted, true, false);
 		}
 
 		/**
@@ -99,7 +122,7 @@ public class ResolveIdentityMode {
 		 * (meaning that the deleted status of a resource is not able to change)
 		 */
 		public ResolveIdentityMode noCacheUnlessDeletesDisabled() {
-			return new ResolveIdentityMode(myIncludeDeleted, myFailOnDeleted, false);
+			return new ResolveIdentityMode(myIncludeDeleted, myFailOnDeleted, false, false);
 		}
 	}
 }
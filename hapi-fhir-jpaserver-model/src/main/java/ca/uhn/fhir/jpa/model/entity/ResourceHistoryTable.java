@@ -51,6 +51,7 @@ import org.hibernate.Length;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.OptimisticLock;
 import org.hibernate.type.SqlTypes;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import java.io.Serializable;
 import java.time.LocalDate;
@@ -175,6 +176,13 @@ public class ResourceHistoryTable extends BaseHasResource<ResourceHistoryTablePk
 	 */
 	@Transient
 	private transient String myTransientForcedId;
+	/**
+	 * The resource body, parsed ahead of time so that it doesn't need to be parsed
+	 * again when this version is converted to a resource (e.g. by a reindex job which
+	 * parses a whole chunk of resources in parallel).
+	 */
+	@Transient
+	private transient IBaseResource myPreParsedResource;
 
 	/**
 	 * Constructor
@@ -413,6 +421,26 @@ public class ResourceHistoryTable extends BaseHasResource<ResourceHistoryTablePk
 		myTransientForcedId = theTransientForcedId;
 	}
 
+	/**
+	 * Returns the resource body which was parsed ahead of time for this version, if any,
+	 * and clears it so that the same (mutable) instance is never handed out twice.
+	 *
+	 * @since 8.12.0
+	 */
+	@Nullable
+	public IBaseResource getPreParsedResourceAndClear() {
+		IBaseResource retVal = myPreParsedResource;
+		myPreParsedResource = null;
+		return retVal;
+	}
+
+	/**
+	 * @since 8.12.0
+	 */
+	public void setPreParsedResource(@Nullable IBaseResource thePreParsedResource) {
+		myPreParsedResource = thePreParsedResource;
+	}
+
 	public void setPartitionId(PartitionablePartitionId thePartitionablePartitionId) {
 		if (thePartitionablePartitionId != null) {
 			getId().setPartitionIdValue(thePartitionablePartitionId.getPartitionId());
@@ -0,0 +1,110 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Model
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.model.search;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Maps resource PIDs to their position within a page of search results. This is used
+ * when materializing a page, where the resources come back from the database in an
+ * arbitrary order and need to be put back into the order of the PIDs in the page.
+ * <p>
+ * This is an open addressing hash table with linear probing over primitive arrays, so
+ * unlike a <code>HashMap&lt;Long, Integer&gt;</code> it doesn't allocate a boxed key, a
+ * boxed value and an entry object for every PID. Positions are assigned in the order
+ * that PIDs are added, and entries can't be removed.
+ * </p>
+ *
+ * @since 8.12.0
+ */
+public class PidPositionMap {
+
+	/**
+	 * Returned by {@link #getPosition(long)} if the PID isn't in the map
+	 */
+	public static final int NOT_FOUND = -1;
+
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private final long[] myKeys;
+	private final int[] myPositions;
+	private final int myMask;
+	private int mySize;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theExpectedSize The number of PIDs that will be added. The table never grows, so
+	 *                        adding more PIDs than this fails.
+	 */
+	public PidPositionMap(int theExpectedSize) {
+		Validate.isTrue(theExpectedSize >= 0, "Expected size must not be negative");
+		Validate.isTrue(theExpectedSize <= MAX_CAPACITY / 2, "Expected size is too large: %d", theExpectedSize);
+
+		// Keep the load factor at or below 0.5 so that probe sequences stay short
+		int capacity = Integer.highestOneBit(Math.max(theExpectedSize, 2) * 2 - 1) << 1;
+		myKeys = new long[capacity];
+		myPositions = new int[capacity];
+		myMask = capacity - 1;
+	}
+
+	/**
+	 * Adds the given PID if it isn't already present, and returns its position
+	 */
+	public int add(long thePid) {
+		int slot = findSlot(thePid);
+		int position = myPositions[slot];
+		if (position != 0) {
+			return position - 1;
+		}
+		Validate.isTrue(mySize < myKeys.length / 2, "Map is full");
+		myKeys[slot] = thePid;
+		// Positions are stored offset by one so that zero marks an empty slot
+		myPositions[slot] = ++mySize;
+		return mySize - 1;
+	}
+
+	/**
+	 * Returns the position of the given PID, or {@link #NOT_FOUND} if it hasn't been added
+	 */
+	public int getPosition(long thePid) {
+		return myPositions[findSlot(thePid)] - 1;
+	}
+
+	public int size() {
+		return mySize;
+	}
+
+	private int findSlot(long thePid) {
+		int slot = mix(thePid) & myMask;
+		while (myPositions[slot] != 0 && myKeys[slot] != thePid) {
+			slot = (slot + 1) & myMask;
+		}
+		return slot;
+	}
+
+	/**
+	 * PIDs are usually sequential, so spread the bits before masking them
+	 */
+	private static int mix(long theKey) {
+		long h = theKey * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,57 @@
+package ca.uhn.fhir.jpa.model.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PidPositionMapTest {
+
+	@Test
+	void testAddAndGet() {
+		PidPositionMap map = new PidPositionMap(1000);
+		for (int i = 0; i < 1000; i++) {
+			// Sequential and sparse PIDs, including zero and negative values
+			assertEquals(i, map.add((i % 2 == 0) ? i / 2 : -1000L * i));
+		}
+		assertEquals(1000, map.size());
+
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, map.getPosition((i % 2 == 0) ? i / 2 : -1000L * i));
+		}
+		assertEquals(PidPositionMap.NOT_FOUND, map.getPosition(5000));
+		assertEquals(PidPositionMap.NOT_FOUND, map.getPosition(Long.MAX_VALUE));
+	}
+
+	@Test
+	void testAddDuplicate() {
+		PidPositionMap map = new PidPositionMap(3);
+		assertEquals(0, map.add(10L));
+		assertEquals(1, map.add(20L));
+		assertEquals(0, map.add(10L));
+		assertEquals(2, map.size());
+	}
+
+	@Test
+	void testEmpty() {
+		PidPositionMap map = new PidPositionMap(0);
+		assertEquals(0, map.size());
+		assertEquals(PidPositionMap.NOT_FOUND, map.getPosition(0L));
+	}
+
+	@Test
+	void testAddTooMany() {
+		PidPositionMap map = new PidPositionMap(2);
+		for (long i = 0; i < 2; i++) {
+			map.add(i);
+		}
+		// The table is sized for at least the expected size, but never grows
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> {
+			for (long i = 2; i < 100; i++) {
+				map.add(i);
+			}
+		});
+		assertThat(e.getMessage()).contains("Map is full");
+	}
+}
@@ -88,11 +88,14 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.measure.quantity.Quantity;
 import javax.measure.unit.NonSI;
@@ -179,6 +182,8 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 
 	// allow extraction of Resource-level search param values
 	private boolean myExtractResourceLevelParams = false;
+	private final Map<String, SearchParamExtractionPlan> myResourceTypeToExtractionPlan = new ConcurrentHashMap<>();
+	private final ThreadLocal<Map<IBaseResource, Map<String, List<IBase>>>> myExtractedValues = new ThreadLocal<>();
 	private PerformanceTracingLogger myPerformanceTracingLogger;
 
 	/**
@@ -938,6 +943,12 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 				}
 
 				nextPath = trim(nextPath);
+				List<IBase> extractedValues = getExtractedValuesFromScope(theResource, nextPath);
+				if (extractedValues != null) {
+					values.addAll(extractedValues);
+					continue;
+				}
+
 				IValueExtractor allValuesFunc = getPathValueExtractor(theResource, nextPath);
 				try {
 					allValues = allValuesFunc.get();
@@ -964,6 +975,50 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 		return values;
 	}
 
+	@Override
+	public IExtractedValueScope openExtractedValueScope() {
+		if (!myContext.getVersion().getVersion().isEqualOrNewerThan(FhirVersionEnum.R4)
+				|| myExtractedValues.get() != null) {
+			return () -> {};
+		}
+		myExtractedValues.set(new IdentityHashMap<>());
+		return myExtractedValues::remove;
+	}
+
+	/**
+	 * If an extracted value scope is open, returns the values for the given path as evaluated by the
+	 * {@link SearchParamExtractionPlan} for the resource type. The plan is evaluated once for each resource
+	 * within the scope, and is rebuilt whenever the active search parameters for the type change.
+	 *
+	 * @return The values, or <code>null</code> if the path must be evaluated using FHIRPath
+	 */
+	private List<IBase> getExtractedValuesFromScope(IBase theResource, String thePath) {
+		Map<IBaseResource, Map<String, List<IBase>>> extractedValues = myExtractedValues.get();
+		if (extractedValues == null || !(theResource instanceof IBaseResource)) {
+			return null;
+		}
+
+		IBaseResource resource = (IBaseResource) theResource;
+		Map<String, List<IBase>> resourceValues = extractedValues.get(resource);
+		if (resourceValues == null) {
+			SearchParamExtractionPlan plan = getExtractionPlan(resource);
+			resourceValues = plan.evaluateAll(resource);
+			extractedValues.put(resource, resourceValues);
+		}
+		return resourceValues.get(thePath);
+	}
+
+	private SearchParamExtractionPlan getExtractionPlan(IBaseResource theResource) {
+		String resourceType = myContext.getResourceType(theResource);
+		Collection<RuntimeSearchParam> searchParams = getSearchParams(theResource);
+		SearchParamExtractionPlan retVal = myResourceTypeToExtractionPlan.get(resourceType);
+		if (retVal == null || !retVal.isCompiledFor(searchParams)) {
+			retVal = new SearchParamExtractionPlan(myContext, resourceType, searchParams, this::split);
+			myResourceTypeToExtractionPlan.put(resourceType, retVal);
+		}
+		return retVal;
+	}
+
 	protected FhirContext getContext() {
 		return myContext;
 	}
@@ -152,6 +152,33 @@ public interface ISearchParamExtractor {
 
 	String getDisplayTextFromCodeableConcept(IBase theValue);
 
+	/**
+	 * Opens a scope on the current thread within which the search parameter values of each
+	 * resource passed to this extractor may be extracted once and then reused by subsequent
+	 * extraction calls, instead of evaluating every search parameter path separately. The
+	 * resources must not be modified while the scope is open, and the scope must be closed
+	 * (typically using a try-with-resources block) on the thread that opened it.
+	 * <p>
+	 * The default implementation does nothing.
+	 * </p>
+	 *
+	 * @since 8.12.0
+	 */
+	default IExtractedValueScope openExtractedValueScope() {
+		return () -> {};
+	}
+
+	/**
+	 * @see #openExtractedValueScope()
+	 * @since 8.12.0
+	 */
+	@FunctionalInterface
+	interface IExtractedValueScope extends AutoCloseable {
+
+		@Override
+		void close();
+	}
+
 	@FunctionalInterface
 	interface ISearchParamFilter {
 
@@ -0,0 +1,486 @@
+/*
+ * #%L
+ * HAPI FHIR JPA - Search Parameters
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.searchparam.extractor;
+
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementCompositeDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementDefinition;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseReference;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * An extraction plan holds the search parameter paths for a single resource type which
+ * are simple enough to be evaluated directly against the HAPI runtime model, without
+ * going through the FHIRPath engine. The supported paths are dotted element names
+ * starting at the resource type, optionally filtered using
+ * <code>as(Type)</code>, <code>ofType(Type)</code>, <code>(path as Type)</code> or
+ * <code>where(resolve() is Type)</code>.
+ * <p>
+ * The compiled paths are merged into a tree so that all of the paths for a resource
+ * type are evaluated in a single traversal of the resource, and shared prefixes
+ * (e.g. <code>Observation.code</code> and <code>Observation.code.coding</code>) are
+ * only walked once. Any path which can't be compiled, and any path for which the
+ * evaluation hits something this class doesn't model exactly (e.g. a subtype of the
+ * requested type, or a contained reference), is left out of the results so that the
+ * caller falls back to FHIRPath for it.
+ * </p>
+ * <p>
+ * Plans are immutable and thread safe once created.
+ * </p>
+ */
+class SearchParamExtractionPlan {
+
+	private static final String IDENTIFIER = "[A-Za-z][A-Za-z0-9_]*";
+	private static final Pattern TYPE_FILTER_PATTERN = Pattern.compile("^(?:as|ofType)\\((" + IDENTIFIER + ")\\)$");
+	private static final Pattern RESOLVE_FILTER_PATTERN =
+			Pattern.compile("^where\\(resolve\\(\\) is (" + IDENTIFIER + ")\\)$");
+	private static final Pattern PARENTHESIZED_AS_PATTERN = Pattern.compile("^\\(([^()]+) as (" + IDENTIFIER + ")\\)$");
+	private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("^" + IDENTIFIER + "$");
+
+	private final FhirContext myContext;
+	private final List<RuntimeSearchParam> mySearchParams;
+	private final Node myRoot = new Node(null);
+	private final Map<String, List<Node>> myPathToNodes = new HashMap<>();
+	private final Map<Class<?>, BaseRuntimeElementCompositeDefinition<?>> myClassToDefinition =
+			new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param theContext      The FHIR context
+	 * @param theResourceType The resource type that this plan applies to
+	 * @param theSearchParams The active search parameters for the resource type
+	 * @param theSplitter     Splits a search parameter path into its individual paths
+	 */
+	SearchParamExtractionPlan(
+			FhirContext theContext,
+			String theResourceType,
+			Collection<RuntimeSearchParam> theSearchParams,
+			Function<String, String[]> theSplitter) {
+		myContext = theContext;
+		mySearchParams = new ArrayList<>(theSearchParams);
+
+		for (RuntimeSearchParam nextSearchParam : theSearchParams) {
+			String nextPaths = nextSearchParam.getPath();
+			if (isBlank(nextPaths)) {
+				continue;
+			}
+			for (String nextPath : theSplitter.apply(nextPaths)) {
+				nextPath = nextPath.trim();
+				if (myPathToNodes.containsKey(nextPath)) {
+					continue;
+				}
+				List<Step> steps = compile(theContext, theResourceType, nextPath);
+				if (steps != null) {
+					addPath(nextPath, steps);
+				}
+			}
+		}
+	}
+
+	private void addPath(String thePath, List<Step> theSteps) {
+		List<Node> nodes = new ArrayList<>(theSteps.size());
+		Node node = myRoot;
+		for (Step nextStep : theSteps) {
+			node = node.myChildren.computeIfAbsent(nextStep.getKey(), k -> new Node(nextStep));
+			node.myPathsInSubtree.add(thePath);
+			nodes.add(node);
+		}
+		node.myPathsEndingHere.add(thePath);
+		myPathToNodes.put(thePath, nodes);
+	}
+
+	/**
+	 * Returns <code>true</code> if this plan was built for exactly the given search parameters,
+	 * meaning that the search parameter registry hasn't been refreshed since the plan was built.
+	 */
+	boolean isCompiledFor(Collection<RuntimeSearchParam> theSearchParams) {
+		if (theSearchParams.size() != mySearchParams.size()) {
+			return false;
+		}
+		Iterator<RuntimeSearchParam> iter = mySearchParams.iterator();
+		for (RuntimeSearchParam next : theSearchParams) {
+			if (next != iter.next()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	boolean hasPath(String thePath) {
+		return myPathToNodes.containsKey(thePath);
+	}
+
+	/**
+	 * Evaluates every compiled path against the given resource in a single traversal.
+	 *
+	 * @return A map from path to the values for that path. Paths which are not present in the map must be
+	 * 		evaluated using FHIRPath.
+	 */
+	@Nonnull
+	Map<String, List<IBase>> evaluateAll(IBaseResource theResource) {
+		Map<String, List<IBase>> retVal = new HashMap<>();
+		evaluateChildren(myRoot, Collections.singletonList(theResource), theResource, retVal);
+		return retVal;
+	}
+
+	private void evaluateChildren(
+			Node theNode, List<IBase> theFocus, IBaseResource theResource, Map<String, List<IBase>> theResults) {
+		for (Node nextChild : theNode.myChildren.values()) {
+			List<IBase> values = nextChild.myStep.apply(this, theFocus, theResource);
+			if (values == null) {
+				// Not supported for this resource, so everything below this node is left to FHIRPath
+				continue;
+			}
+			if (values.isEmpty()) {
+				for (String nextPath : nextChild.myPathsInSubtree) {
+					theResults.put(nextPath, Collections.emptyList());
+				}
+				continue;
+			}
+			for (String nextPath : nextChild.myPathsEndingHere) {
+				theResults.put(nextPath, values);
+			}
+			evaluateChildren(nextChild, values, theResource, theResults);
+		}
+	}
+
+	/**
+	 * Evaluates a single compiled path against the given resource.
+	 *
+	 * @return The values, or <code>null</code> if the path must be evaluated using FHIRPath
+	 */
+	@Nullable
+	List<IBase> evaluate(IBaseResource theResource, String thePath) {
+		List<Node> nodes = myPathToNodes.get(thePath);
+		if (nodes == null) {
+			return null;
+		}
+		List<IBase> values = Collections.singletonList(theResource);
+		for (Node nextNode : nodes) {
+			values = nextNode.myStep.apply(this, values, theResource);
+			if (values == null || values.isEmpty()) {
+				break;
+			}
+		}
+		return values;
+	}
+
+	@Nullable
+	private BaseRuntimeElementCompositeDefinition<?> getCompositeDefinition(IBase theElement) {
+		return myClassToDefinition.computeIfAbsent(theElement.getClass(), t -> {
+			BaseRuntimeElementDefinition<?> def;
+			if (theElement instanceof IBaseResource) {
+				def = myContext.getResourceDefinition((IBaseResource) theElement);
+			} else {
+				def = myContext.getElementDefinition(theElement.getClass());
+			}
+			if (def instanceof BaseRuntimeElementCompositeDefinition) {
+				return (BaseRuntimeElementCompositeDefinition<?>) def;
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Compiles a single path into a sequence of steps, or returns <code>null</code> if the path
+	 * isn't one that this class can evaluate.
+	 */
+	@Nullable
+	static List<Step> compile(FhirContext theContext, String theResourceType, String thePath) {
+		String path = thePath;
+		String trailingTypeFilter = null;
+		Matcher parenthesizedMatcher = PARENTHESIZED_AS_PATTERN.matcher(path);
+		if (parenthesizedMatcher.matches()) {
+			path = parenthesizedMatcher.group(1).trim();
+			trailingTypeFilter = parenthesizedMatcher.group(2);
+		} else if (path.startsWith("(")) {
+			return null;
+		}
+
+		List<String> segments = splitSegments(path);
+		if (segments == null || segments.size() < 2) {
+			return null;
+		}
+
+		// Paths rooted at a supertype (e.g. Resource.meta.tag) are left to FHIRPath
+		if (!segments.get(0).equals(theResourceType)) {
+			return null;
+		}
+
+		List<Step> retVal = new ArrayList<>(segments.size());
+		for (int i = 1; i < segments.size(); i++) {
+			String nextSegment = segments.get(i);
+			Step nextStep;
+			Matcher typeFilterMatcher = TYPE_FILTER_PATTERN.matcher(nextSegment);
+			Matcher resolveFilterMatcher = RESOLVE_FILTER_PATTERN.matcher(nextSegment);
+			if (IDENTIFIER_PATTERN.matcher(nextSegment).matches()) {
+				nextStep = new ChildStep(nextSegment);
+			} else if (typeFilterMatcher.matches()) {
+				nextStep = TypeFilterStep.create(theContext, typeFilterMatcher.group(1));
+			} else if (resolveFilterMatcher.matches()) {
+				nextStep = new ResolveFilterStep(resolveFilterMatcher.group(1));
+			} else {
+				nextStep = null;
+			}
+			if (nextStep == null) {
+				return null;
+			}
+			retVal.add(nextStep);
+		}
+
+		if (trailingTypeFilter != null) {
+			Step typeFilter = TypeFilterStep.create(theContext, trailingTypeFilter);
+			if (typeFilter == null) {
+				return null;
+			}
+			retVal.add(typeFilter);
+		}
+
+		return retVal;
+	}
+
+	/**
+	 * Splits a path on the periods which aren't inside parentheses
+	 */
+	@Nullable
+	private static List<String> splitSegments(String thePath) {
+		List<String> retVal = new ArrayList<>();
+		int depth = 0;
+		int start = 0;
+		for (int i = 0; i < thePath.length(); i++) {
+			char nextChar = thePath.charAt(i);
+			if (nextChar == '(') {
+				depth++;
+			} else if (nextChar == ')') {
+				depth--;
+				if (depth < 0) {
+					return null;
+				}
+			} else if (nextChar == '.' && depth == 0) {
+				retVal.add(thePath.substring(start, i));
+				start = i + 1;
+			}
+		}
+		if (depth != 0) {
+			return null;
+		}
+		retVal.add(thePath.substring(start));
+		return retVal;
+	}
+
+	private static class Node {
+		private final Step myStep;
+		private final Map<String, Node> myChildren = new LinkedHashMap<>();
+		private final List<String> myPathsEndingHere = new ArrayList<>(1);
+		private final List<String> myPathsInSubtree = new ArrayList<>(1);
+
+		private Node(Step theStep) {
+			myStep = theStep;
+		}
+	}
+
+	abstract static class Step {
+
+		abstract String getKey();
+
+		/**
+		 * @return The values produced by this step, or <code>null</code> if the step can't be
+		 * 		evaluated exactly for the given values
+		 */
+		@Nullable
+		abstract List<IBase> apply(SearchParamExtractionPlan thePlan, List<IBase> theFocus, IBaseResource theResource);
+	}
+
+	/**
+	 * Navigates to a named child element, e.g. <code>.code</code> or <code>.value</code> for a choice element
+	 */
+	private static class ChildStep extends Step {
+		private final String myName;
+		private final String myChoiceName;
+
+		private ChildStep(String theName) {
+			myName = theName;
+			myChoiceName = theName + "[x]";
+		}
+
+		@Override
+		String getKey() {
+			return myName;
+		}
+
+		@Override
+		List<IBase> apply(SearchParamExtractionPlan thePlan, List<IBase> theFocus, IBaseResource theResource) {
+			List<IBase> retVal = null;
+			for (IBase nextFocus : theFocus) {
+				BaseRuntimeElementCompositeDefinition<?> def = thePlan.getCompositeDefinition(nextFocus);
+				if (def == null) {
+					return null;
+				}
+
+				/*
+				 * Choice children are also registered under the name of each of their
+				 * types (e.g. "valueQuantity") but FHIRPath doesn't allow that form, so
+				 * we only accept a child registered under its own element name.
+				 */
+				BaseRuntimeChildDefinition child = def.getChildByName(myName);
+				if (child == null || !myName.equals(child.getElementName())) {
+					child = def.getChildByName(myChoiceName);
+					if (child == null || !myName.equals(child.getElementName())) {
+						return null;
+					}
+				}
+
+				List<IBase> values = child.getAccessor().getValues(nextFocus);
+				if (!values.isEmpty()) {
+					if (retVal == null) {
+						retVal = new ArrayList<>(values.size());
+					}
+					for (IBase nextValue : values) {
+						if (nextValue != null) {
+							retVal.add(nextValue);
+						}
+					}
+				}
+			}
+			return retVal != null ? retVal : Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Filters the values by exact type, e.g. <code>.as(Reference)</code> or <code>.ofType(Quantity)</code>
+	 */
+	private static class TypeFilterStep extends Step {
+		private final String myTypeName;
+		private final Class<?> myImplementingClass;
+
+		private TypeFilterStep(String theTypeName, Class<?> theImplementingClass) {
+			myTypeName = theTypeName;
+			myImplementingClass = theImplementingClass;
+		}
+
+		@Override
+		String getKey() {
+			return "ofType(" + myTypeName + ")";
+		}
+
+		@Override
+		List<IBase> apply(SearchParamExtractionPlan thePlan, List<IBase> theFocus, IBaseResource theResource) {
+			List<IBase> retVal = null;
+			for (IBase nextFocus : theFocus) {
+				Class<?> nextClass = nextFocus.getClass();
+				if (nextClass == myImplementingClass) {
+					if (retVal == null) {
+						retVal = new ArrayList<>(theFocus.size());
+					}
+					retVal.add(nextFocus);
+				} else if (myImplementingClass.isAssignableFrom(nextClass)) {
+					// A profiled subtype (e.g. Age for Quantity), leave it to FHIRPath to decide
+					return null;
+				}
+			}
+			return retVal != null ? retVal : Collections.emptyList();
+		}
+
+		/**
+		 * Only composite types are supported, since the primitive types don't map
+		 * one-to-one onto model classes (e.g. code vs. Enumeration).
+		 */
+		@Nullable
+		static TypeFilterStep create(FhirContext theContext, String theTypeName) {
+			BaseRuntimeElementDefinition<?> def;
+			if (theContext.getResourceTypes().contains(theTypeName)) {
+				def = theContext.getResourceDefinition(theTypeName);
+			} else {
+				def = theContext.getElementDefinition(theTypeName);
+			}
+			if (!(def instanceof BaseRuntimeElementCompositeDefinition)
+					|| !def.getName().equals(theTypeName)) {
+				return null;
+			}
+			return new TypeFilterStep(theTypeName, def.getImplementingClass());
+		}
+	}
+
+	/**
+	 * Filters references by the type of their target, i.e. <code>.where(resolve() is Patient)</code>.
+	 * Only references with an explicit resource type are handled here. Local, logical and
+	 * contained references are left to FHIRPath, as are references within a Bundle since those
+	 * may be resolved against the entries of the Bundle.
+	 */
+	private static class ResolveFilterStep extends Step {
+		private final String myResourceType;
+
+		private ResolveFilterStep(String theResourceType) {
+			myResourceType = theResourceType;
+		}
+
+		@Override
+		String getKey() {
+			return "where(resolve() is " + myResourceType + ")";
+		}
+
+		@Override
+		List<IBase> apply(SearchParamExtractionPlan thePlan, List<IBase> theFocus, IBaseResource theResource) {
+			if ("Bundle".equals(thePlan.myContext.getResourceType(theResource))) {
+				return null;
+			}
+			List<IBase> retVal = null;
+			for (IBase nextFocus : theFocus) {
+				if (!(nextFocus instanceof IBaseReference)) {
+					return null;
+				}
+				IIdType referenceElement = ((IBaseReference) nextFocus).getReferenceElement();
+				String reference = referenceElement.getValue();
+				if (isBlank(reference) || reference.startsWith("#") || isBlank(referenceElement.getResourceType())) {
+					return null;
+				}
+				if (myResourceType.equals(referenceElement.getResourceType())) {
+					if (retVal == null) {
+						retVal = new ArrayList<>(theFocus.size());
+					}
+					retVal.add(nextFocus);
+				}
+			}
+			return retVal != null ? retVal : Collections.emptyList();
+		}
+	}
+}
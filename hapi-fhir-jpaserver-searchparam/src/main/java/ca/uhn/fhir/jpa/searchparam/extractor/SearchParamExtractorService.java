@@ -150,16 +150,18 @@ public class SearchParamExtractorService implements ISearchParamExtractorSvc {
 		 */
 		myContext.newTerser().containResources(theResource, null, true);
 
-		// All search parameter types except Reference
 		ResourceIndexedSearchParams normalParams = ResourceIndexedSearchParams.withSets();
-		getExtractionUtil()
-				.extractSearchIndexParameters(theRequestDetails, normalParams, theResource, theSearchParamFilter);
-		mergeParams(normalParams, theNewParams);
-
-		// Reference search parameters
 		boolean indexOnContainedResources = myStorageSettings.isIndexOnContainedResources();
-		ISearchParamExtractor.SearchParamSet<PathAndRef> indexedReferences =
-				mySearchParamExtractor.extractResourceLinks(theResource, indexOnContainedResources);
+		ISearchParamExtractor.SearchParamSet<PathAndRef> indexedReferences;
+		try (ISearchParamExtractor.IExtractedValueScope ignored = mySearchParamExtractor.openExtractedValueScope()) {
+			// All search parameter types except Reference
+			getExtractionUtil()
+					.extractSearchIndexParameters(theRequestDetails, normalParams, theResource, theSearchParamFilter);
+
+			// Reference search parameters
+			indexedReferences = mySearchParamExtractor.extractResourceLinks(theResource, indexOnContainedResources);
+		}
+		mergeParams(normalParams, theNewParams);
 		SearchParamExtractorService.handleWarnings(theRequestDetails, myInterceptorBroadcaster, indexedReferences);
 
 		if (indexOnContainedResources) {
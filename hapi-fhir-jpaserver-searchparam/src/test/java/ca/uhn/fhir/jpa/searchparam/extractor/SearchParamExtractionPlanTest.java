@@ -0,0 +1,249 @@
+package ca.uhn.fhir.jpa.searchparam.extractor;
+
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementCompositeDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementDefinition;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeChildChoiceDefinition;
+import ca.uhn.fhir.context.RuntimeChildContainedResources;
+import ca.uhn.fhir.context.RuntimeChildDirectResource;
+import ca.uhn.fhir.context.RuntimeChildExtension;
+import ca.uhn.fhir.context.RuntimeChildResourceDefinition;
+import ca.uhn.fhir.context.RuntimePrimitiveDatatypeDefinition;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseReference;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IPrimitiveType;
+import org.hl7.fhir.r4.model.Age;
+import org.hl7.fhir.r4.model.Encounter;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchParamExtractionPlanTest {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(SearchParamExtractionPlanTest.class);
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private static final String[] REFERENCE_TARGETS = {"Patient/123", "Organization/A", "Practitioner/P", "Group/G"};
+
+	private final ISearchParamRegistry mySearchParamRegistry = new FhirContextSearchParamRegistry(ourCtx);
+	private final SearchParamExtractorR4 myExtractor = new SearchParamExtractorR4(
+			new StorageSettings(), new PartitionSettings(), ourCtx, mySearchParamRegistry);
+
+	/**
+	 * Populates an instance of every resource type several times over (picking a different
+	 * type for each choice element and a different target for each reference each time),
+	 * and verifies that every path the plan evaluates gives exactly the same values as
+	 * FHIRPath does.
+	 */
+	@Test
+	public void testPlanMatchesFhirPath_AllResourceTypes() {
+		int compiledPaths = 0;
+		int totalPaths = 0;
+		int comparisons = 0;
+
+		for (String nextResourceType : ourCtx.getResourceTypes()) {
+			Collection<RuntimeSearchParam> searchParams = getSearchParams(nextResourceType);
+			SearchParamExtractionPlan plan =
+					new SearchParamExtractionPlan(ourCtx, nextResourceType, searchParams, myExtractor::split);
+
+			List<String> paths = new ArrayList<>();
+			for (RuntimeSearchParam nextSearchParam : searchParams) {
+				if (nextSearchParam.getPath() != null && !nextSearchParam.getPath().isBlank()) {
+					for (String nextPath : myExtractor.split(nextSearchParam.getPath())) {
+						paths.add(nextPath.trim());
+					}
+				}
+			}
+			totalPaths += paths.size();
+			compiledPaths += (int) paths.stream().filter(plan::hasPath).count();
+
+			for (int variant = 0; variant < 4; variant++) {
+				IBaseResource resource =
+						ourCtx.getResourceDefinition(nextResourceType).newInstance();
+				populate(ourCtx.getResourceDefinition(nextResourceType), resource, variant, 0);
+
+				Map<String, List<IBase>> planValues = plan.evaluateAll(resource);
+				for (String nextPath : paths) {
+					List<IBase> values = planValues.get(nextPath);
+					if (values == null) {
+						continue;
+					}
+					List<? extends IBase> fhirPathValues;
+					try {
+						fhirPathValues = myExtractor.getPathValueExtractor(resource, nextPath).get();
+					} catch (Exception e) {
+						ourLog.debug("FHIRPath failed for {}: {}", nextPath, e.toString());
+						continue;
+					}
+
+					assertThat(values).as(nextResourceType + " " + nextPath).containsExactlyElementsOf(fhirPathValues);
+					assertThat(plan.evaluate(resource, nextPath)).as(nextPath).containsExactlyElementsOf(fhirPathValues);
+					comparisons++;
+				}
+			}
+		}
+
+		ourLog.info("Compiled {} of {} paths, performed {} comparisons", compiledPaths, totalPaths, comparisons);
+		assertThat(compiledPaths).isGreaterThan(totalPaths / 2);
+		assertThat(comparisons).isGreaterThan(compiledPaths);
+	}
+
+	@Test
+	public void testTypeFilter_SubtypeFallsBackToFhirPath() {
+		SearchParamExtractionPlan plan = newPlan("Observation");
+		String path = "(Observation.value as Quantity)";
+		assertThat(plan.hasPath(path)).isTrue();
+
+		Observation obs = new Observation();
+		obs.setValue(new Quantity().setValue(1));
+		assertThat(plan.evaluate(obs, path)).containsExactly(obs.getValue());
+
+		obs.setValue(new Age().setValue(1));
+		assertThat(plan.evaluate(obs, path)).isNull();
+		assertThat(plan.evaluateAll(obs)).doesNotContainKey(path);
+	}
+
+	@Test
+	public void testResolveFilter_LocalReferenceFallsBackToFhirPath() {
+		SearchParamExtractionPlan plan = newPlan("Encounter");
+		String path = "Encounter.subject.where(resolve() is Patient)";
+		assertThat(plan.hasPath(path)).isTrue();
+
+		Encounter encounter = new Encounter();
+		encounter.setSubject(new Reference("Patient/123"));
+		assertThat(plan.evaluate(encounter, path)).containsExactly(encounter.getSubject());
+
+		encounter.setSubject(new Reference("Group/123"));
+		assertThat(plan.evaluate(encounter, path)).isEmpty();
+
+		encounter.setSubject(new Reference("#contained"));
+		assertThat(plan.evaluate(encounter, path)).isNull();
+	}
+
+	@Test
+	public void testComplexPathsAreNotCompiled() {
+		assertThat(SearchParamExtractionPlan.compile(ourCtx, "Patient", "Patient.name.given")).hasSize(2);
+		assertThat(SearchParamExtractionPlan.compile(ourCtx, "Patient", "Resource.meta.tag")).isNull();
+		assertThat(SearchParamExtractionPlan.compile(ourCtx, "Patient", "Patient.deceased.exists() and Patient.deceased != false")).isNull();
+		assertThat(SearchParamExtractionPlan.compile(ourCtx, "Patient", "Patient.telecom.where(system='phone')")).isNull();
+		assertThat(SearchParamExtractionPlan.compile(ourCtx, "Patient", "Observation.code")).isNull();
+		assertThat(SearchParamExtractionPlan.compile(ourCtx, "Patient", "Patient.birthDate.as(date)")).isNull();
+	}
+
+	@Test
+	public void testIsCompiledFor() {
+		Collection<RuntimeSearchParam> searchParams = getSearchParams("Patient");
+		SearchParamExtractionPlan plan =
+				new SearchParamExtractionPlan(ourCtx, "Patient", searchParams, myExtractor::split);
+		assertThat(plan.isCompiledFor(getSearchParams("Patient"))).isTrue();
+
+		List<RuntimeSearchParam> changed = new ArrayList<>(searchParams);
+		changed.remove(0);
+		assertThat(plan.isCompiledFor(changed)).isFalse();
+	}
+
+	@Test
+	public void testExtractValuesWithinScope() {
+		Patient patient = new Patient();
+		patient.addName().setFamily("Simpson").addGiven("Homer");
+		patient.setManagingOrganization(new Reference("Organization/A"));
+
+		List<IBase> outsideScope = myExtractor.extractValues("Patient.name.given", patient);
+		try (ISearchParamExtractor.IExtractedValueScope ignored = myExtractor.openExtractedValueScope()) {
+			assertThat(myExtractor.extractValues("Patient.name.given", patient)).containsExactlyElementsOf(outsideScope);
+			assertThat(myExtractor.extractValues("Patient.managingOrganization", patient))
+					.containsExactly(patient.getManagingOrganization());
+		}
+	}
+
+	private SearchParamExtractionPlan newPlan(String theResourceType) {
+		return new SearchParamExtractionPlan(ourCtx, theResourceType, getSearchParams(theResourceType), myExtractor::split);
+	}
+
+	private Collection<RuntimeSearchParam> getSearchParams(String theResourceType) {
+		return mySearchParamRegistry
+				.getActiveSearchParams(theResourceType, ISearchParamRegistry.SearchParamLookupContextEnum.INDEX)
+				.values();
+	}
+
+	private void populate(BaseRuntimeElementCompositeDefinition<?> theDefinition, IBase theElement, int theVariant, int theDepth) {
+		if (theDepth > 3) {
+			return;
+		}
+		for (BaseRuntimeChildDefinition nextChild : theDefinition.getChildren()) {
+			if (nextChild instanceof RuntimeChildExtension
+					|| nextChild instanceof RuntimeChildContainedResources
+					|| nextChild instanceof RuntimeChildResourceDefinition
+					|| nextChild instanceof RuntimeChildDirectResource
+					|| nextChild.getElementName().equals("id")) {
+				continue;
+			}
+
+			String childName = nextChild.getElementName();
+			if (nextChild instanceof RuntimeChildChoiceDefinition) {
+				List<String> options = new ArrayList<>(((RuntimeChildChoiceDefinition) nextChild).getValidChildNames());
+				childName = options.get(theVariant % options.size());
+			}
+			BaseRuntimeElementDefinition<?> childDef = nextChild.getChildByName(childName);
+			if (childDef == null || childDef.getName().equals("Extension")) {
+				continue;
+			}
+
+			IBase value;
+			try {
+				value = childDef.newInstance(nextChild.getInstanceConstructorArguments());
+			} catch (Exception e) {
+				continue;
+			}
+
+			if (value instanceof IBaseReference) {
+				((IBaseReference) value).setReference(REFERENCE_TARGETS[(theVariant + theDepth) % REFERENCE_TARGETS.length]);
+			} else if (childDef instanceof RuntimePrimitiveDatatypeDefinition) {
+				if (!setPrimitiveValue((IPrimitiveType<?>) value)) {
+					continue;
+				}
+			} else if (childDef instanceof BaseRuntimeElementCompositeDefinition) {
+				populate((BaseRuntimeElementCompositeDefinition<?>) childDef, value, theVariant, theDepth + 1);
+			} else {
+				continue;
+			}
+
+			try {
+				nextChild.getMutator().addValue(theElement, value);
+			} catch (Exception e) {
+				ourLog.trace("Unable to set {}", childName, e);
+			}
+		}
+	}
+
+	private static boolean setPrimitiveValue(IPrimitiveType<?> theValue) {
+		for (String next : new String[] {"2020-01-02", "1", "true", "http://foo", "value"}) {
+			try {
+				theValue.setValueAsString(next);
+				if (theValue.getValue() != null) {
+					return true;
+				}
+			} catch (Exception e) {
+				// try the next candidate
+			}
+		}
+		return false;
+	}
+}
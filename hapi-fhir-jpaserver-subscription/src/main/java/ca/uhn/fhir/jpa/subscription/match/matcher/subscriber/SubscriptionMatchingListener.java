@@ -22,16 +22,20 @@ package ca.uhn.fhir.jpa.subscription.match.matcher.subscriber;
 import ca.uhn.fhir.broker.api.IMessageListener;
 import ca.uhn.fhir.broker.api.ISendResult;
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeSearchParam;
 import ca.uhn.fhir.interceptor.api.HookParams;
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
 import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.subscription.match.matcher.matching.ISubscriptionMatcher;
 import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
+import ca.uhn.fhir.jpa.subscription.match.registry.ISubscriptionCandidateValueProvider;
 import ca.uhn.fhir.jpa.subscription.match.registry.SubscriptionRegistry;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
 import ca.uhn.fhir.rest.server.messaging.IMessage;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
 import ca.uhn.fhir.subscription.api.IResourceModifiedMessagePersistenceSvc;
 import ca.uhn.fhir.util.Logs;
 import jakarta.annotation.Nonnull;
@@ -41,6 +45,7 @@ import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Optional;
 
 import static ca.uhn.fhir.rest.server.messaging.BaseResourceMessage.OperationTypeEnum.DELETE;
@@ -69,6 +74,12 @@ public class SubscriptionMatchingListener implements IMessageListener<ResourceMo
 	@Autowired
 	private IResourceModifiedMessagePersistenceSvc myResourceModifiedMessagePersistenceSvc;
 
+	@Autowired
+	private ISearchParamRegistry mySearchParamRegistry;
+
+	@Autowired
+	private ISearchParamExtractor mySearchParamExtractor;
+
 	/**
 	 * Constructor
 	 */
@@ -128,7 +139,7 @@ public class SubscriptionMatchingListener implements IMessageListener<ResourceMo
 	private void doMatchActiveSubscriptionsAndDeliver(ResourceModifiedMessage theMsg) {
 		IIdType resourceId = theMsg.getPayloadId(myFhirContext);
 
-		Collection<ActiveSubscription> subscriptions = mySubscriptionRegistry.getAllNonTopicSubscriptions();
+		Collection<ActiveSubscription> subscriptions = getCandidateSubscriptions(theMsg, resourceId);
 
 		ourLog.trace("Testing {} subscriptions for applicability", subscriptions.size());
 		boolean anySubscriptionsMatchedResource = false;
@@ -145,6 +156,53 @@ public class SubscriptionMatchingListener implements IMessageListener<ResourceMo
 		}
 	}
 
+	private Collection<ActiveSubscription> getCandidateSubscriptions(
+			ResourceModifiedMessage theMsg, IIdType theResourceId) {
+		if (isNotBlank(theMsg.getSubscriptionId())) {
+			ActiveSubscription activeSubscription = mySubscriptionRegistry.get(theMsg.getSubscriptionId());
+			if (activeSubscription == null
+					|| activeSubscription.getSubscription().isTopicSubscription()) {
+				return Collections.emptyList();
+			}
+			return Collections.singletonList(activeSubscription);
+		}
+
+		if (theResourceId == null) {
+			return mySubscriptionRegistry.getAllNonTopicSubscriptions();
+		}
+
+		String resourceType = theResourceId.getResourceType();
+		return mySubscriptionRegistry.getNonTopicSubscriptionCandidates(
+				resourceType, theMsg.getPartitionId(), newCandidateValueProvider(theMsg, resourceType));
+	}
+
+	/**
+	 * Supplies token and reference values from the modified resource, which lets the registry skip
+	 * subscriptions with simple equality criteria that can not match. Other parameter types are
+	 * not narrowed.
+	 */
+	private ISubscriptionCandidateValueProvider newCandidateValueProvider(
+			ResourceModifiedMessage theMsg, String theResourceType) {
+		return theParamName -> {
+			IBaseResource resource = theMsg.getNewResource(myFhirContext);
+			if (resource == null) {
+				return null;
+			}
+			RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(
+					theResourceType, theParamName, ISearchParamRegistry.SearchParamLookupContextEnum.ALL);
+			if (searchParam == null) {
+				return null;
+			}
+			switch (searchParam.getParamType()) {
+				case TOKEN:
+				case REFERENCE:
+					return mySearchParamExtractor.extractParamValuesAsStrings(searchParam, resource);
+				default:
+					return null;
+			}
+		};
+	}
+
 	/**
 	 * Returns ISendResult.isSuccessful() if subscription matched, and processing completed successfully, and the message was sent to the delivery channel. False otherwise.
 	 */
@@ -165,7 +223,6 @@ public class SubscriptionMatchingListener implements IMessageListener<ResourceMo
 
 		if (isNotBlank(theMsg.getSubscriptionId())) {
 			if (!theMsg.getSubscriptionId().equals(nextSubscriptionId)) {
-				// TODO KHS we should use a hash to look it up instead of this full table scan
 				ourLog.debug(
 						"Ignoring subscription {} because it is not {}",
 						nextSubscriptionId,
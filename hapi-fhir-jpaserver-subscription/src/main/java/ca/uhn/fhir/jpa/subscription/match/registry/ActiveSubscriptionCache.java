@@ -19,6 +19,8 @@
  */
 package ca.uhn.fhir.jpa.subscription.match.registry;
 
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import jakarta.annotation.Nullable;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +31,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -40,6 +43,7 @@ class ActiveSubscriptionCache {
 	private static final Logger ourLog = LoggerFactory.getLogger(ActiveSubscriptionCache.class);
 
 	private final Map<String, ActiveSubscription> myCache = new HashMap<>();
+	private final NonTopicSubscriptionIndex myNonTopicSubscriptionIndex = new NonTopicSubscriptionIndex();
 
 	public synchronized ActiveSubscription get(String theIdPart) {
 		return myCache.get(theIdPart);
@@ -54,7 +58,21 @@ class ActiveSubscriptionCache {
 	}
 
 	public synchronized void put(String theSubscriptionId, ActiveSubscription theActiveSubscription) {
-		myCache.put(theSubscriptionId, theActiveSubscription);
+		ActiveSubscription previous = myCache.put(theSubscriptionId, theActiveSubscription);
+		if (previous != null) {
+			myNonTopicSubscriptionIndex.remove(previous.getId());
+		}
+		myNonTopicSubscriptionIndex.add(theActiveSubscription);
+	}
+
+	/**
+	 * Re-indexes a subscription which has been modified in place
+	 */
+	public synchronized void reindex(String theSubscriptionId) {
+		ActiveSubscription activeSubscription = myCache.get(theSubscriptionId);
+		if (activeSubscription != null) {
+			myNonTopicSubscriptionIndex.add(activeSubscription);
+		}
 	}
 
 	public synchronized ActiveSubscription remove(String theSubscriptionId) {
@@ -66,6 +84,7 @@ class ActiveSubscriptionCache {
 		}
 
 		myCache.remove(theSubscriptionId);
+		myNonTopicSubscriptionIndex.remove(activeSubscription.getId());
 		return activeSubscription;
 	}
 
@@ -107,4 +126,37 @@ class ActiveSubscriptionCache {
 				.filter(as -> !as.getSubscription().isTopicSubscription())
 				.collect(Collectors.toList());
 	}
+
+	/**
+	 * Returns the non-topic subscriptions which could match a resource of the given type in the given
+	 * partition. This is a superset of the subscriptions which will actually match.
+	 * <p>
+	 * The value provider is called outside of the lock on this cache, since extracting values from
+	 * the resource can be comparatively slow.
+	 * </p>
+	 *
+	 * @see NonTopicSubscriptionIndex
+	 */
+	public List<ActiveSubscription> getNonTopicSubscriptionCandidates(
+			String theResourceType,
+			@Nullable RequestPartitionId thePartitionId,
+			@Nullable ISubscriptionCandidateValueProvider theValueProvider) {
+		ISubscriptionCandidateValueProvider valueProvider = null;
+		if (theValueProvider != null) {
+			Map<String, Collection<String>> paramNameToValues = new HashMap<>();
+			for (String nextParamName : getKeyedParamNames(theResourceType)) {
+				paramNameToValues.put(nextParamName, theValueProvider.getValues(nextParamName));
+			}
+			valueProvider = paramNameToValues::get;
+		}
+
+		synchronized (this) {
+			return new ArrayList<>(
+					myNonTopicSubscriptionIndex.getCandidates(theResourceType, thePartitionId, valueProvider));
+		}
+	}
+
+	private synchronized Set<String> getKeyedParamNames(String theResourceType) {
+		return myNonTopicSubscriptionIndex.getKeyedParamNames(theResourceType);
+	}
 }
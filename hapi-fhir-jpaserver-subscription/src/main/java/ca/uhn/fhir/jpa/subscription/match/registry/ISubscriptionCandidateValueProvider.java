@@ -0,0 +1,45 @@
+/*-
+ * #%L
+ * HAPI FHIR Subscription Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.subscription.match.registry;
+
+import jakarta.annotation.Nullable;
+
+import java.util.Collection;
+
+/**
+ * Supplies the values a modified resource holds for a given search parameter, so that
+ * {@link SubscriptionRegistry#getNonTopicSubscriptionCandidates(String, ca.uhn.fhir.interceptor.model.RequestPartitionId, ISubscriptionCandidateValueProvider)}
+ * can skip subscriptions whose criteria value can not match the resource.
+ *
+ * @since 8.12.0
+ */
+@FunctionalInterface
+public interface ISubscriptionCandidateValueProvider {
+
+	/**
+	 * Returns the values of the given search parameter on the modified resource, in the same
+	 * format as {@link ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor#extractParamValuesAsStrings(ca.uhn.fhir.context.RuntimeSearchParam, org.hl7.fhir.instance.model.api.IBaseResource)}.
+	 *
+	 * @return The values, or <code>null</code> if the values are not known (e.g. the parameter is not a token
+	 * or reference parameter). All subscriptions keyed on the parameter are returned as candidates in that case.
+	 */
+	@Nullable
+	Collection<String> getValues(String theParamName);
+}
@@ -0,0 +1,414 @@
+/*-
+ * #%L
+ * HAPI FHIR Subscription Server
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.subscription.match.registry;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.SubscriptionCriteriaParser;
+import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
+import ca.uhn.fhir.util.UrlUtil;
+import jakarta.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.trim;
+
+/**
+ * Index over the non-topic subscriptions held by {@link ActiveSubscriptionCache}, used to avoid
+ * testing every active subscription against every modified resource.
+ * <p>
+ * Subscriptions are bucketed by the resource type(s) their criteria apply to, and within each
+ * type by partition. Search expression criteria containing a plain equality parameter, such as
+ * <code>Observation?code=http://loinc.org|1234-5</code> or <code>Observation?subject=Patient/123</code>,
+ * are additionally keyed by the normalized value of that parameter.
+ * </p>
+ * <p>
+ * Lookups return a superset of the subscriptions that can match a resource, so every candidate
+ * must still be tested by the subscription matcher.
+ * </p>
+ * Thread-safety: This class is not thread-safe, callers must synchronize access.
+ */
+class NonTopicSubscriptionIndex {
+
+	private final Map<String, IndexEntry> myIdToEntry = new HashMap<>();
+	private final Map<String, ResourceTypeBucket> myResourceTypeToBucket = new HashMap<>();
+	private final ResourceTypeBucket myStarTypeBucket = new ResourceTypeBucket();
+
+	void add(ActiveSubscription theActiveSubscription) {
+		remove(theActiveSubscription.getId());
+
+		CanonicalSubscription subscription = theActiveSubscription.getSubscription();
+		SubscriptionCriteriaParser.SubscriptionCriteria criteria = theActiveSubscription.getCriteria();
+		if (subscription.isTopicSubscription() || criteria == null) {
+			// Criteria-less subscriptions never match a resource
+			return;
+		}
+
+		IndexEntry entry = new IndexEntry(theActiveSubscription);
+		switch (criteria.getType()) {
+			case STARTYPE_EXPRESSION:
+				entry.myStarType = true;
+				break;
+			case SEARCH_EXPRESSION:
+				entry.myResourceTypes.addAll(criteria.getApplicableResourceTypes());
+				entry.myValueKey = extractValueKey(criteria.getCriteria());
+				break;
+			case MULTITYPE_EXPRESSION:
+			default:
+				entry.myResourceTypes.addAll(criteria.getApplicableResourceTypes());
+				break;
+		}
+
+		if (entry.myStarType) {
+			myStarTypeBucket.add(entry);
+		}
+		for (String nextResourceType : entry.myResourceTypes) {
+			myResourceTypeToBucket
+					.computeIfAbsent(nextResourceType, t -> new ResourceTypeBucket())
+					.add(entry);
+		}
+		myIdToEntry.put(theActiveSubscription.getId(), entry);
+	}
+
+	void remove(String theSubscriptionId) {
+		IndexEntry entry = myIdToEntry.remove(theSubscriptionId);
+		if (entry == null) {
+			return;
+		}
+
+		if (entry.myStarType) {
+			myStarTypeBucket.remove(entry);
+		}
+		for (String nextResourceType : entry.myResourceTypes) {
+			ResourceTypeBucket bucket = myResourceTypeToBucket.get(nextResourceType);
+			if (bucket != null && bucket.remove(entry)) {
+				myResourceTypeToBucket.remove(nextResourceType);
+			}
+		}
+	}
+
+	/**
+	 * @param theResourceType  The type of the modified resource
+	 * @param thePartitionId   The partition of the modified resource, or <code>null</code> to ignore partitioning
+	 * @param theValueProvider Supplies the parameter values of the modified resource, or <code>null</code> to
+	 *                         skip value based narrowing
+	 */
+	Collection<ActiveSubscription> getCandidates(
+			String theResourceType,
+			@Nullable RequestPartitionId thePartitionId,
+			@Nullable ISubscriptionCandidateValueProvider theValueProvider) {
+		Set<ActiveSubscription> retVal = new LinkedHashSet<>();
+		myStarTypeBucket.collect(thePartitionId, theValueProvider, retVal);
+		ResourceTypeBucket bucket = myResourceTypeToBucket.get(theResourceType);
+		if (bucket != null) {
+			bucket.collect(thePartitionId, theValueProvider, retVal);
+		}
+		return retVal;
+	}
+
+	/**
+	 * @return The names of the parameters that subscriptions applying to the given resource type are keyed on
+	 */
+	Set<String> getKeyedParamNames(String theResourceType) {
+		ResourceTypeBucket bucket = myResourceTypeToBucket.get(theResourceType);
+		if (bucket == null) {
+			return Collections.emptySet();
+		}
+		return new HashSet<>(bucket.myParamNameToValueToSubscriptions.keySet());
+	}
+
+	/**
+	 * Looks for the first parameter in a search expression that is a plain equality test on
+	 * values we know how to normalize. Every parameter in a search expression must be satisfied,
+	 * so keying on any single one of them is enough.
+	 */
+	@Nullable
+	static ValueKey extractValueKey(String theCriteria) {
+		int questionMarkIdx = theCriteria.indexOf('?');
+		if (questionMarkIdx == -1) {
+			return null;
+		}
+
+		Map<String, String[]> params = UrlUtil.parseQueryString(theCriteria.substring(questionMarkIdx + 1));
+		for (Map.Entry<String, String[]> nextEntry : params.entrySet()) {
+			String paramName = nextEntry.getKey();
+			String[] values = nextEntry.getValue();
+			if (isBlank(paramName)
+					|| paramName.startsWith("_")
+					|| paramName.contains(":")
+					|| paramName.contains(".")
+					|| values.length == 0) {
+				continue;
+			}
+
+			Set<String> keys = new HashSet<>();
+			for (String nextValue : values[0].split(",")) {
+				String key = nextValue.indexOf('\\') == -1 ? normalizeValue(nextValue) : null;
+				if (key == null) {
+					keys = null;
+					break;
+				}
+				keys.add(key);
+			}
+			if (keys != null && !keys.isEmpty()) {
+				return new ValueKey(paramName, keys);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Converts the values supplied for a resource into the keys to look up. Returns
+	 * <code>null</code> if any value can not be normalized, in which case no narrowing
+	 * is done for the parameter.
+	 */
+	@Nullable
+	static Set<String> toResourceValueKeys(@Nullable Collection<String> theValues) {
+		if (theValues == null) {
+			return null;
+		}
+		Set<String> retVal = new HashSet<>();
+		for (String nextValue : theValues) {
+			if (nextValue == null) {
+				continue;
+			}
+			if (nextValue.indexOf('\\') != -1) {
+				return null;
+			}
+			addIfNotNull(retVal, normalizeValue(nextValue));
+
+			// Canonical references may carry a version, which the criteria may or may not specify
+			int pipeIdx = nextValue.indexOf('|');
+			if (pipeIdx > 0) {
+				addIfNotNull(retVal, normalizeValue(nextValue.substring(0, pipeIdx)));
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Reduces a token (<code>system|code</code>) or reference (<code>Type/id</code>, absolute URL, or plain id)
+	 * to its last component. The same reduction is applied to subscription criteria and to resource values,
+	 * so values which are equal before normalization are always equal afterward.
+	 */
+	@Nullable
+	static String normalizeValue(String theValue) {
+		String retVal = trim(theValue);
+		if (retVal == null) {
+			return null;
+		}
+		retVal = retVal.substring(retVal.lastIndexOf('|') + 1);
+		int historyIdx = retVal.indexOf("/_history");
+		if (historyIdx != -1) {
+			retVal = retVal.substring(0, historyIdx);
+		}
+		retVal = retVal.substring(retVal.lastIndexOf('/') + 1);
+		if (isBlank(retVal)) {
+			return null;
+		}
+		return retVal.toLowerCase(Locale.ROOT);
+	}
+
+	private static void addIfNotNull(Set<String> theSet, @Nullable String theValue) {
+		if (theValue != null) {
+			theSet.add(theValue);
+		}
+	}
+
+	static class ValueKey {
+		private final String myParamName;
+		private final Set<String> myValues;
+
+		ValueKey(String theParamName, Set<String> theValues) {
+			myParamName = theParamName;
+			myValues = theValues;
+		}
+
+		String getParamName() {
+			return myParamName;
+		}
+
+		Set<String> getValues() {
+			return myValues;
+		}
+	}
+
+	/**
+	 * Snapshot of where a subscription was indexed, so that it can be removed even
+	 * if the subscription has since been modified in place.
+	 */
+	private static class IndexEntry {
+		private final ActiveSubscription myActiveSubscription;
+		private final String myId;
+		private final boolean myCrossPartition;
+		private final Integer myPartitionId;
+		private final List<String> myResourceTypes = new ArrayList<>();
+		private boolean myStarType;
+		private ValueKey myValueKey;
+
+		private IndexEntry(ActiveSubscription theActiveSubscription) {
+			myActiveSubscription = theActiveSubscription;
+			myId = theActiveSubscription.getId();
+			myCrossPartition = theActiveSubscription.getSubscription().isCrossPartitionEnabled();
+			myPartitionId = theActiveSubscription.getSubscription().getRequestPartitionId();
+		}
+	}
+
+	private static class ResourceTypeBucket {
+		private final PartitionedSubscriptions myUnkeyed = new PartitionedSubscriptions();
+		private final Map<String, Map<String, PartitionedSubscriptions>> myParamNameToValueToSubscriptions =
+				new HashMap<>();
+
+		void add(IndexEntry theEntry) {
+			if (theEntry.myValueKey == null) {
+				myUnkeyed.add(theEntry);
+				return;
+			}
+			Map<String, PartitionedSubscriptions> valueToSubscriptions =
+					myParamNameToValueToSubscriptions.computeIfAbsent(
+							theEntry.myValueKey.getParamName(), t -> new HashMap<>());
+			for (String nextValue : theEntry.myValueKey.getValues()) {
+				valueToSubscriptions
+						.computeIfAbsent(nextValue, t -> new PartitionedSubscriptions())
+						.add(theEntry);
+			}
+		}
+
+		/**
+		 * @return <code>true</code> if the bucket is now empty
+		 */
+		boolean remove(IndexEntry theEntry) {
+			if (theEntry.myValueKey == null) {
+				myUnkeyed.remove(theEntry);
+			} else {
+				String paramName = theEntry.myValueKey.getParamName();
+				Map<String, PartitionedSubscriptions> valueToSubscriptions =
+						myParamNameToValueToSubscriptions.get(paramName);
+				if (valueToSubscriptions != null) {
+					for (String nextValue : theEntry.myValueKey.getValues()) {
+						PartitionedSubscriptions subscriptions = valueToSubscriptions.get(nextValue);
+						if (subscriptions != null && subscriptions.remove(theEntry)) {
+							valueToSubscriptions.remove(nextValue);
+						}
+					}
+					if (valueToSubscriptions.isEmpty()) {
+						myParamNameToValueToSubscriptions.remove(paramName);
+					}
+				}
+			}
+			return myUnkeyed.isEmpty() && myParamNameToValueToSubscriptions.isEmpty();
+		}
+
+		void collect(
+				@Nullable RequestPartitionId thePartitionId,
+				@Nullable ISubscriptionCandidateValueProvider theValueProvider,
+				Collection<ActiveSubscription> theCandidates) {
+			myUnkeyed.collect(thePartitionId, theCandidates);
+
+			for (Map.Entry<String, Map<String, PartitionedSubscriptions>> nextEntry :
+					myParamNameToValueToSubscriptions.entrySet()) {
+				Map<String, PartitionedSubscriptions> valueToSubscriptions = nextEntry.getValue();
+				Set<String> resourceValueKeys = null;
+				if (theValueProvider != null) {
+					resourceValueKeys = toResourceValueKeys(theValueProvider.getValues(nextEntry.getKey()));
+				}
+
+				if (resourceValueKeys == null) {
+					for (PartitionedSubscriptions nextSubscriptions : valueToSubscriptions.values()) {
+						nextSubscriptions.collect(thePartitionId, theCandidates);
+					}
+				} else {
+					for (String nextKey : resourceValueKeys) {
+						PartitionedSubscriptions subscriptions = valueToSubscriptions.get(nextKey);
+						if (subscriptions != null) {
+							subscriptions.collect(thePartitionId, theCandidates);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static class PartitionedSubscriptions {
+		private final Map<String, ActiveSubscription> myCrossPartition = new HashMap<>();
+		private final Map<Integer, Map<String, ActiveSubscription>> myPartitionIdToSubscriptions = new HashMap<>();
+
+		void add(IndexEntry theEntry) {
+			if (theEntry.myCrossPartition) {
+				myCrossPartition.put(theEntry.myId, theEntry.myActiveSubscription);
+			} else {
+				myPartitionIdToSubscriptions
+						.computeIfAbsent(theEntry.myPartitionId, t -> new HashMap<>())
+						.put(theEntry.myId, theEntry.myActiveSubscription);
+			}
+		}
+
+		/**
+		 * @return <code>true</code> if there are no subscriptions left
+		 */
+		boolean remove(IndexEntry theEntry) {
+			if (theEntry.myCrossPartition) {
+				myCrossPartition.remove(theEntry.myId);
+			} else {
+				Map<String, ActiveSubscription> subscriptions =
+						myPartitionIdToSubscriptions.get(theEntry.myPartitionId);
+				if (subscriptions != null) {
+					subscriptions.remove(theEntry.myId);
+					if (subscriptions.isEmpty()) {
+						myPartitionIdToSubscriptions.remove(theEntry.myPartitionId);
+					}
+				}
+			}
+			return isEmpty();
+		}
+
+		boolean isEmpty() {
+			return myCrossPartition.isEmpty() && myPartitionIdToSubscriptions.isEmpty();
+		}
+
+		/**
+		 * Subscriptions which are not cross-partition only see resources in their own partition,
+		 * mirroring the check in the subscription matching listener.
+		 */
+		void collect(@Nullable RequestPartitionId thePartitionId, Collection<ActiveSubscription> theCandidates) {
+			theCandidates.addAll(myCrossPartition.values());
+			if (thePartitionId != null && thePartitionId.hasPartitionIds()) {
+				for (Integer nextPartitionId : thePartitionId.getPartitionIds()) {
+					Map<String, ActiveSubscription> subscriptions =
+							myPartitionIdToSubscriptions.getOrDefault(nextPartitionId, Collections.emptyMap());
+					theCandidates.addAll(subscriptions.values());
+				}
+			} else {
+				for (Map<String, ActiveSubscription> nextSubscriptions : myPartitionIdToSubscriptions.values()) {
+					theCandidates.addAll(nextSubscriptions.values());
+				}
+			}
+		}
+	}
+}
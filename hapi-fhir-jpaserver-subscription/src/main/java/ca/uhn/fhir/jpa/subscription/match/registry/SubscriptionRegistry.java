@@ -22,11 +22,13 @@ package ca.uhn.fhir.jpa.subscription.match.registry;
 import ca.uhn.fhir.interceptor.api.HookParams;
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
 import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.subscription.channel.subscription.ISubscriptionDeliveryChannelNamer;
 import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionChannelRegistry;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ChannelRetryConfiguration;
 import ca.uhn.fhir.util.HapiExtensions;
+import jakarta.annotation.Nullable;
 import jakarta.annotation.PreDestroy;
 import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -213,6 +215,7 @@ public class SubscriptionRegistry {
 		Validate.notNull(activeSubscription, "Subscription with ID %s not found in cache", theId.getIdPart());
 		CanonicalSubscription canonicalized = mySubscriptionCanonicalizer.canonicalize(theSubscription);
 		activeSubscription.setSubscription(canonicalized);
+		myActiveSubscriptionCache.reindex(theId.getIdPart());
 
 		// Interceptor call: SUBSCRIPTION_AFTER_ACTIVE_SUBSCRIPTION_REGISTERED
 		HookParams params = new HookParams().add(CanonicalSubscription.class, canonicalized);
@@ -231,4 +234,24 @@ public class SubscriptionRegistry {
 	public List<ActiveSubscription> getAllNonTopicSubscriptions() {
 		return myActiveSubscriptionCache.getAllNonTopicSubscriptions();
 	}
+
+	/**
+	 * Returns the active non-topic subscriptions which could match a resource of the given type, without
+	 * scanning every registered subscription. Candidates are narrowed by resource type, by partition, and
+	 * where the subscription criteria is a simple token or reference equality test, by the values the
+	 * resource holds for that parameter. Callers must still test each candidate against the resource.
+	 *
+	 * @param theResourceType  The resource type of the modified resource
+	 * @param thePartitionId   The partition of the modified resource, or <code>null</code> if not known
+	 * @param theValueProvider Supplies search parameter values from the modified resource, or <code>null</code>
+	 *                         to return candidates regardless of criteria values
+	 * @since 8.12.0
+	 */
+	public List<ActiveSubscription> getNonTopicSubscriptionCandidates(
+			String theResourceType,
+			@Nullable RequestPartitionId thePartitionId,
+			@Nullable ISubscriptionCandidateValueProvider theValueProvider) {
+		return myActiveSubscriptionCache.getNonTopicSubscriptionCandidates(
+				theResourceType, thePartitionId, theValueProvider);
+	}
 }
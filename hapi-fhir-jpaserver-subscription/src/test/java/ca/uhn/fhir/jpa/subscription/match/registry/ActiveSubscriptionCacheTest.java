@@ -1,5 +1,6 @@
 package ca.uhn.fhir.jpa.subscription.match.registry;
 
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.model.primitive.IdDt;
 import jakarta.annotation.Nonnull;
@@ -7,12 +8,16 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 public class ActiveSubscriptionCacheTest {
 	static final String ID1 = "id1";
@@ -138,4 +143,130 @@ public class ActiveSubscriptionCacheTest {
 		return activeSub2;
 	}
 
+	@Test
+	public void getNonTopicSubscriptionCandidates_byResourceType() {
+		ActiveSubscriptionCache activeSubscriptionCache = new ActiveSubscriptionCache();
+		activeSubscriptionCache.put(ID1, buildActiveSubscription(ID1, "Patient?name=smith"));
+		activeSubscriptionCache.put(ID2, buildActiveSubscription(ID2, "[Observation,Patient]"));
+		activeSubscriptionCache.put(ID3, buildActiveSubscription(ID3, "[*]"));
+		activeSubscriptionCache.put("id4", buildTopicSubscription("id4", TEST_TOPIC_URL));
+		activeSubscriptionCache.put("id5", buildActiveSubscription("id5"));
+
+		assertThat(getCandidateIds(activeSubscriptionCache, "Patient", null, null)).containsExactlyInAnyOrder(ID1, ID2, ID3);
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", null, null)).containsExactlyInAnyOrder(ID2, ID3);
+		assertThat(getCandidateIds(activeSubscriptionCache, "Encounter", null, null)).containsExactlyInAnyOrder(ID3);
+
+		activeSubscriptionCache.remove(ID2);
+		assertThat(getCandidateIds(activeSubscriptionCache, "Patient", null, null)).containsExactlyInAnyOrder(ID1, ID3);
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", null, null)).containsExactlyInAnyOrder(ID3);
+	}
+
+	@Test
+	public void getNonTopicSubscriptionCandidates_byPartition() {
+		ActiveSubscriptionCache activeSubscriptionCache = new ActiveSubscriptionCache();
+		ActiveSubscription partition1 = buildActiveSubscription(ID1, "Patient?");
+		partition1.getSubscription().setPartitionId(1);
+		ActiveSubscription partition2 = buildActiveSubscription(ID2, "Patient?");
+		partition2.getSubscription().setPartitionId(2);
+		ActiveSubscription crossPartition = buildActiveSubscription(ID3, "Patient?");
+		crossPartition.getSubscription().setPartitionId(2);
+		crossPartition.getSubscription().setCrossPartitionEnabled(true);
+		activeSubscriptionCache.put(ID1, partition1);
+		activeSubscriptionCache.put(ID2, partition2);
+		activeSubscriptionCache.put(ID3, crossPartition);
+
+		assertThat(getCandidateIds(activeSubscriptionCache, "Patient", RequestPartitionId.fromPartitionId(1), null)).containsExactlyInAnyOrder(ID1, ID3);
+		assertThat(getCandidateIds(activeSubscriptionCache, "Patient", RequestPartitionId.fromPartitionIds(1, 2), null)).containsExactlyInAnyOrder(ID1, ID2, ID3);
+		assertThat(getCandidateIds(activeSubscriptionCache, "Patient", RequestPartitionId.fromPartitionId(3), null)).containsExactlyInAnyOrder(ID3);
+		assertThat(getCandidateIds(activeSubscriptionCache, "Patient", RequestPartitionId.allPartitions(), null)).containsExactlyInAnyOrder(ID1, ID2, ID3);
+		assertThat(getCandidateIds(activeSubscriptionCache, "Patient", null, null)).containsExactlyInAnyOrder(ID1, ID2, ID3);
+	}
+
+	@Test
+	public void getNonTopicSubscriptionCandidates_byCriteriaValue() {
+		ActiveSubscriptionCache activeSubscriptionCache = new ActiveSubscriptionCache();
+		activeSubscriptionCache.put(ID1, buildActiveSubscription(ID1, "Observation?code=http://loinc.org|1234-5"));
+		activeSubscriptionCache.put(ID2, buildActiveSubscription(ID2, "Observation?subject=Patient/123,Patient/456&status=final"));
+		activeSubscriptionCache.put(ID3, buildActiveSubscription(ID3, "Observation?code:in=http://vs"));
+
+		// Values known for both parameters
+		Map<String, List<String>> values = Map.of(
+			"code", List.of("http://loinc.org|1234-5"),
+			"subject", List.of("Patient/999"));
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", null, values::get)).containsExactlyInAnyOrder(ID1, ID3);
+
+		values = Map.of(
+			"code", List.of("http://loinc.org|9999-9"),
+			"subject", List.of("Patient/456"));
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", null, values::get)).containsExactlyInAnyOrder(ID2, ID3);
+
+		// Values not known for a parameter means no narrowing for that parameter
+		values = Map.of("code", List.of("http://loinc.org|9999-9"));
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", null, values::get)).containsExactlyInAnyOrder(ID2, ID3);
+
+		// Escaped values can not be normalized, so no narrowing either
+		values = Map.of(
+			"code", List.of("http://loinc.org|12\\,34"),
+			"subject", List.of());
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", null, values::get)).containsExactlyInAnyOrder(ID1, ID3);
+	}
+
+	@Test
+	public void getNonTopicSubscriptionCandidates_versionedCanonical() {
+		ActiveSubscriptionCache activeSubscriptionCache = new ActiveSubscriptionCache();
+		activeSubscriptionCache.put(ID1, buildActiveSubscription(ID1, "QuestionnaireResponse?questionnaire=http://example.com/Questionnaire/q1"));
+		activeSubscriptionCache.put(ID2, buildActiveSubscription(ID2, "QuestionnaireResponse?questionnaire=http://example.com/Questionnaire/q1|2.0"));
+
+		Map<String, List<String>> values = Map.of("questionnaire", List.of("http://example.com/Questionnaire/q1|2.0"));
+		assertThat(getCandidateIds(activeSubscriptionCache, "QuestionnaireResponse", null, values::get)).containsExactlyInAnyOrder(ID1, ID2);
+	}
+
+	@Test
+	public void getNonTopicSubscriptionCandidates_valueProviderNotCalledWithoutKeyedSubscriptions() {
+		ActiveSubscriptionCache activeSubscriptionCache = new ActiveSubscriptionCache();
+		activeSubscriptionCache.put(ID1, buildActiveSubscription(ID1, "Patient?name=smith"));
+		activeSubscriptionCache.put(ID2, buildActiveSubscription(ID2, "Observation?code=1234-5"));
+		ISubscriptionCandidateValueProvider valueProvider = mock(ISubscriptionCandidateValueProvider.class);
+
+		assertThat(getCandidateIds(activeSubscriptionCache, "Encounter", null, valueProvider)).isEmpty();
+		verify(valueProvider, never()).getValues("code");
+	}
+
+	@Test
+	public void getNonTopicSubscriptionCandidates_reindexAfterInPlaceUpdate() {
+		ActiveSubscriptionCache activeSubscriptionCache = new ActiveSubscriptionCache();
+		ActiveSubscription activeSub1 = buildActiveSubscription(ID1, "Patient?identifier=abc");
+		activeSubscriptionCache.put(ID1, activeSub1);
+
+		CanonicalSubscription updated = activeSub1.getSubscription();
+		updated.setCriteriaString("Observation?code=1234-5");
+		activeSub1.setSubscription(updated);
+		activeSubscriptionCache.reindex(ID1);
+
+		assertThat(getCandidateIds(activeSubscriptionCache, "Patient", null, null)).isEmpty();
+		Map<String, List<String>> values = Map.of("code", List.of("http://loinc.org|1234-5"));
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", null, values::get)).containsExactly(ID1);
+
+		activeSubscriptionCache.remove(ID1);
+		assertThat(getCandidateIds(activeSubscriptionCache, "Observation", null, null)).isEmpty();
+	}
+
+	private static List<String> getCandidateIds(
+		ActiveSubscriptionCache theCache,
+		String theResourceType,
+		RequestPartitionId thePartitionId,
+		ISubscriptionCandidateValueProvider theValueProvider) {
+		return theCache.getNonTopicSubscriptionCandidates(theResourceType, thePartitionId, theValueProvider)
+			.stream()
+			.map(ActiveSubscription::getId)
+			.toList();
+	}
+
+	private ActiveSubscription buildActiveSubscription(String theId, String theCriteria) {
+		ActiveSubscription retVal = buildActiveSubscription(theId);
+		retVal.getSubscription().setCriteriaString(theCriteria);
+		retVal.setSubscription(retVal.getSubscription());
+		return retVal;
+	}
+
 }
@@ -8,6 +8,7 @@ import ca.uhn.fhir.jpa.cache.IResourceChangeListenerRegistry;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
 import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
 import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
 import ca.uhn.fhir.jpa.subscription.channel.config.SubscriptionChannelConfig;
@@ -71,6 +72,8 @@ public class WebsocketConnectionValidatorTest {
 	@MockBean
 	ISearchParamRegistry mySearchParamRegistry;
 	@MockBean
+	ISearchParamExtractor mySearchParamExtractor;
+	@MockBean
 	SubscriptionSettings mySubscriptionSettings;
 
 	@Autowired
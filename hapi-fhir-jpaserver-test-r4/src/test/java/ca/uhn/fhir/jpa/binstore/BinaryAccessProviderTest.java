@@ -16,7 +16,9 @@ import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.RestfulServer;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
+import ca.uhn.fhir.util.HapiExtensions;
 import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Attachment;
 import org.hl7.fhir.r4.model.DocumentReference;
 import org.hl7.fhir.r4.model.StringType;
 import org.junit.jupiter.api.AfterEach;
@@ -28,9 +30,13 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Date;
@@ -40,6 +46,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -269,6 +276,43 @@ public class BinaryAccessProviderTest {
 		verify(myBinaryStorageSvc, times(1)).storeBinaryContent(any(), any(), any(), any(), any(ServletRequestDetails.class));
 	}
 
+	@Test
+	public void testBinaryAccessWrite_StreamsRequestBodyIntoStorage() throws IOException {
+		DocumentReference docRef = createDocRef();
+		docRef.getIdElement().setParts(null, "DocumentReference", "123", null);
+
+		DaoMethodOutcome daoOutcome = new DaoMethodOutcome();
+		daoOutcome.setResource(docRef);
+		StoredDetails sd = new StoredDetails();
+		sd.setBinaryContentId("123");
+		sd.setBytes(15);
+		sd.setHash("hash-from-storage");
+		when(myDaoRegistry.getResourceDao(eq("DocumentReference"))).thenReturn(myResourceDao);
+		when(myResourceDao.read(any(), any(), anyBoolean())).thenReturn(docRef);
+		when(myResourceDao.update(docRef, myRequestDetails)).thenReturn(daoOutcome);
+		when(theServletRequest.getContentType()).thenReturn("Integer");
+		when(theServletRequest.getContentLength()).thenReturn(15);
+		when(theServletRequest.getInputStream()).thenReturn(newServletInputStream(SOME_BYTES));
+		when(myBinaryStorageSvc.shouldStoreBinaryContent(15, docRef.getIdElement(), "Integer")).thenReturn(true);
+		myRequestDetails.setServletRequest(theServletRequest);
+		ByteArrayOutputStream streamedBytes = new ByteArrayOutputStream();
+		doAnswer(t -> {
+			t.getArgument(3, InputStream.class).transferTo(streamedBytes);
+			return sd;
+		}).when(myBinaryStorageSvc).storeBinaryContent(eq(docRef.getIdElement()), isNull(), eq("Integer"), any(InputStream.class), any(RequestDetails.class));
+
+		myBinaryAccessProvider.binaryAccessWrite(docRef.getIdElement(), new StringType("DocumentReference.content.attachment"), myRequestDetails, theServletRequest, theServletResponse);
+
+		// The body went straight to storage without being buffered in the request details
+		assertThat(streamedBytes.toByteArray()).isEqualTo(SOME_BYTES);
+		assertThat(myRequestDetails.getRequestContentsIfLoaded()).isNull();
+		Attachment attachment = docRef.getContentFirstRep().getAttachment();
+		assertThat(attachment.getData()).isNull();
+		assertThat(attachment.getSize()).isEqualTo(15);
+		assertThat(attachment.getExtensionString(HapiExtensions.EXT_EXTERNALIZED_BINARY_ID)).isEqualTo("123");
+		assertThat(attachment.getExtensionString(HapiExtensions.EXT_EXTERNALIZED_BINARY_HASH_SHA_256)).isEqualTo("hash-from-storage");
+	}
+
 	@Test
 	public void testBinaryAccessWrite_EmptyContentType() {
 		DocumentReference docRef = createDocRef();
@@ -330,6 +374,31 @@ public class BinaryAccessProviderTest {
 		}
 	}
 
+	private static ServletInputStream newServletInputStream(byte[] theBytes) {
+		ByteArrayInputStream inputStream = new ByteArrayInputStream(theBytes);
+		return new ServletInputStream() {
+			@Override
+			public boolean isFinished() {
+				return inputStream.available() == 0;
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setReadListener(ReadListener theReadListener) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public int read() {
+				return inputStream.read();
+			}
+		};
+	}
+
 	private DocumentReference createDocRef() {
 		DocumentReference docRef = new DocumentReference();
 		DocumentReference.DocumentReferenceContentComponent content = docRef.addContent();
@@ -19,10 +19,12 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.AopTestUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Blob;
 import java.sql.SQLException;
 import java.util.Optional;
@@ -35,7 +37,10 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -327,6 +332,81 @@ public class DatabaseBinaryContentStorageSvcImplTest extends BaseJpaR4Test {
 		assertTrue(capturedBinaryStorageEntity.hasStorageContent());
 	}
 
+	@Test
+	public void testStoreAndRetrieve_StreamingAboveThreshold() throws IOException {
+		DatabaseBinaryContentStorageSvcImpl svc = AopTestUtils.getTargetObject(mySvc);
+		svc.setStreamingThreshold(8);
+		try {
+			IdType resourceId = new IdType("Binary/123");
+			StoredDetails outcome = mySvc.storeBinaryContent(resourceId, null, "image/png", new ByteArrayInputStream(SOME_BYTES), new ServletRequestDetails());
+			assertEquals(16, outcome.getBytes());
+			assertEquals("dc7197cfab936698bef7818975c185a9b88b71a0a0a2493deea487706ddf20cb", outcome.getHash());
+
+			runInTransaction(() -> {
+				BinaryStorageEntity entity = myBinaryStorageEntityDao.findByIdAndResourceId(outcome.getBinaryContentId(), "Binary/123").orElseThrow();
+				assertFalse(entity.hasStorageContent());
+				assertTrue(entity.hasBlob());
+				assertEquals(16L, entity.getSize());
+			});
+
+			ByteArrayOutputStream capture = new ByteArrayOutputStream();
+			assertTrue(mySvc.writeBinaryContent(resourceId, outcome.getBinaryContentId(), capture));
+			assertThat(capture.toByteArray()).containsExactly(SOME_BYTES);
+			assertThat(mySvc.fetchBinaryContent(resourceId, outcome.getBinaryContentId())).containsExactly(SOME_BYTES);
+		} finally {
+			svc.setStreamingThreshold(DatabaseBinaryContentStorageSvcImpl.DEFAULT_STREAMING_THRESHOLD);
+		}
+	}
+
+	@Test
+	public void testStoreAndRetrieve_StreamingBelowThreshold() throws IOException {
+		DatabaseBinaryContentStorageSvcImpl svc = AopTestUtils.getTargetObject(mySvc);
+		svc.setStreamingThreshold(100);
+		try {
+			IdType resourceId = new IdType("Binary/123");
+			StoredDetails outcome = mySvc.storeBinaryContent(resourceId, null, "image/png", new ByteArrayInputStream(SOME_BYTES), new ServletRequestDetails());
+			assertEquals(16, outcome.getBytes());
+
+			runInTransaction(() -> {
+				BinaryStorageEntity entity = myBinaryStorageEntityDao.findByIdAndResourceId(outcome.getBinaryContentId(), "Binary/123").orElseThrow();
+				assertTrue(entity.hasStorageContent());
+				assertFalse(entity.hasBlob());
+			});
+
+			assertThat(mySvc.fetchBinaryContent(resourceId, outcome.getBinaryContentId())).containsExactly(SOME_BYTES);
+		} finally {
+			svc.setStreamingThreshold(DatabaseBinaryContentStorageSvcImpl.DEFAULT_STREAMING_THRESHOLD);
+		}
+	}
+
+	@Test
+	public void testStoreBinaryContent_Streaming_CreatesBlobFromStreamWithLength() throws IOException {
+		ArgumentCaptor<BinaryStorageEntity> captor = ArgumentCaptor.forClass(BinaryStorageEntity.class);
+		EntityManager mockedEntityManager = mock(EntityManager.class);
+		Session mockedSession = mock(Session.class);
+		LobHelper mockedLobHelper = mock(LobHelper.class);
+		when(mockedEntityManager.getDelegate()).thenReturn(mockedSession);
+		when(mockedSession.getLobHelper()).thenReturn(mockedLobHelper);
+		when(mockedLobHelper.createBlob(any(InputStream.class), anyLong())).thenReturn(mock(Blob.class));
+
+		// given
+		DatabaseBinaryContentStorageSvcImpl svc = new DatabaseBinaryContentStorageSvcImpl();
+		svc.setStreamingThreshold(8);
+		svc.setEntityManagerForTesting(mockedEntityManager);
+		svc.setInterceptorBroadcasterForTests(myInterceptorRegistry);
+
+		// when
+		svc.storeBinaryContent(new IdType("Binary/123"), null, "image/png", new ByteArrayInputStream(SOME_BYTES), new ServletRequestDetails());
+
+		// then
+		verify(mockedLobHelper, times(1)).createBlob(any(InputStream.class), eq(16L));
+		verify(mockedLobHelper, never()).createBlob(any(byte[].class));
+		verify(mockedEntityManager, times(1)).persist(captor.capture());
+		verify(mockedEntityManager, times(1)).flush();
+		assertTrue(captor.getValue().hasBlob());
+		assertFalse(captor.getValue().hasStorageContent());
+	}
+
 	@Configuration
 	public static class MyConfig {
 
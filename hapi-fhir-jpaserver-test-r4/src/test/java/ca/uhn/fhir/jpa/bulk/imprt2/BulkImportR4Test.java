@@ -18,12 +18,15 @@ import ca.uhn.fhir.jpa.batch.models.Batch2JobStartResponse;
 import ca.uhn.fhir.jpa.dao.data.IBatch2JobInstanceRepository;
 import ca.uhn.fhir.jpa.dao.data.IBatch2WorkChunkRepository;
 import ca.uhn.fhir.jpa.entity.Batch2WorkChunkEntity;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.subscription.channel.impl.LinkedBlockingChannel;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.param.ReferenceParam;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.test.utilities.server.HttpServletExtension;
 import ca.uhn.fhir.util.JsonUtil;
 import org.apache.commons.lang3.StringUtils;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.AfterEach;
@@ -176,6 +179,119 @@ public class BulkImportR4Test extends BaseJpaR4Test {
 		});
 	}
 
+	@Test
+	public void testRunBulkImport_ChunkByByteRange() {
+		// Setup
+
+		int fileCount = 10;
+		List<String> indexes = addFiles(fileCount);
+
+		BulkImportJobParameters parameters = new BulkImportJobParameters();
+		parameters.setHttpBasicCredentials(USERNAME + ":" + PASSWORD);
+		parameters.setChunkByByteRange(true);
+		parameters.setMaxBatchResourceCount(1);
+		for (String next : indexes) {
+			String url = myHttpServletExtension.getBaseUrl() + "/download?index=" + next;
+			parameters.addNdJsonUrl(url);
+		}
+
+		JobInstanceStartRequest request = new JobInstanceStartRequest();
+		request.setJobDefinitionId(BulkImportAppCtx.JOB_BULK_IMPORT_PULL);
+		request.setParameters(parameters);
+
+		// Execute
+
+		Batch2JobStartResponse startResponse = myJobCoordinator.startInstance(mySrd, request);
+		String instanceId = startResponse.getInstanceId();
+		assertThat(instanceId).isNotBlank();
+
+		// Verify
+
+		await().atMost(120, TimeUnit.SECONDS).until(() -> {
+			myJobCleanerService.runActiveJobMaintenancePass();
+			JobInstance instance = myJobCoordinator.getInstance(instanceId);
+			return instance.getStatus() == StatusEnum.COMPLETED;
+		});
+
+		runInTransaction(() -> {
+			assertEquals(20, myResourceTableDao.count());
+		});
+
+		runInTransaction(() -> {
+			JobInstance instance = myJobCoordinator.getInstance(instanceId);
+			assertEquals(0, instance.getErrorCount());
+			assertEquals(20, instance.getCombinedRecordsProcessed());
+
+			String reportJson = instance.getReport();
+			BulkImportReportJson reportJsonParsed = JsonUtil.deserialize(reportJson, BulkImportReportJson.class);
+			String report = reportJsonParsed.getReportMsg();
+			ourLog.info("Final Report:\n{}", report);
+			assertEquals(10, StringUtils.countMatches(report, "Source: "));
+			assertThat(report).contains("* SUCCESSFUL_UPDATE_AS_CREATE: 2");
+		});
+	}
+
+	@Test
+	public void testRunBulkImport_Trusted_ReferenceToResourceInLaterFile() {
+		// Setup
+
+		Observation observation = new Observation();
+		observation.setId("Observation/O1");
+		observation.getSubject().setReference("Patient/LATER");
+		Patient patient = new Patient();
+		patient.setId("Patient/LATER");
+
+		BulkImportJobParameters parameters = new BulkImportJobParameters();
+		parameters.setHttpBasicCredentials(USERNAME + ":" + PASSWORD);
+		parameters.setTrustedBulkLoad(true);
+		parameters.addNdJsonUrl(addFile(observation, "FILE0"));
+		parameters.addNdJsonUrl(addFile(patient, "FILE1"));
+
+		// Execute
+
+		String instanceId = startJobAndAwait(parameters, StatusEnum.COMPLETED);
+
+		// Verify
+
+		SearchParameterMap map = SearchParameterMap.newSynchronous(Observation.SP_SUBJECT, new ReferenceParam("Patient/LATER"));
+		assertThat(toUnqualifiedVersionlessIdValues(myObservationDao.search(map, mySrd))).containsExactly("Observation/O1");
+
+		runInTransaction(() -> {
+			JobInstance instance = myJobCoordinator.getInstance(instanceId);
+			assertEquals(0, instance.getErrorCount());
+			assertEquals(2, instance.getCombinedRecordsProcessed());
+		});
+	}
+
+	@Test
+	public void testRunBulkImport_Trusted_ReferenceToMissingResource() {
+		// Setup
+
+		Observation observation = new Observation();
+		observation.setId("Observation/O1");
+		observation.getSubject().setReference("Patient/MISSING");
+
+		BulkImportJobParameters parameters = new BulkImportJobParameters();
+		parameters.setHttpBasicCredentials(USERNAME + ":" + PASSWORD);
+		parameters.setTrustedBulkLoad(true);
+		parameters.addNdJsonUrl(addFile(observation, "FILE0"));
+
+		// Execute
+
+		String instanceId = startJobAndAwait(parameters, StatusEnum.FAILED);
+
+		// Verify
+
+		runInTransaction(() -> {
+			JobInstance instance = myJobCoordinator.getInstance(instanceId);
+			BulkImportReportJson reportJsonParsed = JsonUtil.deserialize(instance.getReport(), BulkImportReportJson.class);
+			String report = reportJsonParsed.getReportMsg();
+			ourLog.info("Final Report:\n{}", report);
+
+			assertThat(report).contains("* Resource Patient/MISSING not found, referenced by: Observation/O1");
+		});
+	}
+
 	@Test
 	public void testRunBulkImport_StorageFailure() {
 		// Setup
@@ -431,6 +547,28 @@ public class BulkImportR4Test extends BaseJpaR4Test {
 		}
 	}
 
+	private String startJobAndAwait(BulkImportJobParameters theParameters, StatusEnum theExpectedStatus) {
+		JobInstanceStartRequest request = new JobInstanceStartRequest();
+		request.setJobDefinitionId(BulkImportAppCtx.JOB_BULK_IMPORT_PULL);
+		request.setParameters(theParameters);
+
+		Batch2JobStartResponse startResponse = myJobCoordinator.startInstance(mySrd, request);
+		String instanceId = startResponse.getInstanceId();
+		assertThat(instanceId).isNotBlank();
+
+		await().atMost(120, TimeUnit.SECONDS).until(() -> {
+			myJobCleanerService.runActiveJobMaintenancePass();
+			return myJobCoordinator.getInstance(instanceId).getStatus();
+		}, s -> s == theExpectedStatus);
+		return instanceId;
+	}
+
+	private String addFile(IBaseResource theResource, String theSourceName) {
+		String contents = myFhirContext.newJsonParser().setPrettyPrint(false).encodeResourceToString(theResource) + "\n";
+		String index = myBulkImportFileServlet.registerFileByContents(contents, theSourceName);
+		return myHttpServletExtension.getBaseUrl() + "/download?index=" + index;
+	}
+
 	private List<String> addFiles(int fileCount) {
 		List<String> retVal = new ArrayList<>();
 		for (int i = 0; i < fileCount; i++) {
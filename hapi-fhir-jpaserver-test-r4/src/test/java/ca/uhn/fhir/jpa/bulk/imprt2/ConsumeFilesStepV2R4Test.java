@@ -1,12 +1,20 @@
 package ca.uhn.fhir.jpa.bulk.imprt2;
 
+import ca.uhn.fhir.batch2.jobs.imprt.ConsumeFilesOutcomeJson;
 import ca.uhn.fhir.batch2.jobs.imprt.ConsumeFilesStepV2;
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.dao.TransactionUtil;
 import ca.uhn.fhir.jpa.dao.r4.BasePartitioningR4Test;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.model.api.StorageResponseCodeEnum;
+import ca.uhn.fhir.rest.param.ReferenceParam;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.MethodOrderer;
@@ -18,9 +26,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -233,4 +243,196 @@ public class ConsumeFilesStepV2R4Test extends BasePartitioningR4Test {
 		assertThat(outcome.getStorageOutcomes().get(1).getErrorMessage()).contains("no resource with this ID exists and clients may only assign IDs");
 	}
 
+	@Test
+	public void testTrusted_MixedExistingAndNew() {
+		// Setup
+
+		Patient patient = new Patient();
+		patient.setId("A");
+		patient.setActive(true);
+		myPatientDao.update(patient, mySrd);
+
+		patient = new Patient();
+		patient.setId("B");
+		patient.setActive(true);
+		myPatientDao.update(patient, mySrd);
+
+		List<IBaseResource> resources = new ArrayList<>();
+
+		patient = new Patient();
+		patient.setId("Patient/A");
+		patient.setActive(true);
+		resources.add(patient);
+
+		patient = new Patient();
+		patient.setId("Patient/B");
+		patient.setActive(false);
+		resources.add(patient);
+
+		patient = new Patient();
+		patient.setId("Patient/C");
+		patient.setActive(true);
+		resources.add(patient);
+
+		patient = new Patient();
+		patient.setActive(false);
+		resources.add(patient);
+
+		// Execute
+
+		myMemoryCacheService.invalidateAllCaches();
+		myCaptureQueriesListener.clear();
+		ConsumeFilesOutcomeJson outcome = new ConsumeFilesOutcomeJson();
+		mySvc.storeResourcesTrusted(resources, null, outcome);
+
+		// Validate
+
+		assertThat(outcome.getOutcomeCount()).containsOnly(
+			entry(StorageResponseCodeEnum.SUCCESSFUL_UPDATE_NO_CHANGE, 1),
+			entry(StorageResponseCodeEnum.SUCCESSFUL_UPDATE, 1),
+			entry(StorageResponseCodeEnum.SUCCESSFUL_UPDATE_AS_CREATE, 1),
+			entry(StorageResponseCodeEnum.SUCCESSFUL_CREATE, 1));
+		assertFalse(outcome.hasErrors());
+		assertFalse(outcome.hasDeferredReferences());
+		assertEquals(1, myCaptureQueriesListener.countCommits());
+		assertEquals(0, myCaptureQueriesListener.countRollbacks());
+
+		patient = myPatientDao.read(new IdType("Patient/A"), mySrd);
+		assertTrue(patient.getActive());
+		patient = myPatientDao.read(new IdType("Patient/B"), mySrd);
+		assertFalse(patient.getActive());
+		patient = myPatientDao.read(new IdType("Patient/C"), mySrd);
+		assertTrue(patient.getActive());
+		assertEquals(4, myPatientDao.search(SearchParameterMap.newSynchronous(), mySrd).size());
+	}
+
+	@Test
+	public void testTrusted_InvalidIdForStorage_ReportsFailedResource() {
+		// Setup
+
+		List<IBaseResource> resources = new ArrayList<>();
+
+		Patient patient = new Patient();
+		patient.setId("A");
+		patient.setActive(true);
+		resources.add(patient);
+
+		patient = new Patient();
+		patient.setId("2");
+		patient.setActive(false);
+		resources.add(patient);
+
+		// Execute
+
+		ConsumeFilesOutcomeJson outcome = new ConsumeFilesOutcomeJson();
+		mySvc.storeResourcesTrusted(resources, null, outcome);
+
+		// Validate
+
+		// The chunk is stored again one resource at a time, so only the invalid resource fails
+		assertThat(outcome.getErrors()).hasSize(1);
+		assertThat(outcome.getErrors().get(0)).contains("no resource with this ID exists and clients may only assign IDs");
+		assertThat(outcome.getOutcomeCount()).containsKey(StorageResponseCodeEnum.SUCCESSFUL_UPDATE_AS_CREATE);
+		patient = myPatientDao.read(new IdType("Patient/A"), mySrd);
+		assertTrue(patient.getActive());
+	}
+
+	@Test
+	public void testTrusted_ReferenceToResourceLoadedLater() {
+		// Setup
+
+		Patient existingPatient = new Patient();
+		existingPatient.setId("EXISTING");
+		myPatientDao.update(existingPatient, mySrd);
+
+		Observation obs = new Observation();
+		obs.setId("O1");
+		obs.setSubject(new Reference("Patient/LATER"));
+		obs.addPerformer(new Reference("Patient/EXISTING"));
+
+		// Execute
+
+		ConsumeFilesOutcomeJson outcome = new ConsumeFilesOutcomeJson();
+		mySvc.storeResourcesTrusted(List.of(obs), null, outcome);
+
+		Patient laterPatient = new Patient();
+		laterPatient.setId("LATER");
+		mySvc.storeResourcesTrusted(List.of(laterPatient), null, outcome);
+
+		// Validate
+
+		assertFalse(outcome.hasErrors());
+		assertThat(outcome.getDeferredReferences()).containsOnly(entry("Patient/LATER", List.of("Observation/O1")));
+		assertThat(searchObservationIds(Observation.SP_SUBJECT, "Patient/LATER")).isEmpty();
+		assertThat(searchObservationIds(Observation.SP_PERFORMER, "Patient/EXISTING")).containsExactly("Observation/O1");
+
+		List<String> errors = mySvc.validateDeferredReferences(null, outcome.getDeferredReferences());
+		assertThat(errors).isEmpty();
+		assertThat(searchObservationIds(Observation.SP_SUBJECT, "Patient/LATER")).containsExactly("Observation/O1");
+	}
+
+	@Test
+	public void testTrusted_ReferenceToMissingResource() {
+		// Setup
+
+		Observation obs = new Observation();
+		obs.setId("O1");
+		obs.setSubject(new Reference("Patient/MISSING"));
+
+		// Execute
+
+		ConsumeFilesOutcomeJson outcome = new ConsumeFilesOutcomeJson();
+		mySvc.storeResourcesTrusted(List.of(obs), null, outcome);
+		List<String> errors = mySvc.validateDeferredReferences(null, outcome.getDeferredReferences());
+
+		// Validate
+
+		assertThat(outcome.getOutcomeCount()).containsOnly(entry(StorageResponseCodeEnum.SUCCESSFUL_UPDATE_AS_CREATE, 1));
+		assertThat(errors).containsExactly("Resource Patient/MISSING not found, referenced by: Observation/O1");
+	}
+
+	@Test
+	public void testTrusted_PreCommitHooksNotInvoked() {
+		// Setup
+
+		PreCommitCountingInterceptor interceptor = new PreCommitCountingInterceptor();
+		myInterceptorRegistry.registerInterceptor(interceptor);
+		try {
+			Patient patient = new Patient();
+			patient.setId("A");
+
+			// Execute
+
+			ConsumeFilesOutcomeJson outcome = new ConsumeFilesOutcomeJson();
+			mySvc.storeResourcesTrusted(List.of(patient, new Patient()), null, outcome);
+
+			// Validate
+
+			assertThat(outcome.getOutcomeCount()).hasSize(2);
+			assertEquals(0, interceptor.myCount.get());
+		} finally {
+			myInterceptorRegistry.unregisterInterceptor(interceptor);
+		}
+	}
+
+	private List<String> searchObservationIds(String theParamName, String theReference) {
+		SearchParameterMap map = SearchParameterMap.newSynchronous(theParamName, new ReferenceParam(theReference));
+		return toUnqualifiedVersionlessIdValues(myObservationDao.search(map, mySrd));
+	}
+
+	public static class PreCommitCountingInterceptor {
+
+		private final AtomicInteger myCount = new AtomicInteger();
+
+		@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_CREATED)
+		public void created() {
+			myCount.incrementAndGet();
+		}
+
+		@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_UPDATED)
+		public void updated() {
+			myCount.incrementAndGet();
+		}
+	}
+
 }
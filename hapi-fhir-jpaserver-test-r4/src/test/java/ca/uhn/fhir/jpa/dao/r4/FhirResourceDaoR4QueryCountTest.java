@@ -230,6 +230,7 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 		myStorageSettings.setExpungeEnabled(false);
 		myStorageSettings.setUniqueIndexesEnabled(defaultStorageSettings.isUniqueIndexesEnabled());
 		myStorageSettings.setFetchSizeDefaultMaximum(defaultStorageSettings.getFetchSizeDefaultMaximum());
+		myStorageSettings.setIndexRowBulkDeleteEnabled(defaultStorageSettings.isIndexRowBulkDeleteEnabled());
 
 		myFhirContext.getParserOptions().setStripVersionsFromReferences(true);
 		TermReadSvcImpl.setForceDisableHibernateSearchForUnitTest(false);
@@ -758,6 +759,73 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 		assertEquals(3L, id.getVersionIdPartAsLong());
 	}
 
+	/**
+	 * See the class javadoc before changing the counts in this test!
+	 */
+	@Test
+	public void testUpdate_IndexRowBulkDelete() {
+		myStorageSettings.setIndexRowBulkDeleteEnabled(true);
+
+		Patient p = new Patient();
+		for (int i = 0; i < 5; i++) {
+			p.addIdentifier().setSystem("http://foo").setValue("value" + i);
+			p.addName().setFamily("family" + i);
+		}
+		IIdType id = myPatientDao.create(p, mySrd).getId().toUnqualifiedVersionless();
+		JpaPid pid = JpaPid.fromId(id.getIdPartAsLong());
+		runInTransaction(() -> assertThat(myResourceIndexedSearchParamTokenDao.countForResourceId(pid)).isGreaterThanOrEqualTo(5));
+
+		// Remove all of the identifiers and names, so that there are no rows to reuse
+		p = new Patient();
+		p.setId(id);
+		myCaptureQueriesListener.clear();
+		myPatientDao.update(p, mySrd);
+
+		// One multi-row delete for each of the token and string tables
+		myCaptureQueriesListener.logDeleteQueries();
+		assertEquals(2, myCaptureQueriesListener.countDeleteQueries());
+		assertThat(myCaptureQueriesListener.getDeleteQueries())
+				.extracting(t -> t.getSql(false, false))
+				.allMatch(t -> t.contains("PARTITION_ID"));
+		JpaPid emptyPatientPid = JpaPid.fromId(myPatientDao.create(new Patient(), mySrd).getId().getIdPartAsLong());
+		runInTransaction(() -> {
+			assertEquals(myResourceIndexedSearchParamTokenDao.countForResourceId(emptyPatientPid), myResourceIndexedSearchParamTokenDao.countForResourceId(pid));
+			assertEquals(0, myResourceIndexedSearchParamStringDao.count());
+		});
+		assertThat(myPatientDao
+				.search(SearchParameterMap.newSynchronous(Patient.SP_IDENTIFIER, new TokenParam("http://foo", "value1")), mySrd)
+				.size())
+				.isEqualTo(0);
+	}
+
+	@Test
+	public void testUpdate_IndexRowBulkDelete_CreateAndUpdateInSameTransaction() {
+		myStorageSettings.setIndexRowBulkDeleteEnabled(true);
+
+		// Create and then update the same resource in one database transaction, so that the
+		// rows being removed by the update may not have been written to the database yet
+		Patient p = new Patient();
+		p.setId("Patient/A");
+		p.addIdentifier().setSystem("http://foo").setValue("1");
+		p.addIdentifier().setSystem("http://foo").setValue("2");
+		Patient p2 = new Patient();
+		p2.setId("Patient/A");
+		p2.addIdentifier().setSystem("http://foo").setValue("3");
+
+		runInTransaction(() -> {
+			myPatientDao.update(p, mySrd);
+			myPatientDao.update(p2, mySrd);
+		});
+
+		assertThat(toUnqualifiedVersionlessIdValues(myPatientDao.search(
+				SearchParameterMap.newSynchronous(Patient.SP_IDENTIFIER, new TokenParam("http://foo", "3")), mySrd)))
+				.containsExactly("Patient/A");
+		assertThat(myPatientDao
+				.search(SearchParameterMap.newSynchronous(Patient.SP_IDENTIFIER, new TokenParam("http://foo", "1")), mySrd)
+				.size())
+				.isEqualTo(0);
+	}
+
 	/**
 	 * See the class javadoc before changing the counts in this test!
 	 */
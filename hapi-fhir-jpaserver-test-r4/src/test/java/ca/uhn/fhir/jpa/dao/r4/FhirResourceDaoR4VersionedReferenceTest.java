@@ -42,6 +42,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.junit.platform.commons.annotation.Testable;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -1096,6 +1097,59 @@ public class FhirResourceDaoR4VersionedReferenceTest extends BaseJpaR4Test {
 		assertEquals(conditionId.withVersion("4").getValue(), resources.get(1).getIdElement().getValue());
 	}
 
+	@Test
+	public void testSearchAndIncludeVersionedReference_MultipleOldVersions() {
+		HashSet<String> refPaths = new HashSet<>();
+		refPaths.add("Task.basedOn");
+		myFhirContext.getParserOptions().setDontStripVersionsFromReferencesAtPaths(refPaths);
+		myStorageSettings.setRespectVersionsForSearchIncludes(true);
+		myFhirContext.getParserOptions().setStripVersionsFromReferences(false);
+
+		// Create 3 Conditions, and a Task which is basedOn version 1 of each of them
+		Task task = new Task();
+		List<IIdType> conditionIds = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Condition condition = new Condition();
+			condition.setRecordedDate(new Date(1000L * i));
+			IIdType conditionId = myConditionDao.create(condition, mySrd).getId().toUnqualified();
+			conditionIds.add(conditionId);
+			task.addBasedOn(new Reference(conditionId));
+		}
+		IIdType taskId = myTaskDao.create(task, mySrd).getId().toUnqualified();
+
+		// Now, update each Condition so that version 1 is no longer the current version
+		for (IIdType conditionId : conditionIds) {
+			Condition condition = myConditionDao.read(conditionId.toVersionless(), mySrd);
+			condition.setRecordedDate(new Date(System.currentTimeMillis()));
+			myConditionDao.update(condition, mySrd);
+		}
+
+		// Search for the Task using an _include=Task.basedOn and make sure we get version 1 of each Condition
+		myCaptureQueriesListener.clear();
+		IBundleProvider outcome = myTaskDao.search(SearchParameterMap.newSynchronous().addInclude(Task.INCLUDE_BASED_ON), mySrd);
+		List<IBaseResource> resources = outcome.getResources(0, 4);
+
+		// The three old versions are fetched together, not with one query per version
+		myCaptureQueriesListener.logSelectQueries();
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+			.extracting(t -> t.getSql(false, false))
+			.filteredOn(t -> t.matches("(?s).*\\.RES_VER\\s*=\\s*\\?.*"))
+			.hasSize(1);
+		List<String> resourceIds = resources.stream().map(t -> t.getIdElement().toUnqualified().getValue()).toList();
+		assertThat(resourceIds).containsExactlyInAnyOrder(
+			taskId.getValue(),
+			conditionIds.get(0).withVersion("1").getValue(),
+			conditionIds.get(1).withVersion("1").getValue(),
+			conditionIds.get(2).withVersion("1").getValue());
+		for (IBaseResource next : resources) {
+			if (next instanceof Condition condition) {
+				String conditionId = condition.getIdElement().toUnqualified().getValue();
+				int index = conditionIds.stream().map(IIdType::getValue).toList().indexOf(conditionId);
+				assertEquals(new Date(1000L * index), condition.getRecordedDate());
+			}
+		}
+	}
+
 	@Test
 	public void testSearchAndIncludeUnersionedReference_Asynchronous() {
 		myFhirContext.getParserOptions().setStripVersionsFromReferences(true);
@@ -0,0 +1,133 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.context.ConfigurationException;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
+import ca.uhn.fhir.jpa.dao.index.ResourceExistenceBloomFilterSvc;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourceExistenceBloomFilterR4Test extends BaseJpaR4Test {
+
+	@Autowired
+	private ResourceExistenceBloomFilterSvc myResourceExistenceBloomFilterSvc;
+
+	@BeforeEach
+	public void before() {
+		Patient patient = new Patient();
+		patient.setId("Patient/EXISTING");
+		patient.addIdentifier().setSystem("http://foo").setValue("existing");
+		myPatientDao.update(patient, mySrd);
+
+		myStorageSettings.setResourceExistenceBloomFilterEnabled(true);
+		myStorageSettings.setResourceExistenceBloomFilterSingleWriter(true);
+		myResourceExistenceBloomFilterSvc.rebuild();
+		assertTrue(myResourceExistenceBloomFilterSvc.isReady());
+	}
+
+	@AfterEach
+	public void after() {
+		myStorageSettings.setResourceExistenceBloomFilterEnabled(
+				new JpaStorageSettings().isResourceExistenceBloomFilterEnabled());
+		myStorageSettings.setResourceExistenceBloomFilterSingleWriter(
+				new JpaStorageSettings().isResourceExistenceBloomFilterSingleWriter());
+	}
+
+	@Test
+	public void testNotUsedWithoutSingleWriter() {
+		myStorageSettings.setResourceExistenceBloomFilterSingleWriter(false);
+		assertFalse(myResourceExistenceBloomFilterSvc.isReady());
+		assertFalse(myResourceExistenceBloomFilterSvc.isDefinitelyAbsent("Patient", "NEW"));
+
+		ResourceExistenceBloomFilterSvc svc = new ResourceExistenceBloomFilterSvc();
+		ReflectionTestUtils.setField(svc, "myStorageSettings", myStorageSettings);
+		assertThatThrownBy(svc::start)
+				.isInstanceOf(ConfigurationException.class)
+				.hasMessageContaining(Msg.code(3010));
+	}
+
+	@Test
+	public void testRead_UnknownId_StillQueriesDatabase() {
+		assertTrue(myResourceExistenceBloomFilterSvc.isDefinitelyAbsent("Patient", "NEW"));
+
+		// Another server may have created the resource, so reads must not trust the filter
+		myCaptureQueriesListener.clear();
+		assertThatThrownBy(() -> myPatientDao.read(new IdType("Patient/NEW"), mySrd))
+				.isInstanceOf(ResourceNotFoundException.class);
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+				.anyMatch(t -> t.getSql(false, false).contains("HFJ_RESOURCE"));
+	}
+
+	@Test
+	public void testConditionalReference_DoesNotUseFilter() {
+		Observation observation = new Observation();
+		observation.getSubject().setReference("Patient?identifier=http://foo|new");
+
+		// Conditional references don't create the target, so they must always search
+		myCaptureQueriesListener.clear();
+		assertThatThrownBy(() -> myObservationDao.create(observation, mySrd))
+				.isInstanceOf(ResourceNotFoundException.class);
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+				.anyMatch(t -> t.getSql(false, false).contains("HFJ_SPIDX_TOKEN"));
+	}
+
+	@Test
+	public void testConditionalCreate_NewIdentifier_SkipsMatchSearch() {
+		Patient patient = new Patient();
+		patient.addIdentifier().setSystem("http://foo").setValue("new");
+
+		myCaptureQueriesListener.clear();
+		DaoMethodOutcome outcome = myPatientDao.create(patient, "Patient?identifier=http://foo|new", mySrd);
+		assertTrue(outcome.getCreated());
+		String id = outcome.getId().getIdPart();
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+				.noneMatch(t -> t.getSql(false, false).contains("HFJ_SPIDX_TOKEN"));
+
+		// The new identifier is now known, so the same conditional create matches it
+		outcome = myPatientDao.create(patient, "Patient?identifier=http://foo|new", mySrd);
+		assertFalse(outcome.getCreated());
+		assertEquals(id, outcome.getId().getIdPart());
+	}
+
+	@Test
+	public void testConditionalCreate_ExistingIdentifier_Matches() {
+		Patient patient = new Patient();
+		patient.addIdentifier().setSystem("http://foo").setValue("existing");
+
+		DaoMethodOutcome outcome = myPatientDao.create(patient, "Patient?identifier=http://foo|existing", mySrd);
+		assertFalse(outcome.getCreated());
+		assertEquals("EXISTING", outcome.getId().getIdPart());
+	}
+
+	@Test
+	public void testUpdateWithClientAssignedId() {
+		assertFalse(myResourceExistenceBloomFilterSvc.isDefinitelyAbsent("Patient", "EXISTING"));
+		assertTrue(myResourceExistenceBloomFilterSvc.isDefinitelyAbsent("Patient", "NEW"));
+
+		Patient patient = new Patient();
+		patient.setId("Patient/NEW");
+		patient.setActive(true);
+		assertTrue(myPatientDao.update(patient, mySrd).getCreated());
+		assertFalse(myResourceExistenceBloomFilterSvc.isDefinitelyAbsent("Patient", "NEW"));
+
+		patient.setActive(false);
+		DaoMethodOutcome outcome = myPatientDao.update(patient, mySrd);
+		assertFalse(outcome.getCreated());
+		assertEquals("2", outcome.getId().getVersionIdPart());
+	}
+}
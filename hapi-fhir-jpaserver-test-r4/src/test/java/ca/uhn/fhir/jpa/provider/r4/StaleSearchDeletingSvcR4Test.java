@@ -1,6 +1,7 @@
 package ca.uhn.fhir.jpa.provider.r4;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.dao.data.ISearchDao;
 import ca.uhn.fhir.jpa.dao.data.ISearchResultDao;
 import ca.uhn.fhir.jpa.entity.Search;
@@ -44,6 +45,7 @@ public class StaleSearchDeletingSvcR4Test extends BaseResourceProviderR4Test {
 	@AfterEach()
 	public void after() throws Exception {
 		super.after();
+		myStorageSettings.setSearchResultBlockStorageEnabled(new JpaStorageSettings().isSearchResultBlockStorageEnabled());
 		DatabaseSearchCacheSvcImpl staleSearchDeletingSvc = AopTestUtils.getTargetObject(mySearchCacheSvc);
 		staleSearchDeletingSvc.setCutoffSlackForUnitTest(DatabaseSearchCacheSvcImpl.SEARCH_CLEANUP_JOB_INTERVAL_MILLIS);
 		DatabaseSearchCacheSvcImpl.setMaximumResultsToDeleteInOneStatement(DatabaseSearchCacheSvcImpl.DEFAULT_MAX_RESULTS_TO_DELETE_IN_ONE_STMT);
@@ -109,6 +111,34 @@ public class StaleSearchDeletingSvcR4Test extends BaseResourceProviderR4Test {
 		DatabaseSearchCacheSvcImpl.setMaximumResultsToDeleteInOneStatement(10);
 		DatabaseSearchCacheSvcImpl.setMaximumResultsToDeleteInOnePassForUnitTest(10);
 
+		createExpiredSearchWithResults(50);
+
+		// we are able to delete this in one pass.
+		runInTransaction(() -> assertEquals(1, mySearchEntityDao.count()));
+		myStaleSearchDeletingSvc.pollForStaleSearchesAndDeleteThem();
+		runInTransaction(() -> assertEquals(0, mySearchEntityDao.count()));
+
+	}
+
+	@Test
+	public void testDeleteVeryLargeSearch_BlockStorageDisabled_DoesntDeleteBlocks() {
+		myStorageSettings.setSearchResultBlockStorageEnabled(false);
+		DatabaseSearchCacheSvcImpl.setMaximumResultsToDeleteInOneStatement(10);
+		DatabaseSearchCacheSvcImpl.setMaximumResultsToDeleteInOnePassForUnitTest(10);
+
+		createExpiredSearchWithResults(50);
+
+		myCaptureQueriesListener.clear();
+		myStaleSearchDeletingSvc.pollForStaleSearchesAndDeleteThem();
+
+		runInTransaction(() -> assertEquals(0, mySearchEntityDao.count()));
+		assertThat(myCaptureQueriesListener.getDeleteQueries())
+			.extracting(t -> t.getSql(false, false))
+			.isNotEmpty()
+			.noneMatch(t -> t.toUpperCase().contains("HFJ_SEARCH_RESULT_BLK"));
+	}
+
+	private void createExpiredSearchWithResults(int theResultCount) {
 		runInTransaction(() -> {
 			Search search = new Search();
 			search.setStatus(SearchStatusEnum.FINISHED);
@@ -125,19 +155,13 @@ public class StaleSearchDeletingSvcR4Test extends BaseResourceProviderR4Test {
 			resource.setResourceType("Patient");
 			resource = myResourceTableDao.saveAndFlush(resource);
 
-			for (int i = 0; i < 50; i++) {
+			for (int i = 0; i < theResultCount; i++) {
 				SearchResult sr = new SearchResult(search);
 				sr.setOrder(i);
 				sr.setResourcePid(resource.getId().getId());
 				mySearchResultDao.save(sr);
 			}
 		});
-
-		// we are able to delete this in one pass.
-		runInTransaction(() -> assertEquals(1, mySearchEntityDao.count()));
-		myStaleSearchDeletingSvc.pollForStaleSearchesAndDeleteThem();
-		runInTransaction(() -> assertEquals(0, mySearchEntityDao.count()));
-
 	}
 
 	@Test
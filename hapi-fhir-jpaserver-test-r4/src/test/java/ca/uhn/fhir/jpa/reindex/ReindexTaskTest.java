@@ -14,6 +14,8 @@ import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.api.dao.ReindexParameters;
 import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.batch.models.Batch2JobStartResponse;
+import ca.uhn.fhir.jpa.dao.BaseHapiFhirSystemDao;
+import ca.uhn.fhir.jpa.dao.IJpaStorageResourceParser;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.dao.JpaPidFk;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryProvenanceEntity;
@@ -35,6 +37,7 @@ import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
 import ca.uhn.fhir.util.JsonUtil;
 import com.google.common.base.Charsets;
 import jakarta.annotation.PostConstruct;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.Enumerations;
 import org.hl7.fhir.r4.model.IdType;
@@ -52,10 +55,13 @@ import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static ca.uhn.fhir.batch2.jobs.reindex.ReindexUtils.JOB_REINDEX;
@@ -68,6 +74,11 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 @SuppressWarnings("SqlDialectInspection")
 public class ReindexTaskTest extends BaseJpaR4Test {
@@ -76,6 +87,8 @@ public class ReindexTaskTest extends BaseJpaR4Test {
 	private IJobCoordinator myJobCoordinator;
 	@Autowired
 	private IJobPersistence myJobPersistence;
+	@Autowired
+	private IJpaStorageResourceParser myJpaStorageResourceParser;
 
 	private ReindexTestHelper myReindexTestHelper;
 	private PatientReindexTestHelper myPatientReindexTestHelper;
@@ -94,6 +107,12 @@ public class ReindexTaskTest extends BaseJpaR4Test {
 		myStorageSettings.setStoreMetaSourceInformation(defaults.getStoreMetaSourceInformation());
 		myStorageSettings.setPreserveRequestIdInResourceBody(defaults.isPreserveRequestIdInResourceBody());
 		myStorageSettings.setAccessMetaSourceInformationFromProvenanceTable(defaults.isAccessMetaSourceInformationFromProvenanceTable());
+		myStorageSettings.setReindexParseThreadCount(defaults.getReindexParseThreadCount());
+		getSystemDaoTarget().setJpaStorageResourceParserForUnitTest(myJpaStorageResourceParser);
+	}
+
+	private BaseHapiFhirSystemDao<?, ?> getSystemDaoTarget() {
+		return AopTestUtils.getTargetObject(mySystemDao);
 	}
 
 	@Test
@@ -913,6 +932,55 @@ public class ReindexTaskTest extends BaseJpaR4Test {
 		);
 	}
 
+	@Test
+	public void testReindex_ParallelParsing_reindexesAll() {
+		// setup
+		myStorageSettings.setReindexParseThreadCount(4);
+
+		// Count the versions which actually get a pre-parsed body attached
+		AtomicInteger preParsedCount = new AtomicInteger();
+		IJpaStorageResourceParser parserSpy = spy(myJpaStorageResourceParser);
+		doAnswer(t -> {
+			t.callRealMethod();
+			Collection<ResourceHistoryTable> versions = t.getArgument(0);
+			for (ResourceHistoryTable next : versions) {
+				IBaseResource preParsed = next.getPreParsedResourceAndClear();
+				if (preParsed != null) {
+					preParsedCount.incrementAndGet();
+					next.setPreParsedResource(preParsed);
+				}
+			}
+			return null;
+		}).when(parserSpy).preParseResources(any(), any());
+		getSystemDaoTarget().setJpaStorageResourceParserForUnitTest(parserSpy);
+
+		for (int i = 0; i < 50; ++i) {
+			myReindexTestHelper.createObservationWithAlleleExtension(Observation.ObservationStatus.FINAL);
+		}
+
+		sleepUntilTimeChange();
+
+		myReindexTestHelper.createAlleleSearchParameter();
+		mySearchParamRegistry.forceRefresh();
+		assertThat(myReindexTestHelper.getAlleleObservationIds()).hasSize(0);
+
+		// execute
+		JobInstanceStartRequest startRequest = new JobInstanceStartRequest();
+		startRequest.setJobDefinitionId(JOB_REINDEX);
+		startRequest.setParameters(new ReindexJobParameters());
+		Batch2JobStartResponse startResponse = myJobCoordinator.startInstance(mySrd, startRequest);
+		myBatch2JobHelper.awaitJobCompletion(startResponse);
+
+		// validate
+		assertThat(myReindexTestHelper.getAlleleObservationIds()).hasSize(50);
+		JobInstance finalInstance = myJobCoordinator.getInstance(startResponse.getInstanceId());
+		BulkModifyResourcesResultsJson finalResults = JsonUtil.deserialize(finalInstance.getReport(), BulkModifyResourcesResultsJson.class);
+		assertEquals(51, finalResults.getResourcesChangedCount());
+		assertEquals(0, finalResults.getResourcesFailedCount());
+		verify(parserSpy, atLeastOnce()).preParseResources(any(), any());
+		assertThat(preParsedCount.get()).isGreaterThanOrEqualTo(50);
+	}
+
 	@Test
 	void testReindex_domainResourceBasedSearchParameterChange_reindexesAllResourceTypes() {
 		// setup - create resources while auto-reindex is disabled so they won't be indexed with the new SPs
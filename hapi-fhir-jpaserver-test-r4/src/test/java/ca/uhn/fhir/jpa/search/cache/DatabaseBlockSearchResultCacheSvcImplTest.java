@@ -0,0 +1,169 @@
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.data.ISearchDao;
+import ca.uhn.fhir.jpa.dao.data.ISearchResultBlockDao;
+import ca.uhn.fhir.jpa.dao.data.ISearchResultDao;
+import ca.uhn.fhir.jpa.entity.Search;
+import ca.uhn.fhir.jpa.entity.SearchResult;
+import ca.uhn.fhir.jpa.entity.SearchTypeEnum;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.search.SearchStatusEnum;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.param.StringParam;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.AopTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static ca.uhn.fhir.jpa.search.cache.DatabaseSearchCacheSvcImpl.SEARCH_CLEANUP_JOB_INTERVAL_MILLIS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ContextConfiguration(classes = DatabaseBlockSearchResultCacheSvcImplTest.MyConfig.class)
+public class DatabaseBlockSearchResultCacheSvcImplTest extends BaseJpaR4Test {
+
+	@Autowired
+	private ISearchDao mySearchEntityDao;
+	@Autowired
+	private ISearchResultDao mySearchResultDao;
+	@Autowired
+	private ISearchResultBlockDao mySearchResultBlockDao;
+
+	private DatabaseBlockSearchResultCacheSvcImpl mySvc;
+
+	@BeforeEach
+	public void beforeSetBlockSize() {
+		mySvc = AopTestUtils.getTargetObject(mySearchResultCacheSvc);
+		mySvc.setBlockSize(7);
+		myStorageSettings.setReuseCachedSearchResultsForMillis(null);
+		DatabaseSearchCacheSvcImpl staleSearchDeletingSvc = AopTestUtils.getTargetObject(mySearchCacheSvc);
+		staleSearchDeletingSvc.setCutoffSlackForUnitTest(0);
+	}
+
+	@AfterEach
+	public void afterResetSettings() {
+		mySvc.setBlockSize(DatabaseBlockSearchResultCacheSvcImpl.DEFAULT_BLOCK_SIZE);
+		JpaStorageSettings defaults = new JpaStorageSettings();
+		myStorageSettings.setReuseCachedSearchResultsForMillis(defaults.getReuseCachedSearchResultsForMillis());
+		myStorageSettings.setExpireSearchResultsAfterMillis(defaults.getExpireSearchResultsAfterMillis());
+		DatabaseSearchCacheSvcImpl staleSearchDeletingSvc = AopTestUtils.getTargetObject(mySearchCacheSvc);
+		staleSearchDeletingSvc.setCutoffSlackForUnitTest(SEARCH_CLEANUP_JOB_INTERVAL_MILLIS);
+	}
+
+	@Test
+	public void testSearchIsStoredAsBlocksAndPaged() {
+		List<IIdType> ids = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			Patient patient = new Patient();
+			patient.addName().setFamily("BLOCK");
+			ids.add(myPatientDao.create(patient, mySrd).getId().toUnqualifiedVersionless());
+		}
+
+		SearchParameterMap params = new SearchParameterMap();
+		params.add(Patient.SP_FAMILY, new StringParam("BLOCK"));
+		IBundleProvider outcome = myPatientDao.search(params, mySrd);
+
+		List<IIdType> paged = new ArrayList<>();
+		for (int from = 0; from < 25; from += 10) {
+			outcome.getResources(from, Math.min(from + 10, 25))
+					.forEach(t -> paged.add(t.getIdElement().toUnqualifiedVersionless()));
+		}
+		assertThat(paged).containsExactlyInAnyOrderElementsOf(ids);
+		assertThat(paged).doesNotHaveDuplicates();
+
+		runInTransaction(() -> {
+			assertThat(mySearchResultDao.count()).isZero();
+			assertThat(mySearchResultBlockDao.count()).isGreaterThanOrEqualTo(4);
+		});
+	}
+
+	@Test
+	public void testFetchRangeSpanningBlocks() {
+		Search search = createSearch();
+		List<JpaPid> pids = new ArrayList<>();
+		for (long i = 0; i < 30; i++) {
+			pids.add(JpaPid.fromId(100 + i));
+		}
+		mySvc.storeResults(search, List.of(), pids.subList(0, 12), mySrd, null);
+		mySvc.storeResults(search, pids.subList(0, 12), pids.subList(12, 30), mySrd, null);
+
+		assertThat(mySvc.fetchResultPids(search, 5, 20, mySrd, null)).containsExactlyElementsOf(pids.subList(5, 20));
+		assertThat(mySvc.fetchResultPids(search, 25, 40, mySrd, null)).containsExactlyElementsOf(pids.subList(25, 30));
+		assertThat(mySvc.fetchResultPids(search, 30, 40, mySrd, null)).isEmpty();
+		assertThat(mySvc.fetchAllResultPids(search, mySrd, null)).containsExactlyElementsOf(pids);
+		runInTransaction(() -> assertThat(mySearchResultBlockDao.count()).isEqualTo(5));
+	}
+
+	@Test
+	public void testFetchFallsBackToLegacyResults() {
+		Search search = createSearch();
+		runInTransaction(() -> {
+			for (int i = 0; i < 5; i++) {
+				SearchResult result = new SearchResult(search);
+				result.setOrder(i);
+				result.setResourcePid(200L + i);
+				mySearchResultDao.save(result);
+			}
+		});
+
+		assertThat(mySvc.fetchResultPids(search, 1, 3, mySrd, null))
+				.containsExactly(JpaPid.fromId(201L), JpaPid.fromId(202L));
+		assertThat(mySvc.fetchAllResultPids(search, mySrd, null)).hasSize(5);
+	}
+
+	@Test
+	public void testStaleSearchDeletionRemovesBlocks() throws InterruptedException {
+		Search search = createSearch();
+		List<JpaPid> pids = new ArrayList<>();
+		for (long i = 0; i < 20; i++) {
+			pids.add(JpaPid.fromId(300 + i));
+		}
+		mySvc.storeResults(search, List.of(), pids, mySrd, null);
+		runInTransaction(() -> assertThat(mySearchResultBlockDao.count()).isEqualTo(3));
+
+		Thread.sleep(20);
+		myStorageSettings.setExpireSearchResultsAfterMillis(10);
+		myStaleSearchDeletingSvc.pollForStaleSearchesAndDeleteThem();
+
+		runInTransaction(() -> {
+			assertThat(mySearchEntityDao.count()).isZero();
+			assertThat(mySearchResultBlockDao.count()).isZero();
+		});
+	}
+
+	private Search createSearch() {
+		return runInTransaction(() -> {
+			Search search = new Search();
+			search.setStatus(SearchStatusEnum.FINISHED);
+			search.setUuid(UUID.randomUUID().toString());
+			search.setCreated(new Date());
+			search.setSearchType(SearchTypeEnum.SEARCH);
+			search.setResourceType("Patient");
+			return mySearchEntityDao.save(search);
+		});
+	}
+
+	@Configuration
+	public static class MyConfig {
+
+		@Primary
+		@Bean
+		public ISearchResultCacheSvc databaseBlockSearchResultCacheSvc() {
+			return new DatabaseBlockSearchResultCacheSvcImpl();
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package ca.uhn.fhir.jpa.term;
+
+import ca.uhn.fhir.context.support.ConceptValidationOptions;
+import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.context.support.LookupCodeRequest;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
+import org.hl7.fhir.r4.model.CodeSystem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static ca.uhn.fhir.jpa.term.TerminologySvcDeltaR4Test.newDeltaCodeSystem;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TerminologyCodeSystemLookupTableR4Test extends BaseJpaR4Test {
+
+	private static final String CS_URL = "http://foo/cs";
+
+	@BeforeEach
+	public void before() {
+		myStorageSettings.setCodeSystemLookupTableEnabled(true);
+
+		CodeSystem cs = new CodeSystem();
+		cs.setUrl(CS_URL);
+		cs.setVersion("1.0");
+		cs.setContent(CodeSystem.CodeSystemContentMode.NOTPRESENT);
+		myCodeSystemDao.create(cs, mySrd);
+
+		CodeSystem delta = newDeltaCodeSystem();
+		delta.addConcept().setCode("A").setDisplay("Code A");
+		delta.addConcept().setCode("B");
+		delta.addConcept().setCode("é-1").setDisplay("Accented é");
+		delta.addConcept().setCode("Z").setDisplay("Code Z");
+		myTermCodeSystemStorageSvc.addCodeSystemConcepts(newSrd(), delta);
+	}
+
+	@AfterEach
+	public void after() {
+		myStorageSettings.setCodeSystemLookupTableEnabled(new JpaStorageSettings().isCodeSystemLookupTableEnabled());
+		myTermSvc.invalidateCodeSystemCaches();
+	}
+
+	@Test
+	public void testValidateCode_UsesLookupTable() {
+		// Warm the table
+		assertTrue(validateCode("A", null).isOk());
+
+		myCaptureQueriesListener.clear();
+		IValidationSupport.CodeValidationResult result = validateCode("é-1", "Accented é");
+		assertTrue(result.isOk());
+		assertEquals("é-1", result.getCode());
+		assertEquals("Accented é", result.getDisplay());
+
+		result = validateCode("B", "Anything");
+		assertTrue(result.isOk());
+		assertNull(result.getDisplay());
+
+		result = validateCode("Z", "Wrong Display");
+		assertNotNull(result);
+		assertThat(result.getMessage()).contains("Concept Display \"Wrong Display\" does not match expected \"Code Z\"");
+
+		myCaptureQueriesListener.logSelectQueries();
+		assertEquals(0, myCaptureQueriesListener.countSelectQueries());
+		assertEquals(1, myMemoryCacheService.getEstimatedSize(MemoryCacheService.CacheEnum.CODESYSTEM_VERSION_TO_LOOKUP_TABLE));
+	}
+
+	@Test
+	public void testValidateCode_UnknownCode() {
+		IValidationSupport.CodeValidationResult result = validateCode("C", null);
+		assertNotNull(result);
+		assertFalse(result.isOk());
+		assertThat(result.getMessage()).contains("Code is not found in CodeSystem: http://foo/cs");
+	}
+
+	@Test
+	public void testLookupCode() {
+		IValidationSupport.LookupCodeResult result = lookupCode("A");
+		assertTrue(result.isFound());
+		assertEquals("Code A", result.getCodeDisplay());
+
+		myCaptureQueriesListener.clear();
+		result = lookupCode("C");
+		assertFalse(result.isFound());
+		assertThat(myCaptureQueriesListener.getSelectQueries())
+			.noneMatch(t -> t.getSql(false, false).contains("TRM_CONCEPT "));
+	}
+
+	@Test
+	public void testDeltaAddInvalidatesTable() {
+		assertFalse(validateCode("C", null).isOk());
+
+		CodeSystem delta = newDeltaCodeSystem();
+		delta.addConcept().setCode("C").setDisplay("Code C");
+		myTermCodeSystemStorageSvc.addCodeSystemConcepts(newSrd(), delta);
+
+		IValidationSupport.CodeValidationResult result = validateCode("C", null);
+		assertTrue(result.isOk());
+		assertEquals("Code C", result.getDisplay());
+	}
+
+	@Test
+	public void testLookupTableCantBeBuilt_IsRememberedUntilInvalidated() {
+		// No table is built while deferred storage is paused
+		myTermDeferredStorageSvc.setProcessDeferred(false);
+		try {
+			assertTrue(validateCode("A", null).isOk());
+			assertTrue(validateCode("B", null).isOk());
+			assertEquals(0, myMemoryCacheService.getEstimatedSize(MemoryCacheService.CacheEnum.CODESYSTEM_VERSION_TO_LOOKUP_TABLE));
+			assertEquals(1, myMemoryCacheService.getEstimatedSize(MemoryCacheService.CacheEnum.CODESYSTEM_VERSION_WITHOUT_LOOKUP_TABLE));
+		} finally {
+			myTermDeferredStorageSvc.setProcessDeferred(true);
+		}
+
+		myTermSvc.invalidateCodeSystemCaches();
+		assertTrue(validateCode("A", null).isOk());
+		assertEquals(1, myMemoryCacheService.getEstimatedSize(MemoryCacheService.CacheEnum.CODESYSTEM_VERSION_TO_LOOKUP_TABLE));
+		assertEquals(0, myMemoryCacheService.getEstimatedSize(MemoryCacheService.CacheEnum.CODESYSTEM_VERSION_WITHOUT_LOOKUP_TABLE));
+	}
+
+	private IValidationSupport.CodeValidationResult validateCode(String theCode, String theDisplay) {
+		return myTermSvc.validateCode(
+			new ValidationSupportContext(myValidationSupport),
+			new ConceptValidationOptions(),
+			CS_URL,
+			theCode,
+			theDisplay,
+			null);
+	}
+
+	private IValidationSupport.LookupCodeResult lookupCode(String theCode) {
+		return myTermSvc.lookupCode(
+			new ValidationSupportContext(myValidationSupport), new LookupCodeRequest(CS_URL, theCode));
+	}
+}
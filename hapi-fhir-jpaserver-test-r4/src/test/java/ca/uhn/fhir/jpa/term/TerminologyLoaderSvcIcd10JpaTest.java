@@ -1,17 +1,25 @@
 package ca.uhn.fhir.jpa.term;
 
 import ca.uhn.fhir.batch2.model.JobInstance;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDaoCodeSystem;
 import ca.uhn.fhir.jpa.batch2.jobs.term.base.TerminologyConstants;
+import ca.uhn.fhir.jpa.dao.data.ITermConceptClosureDao;
 import ca.uhn.fhir.jpa.entity.TermCodeSystem;
 import ca.uhn.fhir.jpa.entity.TermCodeSystemVersion;
+import ca.uhn.fhir.jpa.entity.TermConcept;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
 import ca.uhn.fhir.util.ClasspathUtil;
+import org.hl7.fhir.r4.model.CodeType;
+import org.hl7.fhir.r4.model.UriType;
+import org.hl7.fhir.r4.model.ValueSet;
+import org.hl7.fhir.r4.model.codesystems.ConceptSubsumptionOutcome;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.jpa.batch2.jobs.term.icd.icd10.ImportIcd10Step2HandleConcepts.ICD10_XML_FILENAME;
@@ -22,6 +30,8 @@ class TerminologyLoaderSvcIcd10JpaTest extends BaseJpaR4Test {
 
 	@Autowired
 	private TerminologyTestHelper myTerminologyTestHelper;
+	@Autowired
+	private ITermConceptClosureDao myTermConceptClosureDao;
 
 	@ParameterizedTest
 	@ValueSource(booleans = {true, false})
@@ -55,6 +65,57 @@ class TerminologyLoaderSvcIcd10JpaTest extends BaseJpaR4Test {
 
 	}
 
+	@Test
+	void testLoadIcd10_HierarchyClosure() throws IOException {
+		ZipCollectionBuilder files = new ZipCollectionBuilder(false);
+		String filename = "icd/icd102019en.xml";
+		files.addFileText(ClasspathUtil.loadResource(filename), filename);
+		myTerminologyTestHelper.startImportIcdJobAndWaitForCompletion("2019", files);
+
+		// 13 self rows, plus I (12 descendants), A00-A09 (11), A00 (3) and A01 (5)
+		runInTransaction(() -> {
+			assertEquals(44, myTermConceptClosureDao.count());
+			for (TermConcept concept : myTermConceptDao.findAll()) {
+				assertThat(myTermConceptClosureDao.hasClosure(concept.getId())).as(concept.getCode()).isTrue();
+			}
+		});
+
+		// Codes below/above
+		assertThat(toCodes(myTermSvc.findCodesBelow(TerminologyConstants.ICD10_URI, "A00")))
+			.containsExactlyInAnyOrder("A00", "A00.0", "A00.1", "A00.9");
+		assertThat(toCodes(myTermSvc.findCodesAbove(TerminologyConstants.ICD10_URI, "A01.2")))
+			.containsExactlyInAnyOrder("A01.2", "A01", "A00-A09", "I");
+
+		// Subsumption
+		assertEquals(ConceptSubsumptionOutcome.SUBSUMES, subsumes("I", "A01.2"));
+		assertEquals(ConceptSubsumptionOutcome.SUBSUMEDBY, subsumes("A00.1", "A00"));
+		assertEquals(ConceptSubsumptionOutcome.NOTSUBSUMED, subsumes("A00.0", "A01"));
+
+		// Expansion
+		assertThat(expandCodes(ValueSet.FilterOperator.ISA, "A01"))
+			.containsExactlyInAnyOrder("A01", "A01.0", "A01.1", "A01.2", "A01.3", "A01.4");
+		assertThat(expandCodes(ValueSet.FilterOperator.DESCENDENTOF, "A00-A09")).hasSize(11).doesNotContain("A00-A09");
+	}
+
+	private ConceptSubsumptionOutcome subsumes(String theCodeA, String theCodeB) {
+		IFhirResourceDaoCodeSystem.SubsumesResult result = myTermSvc.subsumes(
+			new CodeType(theCodeA), new CodeType(theCodeB), new UriType(TerminologyConstants.ICD10_URI), null, null);
+		return result.getOutcome();
+	}
+
+	private List<String> expandCodes(ValueSet.FilterOperator theOp, String theValue) {
+		ValueSet vs = new ValueSet();
+		vs.getCompose()
+			.addInclude()
+			.setSystem(TerminologyConstants.ICD10_URI)
+			.addFilter()
+			.setProperty("concept")
+			.setOp(theOp)
+			.setValue(theValue);
+		ValueSet expanded = myTermSvc.expandValueSet(null, vs);
+		return expanded.getExpansion().getContains().stream().map(ValueSet.ValueSetExpansionContainsComponent::getCode).toList();
+	}
+
 	@Test
 	void testLoadIcd10_InvalidFile() throws IOException {
 
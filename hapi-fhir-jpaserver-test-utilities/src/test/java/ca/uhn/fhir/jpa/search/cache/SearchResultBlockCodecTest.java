@@ -0,0 +1,80 @@
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SearchResultBlockCodecTest {
+
+	@Test
+	public void testRoundTripSharedPartition() {
+		List<JpaPid> pids = new ArrayList<>();
+		for (long i = 0; i < 500; i++) {
+			pids.add(JpaPid.fromId(1000 + i * 3, 2));
+		}
+
+		byte[] encoded = SearchResultBlockCodec.encode(pids);
+
+		assertThat(SearchResultBlockCodec.decode(encoded)).containsExactlyElementsOf(pids);
+		assertThat(SearchResultBlockCodec.decode(encoded)).allMatch(t -> t.getPartitionId() == 2);
+		// Sequential PIDs in a single partition should take one byte each
+		assertThat(encoded.length).isLessThan(510);
+	}
+
+	@Test
+	public void testRoundTripMixedPartitionsAndUnsortedPids() {
+		Random random = new Random(0);
+		List<JpaPid> pids = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			Integer partitionId = i % 3 == 0 ? null : random.nextInt(20) - 5;
+			pids.add(JpaPid.fromId(Math.abs(random.nextLong()), partitionId));
+		}
+		pids.add(JpaPid.fromId(Long.MAX_VALUE, Integer.MIN_VALUE));
+		pids.add(JpaPid.fromId(1L, Integer.MAX_VALUE));
+
+		List<JpaPid> decoded = SearchResultBlockCodec.decode(SearchResultBlockCodec.encode(pids));
+
+		assertThat(decoded).containsExactlyElementsOf(pids);
+		for (int i = 0; i < pids.size(); i++) {
+			assertThat(decoded.get(i).getPartitionId()).isEqualTo(pids.get(i).getPartitionId());
+		}
+	}
+
+	@Test
+	public void testDecodeRange() {
+		List<JpaPid> pids = new ArrayList<>();
+		for (long i = 0; i < 100; i++) {
+			pids.add(JpaPid.fromId(i * i));
+		}
+		byte[] encoded = SearchResultBlockCodec.encode(pids);
+
+		assertThat(SearchResultBlockCodec.decode(encoded, 10, 20)).containsExactlyElementsOf(pids.subList(10, 20));
+		assertThat(SearchResultBlockCodec.decode(encoded, -5, 3)).containsExactlyElementsOf(pids.subList(0, 3));
+		assertThat(SearchResultBlockCodec.decode(encoded, 95, 200)).containsExactlyElementsOf(pids.subList(95, 100));
+		assertThat(SearchResultBlockCodec.decode(encoded, 150, 200)).isEmpty();
+	}
+
+	@Test
+	public void testEmpty() {
+		assertThat(SearchResultBlockCodec.decode(SearchResultBlockCodec.encode(List.of()))).isEmpty();
+	}
+
+	@Test
+	public void testInvalidData() {
+		assertThatThrownBy(() -> SearchResultBlockCodec.decode(new byte[] {99, 0, 0}))
+				.isInstanceOf(InternalErrorException.class)
+				.hasMessageContaining("HAPI-3002");
+
+		byte[] truncated = {SearchResultBlockCodec.VERSION_1, 1, 5, 0, (byte) 0x80};
+		assertThatThrownBy(() -> SearchResultBlockCodec.decode(truncated))
+				.isInstanceOf(InternalErrorException.class)
+				.hasMessageContaining("HAPI-3003");
+	}
+}
@@ -1,9 +1,13 @@
 package ca.uhn.fhir.jpa.util;
 
+import ca.uhn.fhir.broker.impl.LinkedBlockingBrokerClient;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.TagDefinition;
 import ca.uhn.fhir.jpa.model.entity.TagTypeEnum;
+import ca.uhn.fhir.jpa.subscription.channel.impl.LinkedBlockingChannelFactory;
+import ca.uhn.fhir.jpa.subscription.channel.impl.RetryPolicyProvider;
 import ca.uhn.fhir.jpa.term.TermCodeSystemVersionDetails;
 import ca.uhn.fhir.sl.cache.Cache;
 import ca.uhn.fhir.sl.cache.CacheFactory;
@@ -14,6 +18,11 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -29,7 +38,9 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -293,4 +304,155 @@ class MemoryCacheServiceTest {
 	}
 
 
+	@Test
+	void testEncodeAndDecodeKeys() {
+		MemoryCacheService.ForcedIdCacheKey forcedIdKey = new MemoryCacheService.ForcedIdCacheKey("Patient", "A", RequestPartitionId.fromPartitionIds(1, null));
+		assertEquals(forcedIdKey, roundTrip(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP_BY_FORCED_ID, forcedIdKey));
+
+		forcedIdKey = new MemoryCacheService.ForcedIdCacheKey(null, "123", RequestPartitionId.allPartitions());
+		assertEquals(forcedIdKey, roundTrip(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP_BY_FORCED_ID, forcedIdKey));
+
+		MemoryCacheService.HistoryCountKey historyKey = MemoryCacheService.HistoryCountKey.forInstance(JpaPid.fromId(5L, 2));
+		assertEquals(historyKey, roundTrip(MemoryCacheService.CacheEnum.HISTORY_COUNT, historyKey));
+		assertEquals(MemoryCacheService.HistoryCountKey.forType("Patient"), roundTrip(MemoryCacheService.CacheEnum.HISTORY_COUNT, MemoryCacheService.HistoryCountKey.forType("Patient")));
+		assertEquals(MemoryCacheService.HistoryCountKey.forSystem(), roundTrip(MemoryCacheService.CacheEnum.HISTORY_COUNT, MemoryCacheService.HistoryCountKey.forSystem()));
+
+		assertEquals(JpaPid.fromId(7L), roundTrip(MemoryCacheService.CacheEnum.PID_TO_FORCED_ID, JpaPid.fromId(7L)));
+		assertEquals(3, roundTrip(MemoryCacheService.CacheEnum.ID_TO_PARTITION, 3));
+		assertEquals("PART-A", roundTrip(MemoryCacheService.CacheEnum.NAME_TO_PARTITION, "PART-A"));
+
+		assertNull(MemoryCacheService.encodeKey(new MemoryCacheService.IdentifierKey("http://foo", "1")));
+	}
+
+	private static Object roundTrip(MemoryCacheService.CacheEnum theCache, Object theKey) {
+		String encoded = MemoryCacheService.encodeKey(theKey);
+		assertNotNull(encoded);
+		return MemoryCacheService.decodeKey(theCache, encoded);
+	}
+
+	@Test
+	void testInvalidationBroadcast() {
+		myStorageSettings.setMemoryCacheInvalidationBroadcastEnabled(true);
+		LinkedBlockingBrokerClient brokerClient = new LinkedBlockingBrokerClient((name, settings) -> name);
+		brokerClient.setLinkedBlockingChannelFactory(new LinkedBlockingChannelFactory((name, settings) -> name, new RetryPolicyProvider()));
+
+		MemoryCacheService peer = new MemoryCacheService(myStorageSettings);
+		MemoryCacheInvalidationBroadcaster broadcaster = new MemoryCacheInvalidationBroadcaster(mySvc, brokerClient, myStorageSettings);
+		MemoryCacheInvalidationBroadcaster peerBroadcaster = new MemoryCacheInvalidationBroadcaster(peer, brokerClient, myStorageSettings);
+		broadcaster.start();
+		peerBroadcaster.start();
+		try {
+			MemoryCacheService.ForcedIdCacheKey key = new MemoryCacheService.ForcedIdCacheKey("Patient", "A", RequestPartitionId.fromPartitionId(1));
+			MemoryCacheService.ForcedIdCacheKey otherKey = new MemoryCacheService.ForcedIdCacheKey("Patient", "B", RequestPartitionId.fromPartitionId(1));
+			for (MemoryCacheService next : List.of(mySvc, peer)) {
+				next.put(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP_BY_FORCED_ID, key, List.of());
+				next.put(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP_BY_FORCED_ID, otherKey, List.of());
+				next.put(MemoryCacheService.CacheEnum.NAME_TO_PARTITION, "PART-A", "value");
+			}
+
+			// Only the given key is evicted on the peer
+			mySvc.invalidateKeyAfterCommit(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP_BY_FORCED_ID, key);
+			await().until(() -> peer.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP_BY_FORCED_ID, key) == null);
+			assertNotNull(peer.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP_BY_FORCED_ID, otherKey));
+
+			// Whole caches are evicted on every other server, but messages aren't applied by their sender
+			mySvc.put(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP_BY_FORCED_ID, key, List.of());
+			peer.invalidateCaches(MemoryCacheService.CacheEnum.NAME_TO_PARTITION);
+			await().until(() -> mySvc.getIfPresent(MemoryCacheService.CacheEnum.NAME_TO_PARTITION, "PART-A") == null);
+			assertNotNull(mySvc.getIfPresent(MemoryCacheService.CacheEnum.RESOURCE_LOOKUP_BY_FORCED_ID, key));
+			assertNull(peer.getIfPresent(MemoryCacheService.CacheEnum.NAME_TO_PARTITION, "PART-A"));
+		} finally {
+			broadcaster.stop();
+			peerBroadcaster.stop();
+		}
+	}
+
+
+	@Test
+	void testInvalidationBroadcast_RequiresNewTransaction() {
+		myStorageSettings.setMemoryCacheInvalidationBroadcastEnabled(true);
+		LinkedBlockingBrokerClient brokerClient = new LinkedBlockingBrokerClient((name, settings) -> name);
+		brokerClient.setLinkedBlockingChannelFactory(new LinkedBlockingChannelFactory((name, settings) -> name, new RetryPolicyProvider()));
+
+		MemoryCacheService peer = new MemoryCacheService(myStorageSettings);
+		MemoryCacheInvalidationBroadcaster broadcaster = new MemoryCacheInvalidationBroadcaster(mySvc, brokerClient, myStorageSettings);
+		MemoryCacheInvalidationBroadcaster peerBroadcaster = new MemoryCacheInvalidationBroadcaster(peer, brokerClient, myStorageSettings);
+		broadcaster.start();
+		peerBroadcaster.start();
+		try {
+			MemoryCacheService.CacheEnum cache = MemoryCacheService.CacheEnum.NAME_TO_PARTITION;
+			for (String next : List.of("OUTER", "INNER", "ROLLED-BACK")) {
+				peer.put(cache, next, "value");
+			}
+
+			ResourcelessTransactionManager txManager = new ResourcelessTransactionManager();
+			TransactionTemplate outerTx = new TransactionTemplate(txManager);
+			TransactionTemplate innerTx = new TransactionTemplate(txManager);
+			innerTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+			outerTx.executeWithoutResult(outerStatus -> {
+				mySvc.invalidateKeyAfterCommit(cache, "OUTER");
+
+				// The nested transaction publishes its own invalidations as soon as it commits
+				innerTx.executeWithoutResult(innerStatus -> mySvc.invalidateKeyAfterCommit(cache, "INNER"));
+				await().until(() -> peer.getIfPresent(cache, "INNER") == null);
+				assertNotNull(peer.getIfPresent(cache, "OUTER"));
+
+				// ..and discards them if it rolls back
+				innerTx.executeWithoutResult(innerStatus -> {
+					mySvc.invalidateKeyAfterCommit(cache, "ROLLED-BACK");
+					innerStatus.setRollbackOnly();
+				});
+			});
+
+			await().until(() -> peer.getIfPresent(cache, "OUTER") == null);
+			assertNotNull(peer.getIfPresent(cache, "ROLLED-BACK"));
+		} finally {
+			broadcaster.stop();
+			peerBroadcaster.stop();
+		}
+	}
+
+	/**
+	 * Transaction manager without an underlying resource, which is just enough to drive
+	 * transaction synchronizations (including suspension for REQUIRES_NEW)
+	 */
+	private static class ResourcelessTransactionManager extends AbstractPlatformTransactionManager {
+
+		@Override
+		protected Object doGetTransaction() {
+			return TransactionSynchronizationManager.isActualTransactionActive();
+		}
+
+		@Override
+		protected boolean isExistingTransaction(Object theTransaction) {
+			return (Boolean) theTransaction;
+		}
+
+		@Override
+		protected void doBegin(Object theTransaction, TransactionDefinition theDefinition) {
+			// nothing
+		}
+
+		@Override
+		protected Object doSuspend(Object theTransaction) {
+			return theTransaction;
+		}
+
+		@Override
+		protected void doResume(Object theTransaction, Object theSuspendedResources) {
+			// nothing
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus theStatus) {
+			// nothing
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus theStatus) {
+			// nothing
+		}
+	}
+
 }
@@ -43,7 +43,10 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.model.api.StorageResponseCodeEnum.SUCCESSFUL_DELETE_NOT_FOUND;
@@ -55,12 +58,15 @@ import static ca.uhn.fhir.model.api.StorageResponseCodeEnum.SUCCESSFUL_DELETE_NO
  * Limitations:
  * <ul>
  *     <li>Does not support versioning of resources.</li>
- *     <li>Does not support search beyond all-of-type and _id - no SearchParameters are supported.</li>
+ *     <li>Only supports search by all-of-type, _id, and token, reference and date SearchParameters without modifiers.</li>
  *     <li>Does not support search paging.</li>
  *     <li>Does not support extended operations.</li>
  *     <li>Does not support conditional update or create.</li>
  *     <li>Does not support PATCH operations.</li>
  * </ul>
+ * Token, reference and date searches are answered from indexes which are built the first time
+ * that each search parameter is used, and are then maintained as resources are written.
+ * Reads and searches can run concurrently with each other; writes are exclusive.
  */
 public class InMemoryFhirRepository implements IRepository {
 	// Based on org.opencds.cqf.fhir.utility.repository.InMemoryFhirRepository.
@@ -69,6 +75,7 @@ public class InMemoryFhirRepository implements IRepository {
 	private String myBaseUrl;
 	private final FhirContext myFhirContext;
 	private final ResourceStorage myResourceStorage;
+	private final ReadWriteLock myLock = new ReentrantReadWriteLock();
 
 	// Factory methods and constructors
 
@@ -101,7 +108,7 @@ public class InMemoryFhirRepository implements IRepository {
 	InMemoryFhirRepository(
 			@Nonnull FhirContext theContext, @Nonnull Map<String, Map<IIdType, IBaseResource>> theContents) {
 		myFhirContext = theContext;
-		myResourceStorage = new ResourceStorage(theContents);
+		myResourceStorage = new ResourceStorage(theContext, theContents);
 	}
 
 	// interface methods
@@ -112,26 +119,29 @@ public class InMemoryFhirRepository implements IRepository {
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public synchronized <T extends IBaseResource, I extends IIdType> T read(
+	public <T extends IBaseResource, I extends IIdType> T read(
 			Class<T> theResourceType, I theId, Map<String, String> theUnusedHeaders) {
-		var lookup = myResourceStorage.lookupResource(getResourceTypeName(theResourceType), theId);
+		return withReadLock(() -> {
+			var lookup = myResourceStorage.lookupResource(getResourceTypeName(theResourceType), theId);
 
-		var resource = lookup.getResourceOrThrow404();
+			var resource = lookup.getResourceOrThrow404();
 
-		return (T) resource;
+			return (T) resource;
+		});
 	}
 
 	@Override
-	public synchronized <T extends IBaseResource> MethodOutcome create(
-			T theResource, Map<String, String> theUnusedHeaders) {
-		ResourceLookup created = myResourceStorage.createResource(theResource);
+	public <T extends IBaseResource> MethodOutcome create(T theResource, Map<String, String> theUnusedHeaders) {
+		return withWriteLock(() -> {
+			ResourceLookup created = myResourceStorage.createResource(theResource);
 
-		MethodOutcome outcome = new MethodOutcome(created.id(), true);
-		outcome.setResource(created.getResourceOrThrow404());
-		outcome.setResponseStatusCode(Constants.STATUS_HTTP_201_CREATED);
+			MethodOutcome outcome = new MethodOutcome(created.id(), true);
+			outcome.setResource(created.getResourceOrThrow404());
+			outcome.setResponseStatusCode(Constants.STATUS_HTTP_201_CREATED);
 
-		ourLog.debug("Created resource: {}", formatResource(outcome.getResource()));
-		return outcome;
+			ourLog.debug("Created resource: {}", formatResource(outcome.getResource()));
+			return outcome;
+		});
 	}
 
 	private String formatResource(IBaseResource theResource) {
@@ -139,86 +149,111 @@ public class InMemoryFhirRepository implements IRepository {
 	}
 
 	@Override
-	public synchronized <I extends IIdType, P extends IBaseParameters> MethodOutcome patch(
+	public <I extends IIdType, P extends IBaseParameters> MethodOutcome patch(
 			I theId, P thePatchParameters, Map<String, String> theHeaders) {
 		throw new NotImplementedOperationException(Msg.code(2772) + "The PATCH operation is not currently supported");
 	}
 
 	@Override
-	public synchronized <T extends IBaseResource> MethodOutcome update(
-			T theResource, Map<String, String> theUnusedHeaders) {
-		ResourceLookup lookup = myResourceStorage.lookupResource(
-				getResourceTypeName(theResource.getClass()), theResource.getIdElement());
-
-		boolean isCreate = !lookup.isPresent();
-		lookup.put(theResource);
-		MethodOutcome outcome = new MethodOutcome(lookup.id(), isCreate);
-		if (isCreate) {
-			outcome.setResponseStatusCode(Constants.STATUS_HTTP_201_CREATED);
-		} else {
-			outcome.setResponseStatusCode(Constants.STATUS_HTTP_200_OK);
-		}
-		outcome.setResource(lookup.getResourceOrThrow404());
-
-		ourLog.debug("Updated resource: {}", formatResource(outcome.getResource()));
-
-		return outcome;
+	public <T extends IBaseResource> MethodOutcome update(T theResource, Map<String, String> theUnusedHeaders) {
+		return withWriteLock(() -> {
+			ResourceLookup lookup = myResourceStorage.lookupResource(
+					getResourceTypeName(theResource.getClass()), theResource.getIdElement());
+
+			boolean isCreate = !lookup.isPresent();
+			lookup.put(theResource);
+			MethodOutcome outcome = new MethodOutcome(lookup.id(), isCreate);
+			if (isCreate) {
+				outcome.setResponseStatusCode(Constants.STATUS_HTTP_201_CREATED);
+			} else {
+				outcome.setResponseStatusCode(Constants.STATUS_HTTP_200_OK);
+			}
+			outcome.setResource(lookup.getResourceOrThrow404());
+
+			ourLog.debug("Updated resource: {}", formatResource(outcome.getResource()));
+
+			return outcome;
+		});
 	}
 
 	@Override
-	public synchronized <T extends IBaseResource, I extends IIdType> MethodOutcome delete(
+	public <T extends IBaseResource, I extends IIdType> MethodOutcome delete(
 			Class<T> theResourceType, I theId, Map<String, String> theUnusedHeaders) {
-		ResourceLookup lookup = myResourceStorage.lookupResource(getResourceTypeName(theResourceType), theId);
-
-		MethodOutcome methodOutcome = new MethodOutcome(theId, false);
-		methodOutcome.setResponseStatusCode(Constants.STATUS_HTTP_204_NO_CONTENT);
-		if (lookup.isPresent()) {
-			lookup.remove();
-		} else {
-			var oo = OperationOutcomeUtil.createOperationOutcome(
-					OperationOutcomeUtil.OO_SEVERITY_WARN,
-					SUCCESSFUL_DELETE_NOT_FOUND.getDisplay(),
-					"not-found",
-					fhirContext(),
-					SUCCESSFUL_DELETE_NOT_FOUND);
-
-			methodOutcome.setOperationOutcome(oo);
-		}
-		ourLog.debug("Delete resource: {}", theId.getValueAsString());
-
-		return methodOutcome;
+		return withWriteLock(() -> {
+			ResourceLookup lookup = myResourceStorage.lookupResource(getResourceTypeName(theResourceType), theId);
+
+			MethodOutcome methodOutcome = new MethodOutcome(theId, false);
+			methodOutcome.setResponseStatusCode(Constants.STATUS_HTTP_204_NO_CONTENT);
+			if (lookup.isPresent()) {
+				lookup.remove();
+			} else {
+				var oo = OperationOutcomeUtil.createOperationOutcome(
+						OperationOutcomeUtil.OO_SEVERITY_WARN,
+						SUCCESSFUL_DELETE_NOT_FOUND.getDisplay(),
+						"not-found",
+						fhirContext(),
+						SUCCESSFUL_DELETE_NOT_FOUND);
+
+				methodOutcome.setOperationOutcome(oo);
+			}
+			ourLog.debug("Delete resource: {}", theId.getValueAsString());
+
+			return methodOutcome;
+		});
 	}
 
 	@Override
-	public synchronized <B extends IBaseBundle, T extends IBaseResource> B search(
+	public <B extends IBaseBundle, T extends IBaseResource> B search(
 			Class<B> theBundleType,
 			Class<T> theResourceType,
 			Multimap<String, List<IQueryParameterType>> theSearchParameters,
 			Map<String, String> theUnusedHeaders) {
+		String resourceType = myFhirContext.getResourceType(theResourceType);
 
 		NaiveSearching search = new NaiveSearching(
 				fhirContext(),
-				myFhirContext.getResourceType(theResourceType),
+				resourceType,
 				id -> this.myResourceStorage.lookupResource(id).getResource().stream(),
-				() -> myResourceStorage.getAllOfType(myFhirContext.getResourceType(theResourceType)));
+				() -> myResourceStorage.getAllOfType(resourceType),
+				(paramName, orList) ->
+						myResourceStorage.searchParameterIndex.findMatches(resourceType, paramName, orList));
 
-		return search.search(theSearchParameters);
+		return withReadLock(() -> search.search(theSearchParameters));
 	}
 
 	@Override
-	public synchronized <B extends IBaseBundle> B transaction(
-			B theTransactionBundle, Map<String, String> theUnusedHeaders) {
-		ourLog.debug("Transaction request: {}", formatResource(theTransactionBundle));
+	public <B extends IBaseBundle> B transaction(B theTransactionBundle, Map<String, String> theUnusedHeaders) {
+		return withWriteLock(() -> {
+			ourLog.debug("Transaction request: {}", formatResource(theTransactionBundle));
 
-		NaiveRepositoryTransactionProcessor transactionProcessor = new NaiveRepositoryTransactionProcessor(this);
-		B result = transactionProcessor.processTransaction(theTransactionBundle);
+			NaiveRepositoryTransactionProcessor transactionProcessor = new NaiveRepositoryTransactionProcessor(this);
+			B result = transactionProcessor.processTransaction(theTransactionBundle);
 
-		ourLog.debug("Transaction result: {}", formatResource(result));
+			ourLog.debug("Transaction result: {}", formatResource(result));
 
-		return result;
+			return result;
+		});
 	}
 
 	// implementation details
+	private <T> T withReadLock(Supplier<T> theSupplier) {
+		myLock.readLock().lock();
+		try {
+			return theSupplier.get();
+		} finally {
+			myLock.readLock().unlock();
+		}
+	}
+
+	private <T> T withWriteLock(Supplier<T> theSupplier) {
+		myLock.writeLock().lock();
+		try {
+			return theSupplier.get();
+		} finally {
+			myLock.writeLock().unlock();
+		}
+	}
+
 	public String getBaseUrl() {
 		return myBaseUrl;
 	}
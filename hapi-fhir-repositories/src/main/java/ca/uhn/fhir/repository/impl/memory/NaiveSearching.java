@@ -36,10 +36,12 @@ import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -48,7 +50,8 @@ import java.util.stream.Stream;
 
 /**
  * Implement the minimum of search functionality.
- * This is a naive implementation that does not support anything except _id and all-of-type searches.
+ * This is a naive implementation that supports all-of-type searches, _id, and plain token,
+ * reference and date search parameters (which are answered from a {@link SearchParameterIndex}).
  */
 class NaiveSearching {
 
@@ -65,6 +68,9 @@ class NaiveSearching {
 	/** a supplier of all resources of this type, with empty ok. */
 	private final Supplier<Collection<IBaseResource>> myAllResourcesSupplier;
 
+	/** lookup of the resources matching any of a list of values for a parameter, or empty if not indexed. */
+	private final BiFunction<String, List<IQueryParameterType>, Optional<Collection<IBaseResource>>> myIndexedSearch;
+
 	/**
 	 * Constructor for NaiveSearching.
 	 * Initializes the search mechanism for a specific resource type.
@@ -73,16 +79,19 @@ class NaiveSearching {
 	 * @param theResourceType The type of resource to search for (e.g., "Patient", "Observation").
 	 * @param theSafeRead A function to safely read resources by their ID, returning a stream of matching resources with empty if not present.
 	 * @param theAllResourcesSupplier A supplier that provides all resources of the specified type.
+	 * @param theIndexedSearch A function returning the resources which match any of a list of values for a search parameter, or empty if the parameter can't be searched.
 	 */
 	NaiveSearching(
 			FhirContext theFhirContext,
 			String theResourceType,
 			Function<IdDt, Stream<IBaseResource>> theSafeRead,
-			Supplier<Collection<IBaseResource>> theAllResourcesSupplier) {
+			Supplier<Collection<IBaseResource>> theAllResourcesSupplier,
+			BiFunction<String, List<IQueryParameterType>, Optional<Collection<IBaseResource>>> theIndexedSearch) {
 		myResourceType = theResourceType;
 		mySafeRead = theSafeRead;
 		myFhirContext = theFhirContext;
 		myAllResourcesSupplier = theAllResourcesSupplier;
+		myIndexedSearch = theIndexedSearch;
 	}
 
 	@Nonnull
@@ -96,9 +105,17 @@ class NaiveSearching {
 		// Remove the _id parameter if present
 		Optional<Set<IdDt>> ids = removeAndIntersectIdsIfPresent(searchParameters);
 
+		// Remove and intersect the parameters that can be answered from the indexes
+		Optional<Set<IBaseResource>> indexedMatches = removeAndIntersectIndexedParamsIfPresent(searchParameters);
+
 		if (ids.isPresent()) {
 			// pluck out results by id
 			candidates = ids.get().stream().flatMap(mySafeRead).collect(Collectors.toList());
+			if (indexedMatches.isPresent()) {
+				candidates.retainAll(indexedMatches.get());
+			}
+		} else if (indexedMatches.isPresent()) {
+			candidates = indexedMatches.get();
 		} else {
 			// no _id parameter, so search all resources of this type
 			candidates = myAllResourcesSupplier.get();
@@ -137,6 +154,48 @@ class NaiveSearching {
 				.reduce(Sets::intersection);
 	}
 
+	/**
+	 * Removes each parameter whose values can all be answered by the indexes, and returns the
+	 * resources matching all of them (by identity), or empty if no parameters were indexed.
+	 */
+	@Nonnull
+	Optional<Set<IBaseResource>> removeAndIntersectIndexedParamsIfPresent(
+			Multimap<String, List<IQueryParameterType>> theSearchParameters) {
+		Set<IBaseResource> retVal = null;
+		for (String nextParamName : Set.copyOf(theSearchParameters.keySet())) {
+			List<Collection<IBaseResource>> andMatches = new ArrayList<>();
+			for (List<IQueryParameterType> nextOrList : theSearchParameters.get(nextParamName)) {
+				Optional<Collection<IBaseResource>> matches = myIndexedSearch.apply(nextParamName, nextOrList);
+				if (matches.isEmpty()) {
+					andMatches = null;
+					break;
+				}
+				andMatches.add(matches.get());
+			}
+			if (andMatches == null) {
+				// leave it for the matcher
+				continue;
+			}
+
+			theSearchParameters.removeAll(nextParamName);
+			for (Collection<IBaseResource> next : andMatches) {
+				if (retVal == null) {
+					retVal = Sets.newIdentityHashSet();
+					retVal.addAll(next);
+				} else {
+					retVal.retainAll(toIdentitySet(next));
+				}
+			}
+		}
+		return Optional.ofNullable(retVal);
+	}
+
+	private static Set<IBaseResource> toIdentitySet(Collection<IBaseResource> theResources) {
+		Set<IBaseResource> retVal = Sets.newIdentityHashSet();
+		retVal.addAll(theResources);
+		return retVal;
+	}
+
 	IdDt normalizeIdParamToIdPart(IQueryParameterType theIdParam) {
 		if (theIdParam instanceof IIdType idType) {
 			return new IdDt(idType.getValue());
@@ -158,9 +217,9 @@ class NaiveSearching {
 			return Predicates.alwaysTrue();
 		} else {
 			// SOMEDAY Apply the rest of the params with a matcher
-			throw new UnsupportedOperationException(
-					Msg.code(2780) + "NaiveSearching does not support search parameters other than _id. Received: "
-							+ theSearchParameters.keys());
+			throw new UnsupportedOperationException(Msg.code(2780)
+					+ "NaiveSearching only supports _id and token, reference and date search parameters. Received: "
+					+ theSearchParameters.keys());
 		}
 	}
 
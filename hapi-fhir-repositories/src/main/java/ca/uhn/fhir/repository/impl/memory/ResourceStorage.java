@@ -19,6 +19,7 @@
  */
 package ca.uhn.fhir.repository.impl.memory;
 
+import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.model.primitive.IdDt;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
@@ -32,9 +33,11 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * In-memory storage for FHIR resources, indexed by resource type and ID.
+ * In-memory storage for FHIR resources, indexed by resource type and ID, along with the
+ * {@link SearchParameterIndex search parameter indexes} over the stored resources.
  */
 public class ResourceStorage {
 	/** Map where the keys are resource type names (e.g., "Patient", "Observation"),
@@ -42,14 +45,19 @@ public class ResourceStorage {
 	 */
 	final Map<String, Map<IIdType, IBaseResource>> resourceMap;
 
+	final SearchParameterIndex searchParameterIndex;
+
 	/**
 	 * Constructs a new {@code ResourceStorage} instance.
 	 *
+	 * @param theFhirContext The FHIR context
 	 * @param theResourceMap A map where the keys are resource type names (e.g., "Patient", "Observation"),
 	 *                       and the values are maps of resource IDs to FHIR resources of that type.
 	 */
-	ResourceStorage(Map<String, Map<IIdType, IBaseResource>> theResourceMap) {
-		resourceMap = theResourceMap;
+	ResourceStorage(FhirContext theFhirContext, Map<String, Map<IIdType, IBaseResource>> theResourceMap) {
+		// concurrent so that searches can look up types without holding the write lock
+		resourceMap = new ConcurrentHashMap<>(theResourceMap);
+		searchParameterIndex = new SearchParameterIndex(theFhirContext, this::getResourceMapForType);
 	}
 
 	ResourceLookup lookupResource(IIdType theId) {
@@ -58,7 +66,7 @@ public class ResourceStorage {
 
 		Map<IIdType, IBaseResource> resources = getResourceMapForType(theId.getResourceType());
 
-		return new ResourceLookup(resources, new IdDt(theId).toUnqualifiedVersionless());
+		return new ResourceLookup(resources, new IdDt(theId).toUnqualifiedVersionless(), searchParameterIndex);
 	}
 
 	ResourceLookup lookupResource(String resourceTypeName, IIdType theId) {
@@ -80,7 +88,9 @@ public class ResourceStorage {
 		} while (resources.containsKey(theId));
 
 		resource.setId(theId);
-		resources.put(theId.toUnqualifiedVersionless(), resource);
+		IIdType key = theId.toUnqualifiedVersionless();
+		resources.put(key, resource);
+		searchParameterIndex.resourceStored(key, resource);
 
 		return lookupResource(theId);
 	}
@@ -97,10 +107,12 @@ public class ResourceStorage {
 	/**
 	 * Abstract "pointer" to a resource id in the repository.
 	 *
-	 * @param resources the map of resources for a specific type
-	 * @param id        the id of the resource to look up
+	 * @param resources            the map of resources for a specific type
+	 * @param id                   the id of the resource to look up
+	 * @param searchParameterIndex the indexes to update when the resource is stored or removed
 	 */
-	record ResourceLookup(Map<IIdType, IBaseResource> resources, IIdType id) {
+	record ResourceLookup(
+			Map<IIdType, IBaseResource> resources, IIdType id, SearchParameterIndex searchParameterIndex) {
 
 		private static IIdType normalizeIdForLookup(IIdType theId, String resourceTypeName) {
 			IIdType unqualifiedVersionless = theId.toUnqualifiedVersionless();
@@ -130,6 +142,7 @@ public class ResourceStorage {
 
 		void remove() {
 			resources.remove(id);
+			searchParameterIndex.resourceRemoved(id.getResourceType(), id);
 		}
 
 		boolean isPresent() {
@@ -138,6 +151,7 @@ public class ResourceStorage {
 
 		<T extends IBaseResource> void put(T theResource) {
 			resources.put(id, theResource);
+			searchParameterIndex.resourceStored(id, theResource);
 		}
 	}
 }
@@ -0,0 +1,678 @@
+/*-
+ * #%L
+ * HAPI FHIR - Repository implementations and utilities
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.repository.impl.memory;
+
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementCompositeDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementDefinition;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.model.api.TemporalPrecisionEnum;
+import ca.uhn.fhir.model.primitive.IdDt;
+import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.ParamPrefixEnum;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.util.FhirTerser;
+import jakarta.annotation.Nullable;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseCoding;
+import org.hl7.fhir.instance.model.api.IBaseReference;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.instance.model.api.IPrimitiveType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.apache.commons.lang3.StringUtils.defaultString;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Secondary indexes over the resources in a {@link ResourceStorage} for token, reference and date
+ * search parameters, so that {@link NaiveSearching} can find the resources matching these
+ * parameters without examining every resource of the type.
+ * <p>
+ * The index for a given resource type and search parameter is built the first time that it is
+ * searched, and is kept up to date as resources are created, updated and deleted from then on.
+ * This class does not do its own locking for writes: callers must not modify the storage while
+ * a search is running (see {@link InMemoryFhirRepository}). Concurrent searches are safe.
+ * </p>
+ * <p>
+ * Values are extracted with the {@link FhirTerser} rather than FHIRPath, so that this module
+ * doesn't need the validation support classes at runtime. Only search parameter expressions made
+ * of element names, optionally followed by a type filter (<code>as [type]</code>) or a reference
+ * target filter (<code>.where(resolve() is [type])</code>), can be indexed. This covers almost
+ * all of the token, reference and date parameters in the base specification.
+ * </p>
+ */
+class SearchParameterIndex {
+
+	private static final Pattern RESOLVE_IS_PATTERN =
+			Pattern.compile("^(.*)\\.where\\(resolve\\(\\) is ([A-Za-z]+)\\)$");
+	private static final Pattern AS_FUNCTION_PATTERN = Pattern.compile("^(.*)\\.as\\(([A-Za-z]+)\\)$");
+	private static final Pattern AS_OPERATOR_PATTERN = Pattern.compile("^(.*) as ([A-Za-z]+)$");
+	private static final Pattern ELEMENT_PATH_PATTERN = Pattern.compile("^[A-Za-z]+(\\.[A-Za-z]+)+$");
+
+	private final FhirContext myFhirContext;
+	private final FhirTerser myTerser;
+	private final Function<String, Map<IIdType, IBaseResource>> myResourcesOfTypeSupplier;
+	/** resource type -> search parameter name -> index, or empty if the parameter can't be indexed */
+	private final Map<String, Map<String, Optional<ParamIndex>>> myIndexes = new ConcurrentHashMap<>();
+
+	/**
+	 * @param theFhirContext The FHIR context
+	 * @param theResourcesOfTypeSupplier Supplies the resources of a given type, keyed by their ID. Must not modify the storage.
+	 */
+	SearchParameterIndex(
+			FhirContext theFhirContext, Function<String, Map<IIdType, IBaseResource>> theResourcesOfTypeSupplier) {
+		myFhirContext = theFhirContext;
+		myTerser = theFhirContext.newTerser();
+		myResourcesOfTypeSupplier = theResourcesOfTypeSupplier;
+	}
+
+	/**
+	 * Find the resources matching any of the given values of a search parameter.
+	 *
+	 * @return The matching resources, or empty if the parameter or one of the values can't be answered from an index
+	 */
+	Optional<Collection<IBaseResource>> findMatches(
+			String theResourceType, String theParamName, List<IQueryParameterType> theOrList) {
+		Optional<ParamIndex> index = getOrBuildIndex(theResourceType, theParamName);
+		if (index.isEmpty()) {
+			return Optional.empty();
+		}
+
+		Set<IIdType> ids = new HashSet<>();
+		for (IQueryParameterType next : theOrList) {
+			Optional<Collection<IIdType>> matches = index.get().findMatches(next);
+			if (matches.isEmpty()) {
+				return Optional.empty();
+			}
+			ids.addAll(matches.get());
+		}
+
+		Map<IIdType, IBaseResource> resources = myResourcesOfTypeSupplier.apply(theResourceType);
+		List<IBaseResource> retVal = new ArrayList<>(ids.size());
+		for (IIdType next : ids) {
+			IBaseResource resource = resources.get(next);
+			if (resource != null) {
+				retVal.add(resource);
+			}
+		}
+		return Optional.of(retVal);
+	}
+
+	/**
+	 * Updates any indexes which have already been built for the type of the resource.
+	 *
+	 * @param theId The ID that the resource is stored under
+	 */
+	void resourceStored(IIdType theId, IBaseResource theResource) {
+		Map<String, Optional<ParamIndex>> indexes = myIndexes.get(theResource.fhirType());
+		if (indexes != null) {
+			for (Optional<ParamIndex> next : indexes.values()) {
+				next.ifPresent(t -> {
+					t.remove(theId);
+					t.add(theId, theResource);
+				});
+			}
+		}
+	}
+
+	/**
+	 * Removes a resource from any indexes which have already been built for its type.
+	 *
+	 * @param theId The ID that the resource was stored under
+	 */
+	void resourceRemoved(String theResourceType, IIdType theId) {
+		Map<String, Optional<ParamIndex>> indexes = myIndexes.get(theResourceType);
+		if (indexes != null) {
+			for (Optional<ParamIndex> next : indexes.values()) {
+				next.ifPresent(t -> t.remove(theId));
+			}
+		}
+	}
+
+	private Optional<ParamIndex> getOrBuildIndex(String theResourceType, String theParamName) {
+		Map<String, Optional<ParamIndex>> indexes =
+				myIndexes.computeIfAbsent(theResourceType, t -> new ConcurrentHashMap<>());
+		Optional<ParamIndex> retVal = indexes.get(theParamName);
+		if (retVal == null) {
+			// Searches can run concurrently, so make sure that each index is only built once
+			synchronized (this) {
+				retVal = indexes.get(theParamName);
+				if (retVal == null) {
+					retVal = buildIndex(theResourceType, theParamName);
+					indexes.put(theParamName, retVal);
+				}
+			}
+		}
+		return retVal;
+	}
+
+	private Optional<ParamIndex> buildIndex(String theResourceType, String theParamName) {
+		RuntimeResourceDefinition resourceDefinition = myFhirContext.getResourceDefinition(theResourceType);
+		RuntimeSearchParam searchParam = resourceDefinition.getSearchParam(theParamName);
+		if (searchParam == null || isBlank(searchParam.getPath())) {
+			return Optional.empty();
+		}
+
+		List<ElementPath> paths = parsePaths(resourceDefinition, searchParam);
+		if (paths == null) {
+			return Optional.empty();
+		}
+
+		ParamIndex retVal;
+		RestSearchParameterTypeEnum paramType = searchParam.getParamType();
+		if (paramType == RestSearchParameterTypeEnum.TOKEN) {
+			retVal = new TokenIndex(paths);
+		} else if (paramType == RestSearchParameterTypeEnum.REFERENCE) {
+			retVal = new ReferenceIndex(paths);
+		} else if (paramType == RestSearchParameterTypeEnum.DATE) {
+			retVal = new DateIndex(paths);
+		} else {
+			return Optional.empty();
+		}
+
+		myResourcesOfTypeSupplier.apply(theResourceType).forEach(retVal::add);
+		return Optional.of(retVal);
+	}
+
+	/**
+	 * @return The paths that apply to the given resource type, or <code>null</code> if any of them can't be indexed
+	 */
+	@Nullable
+	private static List<ElementPath> parsePaths(
+			RuntimeResourceDefinition theResourceDefinition, RuntimeSearchParam theSearchParam) {
+		List<ElementPath> retVal = new ArrayList<>();
+		for (String nextPath : theSearchParam.getPathsSplit()) {
+			String path = stripParentheses(nextPath);
+
+			String referenceTargetType = null;
+			Matcher matcher = RESOLVE_IS_PATTERN.matcher(path);
+			if (matcher.matches()) {
+				path = stripParentheses(matcher.group(1));
+				referenceTargetType = matcher.group(2);
+			}
+
+			String valueType = null;
+			matcher = AS_FUNCTION_PATTERN.matcher(path);
+			if (!matcher.matches()) {
+				matcher = AS_OPERATOR_PATTERN.matcher(path);
+			}
+			if (matcher.matches()) {
+				path = stripParentheses(matcher.group(1));
+				valueType = matcher.group(2);
+			}
+
+			if (!ELEMENT_PATH_PATTERN.matcher(path).matches()) {
+				return null;
+			}
+			if (!path.startsWith(theResourceDefinition.getName() + ".")) {
+				// Shared parameters have paths for other resource types too
+				continue;
+			}
+
+			String terserPath = toTerserPath(theResourceDefinition, path);
+			if (terserPath == null) {
+				return null;
+			}
+			retVal.add(new ElementPath(terserPath, valueType, referenceTargetType));
+		}
+		return retVal.isEmpty() ? null : retVal;
+	}
+
+	/**
+	 * Checks that each element in the path exists, and converts a choice element at the end of the
+	 * path to the <code>[x]</code> form that the terser expects
+	 */
+	@Nullable
+	private static String toTerserPath(RuntimeResourceDefinition theResourceDefinition, String thePath) {
+		String[] parts = thePath.split("\\.");
+		StringBuilder retVal = new StringBuilder(parts[0]);
+		BaseRuntimeElementCompositeDefinition<?> currentDef = theResourceDefinition;
+		for (int i = 1; i < parts.length; i++) {
+			boolean last = i == parts.length - 1;
+			String name = parts[i];
+			BaseRuntimeChildDefinition childDef = currentDef.getChildByName(name);
+			if (childDef == null) {
+				name = name + "[x]";
+				childDef = currentDef.getChildByName(name);
+				if (childDef == null || !last) {
+					return null;
+				}
+			}
+			retVal.append('.').append(name);
+
+			if (!last) {
+				BaseRuntimeElementDefinition<?> elementDef = childDef.getChildByName(name);
+				if (!(elementDef instanceof BaseRuntimeElementCompositeDefinition<?> compositeDef)) {
+					return null;
+				}
+				currentDef = compositeDef;
+			}
+		}
+		return retVal.toString();
+	}
+
+	private static String stripParentheses(String thePath) {
+		String retVal = thePath.trim();
+		while (retVal.startsWith("(") && retVal.endsWith(")")) {
+			retVal = retVal.substring(1, retVal.length() - 1).trim();
+		}
+		return retVal;
+	}
+
+	@Nullable
+	private static String getReferenceTargetType(IBase theValue) {
+		if (theValue instanceof IBaseReference reference) {
+			if (reference.getResource() != null) {
+				return reference.getResource().fhirType();
+			}
+			if (reference.getReferenceElement() != null) {
+				return reference.getReferenceElement().getResourceType();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * A simple element path within a search parameter expression
+	 *
+	 * @param terserPath          The path to extract with the terser
+	 * @param valueType           If not null, only values of this FHIR type are indexed
+	 * @param referenceTargetType If not null, only references to this resource type are indexed
+	 */
+	private record ElementPath(String terserPath, @Nullable String valueType, @Nullable String referenceTargetType) {}
+
+	/**
+	 * The index for a single search parameter on a single resource type.
+	 */
+	private abstract class ParamIndex {
+		private final List<ElementPath> myPaths;
+
+		ParamIndex(List<ElementPath> thePaths) {
+			myPaths = thePaths;
+		}
+
+		List<IBase> extractValues(IBaseResource theResource) {
+			List<IBase> retVal = new ArrayList<>();
+			for (ElementPath nextPath : myPaths) {
+				for (IBase next : myTerser.getValues(theResource, nextPath.terserPath())) {
+					if (nextPath.valueType() != null && !nextPath.valueType().equalsIgnoreCase(next.fhirType())) {
+						continue;
+					}
+					if (nextPath.referenceTargetType() != null
+							&& !nextPath.referenceTargetType().equals(getReferenceTargetType(next))) {
+						continue;
+					}
+					retVal.add(next);
+				}
+			}
+			return retVal;
+		}
+
+		abstract void add(IIdType theId, IBaseResource theResource);
+
+		abstract void remove(IIdType theId);
+
+		/**
+		 * @return The IDs of the matching resources, or empty if this value can't be answered by the index
+		 */
+		abstract Optional<Collection<IIdType>> findMatches(IQueryParameterType theValue);
+	}
+
+	/**
+	 * An index from string keys to the resources having that key.
+	 */
+	private abstract class KeyIndex extends ParamIndex {
+		private final Map<String, Set<IIdType>> myKeyToIds = new HashMap<>();
+		private final Map<IIdType, Set<String>> myIdToKeys = new HashMap<>();
+
+		KeyIndex(List<ElementPath> thePaths) {
+			super(thePaths);
+		}
+
+		abstract void addKeys(IBase theValue, Set<String> theKeys);
+
+		@Override
+		void add(IIdType theId, IBaseResource theResource) {
+			Set<String> keys = new HashSet<>();
+			for (IBase next : extractValues(theResource)) {
+				addKeys(next, keys);
+			}
+			if (!keys.isEmpty()) {
+				myIdToKeys.put(theId, keys);
+				for (String next : keys) {
+					myKeyToIds.computeIfAbsent(next, t -> new HashSet<>()).add(theId);
+				}
+			}
+		}
+
+		@Override
+		void remove(IIdType theId) {
+			Set<String> keys = myIdToKeys.remove(theId);
+			if (keys != null) {
+				for (String next : keys) {
+					Set<IIdType> ids = myKeyToIds.get(next);
+					ids.remove(theId);
+					if (ids.isEmpty()) {
+						myKeyToIds.remove(next);
+					}
+				}
+			}
+		}
+
+		Collection<IIdType> getIdsForKey(String theKey) {
+			return myKeyToIds.getOrDefault(theKey, Set.of());
+		}
+	}
+
+	/**
+	 * Indexes each token value under its code alone, under <code>system|code</code> (or
+	 * <code>|code</code> if it has no system), and under <code>system|</code>.
+	 */
+	private class TokenIndex extends KeyIndex {
+
+		TokenIndex(List<ElementPath> thePaths) {
+			super(thePaths);
+		}
+
+		@Override
+		void addKeys(IBase theValue, Set<String> theKeys) {
+			if (theValue instanceof IBaseCoding coding) {
+				addTokenKeys(coding.getSystem(), coding.getCode(), theKeys);
+			} else if (theValue instanceof IPrimitiveType<?> primitive) {
+				addTokenKeys(null, primitive.getValueAsString(), theKeys);
+			} else if ("CodeableConcept".equals(theValue.fhirType())) {
+				for (IBaseCoding next : myTerser.getValues(theValue, "coding", IBaseCoding.class)) {
+					addTokenKeys(next.getSystem(), next.getCode(), theKeys);
+				}
+			} else if ("Identifier".equals(theValue.fhirType())) {
+				addTokenKeys(
+						myTerser.getSinglePrimitiveValueOrNull(theValue, "system"),
+						myTerser.getSinglePrimitiveValueOrNull(theValue, "value"),
+						theKeys);
+			} else if ("ContactPoint".equals(theValue.fhirType())) {
+				addTokenKeys(null, myTerser.getSinglePrimitiveValueOrNull(theValue, "value"), theKeys);
+			}
+		}
+
+		private void addTokenKeys(String theSystem, String theCode, Set<String> theKeys) {
+			if (isNotBlank(theSystem)) {
+				theKeys.add(theSystem + "|");
+			}
+			if (isNotBlank(theCode)) {
+				theKeys.add(theCode);
+				theKeys.add(defaultString(theSystem) + "|" + theCode);
+			}
+		}
+
+		@Override
+		Optional<Collection<IIdType>> findMatches(IQueryParameterType theValue) {
+			if (!(theValue instanceof TokenParam token) || token.getModifier() != null || token.getMissing() != null) {
+				return Optional.empty();
+			}
+
+			String key;
+			if (token.getSystem() == null) {
+				key = token.getValue();
+			} else {
+				key = token.getSystem() + "|" + defaultString(token.getValue());
+			}
+			return Optional.of(getIdsForKey(key));
+		}
+	}
+
+	/**
+	 * Indexes each reference under <code>Type/id</code> and under its bare ID.
+	 */
+	private class ReferenceIndex extends KeyIndex {
+
+		ReferenceIndex(List<ElementPath> thePaths) {
+			super(thePaths);
+		}
+
+		@Override
+		void addKeys(IBase theValue, Set<String> theKeys) {
+			IIdType target = null;
+			if (theValue instanceof IBaseReference reference) {
+				target = reference.getReferenceElement();
+				if ((target == null || target.isEmpty()) && reference.getResource() != null) {
+					target = reference.getResource().getIdElement();
+				}
+			} else if (theValue instanceof IPrimitiveType<?> canonical && isNotBlank(canonical.getValueAsString())) {
+				target = new IdDt(canonical.getValueAsString());
+			}
+
+			if (target != null && isNotBlank(target.getIdPart()) && !target.isLocal()) {
+				theKeys.add(target.getIdPart());
+				if (isNotBlank(target.getResourceType())) {
+					theKeys.add(target.getResourceType() + "/" + target.getIdPart());
+				}
+			}
+		}
+
+		@Override
+		Optional<Collection<IIdType>> findMatches(IQueryParameterType theValue) {
+			if (!(theValue instanceof ReferenceParam reference)
+					|| isNotBlank(reference.getChain())
+					|| reference.getMissing() != null
+					|| isBlank(reference.getIdPart())) {
+				return Optional.empty();
+			}
+
+			String key = reference.getIdPart();
+			if (isNotBlank(reference.getResourceType())) {
+				key = reference.getResourceType() + "/" + key;
+			}
+			return Optional.of(getIdsForKey(key));
+		}
+	}
+
+	/**
+	 * Indexes each date value as the range of instants that it covers (e.g. a whole day for a date),
+	 * sorted by both the start and the end of the range.
+	 */
+	private class DateIndex extends ParamIndex {
+		private final NavigableMap<Long, Set<IIdType>> myLowToIds = new TreeMap<>();
+		private final NavigableMap<Long, Set<IIdType>> myHighToIds = new TreeMap<>();
+		private final Map<IIdType, List<DateRange>> myIdToRanges = new HashMap<>();
+
+		DateIndex(List<ElementPath> thePaths) {
+			super(thePaths);
+		}
+
+		@Override
+		void add(IIdType theId, IBaseResource theResource) {
+			List<DateRange> ranges = new ArrayList<>();
+			for (IBase next : extractValues(theResource)) {
+				DateRange range = valueToRange(next);
+				if (range != null) {
+					ranges.add(range);
+				}
+			}
+			if (!ranges.isEmpty()) {
+				myIdToRanges.put(theId, ranges);
+				for (DateRange next : ranges) {
+					myLowToIds.computeIfAbsent(next.low(), t -> new HashSet<>()).add(theId);
+					myHighToIds
+							.computeIfAbsent(next.high(), t -> new HashSet<>())
+							.add(theId);
+				}
+			}
+		}
+
+		@Override
+		void remove(IIdType theId) {
+			List<DateRange> ranges = myIdToRanges.remove(theId);
+			if (ranges != null) {
+				for (DateRange next : ranges) {
+					removeFrom(myLowToIds, next.low(), theId);
+					removeFrom(myHighToIds, next.high(), theId);
+				}
+			}
+		}
+
+		private void removeFrom(NavigableMap<Long, Set<IIdType>> theMap, long theKey, IIdType theId) {
+			Set<IIdType> ids = theMap.get(theKey);
+			if (ids != null) {
+				ids.remove(theId);
+				if (ids.isEmpty()) {
+					theMap.remove(theKey);
+				}
+			}
+		}
+
+		@Nullable
+		private DateRange valueToRange(IBase theValue) {
+			if (theValue instanceof IPrimitiveType<?> primitive) {
+				return stringToRange(primitive.getValueAsString());
+			}
+			if ("Period".equals(theValue.fhirType())) {
+				DateRange start = stringToRange(myTerser.getSinglePrimitiveValueOrNull(theValue, "start"));
+				DateRange end = stringToRange(myTerser.getSinglePrimitiveValueOrNull(theValue, "end"));
+				if (start == null && end == null) {
+					return null;
+				}
+				return new DateRange(
+						start != null ? start.low() : Long.MIN_VALUE, end != null ? end.high() : Long.MAX_VALUE);
+			}
+			return null;
+		}
+
+		@Override
+		Optional<Collection<IIdType>> findMatches(IQueryParameterType theValue) {
+			if (!(theValue instanceof DateParam date) || date.getMissing() != null) {
+				return Optional.empty();
+			}
+			DateRange param = toRange(date);
+			if (param == null) {
+				return Optional.empty();
+			}
+			ParamPrefixEnum prefix = date.getPrefix() != null ? date.getPrefix() : ParamPrefixEnum.EQUAL;
+
+			// Narrow down the candidates using the sorted indexes, then check each one exactly
+			Collection<Set<IIdType>> candidates =
+					switch (prefix) {
+						case EQUAL -> myLowToIds.tailMap(param.low(), true).values();
+						case GREATERTHAN -> myHighToIds
+								.tailMap(param.high(), false)
+								.values();
+						case GREATERTHAN_OR_EQUALS -> myHighToIds
+								.tailMap(param.low(), true)
+								.values();
+						case LESSTHAN -> myLowToIds.headMap(param.low(), false).values();
+						case LESSTHAN_OR_EQUALS -> myLowToIds
+								.headMap(param.high(), true)
+								.values();
+						case STARTS_AFTER -> myLowToIds
+								.tailMap(param.high(), false)
+								.values();
+						case ENDS_BEFORE -> myHighToIds
+								.headMap(param.low(), false)
+								.values();
+						case NOT_EQUAL, APPROXIMATE -> myLowToIds.values();
+					};
+
+			Set<IIdType> retVal = new HashSet<>();
+			for (Set<IIdType> nextSet : candidates) {
+				for (IIdType next : nextSet) {
+					if (!retVal.contains(next) && anyMatches(myIdToRanges.get(next), prefix, param)) {
+						retVal.add(next);
+					}
+				}
+			}
+			return Optional.of(retVal);
+		}
+	}
+
+	@Nullable
+	private static DateRange stringToRange(@Nullable String theValue) {
+		if (isBlank(theValue)) {
+			return null;
+		}
+		try {
+			return toRange(new DateParam(theValue));
+		} catch (Exception e) {
+			// Not a valid date, so it isn't indexed
+			return null;
+		}
+	}
+
+	@Nullable
+	private static DateRange toRange(DateParam theDate) {
+		Date value = theDate.getValue();
+		if (value == null) {
+			return null;
+		}
+		TemporalPrecisionEnum precision = theDate.getPrecision();
+		long high = precision != null ? precision.add(value, 1).getTime() - 1 : value.getTime();
+		return new DateRange(value.getTime(), high);
+	}
+
+	private static boolean anyMatches(List<DateRange> theRanges, ParamPrefixEnum thePrefix, DateRange theParam) {
+		for (DateRange next : theRanges) {
+			if (matches(next, thePrefix, theParam)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Implements the prefix semantics from the FHIR search specification for a
+	 * target value range against a search value range
+	 */
+	private static boolean matches(DateRange theTarget, ParamPrefixEnum thePrefix, DateRange theParam) {
+		boolean contained = theTarget.low() >= theParam.low() && theTarget.high() <= theParam.high();
+		return switch (thePrefix) {
+			case EQUAL -> contained;
+			case NOT_EQUAL -> !contained;
+			case GREATERTHAN -> theTarget.high() > theParam.high();
+			case GREATERTHAN_OR_EQUALS -> theTarget.high() > theParam.high() || contained;
+			case LESSTHAN -> theTarget.low() < theParam.low();
+			case LESSTHAN_OR_EQUALS -> theTarget.low() < theParam.low() || contained;
+			case STARTS_AFTER -> theTarget.low() > theParam.high();
+			case ENDS_BEFORE -> theTarget.high() < theParam.low();
+			case APPROXIMATE -> theTarget.low() <= theParam.high() && theTarget.high() >= theParam.low();
+		};
+	}
+
+	private record DateRange(long low, long high) {}
+}
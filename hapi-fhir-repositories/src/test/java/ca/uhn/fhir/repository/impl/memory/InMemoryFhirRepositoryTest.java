@@ -1,14 +1,34 @@
 package ca.uhn.fhir.repository.impl.memory;
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.model.api.IQueryParameterType;
 import ca.uhn.fhir.repository.IRepositoryTest;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.StringParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.param.TokenParamModifier;
 import ca.uhn.fhir.util.BundleBuilder;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.DateTimeType;
 import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class InMemoryFhirRepositoryTest implements IRepositoryTest {
 	FhirContext myFhirContext = FhirContext.forR4();
@@ -39,4 +59,159 @@ public class InMemoryFhirRepositoryTest implements IRepositoryTest {
 	    assertThat(myRepository.getResourceStorage().getAllOfType("Patient")).hasSize(1);
 	}
 
+	@Test
+	void testSearchByToken() {
+		IIdType heartRate = createObservation("http://loinc.org", "8867-4", "2020-01-01", null);
+		IIdType bodyWeight = createObservation("http://loinc.org", "29463-7", "2020-01-01", null);
+		createObservation("http://snomed.info/sct", "8867-4", "2020-01-01", null);
+
+		assertThat(searchObservations("code", new TokenParam("http://loinc.org", "8867-4"))).containsExactly(heartRate.getValue());
+		assertThat(searchObservations("code", new TokenParam("http://loinc.org", "8867-4"), new TokenParam("http://loinc.org", "29463-7")))
+			.containsExactlyInAnyOrder(heartRate.getValue(), bodyWeight.getValue());
+		assertThat(searchObservations("code", new TokenParam(null, "8867-4"))).hasSize(2);
+		assertThat(searchObservations("code", new TokenParam("http://loinc.org", null))).hasSize(2);
+		assertThat(searchObservations("status", new TokenParam("final"))).hasSize(3);
+		assertThat(searchObservations("code", new TokenParam("http://loinc.org", "1234-5"))).isEmpty();
+	}
+
+	@Test
+	void testSearchByReference() {
+		IIdType patientId = myRepository.create(new Patient()).getId().toUnqualifiedVersionless();
+		IIdType observationId = createObservation("http://loinc.org", "8867-4", "2020-01-01", patientId);
+		createObservation("http://loinc.org", "8867-4", "2020-01-01", null);
+
+		assertThat(searchObservations("subject", new ReferenceParam(patientId.getValue()))).containsExactly(observationId.getValue());
+		assertThat(searchObservations("patient", new ReferenceParam(patientId.getIdPart()))).containsExactly(observationId.getValue());
+		assertThat(searchObservations("patient", new ReferenceParam("Patient/does-not-exist"))).isEmpty();
+	}
+
+	@Test
+	void testSearchByDate() {
+		// The fixtures are kept away from the year boundaries, since zone-less params resolve in the default timezone
+		IIdType obs2019 = createObservation("http://loinc.org", "8867-4", "2019-06-15T10:00:00Z", null);
+		IIdType obs2020 = createObservation("http://loinc.org", "8867-4", "2020-06-15", null);
+		IIdType obs2021 = createObservation("http://loinc.org", "8867-4", "2021-06-15T10:00:00Z", null);
+
+		assertThat(searchObservations("date", new DateParam("2020-06-15"))).containsExactly(obs2020.getValue());
+		assertThat(searchObservations("date", new DateParam("2020"))).containsExactly(obs2020.getValue());
+		assertThat(searchObservations("date", new DateParam("ge2020-06-15"))).containsExactlyInAnyOrder(obs2020.getValue(), obs2021.getValue());
+		assertThat(searchObservations("date", new DateParam("gt2020-06-15"))).containsExactly(obs2021.getValue());
+		assertThat(searchObservations("date", new DateParam("lt2020-01-01T00:00:00Z"))).containsExactly(obs2019.getValue());
+		assertThat(searchObservations("date", new DateParam("le2020-06-15"))).containsExactlyInAnyOrder(obs2019.getValue(), obs2020.getValue());
+		assertThat(searchObservations("date", new DateParam("ne2020"))).containsExactlyInAnyOrder(obs2019.getValue(), obs2021.getValue());
+	}
+
+	@Test
+	void testSearchCombinesParametersAndId() {
+		IIdType patientId = myRepository.create(new Patient()).getId().toUnqualifiedVersionless();
+		IIdType match = createObservation("http://loinc.org", "8867-4", "2020-01-01", patientId);
+		IIdType otherDate = createObservation("http://loinc.org", "8867-4", "2021-01-01", patientId);
+		createObservation("http://loinc.org", "29463-7", "2020-01-01", patientId);
+
+		Multimap<String, List<IQueryParameterType>> params = ArrayListMultimap.create();
+		params.put("code", List.of(new TokenParam("http://loinc.org", "8867-4")));
+		params.put("subject", List.of(new ReferenceParam(patientId.getValue())));
+		params.put("date", List.of(new DateParam("ge2020-01-01")));
+		params.put("date", List.of(new DateParam("lt2020-12-31")));
+		assertThat(search(params)).containsExactly(match.getValue());
+
+		params.put("_id", List.of(new TokenParam(otherDate.getIdPart())));
+		assertThat(search(params)).isEmpty();
+	}
+
+	@Test
+	void testIndexIsMaintainedOnWrite() {
+		IIdType id = createObservation("http://loinc.org", "8867-4", "2020-01-01", null);
+		TokenParam heartRate = new TokenParam("http://loinc.org", "8867-4");
+		TokenParam bodyWeight = new TokenParam("http://loinc.org", "29463-7");
+		assertThat(searchObservations("code", heartRate)).containsExactly(id.getValue());
+
+		// update
+		Observation updated = myRepository.read(Observation.class, id);
+		updated.getCode().getCodingFirstRep().setCode("29463-7");
+		myRepository.update(updated);
+		assertThat(searchObservations("code", heartRate)).isEmpty();
+		assertThat(searchObservations("code", bodyWeight)).containsExactly(id.getValue());
+
+		// create after the index was built
+		IIdType id2 = createObservation("http://loinc.org", "29463-7", "2020-01-01", null);
+		assertThat(searchObservations("code", bodyWeight)).containsExactlyInAnyOrder(id.getValue(), id2.getValue());
+
+		// delete
+		myRepository.delete(Observation.class, id);
+		assertThat(searchObservations("code", bodyWeight)).containsExactly(id2.getValue());
+	}
+
+	@Test
+	void testSearchFromBundleContents() {
+		Observation observation = new Observation();
+		observation.setId("Observation/obs1");
+		observation.getSubject().setReference("Patient/pat1");
+		observation.getCode().addCoding().setSystem("http://loinc.org").setCode("8867-4");
+		Bundle bundle = new Bundle();
+		bundle.addEntry().setResource(observation);
+
+		myRepository = InMemoryFhirRepository.fromBundleContents(myFhirContext, bundle);
+
+		assertThat(searchObservations("patient", new ReferenceParam("Patient/pat1"))).hasSize(1);
+		assertThat(searchObservations("code", new TokenParam("http://loinc.org", "8867-4"))).hasSize(1);
+	}
+
+	@Test
+	void testUnsupportedParametersAreRejected() {
+		createObservation("http://loinc.org", "8867-4", "2020-01-01", null);
+
+		assertThatThrownBy(() -> searchObservations("code", new TokenParam("http://loinc.org", "8867-4").setModifier(TokenParamModifier.NOT)))
+			.isInstanceOf(UnsupportedOperationException.class)
+			.hasMessageContaining("HAPI-2780");
+		assertThatThrownBy(() -> searchObservations("value-string", new StringParam("foo")))
+			.isInstanceOf(UnsupportedOperationException.class)
+			.hasMessageContaining("HAPI-2780");
+	}
+
+	@Test
+	void testConcurrentSearches() throws Exception {
+		List<IIdType> ids = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			ids.add(createObservation("http://loinc.org", "code-" + (i % 5), "2020-01-01", null));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<List<String>>> futures = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				String code = "code-" + (i % 5);
+				futures.add(executor.submit(() -> searchObservations("code", new TokenParam("http://loinc.org", code))));
+			}
+			for (Future<List<String>> next : futures) {
+				assertThat(next.get()).hasSize(10);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private IIdType createObservation(String theSystem, String theCode, String theDate, IIdType thePatientId) {
+		Observation observation = new Observation();
+		observation.setStatus(Observation.ObservationStatus.FINAL);
+		observation.getCode().addCoding().setSystem(theSystem).setCode(theCode);
+		observation.setEffective(new DateTimeType(theDate));
+		if (thePatientId != null) {
+			observation.setSubject(new Reference(thePatientId));
+		}
+		return myRepository.create(observation).getId().toUnqualifiedVersionless();
+	}
+
+	private List<String> searchObservations(String theParamName, IQueryParameterType... theOrValues) {
+		Multimap<String, List<IQueryParameterType>> params = ArrayListMultimap.create();
+		params.put(theParamName, List.of(theOrValues));
+		return search(params);
+	}
+
+	private List<String> search(Multimap<String, List<IQueryParameterType>> theParams) {
+		Bundle bundle = myRepository.search(Bundle.class, Observation.class, theParams, Map.of());
+		return bundle.getEntry().stream()
+			.map(t -> t.getResource().getIdElement().toUnqualifiedVersionless().getValue())
+			.toList();
+	}
 }
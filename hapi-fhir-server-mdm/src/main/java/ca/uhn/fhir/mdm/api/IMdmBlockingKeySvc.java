@@ -0,0 +1,75 @@
+/*-
+ * #%L
+ * HAPI FHIR - Master Data Management
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.mdm.api;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.mdm.rules.json.MdmResourceSearchParamJson;
+import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+import jakarta.annotation.Nullable;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maintains the MDM blocking key index, which is used for candidate searching when
+ * {@link IMdmSettings#isBlockingKeyIndexEnabled()} is set.
+ *
+ * @since 8.12.0
+ */
+public interface IMdmBlockingKeySvc {
+
+	/**
+	 * Recalculates and stores the blocking keys for the given MDM source resources. Resources which
+	 * aren't of a supported MDM type, and golden resources, are ignored. This does nothing if the
+	 * blocking key index is disabled.
+	 */
+	void updateBlockingKeys(List<? extends IBaseResource> theResources);
+
+	/**
+	 * Returns the blocking keys to store for the given resource and <code>candidateSearchParams</code> entry.
+	 * The returned set is empty if the resource has no values for one of the search parameters in the entry,
+	 * in which case the regular candidate search would be skipped too.
+	 *
+	 * @return The keys, or <code>null</code> if the entry can't be indexed
+	 */
+	@Nullable
+	Set<Long> calculateBlockingKeys(
+			String theResourceType, IBaseResource theResource, MdmResourceSearchParamJson theSearchParams);
+
+	/**
+	 * Returns the blocking keys to look up in order to find the candidates for the given resource and
+	 * <code>candidateSearchParams</code> entry. Unlike {@link #calculateBlockingKeys}, this also returns
+	 * <code>null</code> if the resource has too many values for the entry to be looked up in the index.
+	 *
+	 * @return The keys, or <code>null</code> if the candidates must be found with a regular search
+	 */
+	@Nullable
+	Set<Long> calculateCandidateSearchKeys(
+			String theResourceType, IBaseResource theResource, MdmResourceSearchParamJson theSearchParams);
+
+	/**
+	 * Returns the PIDs of the resources of the given type in the given partitions which have at least one
+	 * of the given blocking keys, stopping once the given number of PIDs have been found
+	 */
+	List<? extends IResourcePersistentId<?>> findResourcePidsByBlockingKeys(
+			String theResourceType, Collection<Long> theKeys, RequestPartitionId theRequestPartitionId, int theLimit);
+}
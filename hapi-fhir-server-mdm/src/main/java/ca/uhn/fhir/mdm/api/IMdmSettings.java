@@ -73,6 +73,22 @@ public interface IMdmSettings {
 		throw new UnsupportedOperationException(Msg.code(2427));
 	}
 
+	/**
+	 * If enabled, MDM candidate searches look up candidates in the blocking key index, which is
+	 * maintained as MDM source resources are processed, instead of running one search per
+	 * <code>candidateSearchParams</code> entry in the MDM rules. Only resources which have been
+	 * processed by MDM while this is enabled are indexed, so existing resources need to be indexed
+	 * with the <code>MDM_BLOCKING_KEY_REBUILD</code> job after enabling this, and again whenever
+	 * the <code>candidateSearchParams</code> are changed. The candidate search limit still applies
+	 * to each entry: an entry for which the index holds at least that many candidates is searched
+	 * the regular way instead, and fails only if that search does.
+	 *
+	 * @since 8.12.0
+	 */
+	default boolean isBlockingKeyIndexEnabled() {
+		return false;
+	}
+
 	// In MATCH_ONLY mode, the Patient/$match operation is available, but no mdm processing takes place.
 	default MdmModeEnum getMode() {
 		return MdmModeEnum.MATCH_AND_LINK;
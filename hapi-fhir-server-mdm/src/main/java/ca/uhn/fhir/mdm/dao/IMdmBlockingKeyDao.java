@@ -0,0 +1,52 @@
+/*-
+ * #%L
+ * HAPI FHIR - Master Data Management
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.mdm.dao;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage for the MDM blocking key index. Each MDM-managed source resource has one row per
+ * blocking key derived from its values for the <code>candidateSearchParams</code> in the
+ * MDM rules, so that candidates can be found with an indexed lookup on the key hash.
+ *
+ * @since 8.12.0
+ */
+public interface IMdmBlockingKeyDao<P extends IResourcePersistentId<?>> {
+
+	/**
+	 * Replaces all of the blocking keys stored for the given resource with the given keys. An empty
+	 * collection removes the resource from the index.
+	 */
+	void replaceBlockingKeys(P theResourcePid, String theResourceType, Collection<Long> theKeyHashes);
+
+	/**
+	 * Returns the PIDs of the resources of the given type in the given partitions which have at least
+	 * one of the given blocking keys, stopping once the given number of PIDs have been found
+	 */
+	List<P> findResourcePidsByBlockingKeys(
+			String theResourceType,
+			Collection<Long> theKeyHashes,
+			RequestPartitionId theRequestPartitionId,
+			int theLimit);
+}
@@ -46,6 +46,7 @@ public class MdmSettings implements IMdmSettings {
 	private boolean mySearchAllPartitionForMatch = false;
 	private boolean myShouldAutoDeleteGoldenResources = true;
 	private MdmModeEnum myMdmMode = MATCH_AND_LINK;
+	private boolean myBlockingKeyIndexEnabled = false;
 
 	/**
 	 * If disabled, the underlying MDM system will operate under the following assumptions:
@@ -174,6 +175,20 @@ public class MdmSettings implements IMdmSettings {
 		myShouldAutoDeleteGoldenResources = theShouldAutoExpunge;
 	}
 
+	@Override
+	public boolean isBlockingKeyIndexEnabled() {
+		return myBlockingKeyIndexEnabled;
+	}
+
+	/**
+	 * @see IMdmSettings#isBlockingKeyIndexEnabled()
+	 * @since 8.12.0
+	 */
+	public MdmSettings setBlockingKeyIndexEnabled(boolean theBlockingKeyIndexEnabled) {
+		myBlockingKeyIndexEnabled = theBlockingKeyIndexEnabled;
+		return this;
+	}
+
 	public void setMdmMode(MdmModeEnum theMdmMode) {
 		myMdmMode = theMdmMode;
 	}
@@ -100,6 +100,14 @@ public class MdmRulesJson implements IModelJson {
 		return myVectorMatchResultMap.get(theMatchVector);
 	}
 
+	/**
+	 * @see VectorMatchResultMap#canMatchOrPossiblyMatch(long, long)
+	 * @since 8.12.0
+	 */
+	public boolean canMatchOrPossiblyMatch(long theMatchedVector, long theUnevaluatedVector) {
+		return myVectorMatchResultMap.canMatchOrPossiblyMatch(theMatchedVector, theUnevaluatedVector);
+	}
+
 	public void putMatchResult(String theFieldMatchNames, MdmMatchResultEnum theMatchResult) {
 		myMatchResultMap.put(theFieldMatchNames, theMatchResult);
 		initialize();
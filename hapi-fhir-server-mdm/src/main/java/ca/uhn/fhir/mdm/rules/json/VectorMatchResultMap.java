@@ -65,6 +65,26 @@ public class VectorMatchResultMap {
 		return MdmMatchResultEnum.NO_MATCH;
 	}
 
+	/**
+	 * Returns whether a MATCH or POSSIBLE_MATCH rule could still be satisfied by a vector which already
+	 * contains the bits in <code>theMatchedVector</code>, if some or all of the bits in
+	 * <code>theUnevaluatedVector</code> were added to it.
+	 */
+	public boolean canMatchOrPossiblyMatch(long theMatchedVector, long theUnevaluatedVector) {
+		long reachable = theMatchedVector | theUnevaluatedVector;
+		for (long next : myMatchVectors) {
+			if ((next & reachable) == next) {
+				return true;
+			}
+		}
+		for (long next : myPossibleMatchVectors) {
+			if ((next & reachable) == next) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public Set<String> getMatchedRules(Long theVector) {
 		if (theVector == null) {
 			return new HashSet<>();
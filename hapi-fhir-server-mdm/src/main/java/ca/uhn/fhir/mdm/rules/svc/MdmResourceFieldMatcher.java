@@ -19,6 +19,7 @@
  */
 package ca.uhn.fhir.mdm.rules.svc;
 
+import ca.uhn.fhir.context.ConfigurationException;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.fhirpath.IFhirPath;
 import ca.uhn.fhir.i18n.Msg;
@@ -33,6 +34,7 @@ import ca.uhn.fhir.mdm.rules.similarity.IMdmFieldSimilarity;
 import ca.uhn.fhir.mdm.rules.similarity.ISimilarityFactory;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.util.FhirTerser;
+import jakarta.annotation.Nullable;
 import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -55,6 +57,8 @@ public class MdmResourceFieldMatcher {
 	private final MdmRulesJson myMdmRulesJson;
 	private final String myName;
 	private final boolean myIsFhirPathExpression;
+	private final IFhirPath.IParsedExpression myParsedFhirPath;
+	private final FhirTerser myTerser;
 
 	private final IMdmFieldMatcher myMatcher;
 	private final IMdmFieldSimilarity mySimilarity;
@@ -73,11 +77,22 @@ public class MdmResourceFieldMatcher {
 		myName = theMdmFieldMatchJson.getName();
 		myMdmRulesJson = theMdmRulesJson;
 		myIsFhirPathExpression = myFhirPath != null;
+		myParsedFhirPath = myIsFhirPathExpression ? parseFhirPath(theFhirContext.newFhirPath()) : null;
+		myTerser = theFhirContext.newTerser();
 
 		myMatcher = resolveMatcher(theIMatcherFactory, theMdmFieldMatchJson.getMatcher());
 		mySimilarity = resolveSimilarity(theSimilarityFactory, theMdmFieldMatchJson.getSimilarity());
 	}
 
+	private IFhirPath.IParsedExpression parseFhirPath(IFhirPath theFhirPath) {
+		try {
+			return theFhirPath.parse(myFhirPath);
+		} catch (Exception e) {
+			throw new ConfigurationException(Msg.code(3006) + "MatchField [" + myName + "] resourceType ["
+					+ myResourceType + "] has an invalid FHIRPath expression: " + e.getMessage());
+		}
+	}
+
 	private static IMdmFieldMatcher resolveMatcher(IMatcherFactory theFactory, MdmMatcherJson theMatcherJson) {
 		return Optional.ofNullable(theMatcherJson)
 				.map(MdmMatcherJson::getAlgorithm)
@@ -105,25 +120,41 @@ public class MdmResourceFieldMatcher {
 	 * @return A boolean indicating whether they match.
 	 */
 	public MdmMatchEvaluation match(IBaseResource theLeftResource, IBaseResource theRightResource) {
-		validate(theLeftResource);
-		validate(theRightResource);
+		IFhirPath fhirPath = myIsFhirPathExpression ? myFhirContext.newFhirPath() : null;
+		List<IBase> leftValues = extractValues(theLeftResource, fhirPath);
+		List<IBase> rightValues = extractValues(theRightResource, fhirPath);
+		return match(leftValues, rightValues);
+	}
 
-		List<IBase> leftValues;
-		List<IBase> rightValues;
+	/**
+	 * Extracts the values of this field from the given resource, so that they can be compared
+	 * using {@link #match(List, List)}.
+	 *
+	 * @param theResource the {@link IBaseResource} to extract the values from
+	 * @param theFhirPath the FHIRPath engine to evaluate the expression with. This is only used if this
+	 *                    field uses a FHIRPath expression, and if it is <code>null</code> a new engine is
+	 *                    created. Creating an engine is expensive, so callers extracting many fields should
+	 *                    create one and share it between them.
+	 * @since 8.12.0
+	 */
+	public List<IBase> extractValues(IBaseResource theResource, @Nullable IFhirPath theFhirPath) {
+		validate(theResource);
 
 		if (myIsFhirPathExpression) {
-			IFhirPath fhirPath = myFhirContext.newFhirPath();
-			leftValues = fhirPath.evaluate(theLeftResource, myFhirPath, IBase.class);
-			rightValues = fhirPath.evaluate(theRightResource, myFhirPath, IBase.class);
-		} else {
-			FhirTerser fhirTerser = myFhirContext.newTerser();
-			leftValues = fhirTerser.getValues(theLeftResource, myResourcePath, IBase.class);
-			rightValues = fhirTerser.getValues(theRightResource, myResourcePath, IBase.class);
+			IFhirPath fhirPath = theFhirPath != null ? theFhirPath : myFhirContext.newFhirPath();
+			return fhirPath.evaluate(theResource, myParsedFhirPath, IBase.class);
 		}
-		return match(leftValues, rightValues);
+		return myTerser.getValues(theResource, myResourcePath, IBase.class);
 	}
 
-	private MdmMatchEvaluation match(List<IBase> theLeftValues, List<IBase> theRightValues) {
+	/**
+	 * Compares the values of this field which were extracted from two resources using
+	 * {@link #extractValues(IBaseResource, IFhirPath)}. If any of the left values match any of
+	 * the right values, the result is a match.
+	 *
+	 * @since 8.12.0
+	 */
+	public MdmMatchEvaluation match(List<IBase> theLeftValues, List<IBase> theRightValues) {
 		MdmMatchEvaluation retval = new MdmMatchEvaluation(false, 0.0);
 
 		boolean isMatchingEmptyFieldValues = (theLeftValues.isEmpty() && theRightValues.isEmpty());
@@ -183,6 +214,10 @@ public class MdmResourceFieldMatcher {
 		return myResourceType;
 	}
 
+	public boolean isFhirPathExpression() {
+		return myIsFhirPathExpression;
+	}
+
 	public String getResourcePath() {
 		return myResourcePath;
 	}
@@ -0,0 +1,73 @@
+/*-
+ * #%L
+ * HAPI FHIR - Master Data Management
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.mdm.rules.svc;
+
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.util.List;
+
+/**
+ * The values of every match field that applies to a resource, extracted once by
+ * {@link MdmResourceMatcherSvc#extractFieldValues(IBaseResource)} so that the resource can be
+ * compared against many candidates without evaluating the field paths on it again for each one.
+ *
+ * @since 8.12.0
+ */
+public class MdmResourceFieldValues {
+
+	private final IBaseResource myResource;
+	private final String myResourceType;
+	private final int[] myFieldMatcherIndexes;
+	private final List<List<IBase>> myValues;
+
+	MdmResourceFieldValues(
+			IBaseResource theResource,
+			String theResourceType,
+			int[] theFieldMatcherIndexes,
+			List<List<IBase>> theValues) {
+		myResource = theResource;
+		myResourceType = theResourceType;
+		myFieldMatcherIndexes = theFieldMatcherIndexes;
+		myValues = theValues;
+	}
+
+	public IBaseResource getResource() {
+		return myResource;
+	}
+
+	public String getResourceType() {
+		return myResourceType;
+	}
+
+	/**
+	 * The indexes of the field matchers which apply to this resource type, in rule order
+	 */
+	int[] getFieldMatcherIndexes() {
+		return myFieldMatcherIndexes;
+	}
+
+	/**
+	 * The values extracted by the field matcher at the given index
+	 */
+	List<IBase> getValues(int theFieldMatcherIndex) {
+		return myValues.get(theFieldMatcherIndex);
+	}
+}
@@ -21,6 +21,7 @@ package ca.uhn.fhir.mdm.rules.svc;
 
 import ca.uhn.fhir.context.ConfigurationException;
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.fhirpath.IFhirPath;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.mdm.api.IMdmSettings;
 import ca.uhn.fhir.mdm.api.MdmConstants;
@@ -33,12 +34,16 @@ import ca.uhn.fhir.mdm.rules.json.MdmRulesJson;
 import ca.uhn.fhir.mdm.rules.matcher.IMatcherFactory;
 import ca.uhn.fhir.mdm.rules.similarity.ISimilarityFactory;
 import com.google.common.annotations.VisibleForTesting;
+import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.slf4j.Logger;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The MdmResourceComparator is in charge of performing actual comparisons between left and right records.
@@ -53,6 +58,7 @@ public class MdmResourceMatcherSvc {
 	private final IMatcherFactory myMatcherFactory;
 	private final ISimilarityFactory mySimilarityFactory;
 	private final List<MdmResourceFieldMatcher> myFieldMatchers = new ArrayList<>();
+	private final Map<String, int[]> myFieldMatcherIndexesByResourceType = new ConcurrentHashMap<>();
 
 	private MdmRulesJson myMdmRulesJson;
 	private volatile boolean myFieldMatchersInitialized = false;
@@ -85,6 +91,7 @@ public class MdmResourceMatcherSvc {
 					+ "Failed to load MDM Rules.  If MDM is enabled, then MDM rules must be available in context.");
 		}
 		myFieldMatchers.clear();
+		myFieldMatcherIndexesByResourceType.clear();
 		for (MdmFieldMatchJson matchFieldJson : myMdmRulesJson.getMatchFields()) {
 			myFieldMatchers.add(new MdmResourceFieldMatcher(
 					myFhirContext, myMatcherFactory, mySimilarityFactory, matchFieldJson, myMdmRulesJson));
@@ -104,8 +111,50 @@ public class MdmResourceMatcherSvc {
 	}
 
 	MdmMatchOutcome match(IBaseResource theLeftResource, IBaseResource theRightResource) {
+		return match(extractFieldValues(theLeftResource), theRightResource, false);
+	}
+
+	/**
+	 * Extracts the values of every match field that applies to the given resource. Use this with
+	 * {@link #getMatchResult(MdmResourceFieldValues, IBaseResource)} when comparing one resource
+	 * against many candidates, so that its fields are only extracted once.
+	 *
+	 * @since 8.12.0
+	 */
+	public MdmResourceFieldValues extractFieldValues(IBaseResource theResource) {
+		ensureFieldMatchersInitialized();
+		String resourceType = myFhirContext.getResourceType(theResource);
+		int[] fieldMatcherIndexes = getFieldMatcherIndexes(resourceType);
+
+		IFhirPath fhirPath = null;
+		List<List<IBase>> values = new ArrayList<>(Collections.nCopies(myFieldMatchers.size(), null));
+		for (int i : fieldMatcherIndexes) {
+			MdmResourceFieldMatcher fieldMatcher = myFieldMatchers.get(i);
+			if (fieldMatcher.isFhirPathExpression() && fhirPath == null) {
+				fhirPath = myFhirContext.newFhirPath();
+			}
+			values.set(i, fieldMatcher.extractValues(theResource, fhirPath));
+		}
+		return new MdmResourceFieldValues(theResource, resourceType, fieldMatcherIndexes, values);
+	}
+
+	/**
+	 * Compares a resource whose fields were extracted using {@link #extractFieldValues(IBaseResource)}
+	 * against a candidate. This gives the same {@link MdmMatchResultEnum} as
+	 * {@link #getMatchResult(IBaseResource, IBaseResource)}, but stops comparing fields as soon as no
+	 * MATCH or POSSIBLE_MATCH rule can be satisfied any more. When that happens the outcome is
+	 * NO_MATCH, and its vector and score only reflect the fields that were compared.
+	 *
+	 * @since 8.12.0
+	 */
+	public MdmMatchOutcome getMatchResult(MdmResourceFieldValues theLeftValues, IBaseResource theRightResource) {
+		return match(theLeftValues, theRightResource, true);
+	}
+
+	private MdmMatchOutcome match(
+			MdmResourceFieldValues theLeftValues, IBaseResource theRightResource, boolean theStopWhenNoMatch) {
 		ensureFieldMatchersInitialized();
-		MdmMatchOutcome matchResult = getMatchOutcome(theLeftResource, theRightResource);
+		MdmMatchOutcome matchResult = getMatchOutcome(theLeftValues, theRightResource, theStopWhenNoMatch);
 		MdmMatchResultEnum matchResultEnum = myMdmRulesJson.getMatchResult(matchResult.getVector());
 		matchResult.setMatchResultEnum(matchResultEnum);
 		if (ourLog.isDebugEnabled()) {
@@ -138,29 +187,33 @@ public class MdmResourceMatcherSvc {
 	 * 0001|0010 = 0011
 	 * The binary string is now `0011`, which when you return it as a long becomes `3`.
 	 */
-	private MdmMatchOutcome getMatchOutcome(IBaseResource theLeftResource, IBaseResource theRightResource) {
+	private MdmMatchOutcome getMatchOutcome(
+			MdmResourceFieldValues theLeftValues, IBaseResource theRightResource, boolean theStopWhenNoMatch) {
 		long vector = 0;
 		double score = 0.0;
 		int appliedRuleCount = 0;
 
-		// TODO GGG MDM: This grabs ALL comparators, not just the ones we care about (e.g. the ones for Medication)
-		String resourceType = myFhirContext.getResourceType(theLeftResource);
+		int[] fieldMatcherIndexes = theLeftValues.getFieldMatcherIndexes();
+		long unevaluatedVector = 0;
+		for (int i : fieldMatcherIndexes) {
+			unevaluatedVector |= (1L << i);
+		}
 
-		for (int i = 0; i < myFieldMatchers.size(); ++i) {
-			// any that are not for the resourceType in question.
+		IFhirPath fhirPath = null;
+		for (int i : fieldMatcherIndexes) {
 			MdmResourceFieldMatcher fieldComparator = myFieldMatchers.get(i);
-			if (!isValidResourceType(resourceType, fieldComparator.getResourceType())) {
-				ourLog.debug(
-						"Matcher {} is not valid for resource type: {}. Skipping it.",
-						fieldComparator.getName(),
-						resourceType);
-				continue;
-			}
 			ourLog.trace(
 					"Matcher {} is valid for resource type: {}. Evaluating match.",
 					fieldComparator.getName(),
-					resourceType);
-			MdmMatchEvaluation matchEvaluation = fieldComparator.match(theLeftResource, theRightResource);
+					theLeftValues.getResourceType());
+			if (fieldComparator.isFhirPathExpression() && fhirPath == null) {
+				fhirPath = myFhirContext.newFhirPath();
+			}
+			List<IBase> rightValues = fieldComparator.extractValues(theRightResource, fhirPath);
+			MdmMatchEvaluation matchEvaluation = fieldComparator.match(theLeftValues.getValues(i), rightValues);
+			unevaluatedVector &= ~(1L << i);
+			appliedRuleCount += 1;
+
 			if (matchEvaluation.match) {
 				vector |= (1L << i);
 				ourLog.trace(
@@ -174,8 +227,14 @@ public class MdmResourceMatcherSvc {
 						"No match: Matcher {} did not match (score: {}).",
 						fieldComparator.getName(),
 						matchEvaluation.score);
+				if (theStopWhenNoMatch
+						&& unevaluatedVector != 0
+						&& !myMdmRulesJson.canMatchOrPossiblyMatch(vector, unevaluatedVector)) {
+					ourLog.trace(
+							"No MATCH or POSSIBLE_MATCH rule can be satisfied any more. Skipping remaining matchers.");
+					break;
+				}
 			}
-			appliedRuleCount += 1;
 		}
 
 		MdmMatchOutcome retVal = new MdmMatchOutcome(vector, score);
@@ -183,6 +242,28 @@ public class MdmResourceMatcherSvc {
 		return retVal;
 	}
 
+	/**
+	 * Returns the indexes of the field matchers that apply to the given resource type, so
+	 * that matchers for other resource types don't need to be checked for every candidate
+	 */
+	private int[] getFieldMatcherIndexes(String theResourceType) {
+		return myFieldMatcherIndexesByResourceType.computeIfAbsent(theResourceType, t -> {
+			List<Integer> indexes = new ArrayList<>();
+			for (int i = 0; i < myFieldMatchers.size(); ++i) {
+				MdmResourceFieldMatcher fieldComparator = myFieldMatchers.get(i);
+				if (isValidResourceType(t, fieldComparator.getResourceType())) {
+					indexes.add(i);
+				} else {
+					ourLog.debug(
+							"Matcher {} is not valid for resource type: {}. Skipping it.",
+							fieldComparator.getName(),
+							t);
+				}
+			}
+			return indexes.stream().mapToInt(Integer::intValue).toArray();
+		});
+	}
+
 	private boolean isValidResourceType(String theResourceType, String theFieldComparatorType) {
 		return (theFieldComparatorType.equalsIgnoreCase(MdmConstants.ALL_RESOURCE_SEARCH_PARAM_TYPE)
 				|| theFieldComparatorType.equalsIgnoreCase(theResourceType));
@@ -66,12 +66,21 @@ public class MdmSearchParamSvc {
 
 	public List<String> getValueFromResourceForSearchParam(IBaseResource theResource, String theSearchParam) {
 		String resourceType = myFhirContext.getResourceType(theResource);
-		String searchParam = SearchParameterUtil.stripModifier(theSearchParam);
-		RuntimeSearchParam activeSearchParam = mySearchParamRegistry.getActiveSearchParam(
-				resourceType, searchParam, ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH);
+		RuntimeSearchParam activeSearchParam = getActiveSearchParam(resourceType, theSearchParam);
 		return mySearchParamExtractorService.extractParamValuesAsStrings(activeSearchParam, theResource);
 	}
 
+	/**
+	 * Returns the active search parameter with the given name, ignoring any modifier, or <code>null</code>
+	 * if there isn't one
+	 */
+	@Nullable
+	public RuntimeSearchParam getActiveSearchParam(String theResourceType, String theSearchParam) {
+		String searchParam = SearchParameterUtil.stripModifier(theSearchParam);
+		return mySearchParamRegistry.getActiveSearchParam(
+				theResourceType, searchParam, ISearchParamRegistry.SearchParamLookupContextEnum.SEARCH);
+	}
+
 	/**
 	 * Given a source type, and a criteria string of the shape {@code name=x&birthDate=y}, generate a {@link SearchParameterMap}
 	 * that represents this query.
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class VectorMatchResultMapTest {
@@ -73,4 +74,26 @@ public class VectorMatchResultMapTest {
 		assertEquals(MdmMatchResultEnum.MATCH, map.get(3L));
 		assertEquals(MdmMatchResultEnum.MATCH, map.get(7L));
 	}
+
+	@Test
+	public void testCanMatchOrPossiblyMatch() {
+		MdmRulesJson mdmRulesJson = new MdmRulesJson();
+		mdmRulesJson.setVersion("1");
+		MdmMatcherJson matcherJson = new MdmMatcherJson().setAlgorithm(MatchTypeEnum.STRING);
+		mdmRulesJson.addMatchField(new MdmFieldMatchJson().setName("given").setResourceType("Patient").setResourcePath("name.given").setMatcher(matcherJson));
+		mdmRulesJson.addMatchField(new MdmFieldMatchJson().setName("family").setResourceType("Patient").setResourcePath("name.family").setMatcher(matcherJson));
+		mdmRulesJson.addMatchField(new MdmFieldMatchJson().setName("prefix").setResourceType("Patient").setResourcePath("name.prefix").setMatcher(matcherJson));
+		mdmRulesJson.putMatchResult("given,family", MdmMatchResultEnum.MATCH);
+		mdmRulesJson.putMatchResult("family,prefix", MdmMatchResultEnum.POSSIBLE_MATCH);
+
+		VectorMatchResultMap map = new VectorMatchResultMap(mdmRulesJson);
+		// Nothing evaluated yet
+		assertTrue(map.canMatchOrPossiblyMatch(0L, 7L));
+		// given failed, family and prefix could still give a POSSIBLE_MATCH
+		assertTrue(map.canMatchOrPossiblyMatch(0L, 6L));
+		// family failed, so neither rule can be satisfied
+		assertFalse(map.canMatchOrPossiblyMatch(1L, 4L));
+		// given and family matched
+		assertTrue(map.canMatchOrPossiblyMatch(3L, 0L));
+	}
 }
@@ -7,6 +7,7 @@ import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -74,4 +75,35 @@ public class MdmResourceMatcherSvcR4Test extends BaseMdmRulesR4Test {
 		outcome = myMdmResourceMatcherSvc.getMatchResult(myJohn, myJohny);
 		assertMatchResult(MdmMatchResultEnum.MATCH, 3L, 1.816, false, false, outcome);
 	}
+
+	@Test
+	public void testMatchResultFromExtractedFieldValues() {
+		myJohn.addName().setFamily("Smith");
+		myJohny.addName().setFamily("Smith");
+		Patient patient3 = new Patient();
+		patient3.setId("Patient/3");
+		patient3.addName().addGiven("John").setFamily("Jones");
+
+		MdmResourceFieldValues johnValues = myMdmResourceMatcherSvc.extractFieldValues(myJohn);
+		assertMatchResult(MdmMatchResultEnum.MATCH, 3L, 1.816, false, false, myMdmResourceMatcherSvc.getMatchResult(johnValues, myJohny));
+		assertMatchResult(MdmMatchResultEnum.POSSIBLE_MATCH, 1L, 1.0, false, false, myMdmResourceMatcherSvc.getMatchResult(johnValues, patient3));
+	}
+
+	@Test
+	public void testMatchResultFromExtractedFieldValuesStopsWhenNoRuleCanMatch() {
+		myJohn.addName().setFamily("Smith");
+		Patient patient3 = new Patient();
+		patient3.setId("Patient/3");
+		patient3.addName().addGiven("Henry").setFamily("Smith");
+
+		// Every rule needs the given name, so once that fails the family name isn't compared
+		MdmMatchOutcome outcome = myMdmResourceMatcherSvc.getMatchResult(myMdmResourceMatcherSvc.extractFieldValues(myJohn), patient3);
+		assertMatchResult(MdmMatchResultEnum.NO_MATCH, 0L, 0.0, false, false, outcome);
+		assertEquals(1, outcome.getMdmRuleCount());
+
+		// Comparing the resources directly still compares every field
+		outcome = myMdmResourceMatcherSvc.getMatchResult(myJohn, patient3);
+		assertMatchResult(MdmMatchResultEnum.NO_MATCH, 2L, 1.0, false, false, outcome);
+		assertEquals(2, outcome.getMdmRuleCount());
+	}
 }
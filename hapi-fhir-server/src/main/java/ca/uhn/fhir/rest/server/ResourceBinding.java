@@ -19,12 +19,22 @@
  */
 package ca.uhn.fhir.rest.server;
 
+import ca.uhn.fhir.rest.api.RequestTypeEnum;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.method.BaseMethodBinding;
 import ca.uhn.fhir.rest.server.method.MethodMatchEnum;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.commons.lang3.StringUtils.defaultString;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 
 /**
  * Holds all method bindings for an individual resource type
@@ -34,7 +44,8 @@ public class ResourceBinding {
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(ResourceBinding.class);
 
 	private String myResourceName;
-	private final LinkedList<BaseMethodBinding> myMethodBindings = new LinkedList<>();
+	private final MethodBindingList myMethodBindings = new MethodBindingList();
+	private volatile DispatchTable myDispatchTable;
 
 	/**
 	 * Constructor
@@ -52,13 +63,15 @@ public class ResourceBinding {
 		ourLog.debug("Looking for a handler for {}", theRequest);
 
 		/*
-		 * Look for the method with the highest match strength
+		 * Look for the method with the highest match strength. Only the methods
+		 * which could possibly match the request type, operation and compartment
+		 * are tested, in the same order as they appear in the full list.
 		 */
 
 		BaseMethodBinding matchedMethod = null;
 		MethodMatchEnum matchedMethodStrength = null;
 
-		for (BaseMethodBinding rm : myMethodBindings) {
+		for (BaseMethodBinding rm : getDispatchTable().getCandidates(theRequest)) {
 			MethodMatchEnum nextMethodMatch = rm.incomingServerRequestMatchesMethod(theRequest);
 			if (nextMethodMatch != MethodMatchEnum.NONE) {
 				if (matchedMethodStrength == null || matchedMethodStrength.ordinal() < nextMethodMatch.ordinal()) {
@@ -74,6 +87,23 @@ public class ResourceBinding {
 		return matchedMethod;
 	}
 
+	/**
+	 * Returns the dispatch table for the current set of method bindings, rebuilding it
+	 * if the bindings have been modified since it was last built. Bindings may be added
+	 * and removed either through {@link #addMethod(BaseMethodBinding)} or directly through
+	 * the list returned by {@link #getMethodBindings()}, so modifications are detected
+	 * using the list modification count.
+	 */
+	DispatchTable getDispatchTable() {
+		DispatchTable retVal = myDispatchTable;
+		int modificationCount = myMethodBindings.getModificationCount();
+		if (retVal == null || retVal.myModificationCount != modificationCount) {
+			retVal = new DispatchTable(new ArrayList<>(myMethodBindings), modificationCount);
+			myDispatchTable = retVal;
+		}
+		return retVal;
+	}
+
 	public String getResourceName() {
 		return myResourceName;
 	}
@@ -107,4 +137,140 @@ public class ResourceBinding {
 	public int hashCode() {
 		return 0;
 	}
+
+	private static class MethodBindingList extends LinkedList<BaseMethodBinding> {
+
+		int getModificationCount() {
+			return modCount;
+		}
+	}
+
+	/**
+	 * Precomputed lists of candidate method bindings, keyed by request type, operation
+	 * name and compartment name. Each list preserves the relative order of the bindings,
+	 * so the method selected by {@link #getMethod(RequestDetails)} is the same as if every
+	 * binding had been tested.
+	 */
+	static class DispatchTable {
+		private static final BaseMethodBinding[] EMPTY = new BaseMethodBinding[0];
+
+		private final int myModificationCount;
+		private final BaseMethodBinding[] myAllBindings;
+		private final Map<RequestTypeEnum, OperationTable> myRequestTypeToOperationTable =
+				new EnumMap<>(RequestTypeEnum.class);
+
+		DispatchTable(List<BaseMethodBinding> theBindings, int theModificationCount) {
+			myModificationCount = theModificationCount;
+			myAllBindings = theBindings.toArray(EMPTY);
+
+			List<DispatchKeys> keys = new ArrayList<>(theBindings.size());
+			Set<String> operationNames = new HashSet<>();
+			Set<String> compartmentNames = new HashSet<>();
+			for (BaseMethodBinding next : theBindings) {
+				DispatchKeys nextKeys = new DispatchKeys(next);
+				keys.add(nextKeys);
+				addAllIfNotNull(operationNames, nextKeys.myOperationNames);
+				addAllIfNotNull(compartmentNames, nextKeys.myCompartmentNames);
+			}
+
+			for (RequestTypeEnum nextRequestType : RequestTypeEnum.values()) {
+				List<DispatchKeys> candidates = keys.stream()
+						.filter(t -> matches(t.myRequestTypes, nextRequestType))
+						.toList();
+				myRequestTypeToOperationTable.put(
+						nextRequestType, new OperationTable(candidates, operationNames, compartmentNames));
+			}
+		}
+
+		BaseMethodBinding[] getCandidates(RequestDetails theRequest) {
+			RequestTypeEnum requestType = theRequest.getRequestType();
+			if (requestType == null) {
+				return myAllBindings;
+			}
+			String operation = theRequest.getOperation();
+			if (isBlank(operation)) {
+				operation = "";
+			}
+			String compartmentName = defaultString(theRequest.getCompartmentName());
+			return myRequestTypeToOperationTable.get(requestType).getCandidates(operation, compartmentName);
+		}
+
+		private static <T> boolean matches(Set<T> theAllowedValues, T theValue) {
+			return theAllowedValues == null || theAllowedValues.contains(theValue);
+		}
+
+		private static <T> void addAllIfNotNull(Set<T> theTarget, Set<T> theValues) {
+			if (theValues != null) {
+				theTarget.addAll(theValues);
+			}
+		}
+
+		private static class DispatchKeys {
+			private final BaseMethodBinding myBinding;
+			private final Set<RequestTypeEnum> myRequestTypes;
+			private final Set<String> myOperationNames;
+			private final Set<String> myCompartmentNames;
+
+			private DispatchKeys(BaseMethodBinding theBinding) {
+				myBinding = theBinding;
+				myRequestTypes = theBinding.getDispatchRequestTypes();
+				myOperationNames = theBinding.getDispatchOperationNames();
+				myCompartmentNames = theBinding.getDispatchCompartmentNames();
+			}
+		}
+
+		/**
+		 * Candidates for a single request type, keyed by operation name. Operation names which
+		 * no binding declares share a table containing only the bindings that accept any operation.
+		 */
+		private static class OperationTable {
+			private final Map<String, CompartmentTable> myOperationNameToCompartmentTable = new HashMap<>();
+			private final CompartmentTable myOtherOperations;
+
+			private OperationTable(
+					List<DispatchKeys> theCandidates, Set<String> theOperationNames, Set<String> theCompartmentNames) {
+				for (String nextOperationName : theOperationNames) {
+					List<DispatchKeys> candidates = theCandidates.stream()
+							.filter(t -> matches(t.myOperationNames, nextOperationName))
+							.toList();
+					myOperationNameToCompartmentTable.put(
+							nextOperationName, new CompartmentTable(candidates, theCompartmentNames));
+				}
+				List<DispatchKeys> candidates = theCandidates.stream()
+						.filter(t -> t.myOperationNames == null)
+						.toList();
+				myOtherOperations = new CompartmentTable(candidates, theCompartmentNames);
+			}
+
+			private BaseMethodBinding[] getCandidates(String theOperationName, String theCompartmentName) {
+				return myOperationNameToCompartmentTable
+						.getOrDefault(theOperationName, myOtherOperations)
+						.getCandidates(theCompartmentName);
+			}
+		}
+
+		private static class CompartmentTable {
+			private final Map<String, BaseMethodBinding[]> myCompartmentNameToBindings = new HashMap<>();
+			private final BaseMethodBinding[] myOtherCompartments;
+
+			private CompartmentTable(List<DispatchKeys> theCandidates, Set<String> theCompartmentNames) {
+				for (String nextCompartmentName : theCompartmentNames) {
+					myCompartmentNameToBindings.put(
+							nextCompartmentName,
+							theCandidates.stream()
+									.filter(t -> matches(t.myCompartmentNames, nextCompartmentName))
+									.map(t -> t.myBinding)
+									.toArray(BaseMethodBinding[]::new));
+				}
+				myOtherCompartments = theCandidates.stream()
+						.filter(t -> t.myCompartmentNames == null)
+						.map(t -> t.myBinding)
+						.toArray(BaseMethodBinding[]::new);
+			}
+
+			private BaseMethodBinding[] getCandidates(String theCompartmentName) {
+				return myCompartmentNameToBindings.getOrDefault(theCompartmentName, myOtherCompartments);
+			}
+		}
+	}
 }
@@ -1817,9 +1817,24 @@ public class RestfulServer extends HttpServlet implements IRestfulServer<Servlet
 					}
 				}
 			}
+			rebuildDispatchTables();
 		}
 	}
 
+	/**
+	 * Eagerly rebuilds the method dispatch table of each {@link ResourceBinding} after
+	 * providers have been added or removed, so that the first request after the change
+	 * doesn't pay for it. Bindings detect modifications themselves, so this is only an
+	 * optimization.
+	 */
+	private void rebuildDispatchTables() {
+		for (ResourceBinding next : myResourceNameToBinding.values()) {
+			next.getDispatchTable();
+		}
+		myServerBinding.getDispatchTable();
+		myGlobalBinding.getDispatchTable();
+	}
+
 	/*
 	 * Remove registered RESTful methods for a Provider (and all superclasses) when it is being unregistered
 	 */
@@ -2038,6 +2053,7 @@ public class RestfulServer extends HttpServlet implements IRestfulServer<Servlet
 				}
 				invokeDestroy(provider);
 			}
+			rebuildDispatchTables();
 		}
 	}
 
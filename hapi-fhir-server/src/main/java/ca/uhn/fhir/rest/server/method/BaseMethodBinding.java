@@ -41,6 +41,7 @@ import ca.uhn.fhir.rest.annotation.Transaction;
 import ca.uhn.fhir.rest.annotation.Update;
 import ca.uhn.fhir.rest.annotation.Validate;
 import ca.uhn.fhir.rest.api.MethodOutcome;
+import ca.uhn.fhir.rest.api.RequestTypeEnum;
 import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.IRestfulServer;
@@ -51,6 +52,7 @@ import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.util.ReflectionUtil;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -267,6 +269,50 @@ public abstract class BaseMethodBinding {
 
 	public abstract MethodMatchEnum incomingServerRequestMatchesMethod(RequestDetails theRequest);
 
+	/**
+	 * Returns the request types this method could possibly match, or <code>null</code> if
+	 * it may match any request type.
+	 * <p>
+	 * This is used to build the dispatch table in {@link ca.uhn.fhir.rest.server.ResourceBinding}
+	 * so that only a small number of candidate methods need to be tested using
+	 * {@link #incomingServerRequestMatchesMethod(RequestDetails)} for each request. Implementations
+	 * must never leave out a value that {@link #incomingServerRequestMatchesMethod(RequestDetails)}
+	 * could match.
+	 * </p>
+	 *
+	 * @since 8.12.0
+	 */
+	@Nullable
+	public Set<RequestTypeEnum> getDispatchRequestTypes() {
+		return null;
+	}
+
+	/**
+	 * Returns the values of {@link RequestDetails#getOperation()} this method could possibly match,
+	 * or <code>null</code> if it may match any operation. A blank operation (i.e. a plain
+	 * resource or search request) is represented by an empty string.
+	 *
+	 * @see #getDispatchRequestTypes()
+	 * @since 8.12.0
+	 */
+	@Nullable
+	public Set<String> getDispatchOperationNames() {
+		return null;
+	}
+
+	/**
+	 * Returns the values of {@link RequestDetails#getCompartmentName()} this method could possibly
+	 * match, or <code>null</code> if it may match any compartment. A request with no compartment
+	 * is represented by an empty string.
+	 *
+	 * @see #getDispatchRequestTypes()
+	 * @since 8.12.0
+	 */
+	@Nullable
+	public Set<String> getDispatchCompartmentNames() {
+		return null;
+	}
+
 	public abstract Object invokeServer(IRestfulServer<?> theServer, RequestDetails theRequest)
 			throws BaseServerResponseException, IOException;
 
@@ -159,6 +159,16 @@ abstract class BaseOutcomeReturningMethodBinding extends BaseMethodBinding {
 		return MethodMatchEnum.EXACT;
 	}
 
+	@Override
+	public Set<RequestTypeEnum> getDispatchRequestTypes() {
+		return provideAllowableRequestTypes();
+	}
+
+	@Override
+	public Set<String> getDispatchOperationNames() {
+		return Collections.singleton(StringUtils.defaultString(getMatchingOperation()));
+	}
+
 	@Override
 	public Object invokeServer(IRestfulServer<?> theServer, RequestDetails theRequest)
 			throws BaseServerResponseException, IOException {
@@ -121,6 +121,16 @@ public class GraphQLMethodBinding extends OperationMethodBinding {
 		return MethodMatchEnum.NONE;
 	}
 
+	@Override
+	public Set<RequestTypeEnum> getDispatchRequestTypes() {
+		return Collections.singleton(myMethodRequestType);
+	}
+
+	@Override
+	public Set<String> getDispatchOperationNames() {
+		return Collections.singleton(Constants.OPERATION_NAME_GRAPHQL);
+	}
+
 	private String getQueryValue(Object[] methodParams) {
 		switch (myMethodRequestType) {
 			case POST:
@@ -42,8 +42,10 @@ import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
@@ -141,6 +143,11 @@ public class HistoryMethodBinding extends BaseResourceReturningMethodBinding {
 		return MethodMatchEnum.EXACT;
 	}
 
+	@Override
+	public Set<String> getDispatchOperationNames() {
+		return Collections.singleton(Constants.PARAM_HISTORY);
+	}
+
 	@Override
 	public IBundleProvider invokeServer(
 			IRestfulServer<?> theServer, RequestDetails theRequest, Object[] theMethodParams)
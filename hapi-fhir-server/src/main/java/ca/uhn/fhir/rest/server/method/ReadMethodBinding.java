@@ -49,7 +49,9 @@ import org.hl7.fhir.instance.model.api.IIdType;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
@@ -160,6 +162,21 @@ public class ReadMethodBinding extends BaseResourceReturningMethodBinding {
 		return MethodMatchEnum.EXACT;
 	}
 
+	@Override
+	public Set<RequestTypeEnum> getDispatchRequestTypes() {
+		return EnumSet.of(RequestTypeEnum.GET, RequestTypeEnum.HEAD);
+	}
+
+	@Override
+	public Set<String> getDispatchOperationNames() {
+		return Set.of("", Constants.PARAM_HISTORY);
+	}
+
+	@Override
+	public Set<String> getDispatchCompartmentNames() {
+		return Collections.singleton("");
+	}
+
 	@Override
 	public IBundleProvider invokeServer(
 			IRestfulServer<?> theServer, RequestDetails theRequest, Object[] theMethodParams)
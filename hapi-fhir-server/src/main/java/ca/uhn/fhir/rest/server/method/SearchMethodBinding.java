@@ -42,6 +42,7 @@ import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import java.lang.reflect.Method;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -265,6 +266,21 @@ public class SearchMethodBinding extends BaseResourceReturningMethodBinding {
 		return retVal;
 	}
 
+	@Override
+	public Set<RequestTypeEnum> getDispatchRequestTypes() {
+		return EnumSet.of(RequestTypeEnum.GET, RequestTypeEnum.POST);
+	}
+
+	@Override
+	public Set<String> getDispatchOperationNames() {
+		return Set.of("", Constants.PARAM_SEARCH);
+	}
+
+	@Override
+	public Set<String> getDispatchCompartmentNames() {
+		return Collections.singleton(StringUtils.defaultString(myCompartmentName));
+	}
+
 	/**
 	 * Is this request a request for a normal search - Ie. not a named search, nor a compartment
 	 * search, just a plain old search.
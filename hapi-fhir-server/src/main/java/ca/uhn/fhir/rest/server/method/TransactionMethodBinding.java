@@ -38,7 +38,9 @@ import jakarta.annotation.Nonnull;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
@@ -104,6 +106,16 @@ public class TransactionMethodBinding extends BaseResourceReturningMethodBinding
 		return MethodMatchEnum.EXACT;
 	}
 
+	@Override
+	public Set<RequestTypeEnum> getDispatchRequestTypes() {
+		return Collections.singleton(RequestTypeEnum.POST);
+	}
+
+	@Override
+	public Set<String> getDispatchOperationNames() {
+		return Collections.singleton("");
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public Object invokeServer(IRestfulServer<?> theServer, RequestDetails theRequest, Object[] theMethodParams)
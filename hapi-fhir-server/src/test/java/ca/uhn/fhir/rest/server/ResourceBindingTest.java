@@ -1,18 +1,30 @@
 package ca.uhn.fhir.rest.server;
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.RequestTypeEnum;
 import ca.uhn.fhir.rest.server.method.BaseMethodBinding;
+import ca.uhn.fhir.rest.server.method.MethodMatchEnum;
 import ca.uhn.fhir.rest.server.method.PageMethodBinding;
+import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.lang.reflect.Method;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ResourceBindingTest {
@@ -38,4 +50,98 @@ class ResourceBindingTest {
 		assertEquals(second, list.get(0));
 		assertEquals(first, list.get(1));
 	}
+
+	@Test
+	public void testGetMethod_OnlyCandidatesAreTested() {
+		// setup
+		BaseMethodBinding fooOperation = mockBinding(EnumSet.of(RequestTypeEnum.GET, RequestTypeEnum.POST), Set.of("$foo"), null);
+		BaseMethodBinding barOperation = mockBinding(EnumSet.of(RequestTypeEnum.GET, RequestTypeEnum.POST), Set.of("$bar"), null);
+		BaseMethodBinding deleteOnly = mockBinding(EnumSet.of(RequestTypeEnum.DELETE), Set.of(""), null);
+		BaseMethodBinding anything = mockBinding(null, null, null);
+		myResourceBinding.addMethod(anything);
+		myResourceBinding.addMethod(deleteOnly);
+		myResourceBinding.addMethod(barOperation);
+		myResourceBinding.addMethod(fooOperation);
+		when(fooOperation.incomingServerRequestMatchesMethod(any())).thenReturn(MethodMatchEnum.EXACT);
+
+		// execute
+		BaseMethodBinding outcome = myResourceBinding.getMethod(newRequest(RequestTypeEnum.GET, "$foo", null));
+
+		// verify
+		assertSame(fooOperation, outcome);
+		verify(barOperation, never()).incomingServerRequestMatchesMethod(any());
+		verify(deleteOnly, never()).incomingServerRequestMatchesMethod(any());
+	}
+
+	@Test
+	public void testGetMethod_UnknownOperationOnlyTestsWildcardBindings() {
+		// setup
+		BaseMethodBinding fooOperation = mockBinding(null, Set.of("$foo"), null);
+		BaseMethodBinding anyOperation = mockBinding(null, null, null);
+		myResourceBinding.addMethod(fooOperation);
+		myResourceBinding.addMethod(anyOperation);
+		when(anyOperation.incomingServerRequestMatchesMethod(any())).thenReturn(MethodMatchEnum.NONE);
+
+		// execute
+		BaseMethodBinding outcome = myResourceBinding.getMethod(newRequest(RequestTypeEnum.POST, "$baz", null));
+
+		// verify
+		assertNull(outcome);
+		verify(fooOperation, never()).incomingServerRequestMatchesMethod(any());
+	}
+
+	@Test
+	public void testGetMethod_CompartmentAndPrecedence() {
+		// setup
+		BaseMethodBinding plainSearch = mockBinding(null, Set.of(""), Set.of(""));
+		BaseMethodBinding compartmentSearch = mockBinding(null, Set.of(""), Set.of("Encounter"));
+		BaseMethodBinding approximate = mockBinding(null, Set.of(""), null);
+		myResourceBinding.addMethod(plainSearch);
+		myResourceBinding.addMethod(approximate);
+		myResourceBinding.addMethod(compartmentSearch);
+		when(compartmentSearch.incomingServerRequestMatchesMethod(any())).thenReturn(MethodMatchEnum.APPROXIMATE);
+		when(approximate.incomingServerRequestMatchesMethod(any())).thenReturn(MethodMatchEnum.APPROXIMATE);
+
+		// execute
+		BaseMethodBinding outcome = myResourceBinding.getMethod(newRequest(RequestTypeEnum.GET, null, "Encounter"));
+
+		// verify - the first of equally strong matches wins, as without the dispatch table
+		assertSame(compartmentSearch, outcome);
+		verify(plainSearch, never()).incomingServerRequestMatchesMethod(any());
+	}
+
+	@Test
+	public void testGetMethod_DispatchTableRebuiltAfterRemoval() {
+		// setup
+		BaseMethodBinding first = mockBinding(null, Set.of("$foo"), null);
+		BaseMethodBinding second = mockBinding(null, Set.of("$foo"), null);
+		myResourceBinding.addMethod(first);
+		myResourceBinding.addMethod(second);
+		when(first.incomingServerRequestMatchesMethod(any())).thenReturn(MethodMatchEnum.EXACT);
+		when(second.incomingServerRequestMatchesMethod(any())).thenReturn(MethodMatchEnum.EXACT);
+		assertSame(second, myResourceBinding.getMethod(newRequest(RequestTypeEnum.GET, "$foo", null)));
+
+		// execute
+		myResourceBinding.getMethodBindings().remove(second);
+
+		// verify
+		assertSame(first, myResourceBinding.getMethod(newRequest(RequestTypeEnum.GET, "$foo", null)));
+	}
+
+	private static BaseMethodBinding mockBinding(Set<RequestTypeEnum> theRequestTypes, Set<String> theOperationNames, Set<String> theCompartmentNames) {
+		BaseMethodBinding retVal = mock(BaseMethodBinding.class);
+		when(retVal.getMethod()).thenReturn(ResourceBindingTest.class.getMethods()[0]);
+		when(retVal.getDispatchRequestTypes()).thenReturn(theRequestTypes);
+		when(retVal.getDispatchOperationNames()).thenReturn(theOperationNames);
+		when(retVal.getDispatchCompartmentNames()).thenReturn(theCompartmentNames);
+		return retVal;
+	}
+
+	private static ServletRequestDetails newRequest(RequestTypeEnum theRequestType, String theOperation, String theCompartmentName) {
+		ServletRequestDetails retVal = new ServletRequestDetails();
+		retVal.setRequestType(theRequestType);
+		retVal.setOperation(theOperation);
+		retVal.setCompartmentName(theCompartmentName);
+		return retVal;
+	}
 }
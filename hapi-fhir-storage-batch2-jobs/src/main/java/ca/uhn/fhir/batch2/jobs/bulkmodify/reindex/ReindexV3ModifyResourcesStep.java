@@ -100,11 +100,12 @@ public class ReindexV3ModifyResourcesStep extends BaseBulkModifyResourcesStep<Re
 		StopWatch sw = new StopWatch();
 		ReindexResults reindexResults = new ReindexResults();
 
-		// Prefetch Resources from DB
+		// Prefetch Resources from DB. If we're reindexing search parameters, every resource
+		// will be parsed, so the bodies can also be parsed in parallel up front
 		ReindexJobParameters jobParameters = theStepExecutionDetails.getParameters();
 		boolean reindexSearchParameters =
 				jobParameters.getReindexSearchParameters() != ReindexParameters.ReindexSearchParametersEnum.NONE;
-		mySystemDao.preFetchResources(persistentIds, reindexSearchParameters);
+		mySystemDao.preFetchResources(persistentIds, reindexSearchParameters, reindexSearchParameters);
 		ourLog.info(
 				"Prefetched {} resources in {} - Instance[{}] Chunk[{}]",
 				persistentIds.size(),
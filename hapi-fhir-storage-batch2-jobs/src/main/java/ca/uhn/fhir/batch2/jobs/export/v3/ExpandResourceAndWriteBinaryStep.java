@@ -41,6 +41,10 @@ import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.api.model.PersistentIdToForcedIdMap;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.binary.api.IBinaryStorageSvc;
+import ca.uhn.fhir.jpa.binary.api.StoredDetails;
+import ca.uhn.fhir.jpa.binary.interceptor.BinaryStorageInterceptor;
+import ca.uhn.fhir.jpa.binary.svc.NullBinaryStorageSvcImpl;
 import ca.uhn.fhir.jpa.bulk.export.api.IBulkExportProcessor;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
@@ -62,12 +66,15 @@ import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.interceptor.ResponseTerminologyTranslationSvc;
 import ca.uhn.fhir.util.BinaryUtil;
 import ca.uhn.fhir.util.FhirTerser;
+import ca.uhn.fhir.util.HapiExtensions;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import jakarta.annotation.Nonnull;
 import jakarta.validation.constraints.NotNull;
 import org.apache.commons.collections4.ListUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.hl7.fhir.instance.model.api.IBaseBinary;
 import org.hl7.fhir.instance.model.api.IBaseExtension;
@@ -80,7 +87,10 @@ import org.springframework.context.ApplicationContext;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -137,6 +147,9 @@ public class ExpandResourceAndWriteBinaryStep
 	@Autowired
 	private IBulkDataExportHistoryHelper myExportHelper;
 
+	@Autowired(required = false)
+	private IBinaryStorageSvc myBinaryStorageSvc;
+
 	private volatile ResponseTerminologyTranslationSvc myResponseTerminologyTranslationSvc;
 
 	/**
@@ -172,25 +185,48 @@ public class ExpandResourceAndWriteBinaryStep
 
 		// Currently only NDJSON output format is supported, but we could add other
 		// kinds of writers here for other formats if needed
-		NdJsonResourceWriter resourceWriter = new NdJsonResourceWriter(theStepExecutionDetails, theDataSink);
-
-		expandResourcesFromList(theStepExecutionDetails, resourceWriter);
+		if (isStreamingOutputEnabled()) {
+			StreamingNdJsonResourceWriter resourceWriter =
+					new StreamingNdJsonResourceWriter(theStepExecutionDetails, theDataSink);
+			expandResourcesFromList(
+					theStepExecutionDetails, new ExpandResourcesConsumer(theStepExecutionDetails, resourceWriter));
+			return new RunOutcome(resourceWriter.getNumResourcesProcessed());
+		}
 
+		NdJsonResourceWriter resourceWriter = new NdJsonResourceWriter(theStepExecutionDetails, theDataSink);
+		expandResourcesFromList(
+				theStepExecutionDetails, new ExpandResourcesConsumer(theStepExecutionDetails, resourceWriter));
 		return new RunOutcome(resourceWriter.getNumResourcesProcessed());
 	}
 
+	/**
+	 * Streaming output is only used if it is enabled, and if there is a binary storage
+	 * service and {@link BinaryStorageInterceptor} to store and then serve the content.
+	 */
+	private boolean isStreamingOutputEnabled() {
+		if (!myStorageSettings.isBulkExportStreamingOutputEnabled()) {
+			return false;
+		}
+		if (myBinaryStorageSvc == null
+				|| myBinaryStorageSvc instanceof NullBinaryStorageSvcImpl
+				|| myInterceptorService.getAllRegisteredInterceptors().stream()
+						.noneMatch(BinaryStorageInterceptor.class::isInstance)) {
+			ourLog.warn(
+					"Bulk export streaming output is enabled but binary storage is not configured, writing output in memory");
+			return false;
+		}
+		return true;
+	}
+
 	private void expandResourcesFromList(
 			StepExecutionDetails<BulkExportJobParameters, ResourceIdList> theStepExecutionDetails,
-			Consumer<ExpandedResourcesList> theResourceWriter) {
+			Consumer<List<IBaseResource>> theResourceListConsumer) {
 
 		ResourceIdList idList = theStepExecutionDetails.getData();
 		BulkExportJobParameters parameters = theStepExecutionDetails.getParameters();
 
-		Consumer<List<IBaseResource>> resourceListConsumer =
-				new ExpandResourcesConsumer(theStepExecutionDetails, theResourceWriter);
-
 		// search the resources
-		fetchResourcesByIdAndConsumeThem(idList, parameters, resourceListConsumer, theStepExecutionDetails);
+		fetchResourcesByIdAndConsumeThem(idList, parameters, theResourceListConsumer, theStepExecutionDetails);
 	}
 
 	private void fetchResourcesByIdAndConsumeThem(
@@ -460,7 +496,7 @@ public class ExpandResourceAndWriteBinaryStep
 	 */
 	private void addMetadataExtensionsToBinary(
 			@Nonnull StepExecutionDetails<BulkExportJobParameters, ResourceIdList> theStepExecutionDetails,
-			ExpandedResourcesList expandedResources,
+			String theResourceType,
 			IBaseBinary binary) {
 		// Note that this applies only to hl7.org structures, so these extensions will not be added
 		// to DSTU2 structures
@@ -483,7 +519,7 @@ public class ExpandResourceAndWriteBinaryStep
 			// resource type
 			IBaseExtension<?, ?> typeExtension = meta.addExtension();
 			typeExtension.setUrl(JpaConstants.BULK_META_EXTENSION_RESOURCE_TYPE);
-			typeExtension.setValue(myFhirContext.newPrimitiveString(expandedResources.getResourceType()));
+			typeExtension.setValue(myFhirContext.newPrimitiveString(theResourceType));
 		} else {
 			ourLog.warn(
 					"Could not attach metadata extensions to binary resource, as this binary metadata does not support extensions");
@@ -516,6 +552,7 @@ public class ExpandResourceAndWriteBinaryStep
 	private class ExpandResourcesConsumer implements Consumer<List<IBaseResource>> {
 
 		private final Consumer<ExpandedResourcesList> myResourceWriter;
+		private final StreamingNdJsonResourceWriter myStreamingResourceWriter;
 		private final StepExecutionDetails<BulkExportJobParameters, ResourceIdList> myStepExecutionDetails;
 
 		public ExpandResourcesConsumer(
@@ -523,6 +560,15 @@ public class ExpandResourceAndWriteBinaryStep
 				Consumer<ExpandedResourcesList> theResourceWriter) {
 			myStepExecutionDetails = theStepExecutionDetails;
 			myResourceWriter = theResourceWriter;
+			myStreamingResourceWriter = null;
+		}
+
+		public ExpandResourcesConsumer(
+				StepExecutionDetails<BulkExportJobParameters, ResourceIdList> theStepExecutionDetails,
+				StreamingNdJsonResourceWriter theStreamingResourceWriter) {
+			myStepExecutionDetails = theStepExecutionDetails;
+			myResourceWriter = null;
+			myStreamingResourceWriter = theStreamingResourceWriter;
 		}
 
 		@Override
@@ -577,8 +623,13 @@ public class ExpandResourceAndWriteBinaryStep
 				}
 			}
 
-			// encode them - Key is resource type, Value is a collection of serialized resources of that type
 			IParser parser = getParser(parameters);
+			if (myStreamingResourceWriter != null) {
+				myStreamingResourceWriter.write(theResources, parser);
+				return;
+			}
+
+			// encode them - Key is resource type, Value is a collection of serialized resources of that type
 
 			ListMultimap<String, String> resourceTypeToStringifiedResources = ArrayListMultimap.create();
 			Map<String, Integer> resourceTypeToTotalSize = new HashMap<>();
@@ -725,12 +776,8 @@ public class ExpandResourceAndWriteBinaryStep
 
 			myNumResourcesProcessed += batchSize;
 
-			@SuppressWarnings("unchecked")
-			IFhirResourceDao<IBaseBinary> binaryDao = myDaoRegistry.getResourceDao("Binary");
-
-			IBaseBinary binary = BinaryUtil.newBinary(myFhirContext);
-
-			addMetadataExtensionsToBinary(myStepExecutionDetails, theExpandedResourcesList, binary);
+			IBaseBinary binary =
+					newBulkExportBinary(myStepExecutionDetails, theExpandedResourcesList.getResourceType());
 
 			int processedRecordsCount = 0;
 			try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
@@ -753,66 +800,272 @@ public class ExpandResourceAndWriteBinaryStep
 				throw new JobExecutionFailedException(Msg.code(2431) + errorMsg);
 			}
 
-			BulkExportJobParameters jobParameters = myStepExecutionDetails.getParameters();
+			saveBulkExportBinary(
+					myStepExecutionDetails, myDataSink, binary, theExpandedResourcesList.getResourceType());
+
+			ourLog.info(
+					"Binary writing complete for {} resources of type {}.",
+					processedRecordsCount,
+					theExpandedResourcesList.getResourceType());
+		}
+	}
+
+	/**
+	 * This class encodes the expanded resources straight into NDJSON files which
+	 * are streamed into the {@link IBinaryStorageSvc}, and then creates a Binary
+	 * resource which references the stored content. Only a single encoded resource
+	 * plus the {@link JpaStorageSettings#getBulkExportStreamingOutputBufferSize() buffer}
+	 * for each open file is held in memory, anything beyond that is spooled to a
+	 * temporary file. A new file is started whenever adding the next resource would
+	 * exceed {@link JpaStorageSettings#getBulkExportFileMaximumSize()}.
+	 */
+	private class StreamingNdJsonResourceWriter {
+
+		private final StepExecutionDetails<BulkExportJobParameters, ResourceIdList> myStepExecutionDetails;
+		private final IJobDataSink<BulkExportBinaryFileId> myDataSink;
+		private final ByteArrayOutputStream myResourceBuffer = new ByteArrayOutputStream();
+		private int myNumResourcesProcessed = 0;
+
+		public StreamingNdJsonResourceWriter(
+				StepExecutionDetails<BulkExportJobParameters, ResourceIdList> theStepExecutionDetails,
+				IJobDataSink<BulkExportBinaryFileId> theDataSink) {
+			myStepExecutionDetails = theStepExecutionDetails;
+			myDataSink = theDataSink;
+		}
+
+		public int getNumResourcesProcessed() {
+			return myNumResourcesProcessed;
+		}
+
+		public void write(List<IBaseResource> theResources, IParser theParser) throws JobExecutionFailedException {
+			long maximumFileSize = myStorageSettings.getBulkExportFileMaximumSize();
+			Map<String, NdJsonFile> resourceTypeToFile = new HashMap<>();
+			String resourceType = null;
+			try {
+				for (IBaseResource resource : theResources) {
+					resourceType = myFhirContext.getResourceType(resource);
+
+					myResourceBuffer.reset();
+					OutputStreamWriter resourceWriter =
+							new OutputStreamWriter(myResourceBuffer, Constants.CHARSET_UTF8);
+					theParser.encodeResourceToWriter(resource, resourceWriter);
+					resourceWriter.append('\n');
+					resourceWriter.flush();
+
+					// Start a new file if adding this resource would exceed the maximum. If
+					// a single resource exceeds the maximum then we have no choice but to send it.
+					NdJsonFile file = resourceTypeToFile.get(resourceType);
+					long newSize = (file != null ? file.getByteCount() : 0) + myResourceBuffer.size();
+					if (newSize > maximumFileSize) {
+						if (file == null) {
+							ourLog.warn(
+									"Single resource size {} exceeds allowable maximum of {}, so will ignore maximum",
+									newSize,
+									maximumFileSize);
+						} else {
+							resourceTypeToFile.remove(resourceType);
+							file.store();
+							file = null;
+						}
+					}
+					if (file == null) {
+						file = new NdJsonFile(resourceType);
+						resourceTypeToFile.put(resourceType, file);
+					}
+
+					myResourceBuffer.writeTo(file.getOutputStream());
+					file.incrementResourceCount();
+				}
+
+				for (Iterator<NdJsonFile> iter = resourceTypeToFile.values().iterator(); iter.hasNext(); ) {
+					NdJsonFile file = iter.next();
+					resourceType = file.getResourceType();
+					iter.remove();
+					file.store();
+				}
+
+			} catch (IOException ex) {
+				String errorMsg =
+						String.format("Failure to process resource of type %s : %s", resourceType, ex.getMessage());
+				ourLog.error(errorMsg);
+
+				throw new JobExecutionFailedException(Msg.code(3001) + errorMsg);
+			} finally {
+				resourceTypeToFile.values().forEach(NdJsonFile::discard);
+			}
+		}
+
+		/**
+		 * A single NDJSON output file which is being written
+		 */
+		private class NdJsonFile {
+
+			private final String myResourceType;
+			private final DeferredFileOutputStream myOutputStream;
+			private int myResourceCount;
+
+			private NdJsonFile(String theResourceType) {
+				myResourceType = theResourceType;
+				myOutputStream = DeferredFileOutputStream.builder()
+						.setThreshold(myStorageSettings.getBulkExportStreamingOutputBufferSize())
+						.setPrefix("hapi-bulk-export-")
+						.setSuffix(".ndjson")
+						.get();
+			}
+
+			String getResourceType() {
+				return myResourceType;
+			}
 
-			binary.setContentType(jobParameters.getOutputFormat());
+			OutputStream getOutputStream() {
+				return myOutputStream;
+			}
 
-			// Pick a unique ID and retry until we get one that isn't already used. This is just to
-			// avoid any possibility of people guessing the IDs of these Binaries and fishing for them.
-			while (true) {
-				// Use a random ID to make it harder to guess IDs - 32 characters of a-zA-Z0-9
-				// has 190 bts of entropy according to https://www.omnicalculator.com/other/password-entropy
-				String proposedId = RandomTextUtils.newSecureRandomAlphaNumericString(32);
-				binary.setId(proposedId);
+			long getByteCount() {
+				return myOutputStream.getByteCount();
+			}
 
-				// Make sure we don't accidentally reuse an ID. This should be impossible given the
-				// amount of entropy in the IDs but might as well be sure.
+			void incrementResourceCount() {
+				myResourceCount++;
+			}
+
+			/**
+			 * Streams the file contents into the binary storage service and creates a Binary
+			 * resource pointing to them
+			 */
+			void store() throws IOException {
 				try {
+					myOutputStream.close();
+
+					IBaseBinary binary = newBulkExportBinary(myStepExecutionDetails, myResourceType);
+					IIdType binaryId = binary.getIdElement().withResourceType("Binary");
 					RequestDetails requestDetails = myStepExecutionDetails.newSystemRequestDetails();
-					IBaseBinary output = binaryDao.read(binary.getIdElement(), requestDetails, true);
-					if (output != null) {
-						continue;
+
+					StoredDetails storedDetails;
+					try (InputStream inputStream = myOutputStream.toInputStream()) {
+						storedDetails = myBinaryStorageSvc.storeBinaryContent(
+								binaryId, null, binary.getContentType(), inputStream, requestDetails);
 					}
-				} catch (ResourceNotFoundException e) {
-					// good
-				}
 
-				break;
+					IBaseHasExtensions data = (IBaseHasExtensions) BinaryUtil.getOrCreateData(myFhirContext, binary);
+					addSystemDefinedExtension(
+							data, HapiExtensions.EXT_EXTERNALIZED_BINARY_ID, storedDetails.getBinaryContentId());
+					addSystemDefinedExtension(
+							data, HapiExtensions.EXT_EXTERNALIZED_BINARY_HASH_SHA_256, storedDetails.getHash());
+
+					saveBulkExportBinary(myStepExecutionDetails, myDataSink, binary, myResourceType);
+
+					myNumResourcesProcessed += myResourceCount;
+					ourLog.info(
+							"Streamed {} resources of type {} ({} bytes) to binary storage",
+							myResourceCount,
+							myResourceType,
+							storedDetails.getBytes());
+				} finally {
+					discard();
+				}
 			}
 
-			if (myFhirContext.getVersion().getVersion().isNewerThan(FhirVersionEnum.DSTU2)) {
-				if (isNotBlank(jobParameters.getBinarySecurityContextIdentifierSystem())
-						|| isNotBlank(jobParameters.getBinarySecurityContextIdentifierValue())) {
-					FhirTerser terser = myFhirContext.newTerser();
-					terser.setElement(
-							binary,
-							"securityContext.identifier.system",
-							jobParameters.getBinarySecurityContextIdentifierSystem());
-					terser.setElement(
-							binary,
-							"securityContext.identifier.value",
-							jobParameters.getBinarySecurityContextIdentifierValue());
+			void discard() {
+				try {
+					myOutputStream.close();
+				} catch (IOException e) {
+					ourLog.warn("Failed to close bulk export output stream: {}", e.toString());
+				}
+				Path file = myOutputStream.getPath();
+				if (file != null) {
+					FileUtils.deleteQuietly(file.toFile());
 				}
 			}
+		}
+	}
 
-			ourLog.info(
-					"Writing Bulk Export Binary resource with ID: Binary/{}",
-					binary.getIdElement().getIdPart());
+	private void addSystemDefinedExtension(IBaseHasExtensions theTarget, String theUrl, String theValue) {
+		IBaseExtension<?, ?> ext = theTarget.addExtension();
+		ext.setUrl(theUrl);
+		ext.setUserData(JpaConstants.EXTENSION_EXT_SYSTEMDEFINED, Boolean.TRUE);
+		ext.setValue(myFhirContext.newPrimitiveString(theValue));
+	}
 
-			RequestDetails srd = newRequestDetails(myStepExecutionDetails, jobParameters);
-			DaoMethodOutcome outcome = binaryDao.update(binary, srd);
-			IIdType id = outcome.getId();
+	/**
+	 * Creates a new Binary resource for a bulk export file, with a new unique random ID
+	 * and the metadata/security context for the job, but no content.
+	 */
+	private IBaseBinary newBulkExportBinary(
+			StepExecutionDetails<BulkExportJobParameters, ResourceIdList> theStepExecutionDetails,
+			String theResourceType) {
+		@SuppressWarnings("unchecked")
+		IFhirResourceDao<IBaseBinary> binaryDao = myDaoRegistry.getResourceDao("Binary");
 
-			BulkExportBinaryFileId bulkExportBinaryFileId = new BulkExportBinaryFileId();
-			bulkExportBinaryFileId.setBinaryId(id.getValueAsString());
-			bulkExportBinaryFileId.setResourceType(theExpandedResourcesList.getResourceType());
-			myDataSink.accept(bulkExportBinaryFileId);
+		IBaseBinary binary = BinaryUtil.newBinary(myFhirContext);
 
-			ourLog.info(
-					"Binary writing complete for {} resources of type {}.",
-					processedRecordsCount,
-					theExpandedResourcesList.getResourceType());
+		addMetadataExtensionsToBinary(theStepExecutionDetails, theResourceType, binary);
+
+		BulkExportJobParameters jobParameters = theStepExecutionDetails.getParameters();
+
+		binary.setContentType(jobParameters.getOutputFormat());
+
+		// Pick a unique ID and retry until we get one that isn't already used. This is just to
+		// avoid any possibility of people guessing the IDs of these Binaries and fishing for them.
+		while (true) {
+			// Use a random ID to make it harder to guess IDs - 32 characters of a-zA-Z0-9
+			// has 190 bts of entropy according to https://www.omnicalculator.com/other/password-entropy
+			String proposedId = RandomTextUtils.newSecureRandomAlphaNumericString(32);
+			binary.setId(proposedId);
+
+			// Make sure we don't accidentally reuse an ID. This should be impossible given the
+			// amount of entropy in the IDs but might as well be sure.
+			try {
+				RequestDetails requestDetails = theStepExecutionDetails.newSystemRequestDetails();
+				IBaseBinary output = binaryDao.read(binary.getIdElement(), requestDetails, true);
+				if (output != null) {
+					continue;
+				}
+			} catch (ResourceNotFoundException e) {
+				// good
+			}
+
+			break;
 		}
+
+		if (myFhirContext.getVersion().getVersion().isNewerThan(FhirVersionEnum.DSTU2)) {
+			if (isNotBlank(jobParameters.getBinarySecurityContextIdentifierSystem())
+					|| isNotBlank(jobParameters.getBinarySecurityContextIdentifierValue())) {
+				FhirTerser terser = myFhirContext.newTerser();
+				terser.setElement(
+						binary,
+						"securityContext.identifier.system",
+						jobParameters.getBinarySecurityContextIdentifierSystem());
+				terser.setElement(
+						binary,
+						"securityContext.identifier.value",
+						jobParameters.getBinarySecurityContextIdentifierValue());
+			}
+		}
+
+		return binary;
+	}
+
+	private void saveBulkExportBinary(
+			StepExecutionDetails<BulkExportJobParameters, ResourceIdList> theStepExecutionDetails,
+			IJobDataSink<BulkExportBinaryFileId> theDataSink,
+			IBaseBinary theBinary,
+			String theResourceType) {
+		@SuppressWarnings("unchecked")
+		IFhirResourceDao<IBaseBinary> binaryDao = myDaoRegistry.getResourceDao("Binary");
+
+		ourLog.info(
+				"Writing Bulk Export Binary resource with ID: Binary/{}",
+				theBinary.getIdElement().getIdPart());
+
+		RequestDetails srd = newRequestDetails(theStepExecutionDetails, theStepExecutionDetails.getParameters());
+		DaoMethodOutcome outcome = binaryDao.update(theBinary, srd);
+		IIdType id = outcome.getId();
+
+		BulkExportBinaryFileId bulkExportBinaryFileId = new BulkExportBinaryFileId();
+		bulkExportBinaryFileId.setBinaryId(id.getValueAsString());
+		bulkExportBinaryFileId.setResourceType(theResourceType);
+		theDataSink.accept(bulkExportBinaryFileId);
 	}
 
 	protected RequestDetails newRequestDetails(
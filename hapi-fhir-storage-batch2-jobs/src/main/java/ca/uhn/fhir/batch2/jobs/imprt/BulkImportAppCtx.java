@@ -68,6 +68,36 @@ public class BulkImportAppCtx {
 				.build();
 	}
 
+	/**
+	 * Adds a step which links the references deferred by a trusted bulk load
+	 * once all files have been processed
+	 *
+	 * @since 8.12.0
+	 */
+	@Bean
+	public JobDefinition<BulkImportJobParameters> bulkImport2JobDefinitionV3() {
+		return JobDefinition.newBuilder()
+				.gatedExecution()
+				.setJobDefinitionId(JOB_BULK_IMPORT_PULL)
+				.setJobDescription("FHIR Bulk Import using pull-based data source")
+				.setJobDefinitionVersion(3)
+				.setParametersType(BulkImportJobParameters.class)
+				.addFirstStep("fetch-files", "Fetch files for import", NdJsonFileJson.class, bulkImport2FetchFiles())
+				.addIntermediateStep(
+						"process-files", "Process files", ConsumeFilesOutcomeJson.class, bulkImport2ConsumeFilesV2())
+				.addIntermediateStep(
+						"validate-references",
+						"Validate deferred references",
+						ConsumeFilesOutcomeJson.class,
+						bulkImport2ValidateReferences())
+				.addFinalReducerStep(
+						"generate-report",
+						"Generate outcome report",
+						BulkImportReportJson.class,
+						generateOutcomeReportReducerStep())
+				.build();
+	}
+
 	@Bean
 	public GenerateReportReductionStep generateOutcomeReportReducerStep() {
 		return new GenerateReportReductionStep();
@@ -88,6 +118,11 @@ public class BulkImportAppCtx {
 		return new ConsumeFilesStepV2();
 	}
 
+	@Bean
+	public ValidateReferencesStep bulkImport2ValidateReferences() {
+		return new ValidateReferencesStep(bulkImport2ConsumeFilesV2());
+	}
+
 	@Bean
 	public BulkDataImportProvider bulkImportProvider() {
 		return new BulkDataImportProvider();
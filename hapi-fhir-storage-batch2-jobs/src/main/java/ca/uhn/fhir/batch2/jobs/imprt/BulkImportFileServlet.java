@@ -30,6 +30,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.ReaderInputStream;
+import org.apache.http.HttpHeaders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -145,8 +146,51 @@ public class BulkImportFileServlet extends HttpServlet {
 			}
 		}
 
+		/*
+		 * Byte ranges are only supported for uncompressed files, since a range
+		 * would otherwise refer to the compressed bytes
+		 */
+		long[] range = null;
+		if (!supplier.isGzip()) {
+			theResponse.addHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+			range = parseRangeHeader(theRequest.getHeader(HttpHeaders.RANGE));
+		}
+
 		try (InputStream reader = supplier.openStream()) {
-			IOUtils.copy(reader, theResponse.getOutputStream());
+			if (range != null) {
+				myLog.info("Serving bytes {}-{} of file index: {}", range[0], range[1], indexParam);
+				theResponse.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				theResponse.addHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/*");
+				IOUtils.copyLarge(reader, theResponse.getOutputStream(), range[0], range[1] - range[0] + 1);
+			} else {
+				IOUtils.copy(reader, theResponse.getOutputStream());
+			}
+		}
+	}
+
+	/**
+	 * Parses a single closed range in the form <code>bytes=[start]-[end]</code>. Any other form
+	 * (including multiple ranges) is ignored and the whole file is served.
+	 */
+	@Nullable
+	private static long[] parseRangeHeader(@Nullable String theRangeHeader) {
+		if (isBlank(theRangeHeader) || !theRangeHeader.startsWith("bytes=")) {
+			return null;
+		}
+		String spec = theRangeHeader.substring("bytes=".length()).trim();
+		int dashIdx = spec.indexOf('-');
+		if (dashIdx <= 0 || spec.indexOf(',') != -1) {
+			return null;
+		}
+		try {
+			long start = Long.parseLong(spec.substring(0, dashIdx).trim());
+			long end = Long.parseLong(spec.substring(dashIdx + 1).trim());
+			if (start < 0 || end < start) {
+				return null;
+			}
+			return new long[] {start, end};
+		} catch (NumberFormatException e) {
+			return null;
 		}
 	}
 
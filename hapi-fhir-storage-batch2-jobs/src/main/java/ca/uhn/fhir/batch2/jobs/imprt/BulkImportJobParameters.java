@@ -65,6 +65,67 @@ public class BulkImportJobParameters implements IModelJson {
 	@Nullable
 	private String myChunkByCompartmentName;
 
+	@JsonProperty(value = "chunkByByteRange", required = false)
+	@Nullable
+	private Boolean myChunkByByteRange;
+
+	@JsonProperty(value = "trustedBulkLoad", required = false)
+	@Nullable
+	private Boolean myTrustedBulkLoad;
+
+	/**
+	 * If <code>true</code>, the fetch step only records byte offsets for each chunk of each
+	 * source file instead of copying the NDJSON text into the work chunk. The processing step
+	 * then requests its byte range from the source (using an HTTP <code>Range</code> request)
+	 * and parses it as a stream. This keeps work chunks small for very large files. This
+	 * setting is ignored if {@link #getChunkByCompartmentName() compartment chunking} is used,
+	 * since compartment groups are not contiguous within the source file. It is also ignored
+	 * (falling back to regular chunking) if any source does not answer a probe range request with
+	 * <code>206 Partial Content</code> on uncompressed content, e.g. for gzipped files.
+	 *
+	 * @since 8.12.0
+	 */
+	public boolean isChunkByByteRange() {
+		return Boolean.TRUE.equals(myChunkByByteRange);
+	}
+
+	/**
+	 * @see #isChunkByByteRange()
+	 * @since 8.12.0
+	 */
+	public BulkImportJobParameters setChunkByByteRange(boolean theChunkByByteRange) {
+		myChunkByByteRange = theChunkByByteRange;
+		return this;
+	}
+
+	/**
+	 * If <code>true</code>, each chunk of resources is written directly through the resource DAOs in a single
+	 * database transaction instead of being submitted as a FHIR batch bundle. This skips bundle construction and
+	 * batch/transaction processing, and is intended for loading data which is already known to be valid.
+	 * Resources without an ID are created, and resources with an ID are stored using update-as-create.
+	 * <p>
+	 * Reference targets are resolved in bulk for each chunk, and referential integrity is checked once all
+	 * chunks have been stored, so resources may refer to resources which are loaded later in the same job.
+	 * Pre-commit hooks (such as subscription matching) are not invoked for resources stored this way. If a
+	 * chunk fails to store, it is stored again as a FHIR batch bundle so that the failing resources are
+	 * reported individually in the job report.
+	 * </p>
+	 *
+	 * @since 8.12.0
+	 */
+	public boolean isTrustedBulkLoad() {
+		return Boolean.TRUE.equals(myTrustedBulkLoad);
+	}
+
+	/**
+	 * @see #isTrustedBulkLoad()
+	 * @since 8.12.0
+	 */
+	public BulkImportJobParameters setTrustedBulkLoad(boolean theTrustedBulkLoad) {
+		myTrustedBulkLoad = theTrustedBulkLoad;
+		return this;
+	}
+
 	@Nullable
 	public String getChunkByCompartmentName() {
 		return myChunkByCompartmentName;
@@ -46,6 +46,9 @@ public class ConsumeFilesOutcomeJson implements IModelJson {
 	@JsonProperty("errors")
 	private List<String> myErrors;
 
+	@JsonProperty("deferredReferences")
+	private Map<String, List<String>> myDeferredReferences;
+
 	public String getSourceName() {
 		return mySourceName;
 	}
@@ -68,6 +71,30 @@ public class ConsumeFilesOutcomeJson implements IModelJson {
 		return myErrors;
 	}
 
+	/**
+	 * References which could not be linked when their source resource was stored during a
+	 * trusted bulk load, because the target did not exist yet. Keys are the target resource
+	 * IDs and values are the IDs of the resources referring to them. These are checked and
+	 * removed by {@link ValidateReferencesStep} before the chunk reaches the report.
+	 *
+	 * @see ConsumeFilesStepV2#validateDeferredReferences(ca.uhn.fhir.interceptor.model.RequestPartitionId, Map)
+	 * @since 8.12.0
+	 */
+	public Map<String, List<String>> getDeferredReferences() {
+		if (myDeferredReferences == null) {
+			myDeferredReferences = new HashMap<>();
+		}
+		return myDeferredReferences;
+	}
+
+	/**
+	 * @see #getDeferredReferences()
+	 * @since 8.12.0
+	 */
+	public void addDeferredReference(String theTargetId, String theSourceId) {
+		getDeferredReferences().computeIfAbsent(theTargetId, t -> new ArrayList<>()).add(theSourceId);
+	}
+
 	public void addOutcome(StorageResponseCodeEnum theStorageResponseCode) {
 		addOutcome(theStorageResponseCode, 1);
 	}
@@ -95,6 +122,12 @@ public class ConsumeFilesOutcomeJson implements IModelJson {
 				theData.getOutcomeCount().entrySet()) {
 			addOutcome(outcomeCount.getKey(), outcomeCount.getValue());
 		}
+		for (Map.Entry<String, List<String>> deferredReference :
+				theData.getDeferredReferences().entrySet()) {
+			for (String sourceId : deferredReference.getValue()) {
+				addDeferredReference(deferredReference.getKey(), sourceId);
+			}
+		}
 	}
 
 	public boolean hasOutcomes() {
@@ -104,4 +137,8 @@ public class ConsumeFilesOutcomeJson implements IModelJson {
 	public boolean hasErrors() {
 		return !getErrors().isEmpty();
 	}
+
+	public boolean hasDeferredReferences() {
+		return !getDeferredReferences().isEmpty();
+	}
 }
@@ -26,27 +26,63 @@ import ca.uhn.fhir.batch2.api.RunOutcome;
 import ca.uhn.fhir.batch2.api.StepExecutionDetails;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.api.dao.IFhirSystemDao;
+import ca.uhn.fhir.jpa.api.dao.ReindexParameters;
+import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
+import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.api.svc.ResolveIdentityMode;
 import ca.uhn.fhir.jpa.dao.TransactionUtil;
+import ca.uhn.fhir.jpa.dao.index.DaoResourceLinkResolver;
+import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
 import ca.uhn.fhir.jpa.util.TransactionSemanticsHeader;
+import ca.uhn.fhir.model.api.StorageResponseCodeEnum;
 import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
 import ca.uhn.fhir.util.BundleBuilder;
+import ca.uhn.fhir.util.ResourceReferenceInfo;
+import com.google.common.collect.Iterables;
+import com.google.common.io.ByteStreams;
 import jakarta.annotation.Nonnull;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.LineIterator;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNullElseGet;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -65,9 +101,18 @@ public class ConsumeFilesStepV2
 	@Autowired
 	private IFhirSystemDao mySystemDao;
 
+	@Autowired
+	private HapiTransactionService myHapiTransactionService;
+
+	@Autowired
+	private IIdHelperService<?> myIdHelperService;
+
 	@Autowired
 	private PartitionSettings myPartitionSettings;
 
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+
 	@Nonnull
 	@Override
 	public RunOutcome run(
@@ -75,11 +120,34 @@ public class ConsumeFilesStepV2
 			@Nonnull IJobDataSink<ConsumeFilesOutcomeJson> theDataSink) {
 
 		RequestPartitionId partitionId = theStepExecutionDetails.getParameters().getPartitionId();
-		String ndjson = theStepExecutionDetails.getData().getNdJsonText();
-		String sourceName = theStepExecutionDetails.getData().getSourceName();
+		NdJsonFileJson data = theStepExecutionDetails.getData();
+		String sourceName = data.getSourceName();
 
+		List<IBaseResource> resources;
+		if (data.hasByteRange()) {
+			resources = fetchAndParseByteRange(theStepExecutionDetails.getParameters(), data);
+		} else {
+			resources = parseResources(new StringReader(data.getNdJsonText()));
+		}
+
+		ourLog.info("Bulk loading {} resources from source {}", resources.size(), sourceName);
+
+		ConsumeFilesOutcomeJson outcome = new ConsumeFilesOutcomeJson();
+		outcome.setSourceName(sourceName);
+
+		if (theStepExecutionDetails.getParameters().isTrustedBulkLoad()) {
+			storeResourcesTrusted(resources, partitionId, outcome);
+		} else {
+			addTransactionResponse(outcome, storeResources(resources, partitionId));
+		}
+		theDataSink.accept(outcome);
+
+		return new RunOutcome(resources.size());
+	}
+
+	private List<IBaseResource> parseResources(Reader theReader) {
 		IParser jsonParser = myCtx.newJsonParser();
-		LineIterator lineIter = new LineIterator(new StringReader(ndjson));
+		LineIterator lineIter = new LineIterator(theReader);
 		List<IBaseResource> resources = new ArrayList<>();
 		while (lineIter.hasNext()) {
 			String next = lineIter.next();
@@ -93,24 +161,44 @@ public class ConsumeFilesStepV2
 				resources.add(parsed);
 			}
 		}
+		return resources;
+	}
 
-		ourLog.info("Bulk loading {} resources from source {}", resources.size(), sourceName);
+	/**
+	 * Requests only the byte range referred to by the given chunk from the source file and
+	 * parses it as it streams in. If the source does not honour the range request, the
+	 * bytes before the range are skipped.
+	 */
+	private List<IBaseResource> fetchAndParseByteRange(BulkImportJobParameters theParameters, NdJsonFileJson theData) {
+		String url = theData.getSourceName();
+		long start = theData.getByteRangeStart();
+		long end = theData.getByteRangeEnd();
 
-		TransactionUtil.TransactionResponse response = storeResources(resources, partitionId);
+		HttpGet request = new HttpGet(url);
+		request.addHeader(HttpHeaders.RANGE, "bytes=" + start + "-" + (end - 1));
+		// Offsets refer to the decoded content, so don't let the range apply to a compressed encoding
+		request.addHeader(Constants.HEADER_ACCEPT_ENCODING, "identity");
 
-		ConsumeFilesOutcomeJson outcome = new ConsumeFilesOutcomeJson();
-		outcome.setSourceName(sourceName);
-		for (TransactionUtil.StorageOutcome entry : response.getStorageOutcomes()) {
-			if (entry.getStorageResponseCode() != null) {
-				outcome.addOutcome(entry.getStorageResponseCode());
-			}
-			if (isNotBlank(entry.getErrorMessage())) {
-				outcome.addError(entry.getErrorMessage());
+		try (CloseableHttpClient httpClient = FetchFilesStep.newHttpClient(theParameters);
+				CloseableHttpResponse response = httpClient.execute(request)) {
+			FetchFilesStep.validateStatusCodeAndContentType(url, response);
+
+			try (InputStream inputStream = response.getEntity().getContent()) {
+				if (response.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT) {
+					// The fetch step verifies range support up front, so this should only happen if
+					// the source changed its behaviour while the job was running
+					ourLog.warn("Source did not honour range request, skipping {} bytes of URL: {}", start, url);
+					IOUtils.skipFully(inputStream, start);
+				}
+				InputStream rangeStream = ByteStreams.limit(inputStream, end - start);
+				return parseResources(new InputStreamReader(rangeStream, StandardCharsets.UTF_8));
 			}
+		} catch (IOException e) {
+			throw new JobExecutionFailedException(
+					Msg.code(3005) + "Failed to fetch byte range " + start + "-" + end + " of URL " + url + ": "
+							+ e.getMessage(),
+					e);
 		}
-		theDataSink.accept(outcome);
-
-		return new RunOutcome(resources.size());
 	}
 
 	public TransactionUtil.TransactionResponse storeResources(
@@ -143,4 +231,265 @@ public class ConsumeFilesStepV2
 
 		return TransactionUtil.parseTransactionResponse(myCtx, requestBundle, responseBundle);
 	}
+
+	/**
+	 * Stores the given resources directly through the resource DAOs in a single database
+	 * transaction, without building and processing a FHIR batch bundle. Resource IDs and
+	 * reference targets are resolved in bulk up front. Referential integrity is deferred:
+	 * references to targets which don't exist yet are recorded in the outcome (see
+	 * {@link ConsumeFilesOutcomeJson#getDeferredReferences()}) and checked by
+	 * {@link #validateDeferredReferences(RequestPartitionId, Map)} once the whole import has
+	 * been written. Pre-commit hooks (e.g. subscription and MDM processing) are not invoked.
+	 * <p>
+	 * If the chunk can not be stored this way, it is rolled back and stored again using
+	 * {@link #storeResources(List, RequestPartitionId)} so that each failing resource is
+	 * reported as an error in the outcome.
+	 * </p>
+	 *
+	 * @see BulkImportJobParameters#isTrustedBulkLoad()
+	 * @since 8.12.0
+	 */
+	public void storeResourcesTrusted(
+			List<IBaseResource> theResources, RequestPartitionId thePartitionId, ConsumeFilesOutcomeJson theOutcome) {
+		SystemRequestDetails requestDetails = new SystemRequestDetails();
+		requestDetails.setRequestPartitionId(
+				requireNonNullElseGet(thePartitionId, myPartitionSettings::getDefaultRequestPartitionId));
+		TransactionDetails transactionDetails = new TransactionDetails();
+		DaoResourceLinkResolver.deferReferentialIntegrityOnWrite(transactionDetails);
+		transactionDetails.beginAcceptingDeferredInterceptorBroadcasts(
+				Pointcut.STORAGE_PRECOMMIT_RESOURCE_CREATED, Pointcut.STORAGE_PRECOMMIT_RESOURCE_UPDATED);
+
+		// Storing assigns IDs to the resources, so keep the originals in case we need to fall back
+		List<String> originalIds = new ArrayList<>(theResources.size());
+		for (IBaseResource next : theResources) {
+			originalIds.add(next.getIdElement().getValue());
+		}
+
+		ConsumeFilesOutcomeJson trustedOutcome = new ConsumeFilesOutcomeJson();
+		try {
+			myHapiTransactionService.execute(
+					requestDetails,
+					transactionDetails,
+					tx -> storeResourcesTrustedInsideTransaction(
+							theResources, requestDetails, transactionDetails, trustedOutcome));
+		} catch (RuntimeException e) {
+			ourLog.warn(
+					"Failed to store chunk of {} resources using trusted bulk load, storing them individually instead: {}",
+					theResources.size(),
+					e.toString());
+			for (int i = 0; i < theResources.size(); i++) {
+				theResources.get(i).setId(originalIds.get(i));
+			}
+			addTransactionResponse(theOutcome, storeResources(theResources, thePartitionId));
+			return;
+		} finally {
+			// Pre-commit hooks are skipped for trusted loads
+			transactionDetails.endAcceptingDeferredInterceptorBroadcasts();
+		}
+
+		theOutcome.add(trustedOutcome);
+	}
+
+	private Void storeResourcesTrustedInsideTransaction(
+			List<IBaseResource> theResources,
+			SystemRequestDetails theRequestDetails,
+			TransactionDetails theTransactionDetails,
+			ConsumeFilesOutcomeJson theOutcome) {
+		RequestPartitionId partitionId = theRequestDetails.getRequestPartitionId();
+
+		/*
+		 * Resolve the IDs of the resources being stored (so that they can be prefetched), as well
+		 * as all of their local reference targets, using a single lookup. Targets which aren't found
+		 * are marked as unresolved so that storing a resource never looks up a target individually.
+		 */
+		Map<String, IIdType> ids = new LinkedHashMap<>();
+		Set<String> ownIds = new HashSet<>();
+		for (IBaseResource next : theResources) {
+			IIdType id = next.getIdElement();
+			if (id.hasIdPart()) {
+				if (!id.hasResourceType()) {
+					id.setParts(null, myCtx.getResourceType(next), id.getIdPart(), id.getVersionIdPart());
+				}
+				IIdType versionlessId = id.toUnqualifiedVersionless();
+				ids.put(versionlessId.getValue(), versionlessId);
+				ownIds.add(versionlessId.getValue());
+			}
+			for (IIdType target : getLocalReferenceTargets(next)) {
+				ids.putIfAbsent(target.getValue(), target);
+			}
+		}
+
+		List<IResourcePersistentId<?>> ownPids = new ArrayList<>();
+		for (List<IIdType> nextBatch :
+				Iterables.partition(ids.values(), BulkImportAppCtx.PARAM_MAXIMUM_BATCH_SIZE_DEFAULT)) {
+			for (IIdType next : nextBatch) {
+				theTransactionDetails.addResolvedResourceId(next, null);
+			}
+			Map<IIdType, ? extends IResourceLookup<?>> resolvedIdentities = myIdHelperService.resolveResourceIdentities(
+					partitionId, nextBatch, ResolveIdentityMode.includeDeleted().cacheOk());
+			for (Map.Entry<IIdType, ? extends IResourceLookup<?>> next : resolvedIdentities.entrySet()) {
+				IResourcePersistentId<?> persistentId = next.getValue().getPersistentId();
+				boolean isOwnId = ownIds.contains(next.getKey().toUnqualifiedVersionless().getValue());
+				if (isOwnId) {
+					ownPids.add(persistentId);
+				}
+				// Deleted targets stay unresolved, since they aren't valid link targets
+				if (isOwnId || next.getValue().getDeleted() == null) {
+					theTransactionDetails.addResolvedResourceId(next.getKey(), persistentId);
+				}
+			}
+		}
+		if (!ownPids.isEmpty()) {
+			mySystemDao.preFetchResources(ownPids, true);
+		}
+
+		Set<IIdType> deferredTargets = DaoResourceLinkResolver.getDeferredReferenceTargets(theTransactionDetails);
+		assert deferredTargets != null;
+		for (IBaseResource next : theResources) {
+			theOutcome.addOutcome(storeResourceTrusted(theRequestDetails, theTransactionDetails, next));
+			if (!deferredTargets.isEmpty()) {
+				String sourceId = next.getIdElement().toUnqualifiedVersionless().getValue();
+				for (IIdType target : deferredTargets) {
+					theOutcome.addDeferredReference(target.getValue(), sourceId);
+				}
+				deferredTargets.clear();
+			}
+		}
+		return null;
+	}
+
+	private <T extends IBaseResource> StorageResponseCodeEnum storeResourceTrusted(
+			RequestDetails theRequestDetails, TransactionDetails theTransactionDetails, T theResource) {
+		IFhirResourceDao<T> dao = myDaoRegistry.getResourceDao(theResource);
+		if (!theResource.getIdElement().hasIdPart()) {
+			dao.create(theResource, null, true, theRequestDetails, theTransactionDetails);
+			return StorageResponseCodeEnum.SUCCESSFUL_CREATE;
+		}
+
+		DaoMethodOutcome outcome =
+				dao.update(theResource, null, true, false, theRequestDetails, theTransactionDetails);
+		if (outcome.isNop()) {
+			return StorageResponseCodeEnum.SUCCESSFUL_UPDATE_NO_CHANGE;
+		} else if (Boolean.TRUE.equals(outcome.getCreated())) {
+			return StorageResponseCodeEnum.SUCCESSFUL_UPDATE_AS_CREATE;
+		}
+		return StorageResponseCodeEnum.SUCCESSFUL_UPDATE;
+	}
+
+	/**
+	 * Returns the versionless IDs of the resources on this server referred to by the given resource
+	 */
+	private List<IIdType> getLocalReferenceTargets(IBaseResource theResource) {
+		List<IIdType> retVal = new ArrayList<>();
+		for (ResourceReferenceInfo next : myCtx.newTerser().getAllResourceReferences(theResource)) {
+			IIdType target = next.getResourceReference().getReferenceElement();
+			if (target.hasResourceType()
+					&& target.hasIdPart()
+					&& !target.isAbsolute()
+					&& !target.isLocal()
+					&& !target.getValue().contains("?")) {
+				retVal.add(target.toUnqualifiedVersionless());
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Checks the references which were left unlinked by a trusted bulk load because their target
+	 * did not exist when the source resource was stored. This is called for each chunk by
+	 * {@link ValidateReferencesStep} once all data in the import has been stored. Source resources
+	 * whose targets now all exist are reindexed so that their links are created. If referential
+	 * integrity is enforced, an error is returned for each target which still does not exist.
+	 *
+	 * @param theDeferredReferences A map of target resource IDs to the IDs of the resources which refer to them
+	 * @return A list of errors, which will be empty if all references could be linked
+	 * @since 8.12.0
+	 */
+	public List<String> validateDeferredReferences(
+			RequestPartitionId thePartitionId, Map<String, List<String>> theDeferredReferences) {
+		SystemRequestDetails requestDetails = new SystemRequestDetails();
+		requestDetails.setRequestPartitionId(
+				requireNonNullElseGet(thePartitionId, myPartitionSettings::getDefaultRequestPartitionId));
+		RequestPartitionId partitionId = requestDetails.getRequestPartitionId();
+
+		// Find out which targets still don't exist
+		Set<String> missingTargets = new TreeSet<>(theDeferredReferences.keySet());
+		for (List<String> nextBatch : Iterables.partition(
+				theDeferredReferences.keySet(), BulkImportAppCtx.PARAM_MAXIMUM_BATCH_SIZE_DEFAULT)) {
+			List<IIdType> targetIds = nextBatch.stream()
+					.map(t -> myCtx.getVersion().newIdType(t))
+					.collect(Collectors.toList());
+			Set<IIdType> foundTargets = myHapiTransactionService
+					.withRequest(requestDetails)
+					.execute(() -> myIdHelperService
+							.resolveResourceIdentities(
+									partitionId,
+									targetIds,
+									ResolveIdentityMode.excludeDeleted().noCacheUnlessDeletesDisabled())
+							.keySet());
+			foundTargets.forEach(t -> missingTargets.remove(t.toUnqualifiedVersionless().getValue()));
+		}
+
+		/*
+		 * If referential integrity is enforced, a resource referring to a missing target is
+		 * reported and left as-is, since reindexing it would fail. Otherwise, the reference
+		 * to the missing target is simply not linked, as for any other write.
+		 */
+		List<String> retVal = new ArrayList<>();
+		Set<String> sourcesToReindex = new TreeSet<>();
+		theDeferredReferences.values().forEach(sourcesToReindex::addAll);
+		if (myStorageSettings.isEnforceReferentialIntegrityOnWrite()) {
+			for (String missingTarget : missingTargets) {
+				List<String> sources = theDeferredReferences.get(missingTarget);
+				sources.forEach(sourcesToReindex::remove);
+				String msg = "Resource " + missingTarget + " not found, referenced by: "
+						+ String.join(", ", sources.subList(0, Math.min(sources.size(), 10)));
+				if (sources.size() > 10) {
+					msg += " and " + (sources.size() - 10) + " more";
+				}
+				retVal.add(msg);
+			}
+		}
+
+		// Reindex the sources so that their links are created
+		for (List<String> nextBatch :
+				Iterables.partition(sourcesToReindex, BulkImportAppCtx.PARAM_MAXIMUM_BATCH_SIZE_DEFAULT)) {
+			TransactionDetails transactionDetails = new TransactionDetails();
+			myHapiTransactionService.execute(requestDetails, transactionDetails, tx -> {
+				List<IIdType> sourceIds = nextBatch.stream()
+						.map(t -> myCtx.getVersion().newIdType(t))
+						.collect(Collectors.toList());
+				Map<IIdType, ? extends IResourceLookup<?>> sources = myIdHelperService.resolveResourceIdentities(
+						partitionId, sourceIds, ResolveIdentityMode.excludeDeleted().cacheOk());
+				for (Map.Entry<IIdType, ? extends IResourceLookup<?>> next : sources.entrySet()) {
+					IFhirResourceDao<?> dao = myDaoRegistry.getResourceDao(next.getKey().getResourceType());
+					dao.reindex(
+							next.getValue().getPersistentId(),
+							new ReindexParameters(),
+							requestDetails,
+							transactionDetails);
+				}
+				return null;
+			});
+		}
+
+		ourLog.info(
+				"Validated {} deferred reference targets, {} not found, {} resources reindexed",
+				theDeferredReferences.size(),
+				missingTargets.size(),
+				sourcesToReindex.size());
+		return retVal;
+	}
+
+	private static void addTransactionResponse(
+			ConsumeFilesOutcomeJson theOutcome, TransactionUtil.TransactionResponse theResponse) {
+		for (TransactionUtil.StorageOutcome entry : theResponse.getStorageOutcomes()) {
+			if (entry.getStorageResponseCode() != null) {
+				theOutcome.addOutcome(entry.getStorageResponseCode());
+			}
+			if (isNotBlank(entry.getErrorMessage())) {
+				theOutcome.addError(entry.getErrorMessage());
+			}
+		}
+	}
 }
@@ -41,10 +41,14 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.LineIterator;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -53,11 +57,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class FetchFilesStep implements IFirstJobStepWorker<BulkImportJobParameters, NdJsonFileJson> {
@@ -71,6 +77,7 @@ public class FetchFilesStep implements IFirstJobStepWorker<BulkImportJobParamete
 			Constants.CT_TEXT);
 	private static final List<String> ourValidNonNdJsonContentTypes =
 			Arrays.asList(Constants.CT_FHIR_JSON, Constants.CT_FHIR_JSON_NEW, Constants.CT_JSON, Constants.CT_TEXT);
+	private static final long BATCH_SIZE_BYTES = 2 * FileUtils.ONE_MB;
 
 	@Autowired
 	private FhirContext myFhirContext;
@@ -98,11 +105,35 @@ public class FetchFilesStep implements IFirstJobStepWorker<BulkImportJobParamete
 			ourLog.info("Will group resources by compartment: {}", chunkByCompartmentName);
 		}
 
-		try (CloseableHttpClient httpClient = newHttpClient(theStepExecutionDetails)) {
+		boolean chunkByByteRange = theStepExecutionDetails.getParameters().isChunkByByteRange();
+		if (chunkByByteRange && isNotBlank(chunkByCompartmentName)) {
+			ourLog.warn("Byte range chunking is not supported together with compartment chunking and will be ignored");
+			chunkByByteRange = false;
+		}
+
+		try (CloseableHttpClient httpClient = newHttpClient(theStepExecutionDetails.getParameters())) {
 
 			StopWatch outerSw = new StopWatch();
 			List<String> urls = theStepExecutionDetails.getParameters().getNdJsonUrls();
 
+			if (chunkByByteRange) {
+				for (String url : urls) {
+					if (!supportsByteRanges(url, httpClient)) {
+						ourLog.warn(
+								"Server for URL {} does not honour byte range requests for uncompressed content, falling back to whole-file chunking",
+								url);
+						chunkByByteRange = false;
+						break;
+					}
+				}
+			}
+
+			if (chunkByByteRange) {
+				transmitByteRanges(theDataSink, urls, httpClient, maxBatchResourceCount);
+				ourLog.info("Analyzed {} URLs for byte range chunking in {}", urls.size(), outerSw);
+				return new RunOutcome(0);
+			}
+
 			int lineCountOverallTotal = 0;
 			int lineCountOverallProgress = 0;
 			for (String url : urls) {
@@ -199,6 +230,121 @@ public class FetchFilesStep implements IFirstJobStepWorker<BulkImportJobParamete
 		return lineCountTotal;
 	}
 
+	/**
+	 * Probes the server with a single-byte range request. Byte range chunks are only usable if
+	 * the server answers with <code>206 Partial Content</code> and serves the file without a
+	 * content encoding, since otherwise every consumer would have to download (or decompress)
+	 * the entire prefix of the file preceding its range.
+	 */
+	@VisibleForTesting
+	static boolean supportsByteRanges(String theUrl, CloseableHttpClient theHttpClient) throws IOException {
+		HttpGet probe = new HttpGet(theUrl);
+		probe.addHeader(HttpHeaders.RANGE, "bytes=0-0");
+		probe.addHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+		try (CloseableHttpResponse response = theHttpClient.execute(probe)) {
+			EntityUtils.consumeQuietly(response.getEntity());
+			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT) {
+				return false;
+			}
+			Header contentEncoding = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+			return contentEncoding == null
+					|| isBlank(contentEncoding.getValue())
+					|| "identity".equalsIgnoreCase(contentEncoding.getValue());
+		}
+	}
+
+	/**
+	 * Downloads each file once, recording the byte offsets of each batch of lines, and then
+	 * transmits one work chunk per batch carrying only the offsets rather than the NDJSON text.
+	 */
+	private static void transmitByteRanges(
+			IJobDataSink<NdJsonFileJson> theDataSink,
+			List<String> theUrls,
+			CloseableHttpClient theHttpClient,
+			int theMaxBatchResourceCount)
+			throws IOException {
+
+		List<List<ByteRange>> urlRanges = new ArrayList<>(theUrls.size());
+		int lineCountOverallTotal = 0;
+		for (String url : theUrls) {
+			ourLog.info("Fetching URL (single pass for byte range analysis): {}", url);
+			try (CloseableHttpResponse response = theHttpClient.execute(new HttpGet(url))) {
+				validateStatusCodeAndContentType(url, response);
+				try (InputStream inputStream = response.getEntity().getContent()) {
+					List<ByteRange> ranges = scanByteRanges(inputStream, theMaxBatchResourceCount, BATCH_SIZE_BYTES);
+					for (ByteRange range : ranges) {
+						lineCountOverallTotal += range.getLineCount();
+					}
+					urlRanges.add(ranges);
+				}
+			}
+		}
+
+		int lineCountOverallProgress = 0;
+		for (int i = 0; i < theUrls.size(); i++) {
+			String url = theUrls.get(i);
+			List<ByteRange> ranges = urlRanges.get(i);
+			for (ByteRange range : ranges) {
+				lineCountOverallProgress += range.getLineCount();
+
+				NdJsonFileJson data = new NdJsonFileJson();
+				data.setSourceName(url);
+				data.setByteRangeStart(range.getStart());
+				data.setByteRangeEnd(range.getEnd());
+				data.setBatchLineCount(lineCountOverallProgress);
+				data.setBatchLineCountTotal(lineCountOverallTotal);
+				theDataSink.accept(data);
+			}
+			ourLog.info("Transmitted {} byte range chunks for URL: {}", ranges.size(), url);
+		}
+	}
+
+	/**
+	 * Scans an NDJSON stream and splits it into contiguous byte ranges, each of which ends on a
+	 * line boundary and contains at most the given number of non-blank lines. A range is also
+	 * closed once it reaches the given byte count. Because every byte of a multibyte UTF-8
+	 * sequence has the high bit set, line breaks can be found without decoding the stream.
+	 */
+	@VisibleForTesting
+	static List<ByteRange> scanByteRanges(InputStream theInputStream, int theMaxLineCount, long theMaxByteCount)
+			throws IOException {
+		List<ByteRange> retVal = new ArrayList<>();
+		byte[] buffer = new byte[(int) (64 * FileUtils.ONE_KB)];
+		long offset = 0;
+		long rangeStart = 0;
+		int rangeLineCount = 0;
+		boolean lineHasContent = false;
+
+		int bytesRead;
+		while ((bytesRead = theInputStream.read(buffer)) != -1) {
+			for (int i = 0; i < bytesRead; i++) {
+				byte next = buffer[i];
+				offset++;
+				if (next == '\n') {
+					if (lineHasContent) {
+						lineHasContent = false;
+						rangeLineCount++;
+						if (rangeLineCount >= theMaxLineCount || offset - rangeStart >= theMaxByteCount) {
+							retVal.add(new ByteRange(rangeStart, offset, rangeLineCount));
+							rangeStart = offset;
+							rangeLineCount = 0;
+						}
+					}
+				} else if (next != ' ' && next != '\t' && next != '\r') {
+					lineHasContent = true;
+				}
+			}
+		}
+
+		if (lineHasContent) {
+			rangeLineCount++;
+		}
+		if (rangeLineCount > 0) {
+			retVal.add(new ByteRange(rangeStart, offset, rangeLineCount));
+		}
+		return retVal;
+	}
+
 	/**
 	 * For a given compartment name (e.g. "Patient"), determines which compartment (if any)
 	 * a given resource is in and returns a numbered compartment which is a hash-modulus
@@ -244,11 +390,10 @@ public class FetchFilesStep implements IFirstJobStepWorker<BulkImportJobParamete
 		return "";
 	}
 
-	private CloseableHttpClient newHttpClient(
-			StepExecutionDetails<BulkImportJobParameters, ?> theStepExecutionDetails) {
+	static CloseableHttpClient newHttpClient(BulkImportJobParameters theParameters) {
 		HttpClientBuilder builder = HttpClientBuilder.create();
 
-		String httpBasicCredentials = theStepExecutionDetails.getParameters().getHttpBasicCredentials();
+		String httpBasicCredentials = theParameters.getHttpBasicCredentials();
 		if (isNotBlank(httpBasicCredentials)) {
 			int colonIdx = httpBasicCredentials.indexOf(':');
 			if (colonIdx == -1) {
@@ -294,7 +439,36 @@ public class FetchFilesStep implements IFirstJobStepWorker<BulkImportJobParamete
 		}
 	}
 
-	private static void validateStatusCodeAndContentType(String nextUrl, CloseableHttpResponse response) {
+	/**
+	 * A contiguous range of an NDJSON source file, from {@link #getStart()} (inclusive)
+	 * to {@link #getEnd()} (exclusive).
+	 */
+	static class ByteRange {
+
+		private final long myStart;
+		private final long myEnd;
+		private final int myLineCount;
+
+		ByteRange(long theStart, long theEnd, int theLineCount) {
+			myStart = theStart;
+			myEnd = theEnd;
+			myLineCount = theLineCount;
+		}
+
+		public long getStart() {
+			return myStart;
+		}
+
+		public long getEnd() {
+			return myEnd;
+		}
+
+		public int getLineCount() {
+			return myLineCount;
+		}
+	}
+
+	static void validateStatusCodeAndContentType(String nextUrl, CloseableHttpResponse response) {
 		int statusCode = response.getStatusLine().getStatusCode();
 		String contentType = response.getEntity().getContentType().getValue();
 		if (statusCode >= 400) {
@@ -36,6 +36,12 @@ public class NdJsonFileJson implements IModelJson {
 	@JsonProperty("batchLineCountTotal")
 	private Integer myBatchLineCountTotal;
 
+	@JsonProperty("byteRangeStart")
+	private Long myByteRangeStart;
+
+	@JsonProperty("byteRangeEnd")
+	private Long myByteRangeEnd;
+
 	public String getNdJsonText() {
 		return myNdJsonText;
 	}
@@ -86,4 +92,47 @@ public class NdJsonFileJson implements IModelJson {
 	public Integer getBatchLineCountTotal() {
 		return myBatchLineCountTotal;
 	}
+
+	/**
+	 * If set, this chunk does not carry any NDJSON text and instead refers to the
+	 * byte range from this offset (inclusive) to {@link #getByteRangeEnd()} (exclusive)
+	 * within the file at {@link #getSourceName()}.
+	 * @since 8.12.0
+	 */
+	public Long getByteRangeStart() {
+		return myByteRangeStart;
+	}
+
+	/**
+	 * Offset of the first byte (inclusive) of this chunk within the source file.
+	 * @since 8.12.0
+	 */
+	public void setByteRangeStart(Long theByteRangeStart) {
+		myByteRangeStart = theByteRangeStart;
+	}
+
+	/**
+	 * Offset of the end (exclusive) of this chunk within the source file.
+	 * @since 8.12.0
+	 */
+	public Long getByteRangeEnd() {
+		return myByteRangeEnd;
+	}
+
+	/**
+	 * Offset of the end (exclusive) of this chunk within the source file.
+	 * @since 8.12.0
+	 */
+	public void setByteRangeEnd(Long theByteRangeEnd) {
+		myByteRangeEnd = theByteRangeEnd;
+	}
+
+	/**
+	 * Returns <code>true</code> if this chunk refers to a byte range within the source file
+	 * rather than carrying the NDJSON text itself.
+	 * @since 8.12.0
+	 */
+	public boolean hasByteRange() {
+		return myByteRangeStart != null && myByteRangeEnd != null;
+	}
 }
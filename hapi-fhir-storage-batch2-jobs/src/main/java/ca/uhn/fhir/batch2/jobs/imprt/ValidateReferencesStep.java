@@ -0,0 +1,70 @@
+/*-
+ * #%L
+ * HAPI-FHIR Storage Batch2 Jobs
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.batch2.jobs.imprt;
+
+import ca.uhn.fhir.batch2.api.IJobDataSink;
+import ca.uhn.fhir.batch2.api.IJobStepWorker;
+import ca.uhn.fhir.batch2.api.RunOutcome;
+import ca.uhn.fhir.batch2.api.StepExecutionDetails;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import jakarta.annotation.Nonnull;
+
+/**
+ * Links (or reports) the references in a single chunk of a trusted bulk load whose targets did
+ * not exist yet when the chunk was stored. Since the job is gated, this step only starts once
+ * every chunk has been stored. The chunk is then passed on to the report with its deferred
+ * references removed, so that the report only has to add up outcome counts and errors.
+ *
+ * @see ConsumeFilesStepV2#validateDeferredReferences(RequestPartitionId, java.util.Map)
+ * @since 8.12.0
+ */
+public class ValidateReferencesStep
+		implements IJobStepWorker<BulkImportJobParameters, ConsumeFilesOutcomeJson, ConsumeFilesOutcomeJson> {
+
+	private final ConsumeFilesStepV2 myConsumeFilesStep;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theConsumeFilesStep Used to check the references which were deferred by a trusted bulk load
+	 */
+	public ValidateReferencesStep(ConsumeFilesStepV2 theConsumeFilesStep) {
+		myConsumeFilesStep = theConsumeFilesStep;
+	}
+
+	@Nonnull
+	@Override
+	public RunOutcome run(
+			@Nonnull StepExecutionDetails<BulkImportJobParameters, ConsumeFilesOutcomeJson> theStepExecutionDetails,
+			@Nonnull IJobDataSink<ConsumeFilesOutcomeJson> theDataSink) {
+		ConsumeFilesOutcomeJson outcome = theStepExecutionDetails.getData();
+
+		if (outcome.hasDeferredReferences()) {
+			RequestPartitionId partitionId = theStepExecutionDetails.getParameters().getPartitionId();
+			myConsumeFilesStep
+					.validateDeferredReferences(partitionId, outcome.getDeferredReferences())
+					.forEach(outcome::addError);
+			outcome.getDeferredReferences().clear();
+		}
+
+		theDataSink.accept(outcome);
+		return RunOutcome.SUCCESS;
+	}
+}
@@ -161,10 +161,11 @@ public class ReindexTaskV2 implements TransactionCallback<ReindexResults> {
 		StopWatch sw = new StopWatch();
 		ReindexResults reindexResults = new ReindexResults();
 
-		// Prefetch Resources from DB
+		// Prefetch Resources from DB. If we're reindexing search parameters, every resource
+		// will be parsed, so the bodies can also be parsed in parallel up front
 		boolean reindexSearchParameters =
 				myJobParameters.getReindexSearchParameters() != ReindexParameters.ReindexSearchParametersEnum.NONE;
-		mySystemDao.preFetchResources(persistentIds, reindexSearchParameters);
+		mySystemDao.preFetchResources(persistentIds, reindexSearchParameters, reindexSearchParameters);
 		ourLog.info(
 				"Prefetched {} resources in {} - Instance[{}] Chunk[{}]",
 				persistentIds.size(),
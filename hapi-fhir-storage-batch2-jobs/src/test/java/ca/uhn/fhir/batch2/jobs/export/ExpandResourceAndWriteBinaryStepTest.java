@@ -21,6 +21,9 @@ import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.api.model.PersistentIdToForcedIdMap;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.binary.api.IBinaryStorageSvc;
+import ca.uhn.fhir.jpa.binary.api.StoredDetails;
+import ca.uhn.fhir.jpa.binary.interceptor.BinaryStorageInterceptor;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.dao.tx.NonTransactionalHapiTransactionService;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
@@ -32,6 +35,7 @@ import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
 import ca.uhn.fhir.rest.server.SimpleBundleProvider;
+import ca.uhn.fhir.util.HapiExtensions;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
@@ -40,6 +44,7 @@ import jakarta.annotation.Nonnull;
 import org.hl7.fhir.instance.model.api.IBaseBinary;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Binary;
 import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.AfterEach;
@@ -57,7 +62,9 @@ import org.springframework.util.StringUtils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -134,6 +141,9 @@ public class ExpandResourceAndWriteBinaryStepTest {
 	@Spy
 	private JpaStorageSettings myStorageSettings = new JpaStorageSettings();
 
+	@Mock
+	private IBinaryStorageSvc myBinaryStorageSvc;
+
 	@SuppressWarnings("unused")
 	@Spy
 	private IHapiTransactionService myTransactionService = new NonTransactionalHapiTransactionService();
@@ -347,6 +357,89 @@ public class ExpandResourceAndWriteBinaryStepTest {
 	}
 
 
+	@Test
+	public void testExpandResources_StreamingOutput_RespectMaximumFileSize() throws IOException {
+		// setup
+		myStorageSettings.setBulkExportStreamingOutputEnabled(true);
+		myStorageSettings.setBulkExportStreamingOutputBufferSize(2000);
+		myStorageSettings.setBulkExportFileMaximumSize(10000);
+		myInterceptorService.registerInterceptor(new BinaryStorageInterceptor<>(myFhirContext));
+
+		JobInstance instance = new JobInstance();
+		instance.setInstanceId("1");
+		IFhirResourceDao<?> patientDao = mockOutDaoRegistry();
+
+		ResourceIdList idList = new ResourceIdList();
+		ArrayList<IBaseResource> resources = createResourceList(idList, 100, 1000);
+
+		StepExecutionDetails<BulkExportJobParameters, ResourceIdList> input = createInput(
+			idList,
+			createParameters(),
+			instance
+		);
+
+		// when
+		when(patientDao.search(any(), any())).thenAnswer(t->{
+			SearchParameterMap map = t.getArgument(0, SearchParameterMap.class);
+			List<IQueryParameterType> idsOr = map.get(PARAM_ID).get(0);
+			return new SimpleBundleProvider(resources.subList(0, idsOr.size()));
+		});
+		when(myIdHelperService.newPidFromStringIdAndResourceName(any(), anyString(), anyString())).thenAnswer(t->{
+			String fhirId = t.getArgument(1, String.class);
+			return JpaPid.fromId(Long.parseLong(fhirId));
+		});
+		when(myIdHelperService.translatePidsToForcedIds(any())).thenAnswer(t->{
+			@SuppressWarnings("unchecked")
+			Set<IResourcePersistentId<JpaPid>> inputSet = t.getArgument(0, Set.class);
+			Map<IResourcePersistentId<?>, Optional<String>> map = new HashMap<>();
+			for (var next : inputSet) {
+				map.put(next, Optional.empty());
+			}
+			return new PersistentIdToForcedIdMap<>(map);
+		});
+		when(myDaoRegistry.getResourceDao(eq("Binary")))
+			.thenReturn(binaryDao);
+		AtomicInteger binaryIdCounter = new AtomicInteger(1);
+		when(binaryDao.update(any(IBaseBinary.class), any(RequestDetails.class)))
+			.thenAnswer(t->{
+				IIdType binaryId = new IdType("Binary/" + binaryIdCounter.getAndIncrement());
+				DaoMethodOutcome methodOutcome = new DaoMethodOutcome();
+				methodOutcome.setId(binaryId);
+				return methodOutcome;
+			});
+		List<String> storedContents = new ArrayList<>();
+		when(myBinaryStorageSvc.storeBinaryContent(any(), any(), any(), any(), any())).thenAnswer(t->{
+			String content = new String(t.getArgument(3, InputStream.class).readAllBytes(), StandardCharsets.UTF_8);
+			storedContents.add(content);
+			return new StoredDetails().setBinaryContentId("blob-" + storedContents.size()).setHash("hash").setBytes(content.length());
+		});
+		when(myJobStepExecutionServices.newRequestDetails(any())).thenReturn(new SystemRequestDetails());
+
+		// test
+		RunOutcome outcome = myFinalStep.run(input, sink);
+
+		// verify
+		assertEquals(resources.size(), outcome.getRecordsProcessed());
+
+		verify(binaryDao, atLeast(2))
+			.update(binaryCaptor.capture(), binaryDaoCreateRequestDetailsCaptor.capture());
+		assertThat(binaryCaptor.getAllValues()).hasSize(storedContents.size());
+		assertThat(storedContents).hasSizeGreaterThan(10);
+
+		int totalRecords = 0;
+		for (int i = 0; i < storedContents.size(); i++) {
+			String outputString = storedContents.get(i);
+			assertThat(outputString).hasSizeLessThan(10000);
+			totalRecords += StringUtils.countOccurrencesOf(outputString, "\n");
+
+			IBaseBinary binary = binaryCaptor.getAllValues().get(i);
+			assertThat(binary.getContent()).isNull();
+			assertThat(((Binary) binary).getDataElement().getExtensionString(HapiExtensions.EXT_EXTERNALIZED_BINARY_ID)).isEqualTo("blob-" + (i + 1));
+		}
+		assertEquals(100, totalRecords);
+		verify(sink, times(storedContents.size())).accept(any(BulkExportBinaryFileId.class));
+	}
+
 	@Test
 	public void run_validInputNoErrors_succeeds() {
 		// setup
@@ -45,6 +45,22 @@ public class BulkImportFileServletTest {
 	}
 
 
+	@Test
+	public void testDownloadFile_ByteRange() throws IOException {
+		String index = mySvc.registerFileByContents(ourInput);
+		String url = myServletExtension.getBaseUrl() + "/download?index=" + index;
+		int secondLineStart = ourInput.indexOf('\n') + 1;
+
+		HttpGet get = new HttpGet(url);
+		get.addHeader("Range", "bytes=" + secondLineStart + "-" + (ourInput.length() - 1));
+		try (CloseableHttpResponse response = myServletExtension.getHttpClient().execute(get)) {
+			String responseBody = IOUtils.toString(response.getEntity().getContent(), StandardCharsets.UTF_8);
+			assertEquals(206, response.getStatusLine().getStatusCode());
+			assertEquals("bytes " + secondLineStart + "-" + (ourInput.length() - 1) + "/*", response.getFirstHeader("Content-Range").getValue());
+			assertEquals(ourInput.substring(secondLineStart), responseBody);
+		}
+	}
+
 	private void executeBulkImportAndCheckReturnedContentType(String theUrl)  throws IOException{
 		CloseableHttpClient client = myServletExtension.getHttpClient();
 
@@ -10,6 +10,7 @@ import ca.uhn.fhir.batch2.model.WorkChunk;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.test.utilities.server.HttpServletExtension;
 import ca.uhn.fhir.util.BundleBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Encounter;
@@ -25,11 +26,16 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import static ca.uhn.fhir.rest.api.Constants.CT_APP_NDJSON;
 import static ca.uhn.fhir.rest.api.Constants.CT_FHIR_JSON;
@@ -121,6 +127,116 @@ public class FetchFilesStepTest {
 
 	}
 
+	@Test
+	public void testFetch_ChunkByByteRange() {
+		// Setup
+
+		StringBuilder b = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			b.append("{\"resourceType\":\"Patient\",\"id\":\"P").append(i).append("\"}").append("\n");
+			if (i == 4) {
+				b.append("\n");
+			}
+		}
+		String contents = b.toString();
+		String index = myBulkImportFileServlet.registerFileByContents(contents);
+
+		BulkImportJobParameters parameters = new BulkImportJobParameters()
+			.addNdJsonUrl(myHttpServletExtension.getBaseUrl() + "/download?index=" + index)
+			.setMaxBatchResourceCount(3)
+			.setChunkByByteRange(true);
+		StepExecutionDetails<BulkImportJobParameters, VoidModel> details = new StepExecutionDetails<>(parameters, null, ourTestInstance, new WorkChunk().setId(CHUNK_ID), myJobStepExecutionServices);
+
+		// Test
+
+		mySvc.run(details, myJobDataSink);
+
+		// Verify
+
+		verify(myJobDataSink, times(4)).accept(myFileCaptorCaptor.capture());
+		List<NdJsonFileJson> chunks = myFileCaptorCaptor.getAllValues();
+		assertThat(chunks).allSatisfy(t -> {
+			assertThat(t.getNdJsonText()).isNull();
+			assertThat(t.hasByteRange()).isTrue();
+			assertThat(t.getBatchLineCountTotal()).isEqualTo(10);
+		});
+		assertThat(chunks.get(0).getByteRangeStart()).isEqualTo(0L);
+		assertThat(chunks.get(3).getByteRangeEnd()).isEqualTo(contents.length());
+
+		String reassembled = chunks.stream()
+			.map(t -> contents.substring(t.getByteRangeStart().intValue(), t.getByteRangeEnd().intValue()))
+			.collect(Collectors.joining());
+		assertThat(reassembled).isEqualTo(contents);
+		assertThat(contents.substring(chunks.get(1).getByteRangeStart().intValue(), chunks.get(1).getByteRangeEnd().intValue()))
+			.startsWith("{\"resourceType\":\"Patient\",\"id\":\"P3\"}")
+			.endsWith("{\"resourceType\":\"Patient\",\"id\":\"P5\"}\n");
+	}
+
+	@Test
+	public void testFetch_ChunkByByteRange_GzipFallsBackToTextChunks() throws IOException {
+		// Setup
+
+		StringBuilder b = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			b.append("{\"resourceType\":\"Patient\",\"id\":\"P").append(i).append("\"}").append("\n");
+		}
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(gzipped)) {
+			gzipOutputStream.write(b.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		String index = myBulkImportFileServlet.registerFile(new BulkImportFileServlet.IFileSupplier() {
+			@Override
+			public boolean isGzip() {
+				return true;
+			}
+
+			@Override
+			public InputStream openStream() {
+				return new ByteArrayInputStream(gzipped.toByteArray());
+			}
+		});
+		String url = myHttpServletExtension.getBaseUrl() + "/download?index=" + index;
+
+		BulkImportJobParameters parameters = new BulkImportJobParameters()
+			.addNdJsonUrl(url)
+			.setMaxBatchResourceCount(3)
+			.setChunkByByteRange(true);
+		StepExecutionDetails<BulkImportJobParameters, VoidModel> details = new StepExecutionDetails<>(parameters, null, ourTestInstance, new WorkChunk().setId(CHUNK_ID), myJobStepExecutionServices);
+
+		// Test
+
+		mySvc.run(details, myJobDataSink);
+
+		// Verify
+
+		try (CloseableHttpClient httpClient = FetchFilesStep.newHttpClient(parameters)) {
+			assertThat(FetchFilesStep.supportsByteRanges(url, httpClient)).isFalse();
+		}
+		verify(myJobDataSink, times(4)).accept(myFileCaptorCaptor.capture());
+		List<NdJsonFileJson> chunks = myFileCaptorCaptor.getAllValues();
+		assertThat(chunks).allSatisfy(t -> {
+			assertThat(t.hasByteRange()).isFalse();
+			assertThat(t.getNdJsonText()).isNotBlank();
+		});
+		assertThat(chunks.get(0).getNdJsonText()).startsWith("{\"resourceType\":\"Patient\",\"id\":\"P0\"}");
+	}
+
+	@Test
+	public void testScanByteRanges_MultibyteCharacters() throws IOException {
+		String contents = "{\"name\":\"Ünïcødé\"}\n  \r\n{\"name\":\"日本\"}\r\n{\"name\":\"x\"}";
+		byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+
+		List<FetchFilesStep.ByteRange> ranges = FetchFilesStep.scanByteRanges(new ByteArrayInputStream(bytes), 2, Long.MAX_VALUE);
+
+		assertThat(ranges).hasSize(2);
+		String first = new String(bytes, 0, (int) ranges.get(0).getEnd(), StandardCharsets.UTF_8);
+		assertThat(first).isEqualTo("{\"name\":\"Ünïcødé\"}\n  \r\n{\"name\":\"日本\"}\r\n");
+		assertThat(ranges.get(0).getLineCount()).isEqualTo(2);
+		assertThat(ranges.get(1).getStart()).isEqualTo(ranges.get(0).getEnd());
+		assertThat(ranges.get(1).getEnd()).isEqualTo(bytes.length);
+		assertThat(ranges.get(1).getLineCount()).isEqualTo(1);
+	}
+
 	@Test
 	public void testFetchWithBasicAuth_InvalidCredential() {
 
@@ -22,6 +22,7 @@ package ca.uhn.fhir.mdm.batch2;
 import ca.uhn.fhir.batch2.coordinator.JobDefinitionRegistry;
 import ca.uhn.fhir.batch2.jobs.config.BatchCommonCtx;
 import ca.uhn.fhir.batch2.model.JobDefinition;
+import ca.uhn.fhir.mdm.batch2.blockingkey.MdmBlockingKeyRebuildAppCtx;
 import ca.uhn.fhir.mdm.batch2.clear.MdmClearAppCtx;
 import ca.uhn.fhir.mdm.batch2.clear.MdmClearJobParameters;
 import ca.uhn.fhir.mdm.batch2.submit.MdmSubmitAppCtx;
@@ -31,17 +32,24 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
+import static ca.uhn.fhir.mdm.batch2.blockingkey.MdmBlockingKeyRebuildAppCtx.MDM_BLOCKING_KEY_REBUILD_JOB_BEAN_NAME;
 import static ca.uhn.fhir.mdm.batch2.clear.MdmClearAppCtx.MDM_CLEAR_JOB_BEAN_NAME;
 import static ca.uhn.fhir.mdm.batch2.submit.MdmSubmitAppCtx.MDM_SUBMIT_JOB_BEAN_NAME;
 
 @Configuration
-@Import({MdmClearAppCtx.class, MdmSubmitAppCtx.class, BatchCommonCtx.class})
+@Import({MdmClearAppCtx.class, MdmSubmitAppCtx.class, MdmBlockingKeyRebuildAppCtx.class, BatchCommonCtx.class})
 public class MdmBatch2Config {
 	@Bean
 	MdmJobDefinitionLoader mdmJobDefinitionLoader(
 			JobDefinitionRegistry theJobDefinitionRegistry,
 			@Qualifier(MDM_CLEAR_JOB_BEAN_NAME) JobDefinition<MdmClearJobParameters> theClearJobDefinition,
-			@Qualifier(MDM_SUBMIT_JOB_BEAN_NAME) JobDefinition<MdmSubmitJobParameters> theSubmitJobDefinition) {
-		return new MdmJobDefinitionLoader(theJobDefinitionRegistry, theClearJobDefinition, theSubmitJobDefinition);
+			@Qualifier(MDM_SUBMIT_JOB_BEAN_NAME) JobDefinition<MdmSubmitJobParameters> theSubmitJobDefinition,
+			@Qualifier(MDM_BLOCKING_KEY_REBUILD_JOB_BEAN_NAME)
+					JobDefinition<MdmSubmitJobParameters> theBlockingKeyRebuildJobDefinition) {
+		return new MdmJobDefinitionLoader(
+				theJobDefinitionRegistry,
+				theClearJobDefinition,
+				theSubmitJobDefinition,
+				theBlockingKeyRebuildJobDefinition);
 	}
 }
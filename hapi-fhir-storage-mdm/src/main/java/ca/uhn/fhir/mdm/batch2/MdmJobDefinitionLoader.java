@@ -28,9 +28,11 @@ public class MdmJobDefinitionLoader {
 	public MdmJobDefinitionLoader(
 			JobDefinitionRegistry theJobDefinitionRegistry,
 			JobDefinition<MdmClearJobParameters> theClearJobDefinition,
-			JobDefinition<MdmSubmitJobParameters> theSubmitJobDefinition) {
+			JobDefinition<MdmSubmitJobParameters> theSubmitJobDefinition,
+			JobDefinition<MdmSubmitJobParameters> theBlockingKeyRebuildJobDefinition) {
 
 		theJobDefinitionRegistry.addJobDefinitionIfNotRegistered(theClearJobDefinition);
 		theJobDefinitionRegistry.addJobDefinitionIfNotRegistered(theSubmitJobDefinition);
+		theJobDefinitionRegistry.addJobDefinitionIfNotRegistered(theBlockingKeyRebuildJobDefinition);
 	}
 }
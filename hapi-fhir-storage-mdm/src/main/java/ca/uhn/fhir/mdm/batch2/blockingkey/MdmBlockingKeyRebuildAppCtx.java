@@ -0,0 +1,96 @@
+/*-
+ * #%L
+ * HAPI-FHIR Storage MDM
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.mdm.batch2.blockingkey;
+
+import ca.uhn.fhir.batch2.api.IJobPartitionProvider;
+import ca.uhn.fhir.batch2.api.IJobStepWorker;
+import ca.uhn.fhir.batch2.api.VoidModel;
+import ca.uhn.fhir.batch2.jobs.chunk.ChunkRangeJson;
+import ca.uhn.fhir.batch2.jobs.chunk.ResourceIdListWorkChunkJson;
+import ca.uhn.fhir.batch2.jobs.step.GenerateRangeChunksStep;
+import ca.uhn.fhir.batch2.jobs.step.LoadIdsStep;
+import ca.uhn.fhir.batch2.model.JobDefinition;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.api.svc.IBatch2DaoSvc;
+import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.mdm.api.IMdmSettings;
+import ca.uhn.fhir.mdm.batch2.submit.MdmSubmitJobParameters;
+import ca.uhn.fhir.mdm.batch2.submit.MdmSubmitJobParametersValidator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Rebuilds the MDM blocking key index for existing resources. This takes the same parameters
+ * as <code>$mdm-submit</code>, but only recalculates the blocking keys of the resources instead
+ * of submitting them for matching.
+ *
+ * @since 8.12.0
+ */
+@Configuration
+public class MdmBlockingKeyRebuildAppCtx {
+
+	public static final String MDM_BLOCKING_KEY_REBUILD_JOB_BEAN_NAME = "mdmBlockingKeyRebuildJobDefinition";
+	public static final String MDM_BLOCKING_KEY_REBUILD_JOB = "MDM_BLOCKING_KEY_REBUILD";
+
+	@Bean(name = MDM_BLOCKING_KEY_REBUILD_JOB_BEAN_NAME)
+	public JobDefinition<MdmSubmitJobParameters> mdmBlockingKeyRebuildJobDefinition(
+			IBatch2DaoSvc theBatch2DaoSvc,
+			MatchUrlService theMatchUrlService,
+			FhirContext theFhirContext,
+			IMdmSettings theMdmSettings,
+			IJobPartitionProvider theJobPartitionProvider) {
+		return JobDefinition.newBuilder()
+				.setJobDefinitionId(MDM_BLOCKING_KEY_REBUILD_JOB)
+				.setJobDescription("Rebuild the MDM blocking key index")
+				.setJobDefinitionVersion(1)
+				.setParametersType(MdmSubmitJobParameters.class)
+				.setParametersValidator(
+						new MdmSubmitJobParametersValidator(theMdmSettings, theMatchUrlService, theFhirContext))
+				.addFirstStep(
+						"generate-ranges",
+						"generate data ranges to rebuild the blocking keys of",
+						ChunkRangeJson.class,
+						blockingKeyRebuildGenerateRangeChunksStep(theJobPartitionProvider))
+				.addIntermediateStep(
+						"load-ids",
+						"Load the IDs",
+						ResourceIdListWorkChunkJson.class,
+						blockingKeyRebuildLoadIdsStep(theBatch2DaoSvc))
+				.addLastStep("update-blocking-keys", "Update the blocking keys", mdmUpdateBlockingKeysStep())
+				.build();
+	}
+
+	@Bean
+	public GenerateRangeChunksStep<MdmSubmitJobParameters> blockingKeyRebuildGenerateRangeChunksStep(
+			IJobPartitionProvider theJobPartitionProvider) {
+		return new GenerateRangeChunksStep<>(theJobPartitionProvider);
+	}
+
+	@Bean
+	public LoadIdsStep<MdmSubmitJobParameters> blockingKeyRebuildLoadIdsStep(IBatch2DaoSvc theBatch2DaoSvc) {
+		return new LoadIdsStep<>(theBatch2DaoSvc);
+	}
+
+	@Bean
+	public IJobStepWorker<MdmSubmitJobParameters, ResourceIdListWorkChunkJson, VoidModel>
+			mdmUpdateBlockingKeysStep() {
+		return new MdmUpdateBlockingKeysStep();
+	}
+}
@@ -0,0 +1,83 @@
+/*-
+ * #%L
+ * HAPI-FHIR Storage MDM
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.mdm.batch2.blockingkey;
+
+import ca.uhn.fhir.batch2.api.IJobDataSink;
+import ca.uhn.fhir.batch2.api.IJobStepWorker;
+import ca.uhn.fhir.batch2.api.JobExecutionFailedException;
+import ca.uhn.fhir.batch2.api.RunOutcome;
+import ca.uhn.fhir.batch2.api.StepExecutionDetails;
+import ca.uhn.fhir.batch2.api.VoidModel;
+import ca.uhn.fhir.batch2.jobs.chunk.ResourceIdListWorkChunkJson;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.mdm.api.IMdmBlockingKeySvc;
+import ca.uhn.fhir.mdm.batch2.submit.MdmSubmitJobParameters;
+import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import ca.uhn.fhir.util.Logs;
+import jakarta.annotation.Nonnull;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MdmUpdateBlockingKeysStep
+		implements IJobStepWorker<MdmSubmitJobParameters, ResourceIdListWorkChunkJson, VoidModel> {
+	private static final Logger ourLog = Logs.getBatchTroubleshootingLog();
+
+	@Autowired
+	private DaoRegistry myDaoRegistry;
+
+	@Autowired
+	private IMdmBlockingKeySvc myMdmBlockingKeySvc;
+
+	@Autowired
+	private IIdHelperService<? extends IResourcePersistentId> myIdHelperService;
+
+	@Nonnull
+	@Override
+	public RunOutcome run(
+			@Nonnull StepExecutionDetails<MdmSubmitJobParameters, ResourceIdListWorkChunkJson> theStepExecutionDetails,
+			@Nonnull IJobDataSink<VoidModel> theDataSink)
+			throws JobExecutionFailedException {
+		List<? extends IResourcePersistentId> ids =
+				theStepExecutionDetails.getData().getResourcePersistentIds(myIdHelperService);
+		ourLog.info("About to update the MDM blocking keys of {} resources", ids.size());
+
+		List<IBaseResource> resources = new ArrayList<>(ids.size());
+		for (IResourcePersistentId id : ids) {
+			IFhirResourceDao<?> dao = myDaoRegistry.getResourceDao(id.getResourceType());
+			try {
+				resources.add(dao.readByPid(id));
+			} catch (ResourceNotFoundException e) {
+				ourLog.warn("While attempting to update the MDM blocking keys of [{}], the resource was not found.", id);
+			}
+		}
+
+		myMdmBlockingKeySvc.updateBlockingKeys(resources);
+
+		ourLog.info("Updated the MDM blocking keys of {} resources", resources.size());
+		return new RunOutcome(resources.size());
+	}
+}
@@ -31,6 +31,8 @@ public class ChannelConsumerSettings extends BaseChannelSettings {
 	 */
 	private Duration myAckTimeout;
 
+	private String myConsumerGroupName;
+
 	/**
 	 * Constructor
 	 */
@@ -44,6 +46,7 @@ public class ChannelConsumerSettings extends BaseChannelSettings {
 		setRetryConfiguration(theSettings.getRetryConfigurationParameters());
 		setConcurrentConsumers(theSettings.getConcurrentConsumers());
 		setAckTimeout(theSettings.getAckTimeout());
+		setConsumerGroupName(theSettings.getConsumerGroupName());
 	}
 
 	public Integer getConcurrentConsumers() {
@@ -62,4 +65,22 @@ public class ChannelConsumerSettings extends BaseChannelSettings {
 	public void setAckTimeout(Duration theAckTimeout) {
 		myAckTimeout = theAckTimeout;
 	}
+
+	public String getConsumerGroupName() {
+		return myConsumerGroupName;
+	}
+
+	/**
+	 * Brokers which deliver each message on a channel to only one member of a group of
+	 * consumers (e.g. Kafka consumer groups or JMS shared subscriptions) should use this
+	 * name for the group, so that consumers with different group names each receive every
+	 * message. If <code>null</code> (the default), the broker client chooses the group.
+	 * Broker clients which deliver every message to every consumer can ignore this setting.
+	 *
+	 * @since 8.12.0
+	 */
+	public ChannelConsumerSettings setConsumerGroupName(String theConsumerGroupName) {
+		myConsumerGroupName = theConsumerGroupName;
+		return this;
+	}
 }
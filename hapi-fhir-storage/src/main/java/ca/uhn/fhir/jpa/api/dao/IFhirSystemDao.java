@@ -94,4 +94,20 @@ public interface IFhirSystemDao<T, MT> extends IDao {
 			List<P> theResolvedIds, boolean thePreFetchIndexes) {
 		// nothing by default
 	}
+
+	/**
+	 * Preload resources from the database in batch, optionally also parsing
+	 * the resource bodies ahead of time. This method is purely a performance
+	 * optimization and must be purely idempotent.
+	 *
+	 * @param thePreFetchIndexes Should resource indexes be loaded
+	 * @param thePreParseResources Should the resource bodies be parsed (callers should only
+	 *                             request this if every resource will be converted into a
+	 *                             resource model object in the current transaction)
+	 * @since 8.12.0
+	 */
+	default <P extends IResourcePersistentId> void preFetchResources(
+			List<P> theResolvedIds, boolean thePreFetchIndexes, boolean thePreParseResources) {
+		preFetchResources(theResolvedIds, thePreFetchIndexes);
+	}
 }
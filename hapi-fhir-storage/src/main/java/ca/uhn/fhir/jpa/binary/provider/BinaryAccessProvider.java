@@ -64,11 +64,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Objects;
 import java.util.Optional;
 
 import static ca.uhn.fhir.jpa.binary.interceptor.BinaryStorageInterceptor.AUTO_INFLATE_BINARY_CONTENT_KEY;
 import static ca.uhn.fhir.util.UrlUtil.sanitizeUrlPart;
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
  * This plain provider class can be registered with a JPA RestfulServer
@@ -210,22 +212,25 @@ public class BinaryAccessProvider {
 
 		String blobId = null;
 		StoredDetails storedDetails = null;
-		byte[] bytes = theRequestDetails.loadRequestContents();
-		String hash = null;
-
-		if (size > 0 && myBinaryStorageSvc != null) {
-			validateBinaryContent(bytes);
-
-			if (myBinaryStorageSvc.shouldStoreBinaryContent(size, theResourceId, requestContentType)) {
-				hash = getBinaryContentHash(bytes);
-				storedDetails = storeBinaryContentIfRequired(
-						theResourceId, theRequestDetails, theServletRequest, target, hash, bytes, requestContentType);
-			}
-		}
-
-		if (storedDetails != null) {
+		byte[] bytes = null;
+
+		if (size > 0
+				&& myBinaryStorageSvc != null
+				&& myBinaryStorageSvc.shouldStoreBinaryContent(size, theResourceId, requestContentType)) {
+			/*
+			 * Content destined for binary storage is streamed straight from the request into the
+			 * storage service, which calculates the size and hash as it goes, so the payload never
+			 * needs to be held on the heap.
+			 */
+			storedDetails = storeBinaryContentIfRequired(
+					theResourceId, theRequestDetails, theServletRequest, target, requestContentType);
 			size = storedDetails.getBytes();
 			blobId = storedDetails.getBinaryContentId();
+		} else {
+			bytes = theRequestDetails.loadRequestContents();
+			if (size > 0 && myBinaryStorageSvc != null) {
+				validateBinaryContent(bytes);
+			}
 		}
 
 		if (blobId == null) {
@@ -233,7 +238,7 @@ public class BinaryAccessProvider {
 			target.setData(bytes);
 		} else {
 			replaceDataWithExtension(target, blobId);
-			addHashExtension(target, hash);
+			addHashExtension(target, storedDetails.getHash());
 		}
 
 		target.setContentType(requestContentType);
@@ -247,34 +252,31 @@ public class BinaryAccessProvider {
 	}
 
 	/**
-	 * This method checks if the given binary content (based on its SHA-256 hash) is already stored in previous
-	 * resource version. If it is, it reuses the existing attachment ID to avoid saving the same content again.
-	 * If it's not found, it stores the new content and returns the newly generated attachment ID.
+	 * Streams the request body into binary storage. If the stored content turns out to be the same as the
+	 * content already referenced by the target (based on its SHA-256 hash), the newly stored copy is expunged
+	 * and the existing attachment ID is reused instead.
 	 */
 	private StoredDetails storeBinaryContentIfRequired(
 			IIdType theResourceId,
 			ServletRequestDetails theRequestDetails,
 			HttpServletRequest theServletRequest,
 			IBinaryTarget theTarget,
-			String theBinaryContentHash,
-			byte[] theBinaryContent,
 			String theRequestContentType)
 			throws IOException {
-		StoredDetails storedDetails;
+		StoredDetails storedDetails =
+				storeBinaryContent(theResourceId, theRequestDetails, theServletRequest, theRequestContentType);
+
 		String existingHash = theTarget.getHashExtension().orElse(null);
 		String existingAttachmentId = theTarget.getAttachmentId().orElse(null);
-
-		boolean isNoOp = existingAttachmentId != null && theBinaryContentHash.equals(existingHash);
+		boolean isNoOp = existingAttachmentId != null && Objects.equals(storedDetails.getHash(), existingHash);
 		if (isNoOp) {
 			// input binary content is the same as existing binary content, reuse existing binaryId
-			storedDetails = new StoredDetails();
-			storedDetails.setHash(theBinaryContentHash);
-			storedDetails.setBinaryContentId(existingAttachmentId);
-			storedDetails.setBytes(theBinaryContent.length);
-		} else {
-			// there is no existing binary content or content is different, store new content in binary storage
-			storedDetails = storeBinaryContent(
-					theResourceId, theRequestDetails, theServletRequest, theRequestContentType, theBinaryContent);
+			myBinaryStorageSvc.expungeBinaryContent(theResourceId, storedDetails.getBinaryContentId());
+			StoredDetails existingDetails = new StoredDetails();
+			existingDetails.setHash(storedDetails.getHash());
+			existingDetails.setBinaryContentId(existingAttachmentId);
+			existingDetails.setBytes(storedDetails.getBytes());
+			storedDetails = existingDetails;
 		}
 		return storedDetails;
 	}
@@ -301,20 +303,43 @@ public class BinaryAccessProvider {
 			IIdType theResourceId,
 			ServletRequestDetails theRequestDetails,
 			HttpServletRequest theServletRequest,
-			String theRequestContentType,
-			byte[] theBinaryContent)
+			String theRequestContentType)
 			throws IOException {
-		InputStream inputStream = new ByteArrayInputStream(theBinaryContent);
-		StoredDetails storedDetails = myBinaryStorageSvc.storeBinaryContent(
-				theResourceId, null, theRequestContentType, inputStream, theRequestDetails);
+		StoredDetails storedDetails;
+		try (InputStream inputStream = openRequestContentStream(theRequestDetails)) {
+			storedDetails = myBinaryStorageSvc.storeBinaryContent(
+					theResourceId, null, theRequestContentType, inputStream, theRequestDetails);
+		}
 		Validate.notBlank(
 				storedDetails.getBinaryContentId(), "BinaryStorageSvc returned a null blob ID"); // should not happen
-		Validate.isTrue(
-				storedDetails.getBytes() == theServletRequest.getContentLength(),
-				"Unexpected stored size"); // Sanity check
+		if (storedDetails.getBytes() == 0) {
+			myBinaryStorageSvc.expungeBinaryContent(theResourceId, storedDetails.getBinaryContentId());
+			validateBinaryContent(null);
+		}
+		if (isBlank(theRequestDetails.getHeader(Constants.HEADER_CONTENT_ENCODING))) {
+			Validate.isTrue(
+					storedDetails.getBytes() == theServletRequest.getContentLength(),
+					"Unexpected stored size"); // Sanity check
+		}
 		return storedDetails;
 	}
 
+	/**
+	 * Returns a stream over the request body. If an interceptor has already buffered the body, or if the
+	 * body is compressed and needs to be uncompressed first, the buffered contents are used. Otherwise the
+	 * servlet input stream is returned directly.
+	 */
+	private InputStream openRequestContentStream(ServletRequestDetails theRequestDetails) throws IOException {
+		byte[] loadedContents = theRequestDetails.getRequestContentsIfLoaded();
+		if (loadedContents == null && isNotBlank(theRequestDetails.getHeader(Constants.HEADER_CONTENT_ENCODING))) {
+			loadedContents = theRequestDetails.loadRequestContents();
+		}
+		if (loadedContents != null) {
+			return new ByteArrayInputStream(loadedContents);
+		}
+		return theRequestDetails.getInputStream();
+	}
+
 	public String getBinaryContentHash(byte[] binaryContent) {
 		return SHA_256.hashBytes(binaryContent).toString();
 	}
@@ -0,0 +1,41 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import jakarta.annotation.Nonnull;
+
+/**
+ * An optional, approximate index of the resources which exist in the repository,
+ * consulted by {@link MatchResourceUrlService} before it searches for the resources
+ * matching a conditional create or conditional update URL. Implementations may answer <code>false</code>
+ * whenever they are unsure, but must never answer <code>true</code> if a resource
+ * could match.
+ *
+ * @since 8.12.0
+ */
+public interface IResourceExistenceFilter {
+
+	/**
+	 * Returns <code>true</code> if it is certain that no resource of the given type
+	 * matches the given search parameters, meaning the search can be skipped.
+	 */
+	boolean isDefinitelyNoMatch(@Nonnull String theResourceType, @Nonnull SearchParameterMap theParamMap);
+}
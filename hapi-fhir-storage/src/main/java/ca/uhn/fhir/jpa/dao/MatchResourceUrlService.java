@@ -86,6 +86,9 @@ public class MatchResourceUrlService<T extends IResourcePersistentId<?>> {
 	@Autowired
 	private MemoryCacheService myMemoryCacheService;
 
+	@Autowired(required = false)
+	private IResourceExistenceFilter myResourceExistenceFilter;
+
 	/**
 	 * Note that this will only return a maximum of 2 results!!
 	 */
@@ -108,6 +111,32 @@ public class MatchResourceUrlService<T extends IResourcePersistentId<?>> {
 			RequestDetails theRequest,
 			IBaseResource theConditionalOperationTargetOrNull,
 			RequestPartitionId thePartitionId) {
+		return processMatchUrl(
+				theMatchUrl,
+				theResourceType,
+				theTransactionDetails,
+				theRequest,
+				theConditionalOperationTargetOrNull,
+				thePartitionId,
+				false);
+	}
+
+	/**
+	 * Note that this will only return a maximum of 2 results!!
+	 *
+	 * @param theCreateIfNoMatch Set to <code>true</code> only if the caller creates a new resource when
+	 *                           there is no match (i.e. a conditional create or conditional update). In
+	 *                           that case the {@link IResourceExistenceFilter} may be used to skip the search.
+	 * @since 8.12.0
+	 */
+	public <R extends IBaseResource> Set<T> processMatchUrl(
+			String theMatchUrl,
+			Class<R> theResourceType,
+			TransactionDetails theTransactionDetails,
+			RequestDetails theRequest,
+			IBaseResource theConditionalOperationTargetOrNull,
+			RequestPartitionId thePartitionId,
+			boolean theCreateIfNoMatch) {
 		Set<T> retVal = null;
 
 		String resourceType = myContext.getResourceType(theResourceType);
@@ -141,9 +170,16 @@ public class MatchResourceUrlService<T extends IResourcePersistentId<?>> {
 			}
 			paramMap.setLoadSynchronousUpTo(2);
 
-			retVal = callWithSpanMarker(
-					theRequest,
-					() -> search(paramMap, theResourceType, theRequest, theConditionalOperationTargetOrNull));
+			if (theCreateIfNoMatch
+					&& myResourceExistenceFilter != null
+					&& myResourceExistenceFilter.isDefinitelyNoMatch(resourceType, paramMap)) {
+				ourLog.debug("Match URL {} can not match any existing resources", matchUrl);
+				retVal = Collections.emptySet();
+			} else {
+				retVal = callWithSpanMarker(
+						theRequest,
+						() -> search(paramMap, theResourceType, theRequest, theConditionalOperationTargetOrNull));
+			}
 		}
 
 		/*
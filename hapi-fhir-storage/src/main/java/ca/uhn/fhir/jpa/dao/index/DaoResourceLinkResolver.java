@@ -74,9 +74,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -84,6 +86,8 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class DaoResourceLinkResolver<T extends IResourcePersistentId<?>> implements IResourceLinkResolver {
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(DaoResourceLinkResolver.class);
+	private static final String XACT_USERDATA_KEY_DEFERRED_REFERENCE_TARGETS =
+			DaoResourceLinkResolver.class.getName() + "_DEFERRED_REFERENCE_TARGETS";
 
 	@Autowired
 	private JpaStorageSettings myStorageSettings;
@@ -164,6 +168,12 @@ public class DaoResourceLinkResolver<T extends IResourcePersistentId<?>> impleme
 					theSourceResource, type, targetReference, idPart, theRequest, theTransactionDetails);
 			if (!createdTableOpt.isPresent()) {
 
+				Set<IIdType> deferredTargets = getDeferredReferenceTargets(theTransactionDetails);
+				if (deferredTargets != null) {
+					deferredTargets.add(targetResourceId.toUnqualifiedVersionless());
+					return null;
+				}
+
 				if (!myStorageSettings.isEnforceReferentialIntegrityOnWrite()) {
 					return null;
 				}
@@ -216,6 +226,35 @@ public class DaoResourceLinkResolver<T extends IResourcePersistentId<?>> impleme
 		return resolvedResource;
 	}
 
+	/**
+	 * Defers referential integrity checking for writes made using the given transaction details.
+	 * Instead of failing the write, a reference to a target that can not be found is left
+	 * unlinked and the target ID is recorded, whether or not referential integrity is enforced.
+	 * The caller is then responsible for checking these targets (and reindexing the source
+	 * resources) once all related data has been written.
+	 *
+	 * @see #getDeferredReferenceTargets(TransactionDetails)
+	 * @since 8.12.0
+	 */
+	public static void deferReferentialIntegrityOnWrite(@Nonnull TransactionDetails theTransactionDetails) {
+		theTransactionDetails.putUserData(XACT_USERDATA_KEY_DEFERRED_REFERENCE_TARGETS, new LinkedHashSet<IIdType>());
+	}
+
+	/**
+	 * Returns the (mutable) set of reference target IDs which could not be resolved while
+	 * referential integrity was deferred, or <code>null</code> if
+	 * {@link #deferReferentialIntegrityOnWrite(TransactionDetails)} was not called.
+	 *
+	 * @since 8.12.0
+	 */
+	@Nullable
+	public static Set<IIdType> getDeferredReferenceTargets(@Nullable TransactionDetails theTransactionDetails) {
+		if (theTransactionDetails == null) {
+			return null;
+		}
+		return theTransactionDetails.getUserData(XACT_USERDATA_KEY_DEFERRED_REFERENCE_TARGETS);
+	}
+
 	/**
 	 * Validates the resolved resource.
 	 * If 'Enforce Referential Integrity on Write' is enabled:
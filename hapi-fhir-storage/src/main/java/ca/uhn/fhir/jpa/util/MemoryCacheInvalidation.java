@@ -0,0 +1,123 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.util;
+
+import ca.uhn.fhir.model.api.IModelJson;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes entries in a single {@link MemoryCacheService} cache that have been
+ * invalidated on one server, so that the other servers in the cluster can evict
+ * them too.
+ *
+ * @see MemoryCacheInvalidationBroadcaster
+ * @since 8.12.0
+ */
+public class MemoryCacheInvalidation implements IModelJson {
+
+	@JsonProperty("originNodeId")
+	private String myOriginNodeId;
+
+	@JsonProperty("cache")
+	private MemoryCacheService.CacheEnum myCache;
+
+	@JsonProperty("invalidateAll")
+	private boolean myInvalidateAll;
+
+	@JsonProperty("keys")
+	private List<String> myKeys;
+
+	/**
+	 * Constructor
+	 */
+	public MemoryCacheInvalidation() {
+		super();
+	}
+
+	/**
+	 * Constructor
+	 */
+	public MemoryCacheInvalidation(String theOriginNodeId, MemoryCacheService.CacheEnum theCache) {
+		myOriginNodeId = theOriginNodeId;
+		myCache = theCache;
+	}
+
+	public String getOriginNodeId() {
+		return myOriginNodeId;
+	}
+
+	public void setOriginNodeId(String theOriginNodeId) {
+		myOriginNodeId = theOriginNodeId;
+	}
+
+	public MemoryCacheService.CacheEnum getCache() {
+		return myCache;
+	}
+
+	public void setCache(MemoryCacheService.CacheEnum theCache) {
+		myCache = theCache;
+	}
+
+	/**
+	 * If <code>true</code>, every entry in the cache should be invalidated and
+	 * {@link #getKeys()} is ignored
+	 */
+	public boolean isInvalidateAll() {
+		return myInvalidateAll;
+	}
+
+	public void setInvalidateAll(boolean theInvalidateAll) {
+		myInvalidateAll = theInvalidateAll;
+	}
+
+	/**
+	 * The invalidated keys, in the form produced by {@link MemoryCacheService#encodeKey(Object)}
+	 */
+	public List<String> getKeys() {
+		if (myKeys == null) {
+			myKeys = new ArrayList<>();
+		}
+		return myKeys;
+	}
+
+	public void setKeys(@Nullable List<String> theKeys) {
+		myKeys = theKeys;
+	}
+
+	public void addKey(String theKey) {
+		getKeys().add(theKey);
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+				.append("originNodeId", myOriginNodeId)
+				.append("cache", myCache)
+				.append("invalidateAll", myInvalidateAll)
+				.append("keys", myKeys)
+				.toString();
+	}
+}
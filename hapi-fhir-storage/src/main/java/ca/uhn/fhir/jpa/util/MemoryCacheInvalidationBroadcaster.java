@@ -0,0 +1,243 @@
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2026 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.util;
+
+import ca.uhn.fhir.broker.api.ChannelConsumerSettings;
+import ca.uhn.fhir.broker.api.ChannelProducerSettings;
+import ca.uhn.fhir.broker.api.IBrokerClient;
+import ca.uhn.fhir.broker.api.IChannelConsumer;
+import ca.uhn.fhir.broker.api.IChannelProducer;
+import ca.uhn.fhir.broker.api.IMessageListener;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.rest.server.messaging.IMessage;
+import ca.uhn.fhir.util.IoUtils;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Publishes invalidations of {@link MemoryCacheService} entries to the other servers in
+ * a cluster, and applies the invalidations published by those servers to the local
+ * caches. This allows the caches to use long expiry times even when several servers
+ * share a database, since deletes, partition changes, etc. on one server evict the
+ * affected entries everywhere.
+ * <p>
+ * Invalidations are sent over the <code>memory-cache-invalidation</code> channel of the
+ * configured {@link IBrokerClient}. Every server must receive every message on this
+ * channel, so each server consumes it with its own
+ * {@link ChannelConsumerSettings#setConsumerGroupName(String) consumer group}, for brokers
+ * that would otherwise load balance messages between the consumers of a channel (e.g. Kafka
+ * consumer groups). Invalidations made during a database transaction are collected and
+ * published in a single message per cache once the transaction commits. Invalidations made
+ * in a nested <code>REQUIRES_NEW</code> transaction are published when that transaction
+ * commits, and are discarded if it rolls back.
+ * </p>
+ *
+ * @see JpaStorageSettings#setMemoryCacheInvalidationBroadcastEnabled(boolean)
+ * @since 8.12.0
+ */
+public class MemoryCacheInvalidationBroadcaster implements IMessageListener<MemoryCacheInvalidation> {
+
+	public static final String CHANNEL_NAME = "memory-cache-invalidation";
+	private static final Logger ourLog = LoggerFactory.getLogger(MemoryCacheInvalidationBroadcaster.class);
+
+	private final MemoryCacheService myMemoryCacheService;
+	private final IBrokerClient myBrokerClient;
+	private final JpaStorageSettings myStorageSettings;
+	private final String myNodeId = UUID.randomUUID().toString();
+	private IChannelProducer<MemoryCacheInvalidation> myProducer;
+	private IChannelConsumer<MemoryCacheInvalidation> myConsumer;
+
+	/**
+	 * Constructor
+	 */
+	public MemoryCacheInvalidationBroadcaster(
+			MemoryCacheService theMemoryCacheService,
+			@Nullable IBrokerClient theBrokerClient,
+			JpaStorageSettings theStorageSettings) {
+		myMemoryCacheService = theMemoryCacheService;
+		myBrokerClient = theBrokerClient;
+		myStorageSettings = theStorageSettings;
+	}
+
+	@PostConstruct
+	public void start() {
+		if (!myStorageSettings.isMemoryCacheInvalidationBroadcastEnabled() || myProducer != null) {
+			return;
+		}
+		if (myBrokerClient == null) {
+			ourLog.warn("Memory cache invalidation broadcast is enabled but no message broker is configured");
+			return;
+		}
+
+		myProducer = myBrokerClient.getOrCreateProducer(
+				CHANNEL_NAME, MemoryCacheInvalidationJsonMessage.class, new ChannelProducerSettings());
+		ChannelConsumerSettings consumerSettings = new ChannelConsumerSettings();
+		consumerSettings.setConcurrentConsumers(1);
+		consumerSettings.setConsumerGroupName(CHANNEL_NAME + "-" + myNodeId);
+		myConsumer = myBrokerClient.getOrCreateConsumer(
+				CHANNEL_NAME, MemoryCacheInvalidationJsonMessage.class, this, consumerSettings);
+		myMemoryCacheService.setInvalidationBroadcaster(this);
+		ourLog.info("Publishing memory cache invalidations on channel {} as node {}", CHANNEL_NAME, myNodeId);
+	}
+
+	@PreDestroy
+	public void stop() {
+		myMemoryCacheService.setInvalidationBroadcaster(null);
+		IoUtils.closeQuietly(myConsumer, ourLog);
+		myConsumer = null;
+		myProducer = null;
+	}
+
+	@VisibleForTesting
+	String getNodeId() {
+		return myNodeId;
+	}
+
+	/**
+	 * Publishes the invalidation of the given cache key once the current database transaction
+	 * commits, or immediately if no transaction is active. Keys which can't be sent to other
+	 * servers cause the whole cache to be invalidated on those servers instead.
+	 */
+	public void publishAfterCommit(@Nonnull MemoryCacheService.CacheEnum theCache, @Nonnull Object theKey) {
+		String key = MemoryCacheService.encodeKey(theKey);
+		MemoryCacheInvalidation invalidation = getPendingInvalidation(theCache);
+		if (key == null) {
+			invalidation.setInvalidateAll(true);
+		} else if (!invalidation.isInvalidateAll() && !invalidation.getKeys().contains(key)) {
+			invalidation.addKey(key);
+		}
+		publishIfNoTransactionIsActive(invalidation);
+	}
+
+	/**
+	 * Publishes the invalidation of every entry in the given cache once the current database
+	 * transaction commits, or immediately if no transaction is active.
+	 */
+	public void publishInvalidateAllAfterCommit(@Nonnull MemoryCacheService.CacheEnum theCache) {
+		MemoryCacheInvalidation invalidation = getPendingInvalidation(theCache);
+		invalidation.setInvalidateAll(true);
+		publishIfNoTransactionIsActive(invalidation);
+	}
+
+	/**
+	 * Invalidations made during a transaction are collected in a map which is bound to the
+	 * transaction and published when it commits
+	 */
+	@SuppressWarnings("unchecked")
+	private MemoryCacheInvalidation getPendingInvalidation(MemoryCacheService.CacheEnum theCache) {
+		if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+			return new MemoryCacheInvalidation(myNodeId, theCache);
+		}
+
+		Map<MemoryCacheService.CacheEnum, MemoryCacheInvalidation> pending =
+				(Map<MemoryCacheService.CacheEnum, MemoryCacheInvalidation>)
+						TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			pending = new EnumMap<>(MemoryCacheService.CacheEnum.class);
+			TransactionSynchronizationManager.bindResource(this, pending);
+			TransactionSynchronizationManager.registerSynchronization(new PendingInvalidationSynchronization(pending));
+		}
+		return pending.computeIfAbsent(theCache, t -> new MemoryCacheInvalidation(myNodeId, t));
+	}
+
+	private void publishIfNoTransactionIsActive(MemoryCacheInvalidation theInvalidation) {
+		if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+			publish(List.of(theInvalidation));
+		}
+	}
+
+	private void publish(Collection<MemoryCacheInvalidation> theInvalidations) {
+		IChannelProducer<MemoryCacheInvalidation> producer = myProducer;
+		if (producer == null) {
+			return;
+		}
+		for (MemoryCacheInvalidation next : theInvalidations) {
+			try {
+				producer.send(new MemoryCacheInvalidationJsonMessage(next));
+			} catch (Exception e) {
+				// Other servers fall back to expiring the entries, so don't fail the request
+				ourLog.warn("Failed to publish memory cache invalidation {}: {}", next, e.toString());
+			}
+		}
+	}
+
+	@Override
+	public void handleMessage(@Nonnull IMessage<MemoryCacheInvalidation> theMessage) {
+		MemoryCacheInvalidation invalidation = theMessage.getPayload();
+		if (myNodeId.equals(invalidation.getOriginNodeId())) {
+			return;
+		}
+		ourLog.debug("Applying memory cache invalidation {}", invalidation);
+		myMemoryCacheService.applyInvalidation(invalidation);
+	}
+
+	@Override
+	public Class<MemoryCacheInvalidation> getPayloadType() {
+		return MemoryCacheInvalidation.class;
+	}
+
+	/**
+	 * Publishes the invalidations collected during a transaction once it commits. The pending
+	 * invalidations are unbound while the transaction is suspended (e.g. by a nested
+	 * <code>REQUIRES_NEW</code> transaction), so that the nested transaction collects and
+	 * publishes its own invalidations.
+	 */
+	private class PendingInvalidationSynchronization implements TransactionSynchronization {
+		private final Map<MemoryCacheService.CacheEnum, MemoryCacheInvalidation> myPending;
+
+		private PendingInvalidationSynchronization(
+				Map<MemoryCacheService.CacheEnum, MemoryCacheInvalidation> thePending) {
+			myPending = thePending;
+		}
+
+		@Override
+		public void suspend() {
+			TransactionSynchronizationManager.unbindResourceIfPossible(MemoryCacheInvalidationBroadcaster.this);
+		}
+
+		@Override
+		public void resume() {
+			TransactionSynchronizationManager.bindResource(MemoryCacheInvalidationBroadcaster.this, myPending);
+		}
+
+		@Override
+		public void afterCommit() {
+			publish(myPending.values());
+		}
+
+		@Override
+		public void afterCompletion(int theStatus) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(MemoryCacheInvalidationBroadcaster.this);
+		}
+	}
+}
@@ -36,6 +36,7 @@ import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 import org.hl7.fhir.instance.model.api.IIdType;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.List;
@@ -43,9 +44,12 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.commons.lang3.StringUtils.defaultIfEmpty;
+import static org.apache.commons.lang3.StringUtils.defaultString;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
@@ -59,6 +63,7 @@ public class MemoryCacheService {
 
 	private final JpaStorageSettings myStorageSettings;
 	private final EnumMap<CacheEnum, Cache<?, ?>> myCaches = new EnumMap<>(CacheEnum.class);
+	private volatile MemoryCacheInvalidationBroadcaster myInvalidationBroadcaster;
 
 	public MemoryCacheService(JpaStorageSettings theStorageSettings) {
 		myStorageSettings = theStorageSettings;
@@ -95,6 +100,23 @@ public class MemoryCacheService {
 
 					nextCache = CacheFactory.build(cacheTimeoutMs, cacheSize);
 					break;
+				case CODESYSTEM_VERSION_TO_LOOKUP_TABLE:
+					/*
+					 * Each entry holds a whole code system version off-heap, so only keep a
+					 * handful and let them age out at the same rate as the version lookups
+					 */
+					long lookupTableTimeoutMs = TimeUnit.MINUTES.toMillis(
+							myStorageSettings.getTerminologyLookupCacheExpireAfterWriteInMinutes());
+					nextCache = CacheFactory.build(lookupTableTimeoutMs, lookupTableTimeoutMs == 0 ? 0 : 50);
+					break;
+				case CODESYSTEM_VERSION_WITHOUT_LOOKUP_TABLE:
+					/*
+					 * Building a table means reading the whole code system version, so remember
+					 * the versions that a table couldn't be built for, but only briefly since the
+					 * deferred storage queue may have drained by the next attempt
+					 */
+					nextCache = CacheFactory.build(TimeUnit.MINUTES.toMillis(1), 1000);
+					break;
 				case PATIENT_IDENTIFIER_TO_FHIR_ID:
 				case NAME_TO_PARTITION:
 				case ID_TO_PARTITION:
@@ -106,7 +128,8 @@ public class MemoryCacheService {
 				case RESOURCE_CONDITIONAL_CREATE_VERSION:
 				case FHIRPATH_EXPRESSION:
 				default:
-					timeoutSeconds = SECONDS.convert(1, MINUTES);
+					timeoutSeconds =
+							SECONDS.convert(myStorageSettings.getMemoryCacheExpireAfterWriteInMinutes(), MINUTES);
 					maximumSize = 10000;
 					if (myStorageSettings.isMassIngestionMode()) {
 						timeoutSeconds = SECONDS.convert(50, MINUTES);
@@ -219,6 +242,11 @@ public class MemoryCacheService {
 
 	public void invalidateAllCaches() {
 		myCaches.values().forEach(Cache::invalidateAll);
+
+		MemoryCacheInvalidationBroadcaster broadcaster = myInvalidationBroadcaster;
+		if (broadcaster != null) {
+			myCaches.keySet().forEach(broadcaster::publishInvalidateAllAfterCommit);
+		}
 	}
 
 	/**
@@ -233,6 +261,100 @@ public class MemoryCacheService {
 		}
 		HapiTransactionService.executeAfterCommitOrExecuteNowIfNoTransactionIsActive(
 				() -> getCache(theCache).invalidate(theKey));
+		invalidateKeyOnOtherServersAfterCommit(theCache, theKey);
+	}
+
+	/**
+	 * Publishes an invalidation of the given key to the other servers in the cluster once the
+	 * current database transaction successfully commits, without touching the local cache.
+	 * This is useful when the local cache is being updated with a new value for the key
+	 * (e.g. using {@link #putAfterCommit(CacheEnum, Object, Object)}) but the value cached by
+	 * the other servers may now be stale. Does nothing unless a
+	 * {@link MemoryCacheInvalidationBroadcaster} has been registered.
+	 *
+	 * @since 8.12.0
+	 */
+	public <K> void invalidateKeyOnOtherServersAfterCommit(CacheEnum theCache, K theKey) {
+		MemoryCacheInvalidationBroadcaster broadcaster = myInvalidationBroadcaster;
+		if (broadcaster != null) {
+			broadcaster.publishAfterCommit(theCache, theKey);
+		}
+	}
+
+	/**
+	 * Applies an invalidation published by another server to the local caches
+	 */
+	void applyInvalidation(MemoryCacheInvalidation theInvalidation) {
+		CacheEnum cacheEnum = theInvalidation.getCache();
+		if (cacheEnum == null) {
+			return;
+		}
+		Cache<Object, Object> cache = getCache(cacheEnum);
+		if (theInvalidation.isInvalidateAll()) {
+			cache.invalidateAll();
+			return;
+		}
+		for (String next : theInvalidation.getKeys()) {
+			Object key = decodeKey(cacheEnum, next);
+			if (key == null) {
+				cache.invalidateAll();
+				return;
+			}
+			cache.invalidate(key);
+		}
+	}
+
+	/**
+	 * Registers the broadcaster used to publish invalidations to the other servers in the cluster
+	 *
+	 * @since 8.12.0
+	 */
+	public void setInvalidationBroadcaster(@Nullable MemoryCacheInvalidationBroadcaster theInvalidationBroadcaster) {
+		myInvalidationBroadcaster = theInvalidationBroadcaster;
+	}
+
+	/**
+	 * Converts a cache key into a string which can be sent to other servers, or returns
+	 * <code>null</code> if keys of this type aren't supported
+	 */
+	@Nullable
+	static String encodeKey(@Nonnull Object theKey) {
+		if (theKey instanceof String || theKey instanceof Integer || theKey instanceof Long) {
+			return theKey.toString();
+		} else if (theKey instanceof JpaPid jpaPid) {
+			return jpaPid.getId().toString();
+		} else if (theKey instanceof ForcedIdCacheKey forcedIdKey) {
+			return forcedIdKey.encode();
+		} else if (theKey instanceof HistoryCountKey historyCountKey) {
+			return historyCountKey.encode();
+		}
+		return null;
+	}
+
+	/**
+	 * Reverses {@link #encodeKey(Object)}, returning <code>null</code> if the key can't be decoded
+	 */
+	@Nullable
+	static Object decodeKey(@Nonnull CacheEnum theCache, @Nonnull String theKey) {
+		try {
+			Class<?> keyType = theCache.getKeyType();
+			if (keyType.equals(String.class)) {
+				return theKey;
+			} else if (keyType.equals(Integer.class)) {
+				return Integer.valueOf(theKey);
+			} else if (keyType.equals(Long.class)) {
+				return Long.valueOf(theKey);
+			} else if (keyType.equals(JpaPid.class)) {
+				return JpaPid.fromId(Long.valueOf(theKey));
+			} else if (keyType.equals(ForcedIdCacheKey.class)) {
+				return ForcedIdCacheKey.decode(theKey);
+			} else if (keyType.equals(HistoryCountKey.class)) {
+				return HistoryCountKey.decode(theKey);
+			}
+		} catch (RuntimeException e) {
+			// Fall through, the caller invalidates the whole cache instead
+		}
+		return null;
 	}
 
 	private <K, T> Cache<K, T> getCache(CacheEnum theCache) {
@@ -244,8 +366,12 @@ public class MemoryCacheService {
 	}
 
 	public void invalidateCaches(CacheEnum... theCaches) {
+		MemoryCacheInvalidationBroadcaster broadcaster = myInvalidationBroadcaster;
 		for (CacheEnum next : theCaches) {
 			getCache(next).invalidateAll();
+			if (broadcaster != null) {
+				broadcaster.publishInvalidateAllAfterCommit(next);
+			}
 		}
 	}
 
@@ -272,6 +398,20 @@ public class MemoryCacheService {
 		RESOURCE_IDENTIFIER_SYSTEM_TO_PID(String.class),
 		PATIENT_IDENTIFIER_TO_FHIR_ID(IdentifierKey.class),
 		CODESYSTEM_URL_TO_CURRENT_VERSION_DETAILS(String.class),
+		/**
+		 * Key type: {@literal Long} (code system version PID)
+		 * Value type: {@literal TermCodeSystemLookupTable}
+		 *
+		 * @since 8.12.0
+		 */
+		CODESYSTEM_VERSION_TO_LOOKUP_TABLE(Long.class),
+		/**
+		 * Key type: {@literal Long} (code system version PID)
+		 * Value type: {@literal Boolean}
+		 *
+		 * @since 8.12.0
+		 */
+		CODESYSTEM_VERSION_WITHOUT_LOOKUP_TABLE(Long.class),
 		VALUSSET_URL_TO_VALUESET(String.class);
 
 		private final Class<?> myKeyType;
@@ -385,6 +525,21 @@ public class MemoryCacheService {
 		public static HistoryCountKey forInstance(@Nonnull JpaPid theInstanceId) {
 			return new HistoryCountKey(null, theInstanceId);
 		}
+
+		private String encode() {
+			return defaultString(myTypeName) + "/" + Objects.toString(myInstanceId, "") + "/"
+					+ Objects.toString(myPartitionId, "");
+		}
+
+		private static HistoryCountKey decode(String theEncoded) {
+			String[] parts = theEncoded.split("/", -1);
+			JpaPid instanceId = null;
+			if (isNotBlank(parts[1])) {
+				instanceId =
+						JpaPid.fromId(Long.valueOf(parts[1]), isNotBlank(parts[2]) ? Integer.valueOf(parts[2]) : null);
+			}
+			return new HistoryCountKey(defaultIfEmpty(parts[0], null), instanceId);
+		}
 	}
 
 	public static class ForcedIdCacheKey {
@@ -436,6 +591,28 @@ public class MemoryCacheService {
 			return myHashCode;
 		}
 
+		private String encode() {
+			String partitionIds = "*";
+			if (myRequestPartitionIds != null) {
+				partitionIds = myRequestPartitionIds.stream()
+						.map(t -> Objects.toString(t, "null"))
+						.collect(Collectors.joining(","));
+			}
+			return defaultString(myResourceType) + "/" + myResourceId + "/" + partitionIds;
+		}
+
+		private static ForcedIdCacheKey decode(String theEncoded) {
+			String[] parts = theEncoded.split("/", -1);
+			RequestPartitionId partitionId = RequestPartitionId.allPartitions();
+			if (!"*".equals(parts[2])) {
+				List<Integer> partitionIds = Arrays.stream(parts[2].split(","))
+						.map(t -> "null".equals(t) ? null : Integer.valueOf(t))
+						.collect(Collectors.toList());
+				partitionId = RequestPartitionId.fromPartitionIds(partitionIds);
+			}
+			return new ForcedIdCacheKey(defaultIfEmpty(parts[0], null), parts[1], partitionId);
+		}
+
 		/**
 		 * Creates and returns a new unqualified versionless IIdType instance
 		 */
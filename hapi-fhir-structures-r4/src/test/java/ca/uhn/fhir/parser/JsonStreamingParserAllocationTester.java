@@ -0,0 +1,92 @@
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.util.StopWatch;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the heap allocation and time taken by the tree based and the streaming JSON
+ * parser on a large transaction Bundle. This is not run as part of the build, run it
+ * manually and compare the logged figures.
+ */
+public class JsonStreamingParserAllocationTester {
+	private static final Logger ourLog = LoggerFactory.getLogger(JsonStreamingParserAllocationTester.class);
+
+	@Test
+	public void testAllocationPerMegabyte() {
+		FhirContext treeCtx = FhirContext.forR4();
+		FhirContext streamingCtx = FhirContext.forR4();
+		streamingCtx.getParserOptions().setUseStreamingJsonParser(true);
+
+		String input = treeCtx.newJsonParser().encodeResourceToString(createBundle(5000));
+		double megabytes = input.getBytes(StandardCharsets.UTF_8).length / (1024.0 * 1024.0);
+		ourLog.info("Input bundle is {} MB", String.format("%.1f", megabytes));
+
+		for (int pass = 0; pass < 5; pass++) {
+			test(treeCtx, input, megabytes, "Tree     ");
+			test(streamingCtx, input, megabytes, "Streaming");
+		}
+	}
+
+	private void test(FhirContext theCtx, String theInput, double theMegabytes, String theName) {
+		com.sun.management.ThreadMXBean threadBean =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		int loops = 10;
+		long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+		StopWatch sw = new StopWatch();
+		for (int i = 0; i < loops; i++) {
+			theCtx.newJsonParser().parseResource(Bundle.class, theInput);
+		}
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+		double allocatedMbPerInputMb = (allocated / (1024.0 * 1024.0)) / (loops * theMegabytes);
+		ourLog.info(
+				"{} took {}ms per parse and allocated {} MB per MB parsed",
+				theName,
+				sw.getMillis() / loops,
+				String.format("%.1f", allocatedMbPerInputMb));
+	}
+
+	private static Bundle createBundle(int thePatientCount) {
+		Bundle retVal = new Bundle();
+		retVal.setType(Bundle.BundleType.TRANSACTION);
+		for (int i = 0; i < thePatientCount; i++) {
+			Patient patient = new Patient();
+			patient.setId("urn:uuid:patient-" + i);
+			patient.addIdentifier().setSystem("http://example.com/mrn").setValue("MRN" + i);
+			patient.addName().setFamily("Family" + i).addGiven("Given" + i).addGiven("Middle");
+			patient.getNameFirstRep().getGiven().get(1).addExtension("http://example.com/ext", new Quantity(i));
+			patient.setGender(Enumerations.AdministrativeGender.FEMALE);
+			patient.getBirthDateElement().setValueAsString("1980-01-01");
+			retVal.addEntry()
+					.setFullUrl(patient.getId())
+					.setResource(patient)
+					.getRequest()
+					.setMethod(Bundle.HTTPVerb.POST)
+					.setUrl("Patient");
+
+			for (int j = 0; j < 5; j++) {
+				Observation obs = new Observation();
+				obs.setStatus(Observation.ObservationStatus.FINAL);
+				obs.getCode().addCoding().setSystem("http://loinc.org").setCode("8867-4");
+				obs.setSubject(new Reference(patient.getId()));
+				obs.setValue(new Quantity().setValue(60 + j).setUnit("beats/minute"));
+				retVal.addEntry().setResource(obs).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Observation");
+			}
+		}
+		return retVal;
+	}
+}
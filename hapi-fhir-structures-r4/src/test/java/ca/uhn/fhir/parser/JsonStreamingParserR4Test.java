@@ -0,0 +1,169 @@
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.test.BaseTest;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.StringType;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class JsonStreamingParserR4Test extends BaseTest {
+	private static final FhirContext ourTreeCtx = FhirContext.forR4();
+	private static final FhirContext ourStreamingCtx = FhirContext.forR4();
+
+	static {
+		ourStreamingCtx.getParserOptions().setUseStreamingJsonParser(true);
+	}
+
+	@Captor
+	private ArgumentCaptor<IParserErrorHandler.IParseLocation> myParseLocationCaptor;
+	@Mock
+	private IParserErrorHandler myMockErrorHandler;
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"/bundle-circ-ref.json",
+		"/bundle-with-two-patient-resources.json",
+		"/entities-from-cerner.json",
+		"/multi-thread-parsing-issue-bundle.json",
+		"/observation-decimal-element-with-leading-plus.json",
+		"/static-capabilitystatement.json",
+		"/transaction-bundle.json"
+	})
+	public void testParseMatchesTreeParser(String theClasspath) throws IOException {
+		String input = loadResource(theClasspath);
+		assertParsesIdentically(input);
+	}
+
+	@Test
+	public void testPrimitiveExtensionsInAnyOrder() {
+		@Language("JSON")
+		String input = """
+			{
+			  "_birthDate": { "id": "bd", "extension": [ { "url": "http://foo", "valueString": "A" } ] },
+			  "name": [ {
+			    "_given": [ null, { "extension": [ { "valueString": "B", "url": "http://bar" } ] } ],
+			    "family": "Smith",
+			    "given": [ "John", "Q", "Public" ]
+			  } ],
+			  "active": true,
+			  "birthDate": "2020-01-01",
+			  "_active": { "id": "act" },
+			  "resourceType": "Patient",
+			  "_gender": { "extension": [ { "url": "http://data-absent", "valueCode": "unknown" } ] }
+			}""";
+
+		Patient patient = assertParsesIdentically(input);
+
+		assertEquals("2020-01-01", patient.getBirthDateElement().getValueAsString());
+		assertEquals("bd", patient.getBirthDateElement().getId());
+		assertEquals("A", patient.getBirthDateElement().getExtensionString("http://foo"));
+		assertEquals("act", patient.getActiveElement().getId());
+		List<StringType> given = patient.getNameFirstRep().getGiven();
+		assertThat(given).extracting(StringType::getValue).containsExactly("John", "Q", "Public");
+		assertThat(given.get(0).getExtension()).isEmpty();
+		assertEquals("B", given.get(1).getExtensionString("http://bar"));
+		assertNull(patient.getGenderElement().getValue());
+		assertEquals(
+			"unknown",
+			patient.getGenderElement().getExtensionByUrl("http://data-absent").getValue().primitiveValue());
+	}
+
+	@Test
+	public void testContainedResourcesAndBundleEntriesWithLateResourceType() {
+		@Language("JSON")
+		String input = """
+			{
+			  "type": "collection",
+			  "entry": [ {
+			    "fullUrl": "http://example.com/Observation/1",
+			    "resource": {
+			      "id": "1",
+			      "status": "final",
+			      "valueQuantity": { "value": 1.50, "unit": "mg" },
+			      "contained": [ { "id": "pat", "active": false, "resourceType": "Patient" } ],
+			      "subject": { "reference": "#pat" },
+			      "resourceType": "Observation"
+			    }
+			  } ],
+			  "resourceType": "Bundle"
+			}""";
+
+		Bundle bundle = assertParsesIdentically(input);
+
+		Observation obs = (Observation) bundle.getEntryFirstRep().getResource();
+		assertEquals("Observation/1", obs.getIdElement().toUnqualifiedVersionless().getValue());
+		assertEquals("1.50", obs.getValueQuantity().getValueElement().getValueAsString());
+		assertThat(obs.getContained()).hasSize(1);
+		assertThat(obs.getSubject().getResource()).isInstanceOf(Patient.class);
+	}
+
+	@Test
+	public void testNullExtensionReportedToErrorHandler() throws IOException {
+		String input = loadResource("/failing-json-file.json");
+		IParser parser = ourStreamingCtx.newJsonParser();
+		parser.setParserErrorHandler(myMockErrorHandler);
+
+		Organization org = parser.parseResource(Organization.class, input);
+
+		assertEquals("Test Org", org.getName());
+		assertEquals(0, org.getNameElement().getExtension().size());
+		verify(myMockErrorHandler, times(3)).missingRequiredElement(myParseLocationCaptor.capture(), eq("url"));
+		assertThat(myParseLocationCaptor.getAllValues())
+			.extracting(IParserErrorHandler.IParseLocation::getParentElementName)
+			.containsOnly("extension");
+	}
+
+	@Test
+	public void testMissingResourceType() {
+		IParser parser = ourStreamingCtx.newJsonParser();
+		assertThatThrownBy(() -> parser.parseResource("{\"id\": \"123\"}"))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("missing required element: 'resourceType'");
+	}
+
+	@Test
+	public void testInvalidJson() {
+		IParser parser = ourStreamingCtx.newJsonParser();
+		assertThatThrownBy(() -> parser.parseResource("{\"resourceType\": \"Patient\", \"id\": }"))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("Failed to parse JSON encoded FHIR content");
+		assertThatThrownBy(() -> parser.parseResource("{\"resourceType\": \"Patient\"} {"))
+			.isInstanceOf(DataFormatException.class)
+			.hasMessageContaining("Failed to parse JSON encoded FHIR content");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends IBaseResource> T assertParsesIdentically(String theInput) {
+		IBaseResource fromTree = ourTreeCtx.newJsonParser().parseResource(theInput);
+		IBaseResource fromStream = ourStreamingCtx.newJsonParser().parseResource(theInput);
+
+		String expected = ourTreeCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(fromTree);
+		String actual = ourTreeCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(fromStream);
+		assertEquals(expected, actual);
+		return (T) fromStream;
+	}
+}
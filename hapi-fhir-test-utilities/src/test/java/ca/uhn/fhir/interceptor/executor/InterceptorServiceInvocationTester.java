@@ -0,0 +1,117 @@
+package ca.uhn.fhir.interceptor.executor;
+
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.HookParams;
+import ca.uhn.fhir.interceptor.api.IBaseInterceptorBroadcaster;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.util.StopWatch;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares the time taken and heap allocated by the hook invokers used by {@link InterceptorService}
+ * against the previous approach of building the invoker list under a lock and calling
+ * each hook method reflectively. This is not run as part of the build, run it manually
+ * and compare the logged figures.
+ */
+public class InterceptorServiceInvocationTester {
+	private static final Logger ourLog = LoggerFactory.getLogger(InterceptorServiceInvocationTester.class);
+	private static final int INTERCEPTOR_COUNT = 15;
+
+	@Test
+	public void testCallHooks() throws Exception {
+		InterceptorService svc = new InterceptorService();
+		List<Object> interceptors = new ArrayList<>();
+		for (int i = 0; i < INTERCEPTOR_COUNT; i++) {
+			CountingInterceptor interceptor = new CountingInterceptor();
+			interceptors.add(interceptor);
+			svc.registerInterceptor(interceptor);
+		}
+		Method hookMethod = CountingInterceptor.class.getMethod("hook", String.class, String.class);
+		Object registryMutex = new Object();
+		HookParams params = new HookParams("A", "B");
+
+		for (int pass = 0; pass < 5; pass++) {
+			test("Reflective  ", () -> {
+				List<Object> invokers;
+				synchronized (registryMutex) {
+					invokers = new ArrayList<>(interceptors);
+				}
+				for (Object next : invokers) {
+					Object outcome = hookMethod.invoke(next, params.get(String.class, 0), params.get(String.class, 1));
+					if (Boolean.FALSE.equals(outcome)) {
+						break;
+					}
+				}
+			});
+			// Calls the invokers directly since callHooks asserts on the params, and surefire enables assertions
+			test("Invokers    ", () -> BaseInterceptorService.callInvokers(
+					Pointcut.TEST_RB, params, svc.getInvokersForPointcut(Pointcut.TEST_RB)));
+		}
+	}
+
+	@Test
+	public void testGetInvokersForPointcut() throws Exception {
+		InterceptorService svc = new InterceptorService();
+		for (int i = 0; i < INTERCEPTOR_COUNT; i++) {
+			svc.registerInterceptor(new CountingInterceptor());
+		}
+		List<IBaseInterceptorBroadcaster.IInvoker> globalInvokers =
+				new ArrayList<>(svc.getInvokersForPointcut(Pointcut.TEST_RB));
+		List<IBaseInterceptorBroadcaster.IInvoker> anonymousInvokers = Collections.emptyList();
+		Object registryMutex = new Object();
+
+		for (int pass = 0; pass < 5; pass++) {
+			test("Locked union      ", () -> {
+				synchronized (registryMutex) {
+					BaseInterceptorService.union(Arrays.asList(globalInvokers, anonymousInvokers));
+				}
+			});
+			test("Snapshot          ", () -> svc.getInvokersForPointcut(Pointcut.TEST_RB));
+		}
+	}
+
+	private void test(String theName, ThrowingRunnable theTask) throws Exception {
+		com.sun.management.ThreadMXBean threadBean =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		int loops = 2_000_000;
+		long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+		StopWatch sw = new StopWatch();
+		for (int i = 0; i < loops; i++) {
+			theTask.run();
+		}
+		long millis = sw.getMillis();
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+		ourLog.info(
+				"{} took {}ns per call and allocated {} bytes per call",
+				theName,
+				(millis * 1_000_000L) / loops,
+				allocated / loops);
+	}
+
+	@FunctionalInterface
+	private interface ThrowingRunnable {
+		void run() throws Exception;
+	}
+
+	public static class CountingInterceptor {
+		private long myCount;
+
+		@Hook(Pointcut.TEST_RB)
+		public boolean hook(String theString0, String theString1) {
+			myCount += theString0.length() + theString1.length();
+			return true;
+		}
+	}
+}
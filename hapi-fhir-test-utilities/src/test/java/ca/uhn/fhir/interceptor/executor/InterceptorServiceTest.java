@@ -327,6 +327,30 @@ class InterceptorServiceTest {
 		assertThat(interceptor1.myLastString1).isSameAs("B");
 	}
 
+	@Test
+	void testInvokersForPointcutAreAStableSnapshot() {
+		InterceptorService svc = new InterceptorService();
+		MyTestInterceptorTwo interceptor1 = new MyTestInterceptorTwo();
+		MyTestInterceptorOne interceptor0 = new MyTestInterceptorOne();
+		MyTestAnonymousInterceptorOne anonymousInterceptor = new MyTestAnonymousInterceptorOne();
+		svc.registerInterceptor(interceptor1);
+		svc.registerAnonymousInterceptor(Pointcut.TEST_RB, 200, anonymousInterceptor);
+		svc.registerInterceptor(interceptor0);
+
+		List<IBaseInterceptorBroadcaster.IInvoker> invokers = svc.getInvokersForPointcut(Pointcut.TEST_RB);
+		assertThat(invokers).extracting(IBaseInterceptorBroadcaster.IInvoker::getInterceptor).containsExactly(interceptor0, anonymousInterceptor, interceptor1);
+		assertThatThrownBy(() -> invokers.remove(0)).isInstanceOf(UnsupportedOperationException.class);
+
+		// Changes to the registry are not visible through a previously returned list
+		svc.unregisterInterceptor(interceptor0);
+		assertThat(invokers).hasSize(3);
+		assertThat(svc.getInvokersForPointcut(Pointcut.TEST_RB)).extracting(IBaseInterceptorBroadcaster.IInvoker::getInterceptor).containsExactly(anonymousInterceptor, interceptor1);
+
+		svc.unregisterAllInterceptors();
+		assertThat(svc.getInvokersForPointcut(Pointcut.TEST_RB)).isEmpty();
+		assertFalse(svc.hasHooks(Pointcut.TEST_RB));
+	}
+
 	@Test
 	void testInvokeAnonymousInterceptorMethods() {
 		InterceptorService svc = new InterceptorService();
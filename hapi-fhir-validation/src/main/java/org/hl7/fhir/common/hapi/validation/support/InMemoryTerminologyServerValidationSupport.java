@@ -8,22 +8,30 @@ import ca.uhn.fhir.context.support.LookupCodeRequest;
 import ca.uhn.fhir.context.support.ValidationSupportContext;
 import ca.uhn.fhir.context.support.ValueSetExpansionOptions;
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import ca.uhn.fhir.util.FhirTerser;
 import ca.uhn.fhir.util.FhirVersionIndependentConcept;
+import ca.uhn.fhir.util.Logs;
 import ca.uhn.hapi.converters.canonical.VersionCanonicalizer;
 import com.google.common.annotations.VisibleForTesting;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.dstu2.model.ValueSet;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 import org.hl7.fhir.r5.model.CanonicalType;
 import org.hl7.fhir.r5.model.CodeSystem;
 import org.hl7.fhir.r5.model.Enumerations;
+import org.slf4j.Logger;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -48,7 +56,11 @@ import static org.hl7.fhir.common.hapi.validation.support.CommonCodeSystemsTermi
 @SuppressWarnings("EnhancedSwitchMigration")
 public class InMemoryTerminologyServerValidationSupport extends BaseTerminologyServerValidationSupport {
 	private static final String OUR_PIPE_CHARACTER = "|";
+	private static final Logger ourLog = Logs.getTerminologyTroubleshootingLog();
 	private VersionCanonicalizer myVersionCanonicalizer;
+	private ValidationSupportChain.CacheConfiguration myExpansionIndexCacheConfiguration =
+			ValidationSupportChain.CacheConfiguration.defaultValues().setCacheSize(100);
+	private volatile Cache<String, ExpansionIndex> myExpansionIndexCache;
 
 	/**
 	 * Constructor
@@ -65,11 +77,37 @@ public class InMemoryTerminologyServerValidationSupport extends BaseTerminologyS
 		myVersionCanonicalizer = theVersionCanonicalizer;
 	}
 
+	/**
+	 * Sets the cache configuration for the expansion indexes used by
+	 * {@link #validateCodeInValueSet(ValidationSupportContext, ConceptValidationOptions, String, String, String, IBaseResource)}.
+	 * Each index holds every code in the full expansion of one version of a ValueSet, so that
+	 * repeated validations against a large ValueSet don't need to expand it every time. The
+	 * cache size is the maximum number of ValueSets indexed at once. The default is 100
+	 * ValueSets with a 10 minute expiry, and {@link ValidationSupportChain.CacheConfiguration#disabled()}
+	 * disables indexing.
+	 *
+	 * @since 8.12.0
+	 */
+	public void setExpansionIndexCacheConfiguration(
+			@Nonnull ValidationSupportChain.CacheConfiguration theExpansionIndexCacheConfiguration) {
+		Validate.notNull(theExpansionIndexCacheConfiguration, "theExpansionIndexCacheConfiguration must not be null");
+		myExpansionIndexCacheConfiguration = theExpansionIndexCacheConfiguration;
+		myExpansionIndexCache = null;
+	}
+
 	@Override
 	public String getName() {
 		return myCtx.getVersion().getVersion() + " In-Memory Validation Support";
 	}
 
+	@Override
+	public void invalidateCaches() {
+		Cache<String, ExpansionIndex> expansionIndexCache = myExpansionIndexCache;
+		if (expansionIndexCache != null) {
+			expansionIndexCache.invalidateAll();
+		}
+	}
+
 	@Override
 	public ValueSetExpansionOutcome expandValueSet(
 			ValidationSupportContext theValidationSupportContext,
@@ -119,6 +157,19 @@ public class InMemoryTerminologyServerValidationSupport extends BaseTerminologyS
 			@Nonnull IBaseResource theValueSet) {
 		ValueSetAndMessages expansion;
 		String vsUrl = CommonCodeSystemsTerminologyService.getValueSetUrl(getFhirContext(), theValueSet);
+
+		CodeValidationResult indexedResult = validateCodeUsingExpansionIndex(
+				theValidationSupportContext,
+				theOptions,
+				theCodeSystemUrlAndVersion,
+				theCode,
+				theDisplay,
+				theValueSet,
+				vsUrl);
+		if (indexedResult != null) {
+			return indexedResult;
+		}
+
 		try {
 			expansion = expandValueSetToCanonical(
 					theValidationSupportContext, theValueSet, theCodeSystemUrlAndVersion, theCode);
@@ -281,6 +332,152 @@ public class InMemoryTerminologyServerValidationSupport extends BaseTerminologyS
 				theValidationSupportContext, theOptions, theCodeSystem, theCode, theDisplay, expansion, theValueSetUrl);
 	}
 
+	/**
+	 * Looks the code up in the memoized index of the ValueSet's full expansion. This returns
+	 * <code>null</code> if the ValueSet can't be indexed or the code isn't in the index, in which
+	 * case the caller falls back to expanding the ValueSet for the specific code. That path
+	 * produces the detailed error messages for unknown codes, and handles case-insensitive
+	 * code systems and code systems which can only be queried one code at a time.
+	 */
+	@Nullable
+	private CodeValidationResult validateCodeUsingExpansionIndex(
+			ValidationSupportContext theValidationSupportContext,
+			ConceptValidationOptions theOptions,
+			String theCodeSystemUrlAndVersion,
+			String theCode,
+			String theDisplay,
+			IBaseResource theValueSet,
+			String theValueSetUrl) {
+		if (isBlank(theCode) || isBlank(theValueSetUrl)) {
+			return null;
+		}
+		Cache<String, ExpansionIndex> cache = getExpansionIndexCache();
+		if (cache == null) {
+			return null;
+		}
+
+		FhirTerser terser = myCtx.newTerser();
+		String cacheKey = theValueSetUrl
+				+ OUR_PIPE_CHARACTER
+				+ defaultString(terser.getSinglePrimitiveValueOrNull(theValueSet, "version"))
+				+ OUR_PIPE_CHARACTER
+				+ defaultString(theValueSet.getMeta().getVersionId());
+		ExpansionIndex index =
+				cache.get(cacheKey, t -> buildExpansionIndex(theValidationSupportContext, theValueSet, t));
+		List<FhirVersionIndependentConcept> concepts = index.getConcepts(theCode, theCodeSystemUrlAndVersion);
+		if (concepts.isEmpty()) {
+			return null;
+		}
+
+		CodeSystemDetails codeSystemDetails =
+				fetchCodeSystemDetails(theValidationSupportContext, theOptions, theCodeSystemUrlAndVersion);
+		return findCodeInExpansion(
+				theCode,
+				theDisplay,
+				theValueSetUrl,
+				theCodeSystemUrlAndVersion,
+				codeSystemDetails,
+				concepts,
+				theOptions);
+	}
+
+	@Nullable
+	private Cache<String, ExpansionIndex> getExpansionIndexCache() {
+		Cache<String, ExpansionIndex> retVal = myExpansionIndexCache;
+		if (retVal == null) {
+			retVal = createExpansionIndexCache();
+		}
+		return retVal;
+	}
+
+	@Nullable
+	private synchronized Cache<String, ExpansionIndex> createExpansionIndexCache() {
+		if (myExpansionIndexCache == null
+				&& myExpansionIndexCacheConfiguration.getCacheSize() > 0
+				&& myExpansionIndexCacheConfiguration.getCacheTimeout() > 0) {
+			try {
+				myExpansionIndexCache = CacheFactory.build(
+						myExpansionIndexCacheConfiguration.getCacheTimeout(),
+						myExpansionIndexCacheConfiguration.getCacheSize());
+			} catch (RuntimeException e) {
+				ourLog.warn("Unable to create ValueSet expansion index cache, indexing is disabled: {}", e.toString());
+				myExpansionIndexCacheConfiguration = ValidationSupportChain.CacheConfiguration.disabled();
+			}
+		}
+		return myExpansionIndexCache;
+	}
+
+	@Nonnull
+	private ExpansionIndex buildExpansionIndex(
+			ValidationSupportContext theValidationSupportContext, IBaseResource theValueSet, String theCacheKey) {
+		org.hl7.fhir.r5.model.ValueSet input = myVersionCanonicalizer.valueSetToValidatorCanonical(theValueSet);
+		if (!isIndexable(theValidationSupportContext, input, new HashSet<>())) {
+			ourLog.debug("ValueSet {} can not be indexed", theCacheKey);
+			return ExpansionIndex.NOT_INDEXED;
+		}
+
+		org.hl7.fhir.r5.model.ValueSet expansion;
+		try {
+			ValueSetAndMessages outcome = expandValueSetR5(theValidationSupportContext, input, null, null);
+			expansion = outcome != null ? outcome.getValueSet() : null;
+		} catch (ExpansionCouldNotBeCompletedInternallyException e) {
+			ourLog.debug("ValueSet {} can not be indexed: {}", theCacheKey, e.getMessage());
+			return ExpansionIndex.NOT_INDEXED;
+		}
+		if (expansion == null) {
+			return ExpansionIndex.NOT_INDEXED;
+		}
+
+		List<FhirVersionIndependentConcept> concepts = new ArrayList<>();
+		flattenAndConvertCodesR5(expansion.getExpansion().getContains(), concepts);
+		ourLog.debug("Indexed {} codes in ValueSet {}", concepts.size(), theCacheKey);
+		return new ExpansionIndex(concepts);
+	}
+
+	/**
+	 * The full expansion only matches the expansion for a specific code if every include and
+	 * exclude is fully backed by CodeSystem resources. When a CodeSystem is missing or its
+	 * content is not present, the expansion for a specific code asks the terminology services
+	 * about that code instead, which can't be done up front.
+	 */
+	private boolean isIndexable(
+			ValidationSupportContext theValidationSupportContext,
+			org.hl7.fhir.r5.model.ValueSet theValueSet,
+			Set<String> theVisitedValueSetUrls) {
+		if (isNotBlank(theValueSet.getUrl()) && !theVisitedValueSetUrls.add(theValueSet.getUrl())) {
+			return false;
+		}
+		if (theValueSet.getCompose().getInclude().isEmpty()) {
+			return false;
+		}
+
+		Function<String, CodeSystem> codeSystemLoader = newCodeSystemLoader(theValidationSupportContext);
+		Function<String, org.hl7.fhir.r5.model.ValueSet> valueSetLoader =
+				newValueSetLoader(theValidationSupportContext);
+		List<org.hl7.fhir.r5.model.ValueSet.ConceptSetComponent> includesAndExcludes = new ArrayList<>();
+		includesAndExcludes.addAll(theValueSet.getCompose().getInclude());
+		includesAndExcludes.addAll(theValueSet.getCompose().getExclude());
+		for (org.hl7.fhir.r5.model.ValueSet.ConceptSetComponent next : includesAndExcludes) {
+			if (isNotBlank(next.getSystem())) {
+				String version = optionallyPopulateVersionFromUrl(next.getSystem(), next.getVersion());
+				String system = substringBefore(next.getSystem(), OUR_PIPE_CHARACTER);
+				CodeSystem codeSystem =
+						codeSystemLoader.apply(version != null ? system + OUR_PIPE_CHARACTER + version : system);
+				if (codeSystem == null || codeSystem.getContent() == Enumerations.CodeSystemContentMode.NOTPRESENT) {
+					return false;
+				}
+			}
+			for (CanonicalType nextValueSet : next.getValueSet()) {
+				org.hl7.fhir.r5.model.ValueSet valueSet = valueSetLoader.apply(nextValueSet.getValueAsString());
+				if (valueSet == null
+						|| !isIndexable(theValidationSupportContext, valueSet, theVisitedValueSetUrls)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
 	private CodeValidationResult validateCodeInExpandedValueSet(
 			ValidationSupportContext theValidationSupportContext,
 			ConceptValidationOptions theOptions,
@@ -293,14 +490,63 @@ public class InMemoryTerminologyServerValidationSupport extends BaseTerminologyS
 
 		final CodeValidationResult codeValidationResult;
 
-		boolean caseSensitive = true;
-		IBaseResource codeSystemToValidateResource = null;
-		if (!theOptions.isInferSystem() && isNotBlank(theCodeSystemUrlAndVersionToValidate)) {
-			codeSystemToValidateResource = theValidationSupportContext
-					.getRootValidationSupport()
-					.fetchCodeSystem(theCodeSystemUrlAndVersionToValidate);
+		List<FhirVersionIndependentConcept> codes = flattenExpansion(theValidationSupportContext, theExpansion);
+		CodeSystemDetails codeSystemDetails =
+				fetchCodeSystemDetails(theValidationSupportContext, theOptions, theCodeSystemUrlAndVersionToValidate);
+
+		CodeValidationResult valueSetResult = findCodeInExpansion(
+				theCodeToValidate,
+				theDisplayToValidate,
+				theValueSetUrl,
+				theCodeSystemUrlAndVersionToValidate,
+				codeSystemDetails,
+				codes,
+				theOptions);
+		if (valueSetResult != null) {
+			codeValidationResult = valueSetResult;
+		} else {
+			IValidationSupport.IssueSeverity severity;
+			String message;
+			CodeValidationIssueCode issueCode = CodeValidationIssueCode.CODE_INVALID;
+			CodeValidationIssueCoding issueCoding = CodeValidationIssueCoding.INVALID_CODE;
+			if ("fragment".equals(codeSystemDetails.myContentMode)) {
+				severity = IValidationSupport.IssueSeverity.WARNING;
+				message = "Unknown code in fragment CodeSystem '"
+						+ getFormattedCodeSystemAndCodeForMessage(
+								theCodeSystemUrlAndVersionToValidate, theCodeToValidate)
+						+ "'";
+			} else {
+				severity = IValidationSupport.IssueSeverity.ERROR;
+				message = "Unknown code '"
+						+ getFormattedCodeSystemAndCodeForMessage(
+								theCodeSystemUrlAndVersionToValidate, theCodeToValidate)
+						+ "'";
+			}
+			if (isNotBlank(theValueSetUrl)) {
+				message += createInMemoryExpansionMessageSuffix(theValueSetUrl);
+				issueCoding = CodeValidationIssueCoding.NOT_IN_VS;
+			}
+
+			String sourceDetails = "In-memory expansion containing " + codes.size() + " codes";
+			if (!codes.isEmpty() && codes.size() < 10) {
+				sourceDetails += ": "
+						+ codes.stream()
+								.map(t -> t.getSystem() + "#" + t.getCode())
+								.collect(Collectors.joining(", "));
+			}
+
+			codeValidationResult = new CodeValidationResult()
+					.setSeverity(severity)
+					.setMessage(message)
+					.setSourceDetails(sourceDetails)
+					.addIssue(new CodeValidationIssue(message, severity, issueCode, issueCoding));
 		}
 
+		return codeValidationResult;
+	}
+
+	private List<FhirVersionIndependentConcept> flattenExpansion(
+			ValidationSupportContext theValidationSupportContext, IBaseResource theExpansion) {
 		List<FhirVersionIndependentConcept> codes = new ArrayList<>();
 		switch (getFhirVersionEnum(
 				theValidationSupportContext.getRootValidationSupport().getFhirContext(), theExpansion)) {
@@ -352,6 +598,20 @@ public class InMemoryTerminologyServerValidationSupport extends BaseTerminologyS
 				throw new IllegalArgumentException(Msg.code(700) + "Can not handle version: "
 						+ myCtx.getVersion().getVersion());
 		}
+		return codes;
+	}
+
+	private CodeSystemDetails fetchCodeSystemDetails(
+			ValidationSupportContext theValidationSupportContext,
+			ConceptValidationOptions theOptions,
+			String theCodeSystemUrlAndVersionToValidate) {
+		boolean caseSensitive = true;
+		IBaseResource codeSystemToValidateResource = null;
+		if (!theOptions.isInferSystem() && isNotBlank(theCodeSystemUrlAndVersionToValidate)) {
+			codeSystemToValidateResource = theValidationSupportContext
+					.getRootValidationSupport()
+					.fetchCodeSystem(theCodeSystemUrlAndVersionToValidate);
+		}
 
 		String codeSystemResourceName = null;
 		String codeSystemResourceVersion = null;
@@ -409,69 +669,8 @@ public class InMemoryTerminologyServerValidationSupport extends BaseTerminologyS
 			}
 		}
 
-		String codeSystemUrlToValidate = null;
-		String codeSystemVersionToValidate = null;
-		if (theCodeSystemUrlAndVersionToValidate != null) {
-			int versionIndex = theCodeSystemUrlAndVersionToValidate.indexOf("|");
-			if (versionIndex > -1) {
-				codeSystemUrlToValidate = theCodeSystemUrlAndVersionToValidate.substring(0, versionIndex);
-				codeSystemVersionToValidate = theCodeSystemUrlAndVersionToValidate.substring(versionIndex + 1);
-			} else {
-				codeSystemUrlToValidate = theCodeSystemUrlAndVersionToValidate;
-			}
-		}
-		CodeValidationResult valueSetResult = findCodeInExpansion(
-				theCodeToValidate,
-				theDisplayToValidate,
-				theValueSetUrl,
-				codeSystemUrlToValidate,
-				codeSystemVersionToValidate,
-				codeSystemResourceName,
-				codeSystemResourceVersion,
-				codes,
-				theOptions,
-				caseSensitive);
-		if (valueSetResult != null) {
-			codeValidationResult = valueSetResult;
-		} else {
-			IValidationSupport.IssueSeverity severity;
-			String message;
-			CodeValidationIssueCode issueCode = CodeValidationIssueCode.CODE_INVALID;
-			CodeValidationIssueCoding issueCoding = CodeValidationIssueCoding.INVALID_CODE;
-			if ("fragment".equals(codeSystemResourceContentMode)) {
-				severity = IValidationSupport.IssueSeverity.WARNING;
-				message = "Unknown code in fragment CodeSystem '"
-						+ getFormattedCodeSystemAndCodeForMessage(
-								theCodeSystemUrlAndVersionToValidate, theCodeToValidate)
-						+ "'";
-			} else {
-				severity = IValidationSupport.IssueSeverity.ERROR;
-				message = "Unknown code '"
-						+ getFormattedCodeSystemAndCodeForMessage(
-								theCodeSystemUrlAndVersionToValidate, theCodeToValidate)
-						+ "'";
-			}
-			if (isNotBlank(theValueSetUrl)) {
-				message += createInMemoryExpansionMessageSuffix(theValueSetUrl);
-				issueCoding = CodeValidationIssueCoding.NOT_IN_VS;
-			}
-
-			String sourceDetails = "In-memory expansion containing " + codes.size() + " codes";
-			if (!codes.isEmpty() && codes.size() < 10) {
-				sourceDetails += ": "
-						+ codes.stream()
-								.map(t -> t.getSystem() + "#" + t.getCode())
-								.collect(Collectors.joining(", "));
-			}
-
-			codeValidationResult = new CodeValidationResult()
-					.setSeverity(severity)
-					.setMessage(message)
-					.setSourceDetails(sourceDetails)
-					.addIssue(new CodeValidationIssue(message, severity, issueCode, issueCoding));
-		}
-
-		return codeValidationResult;
+		return new CodeSystemDetails(
+				caseSensitive, codeSystemResourceName, codeSystemResourceVersion, codeSystemResourceContentMode);
 	}
 
 	@Nonnull
@@ -485,17 +684,30 @@ public class InMemoryTerminologyServerValidationSupport extends BaseTerminologyS
 				+ theCodeToValidate;
 	}
 
+	@Nullable
 	private CodeValidationResult findCodeInExpansion(
 			String theCodeToValidate,
 			String theDisplayToValidate,
 			String theValueSetUrl,
-			String codeSystemUrlToValidate,
-			String codeSystemVersionToValidate,
-			String codeSystemResourceName,
-			String codeSystemResourceVersion,
+			String theCodeSystemUrlAndVersionToValidate,
+			CodeSystemDetails theCodeSystemDetails,
 			List<FhirVersionIndependentConcept> expansionCodes,
-			ConceptValidationOptions theOptions,
-			boolean caseSensitive) {
+			ConceptValidationOptions theOptions) {
+		String codeSystemUrlToValidate = null;
+		String codeSystemVersionToValidate = null;
+		if (theCodeSystemUrlAndVersionToValidate != null) {
+			int versionIndex = theCodeSystemUrlAndVersionToValidate.indexOf("|");
+			if (versionIndex > -1) {
+				codeSystemUrlToValidate = theCodeSystemUrlAndVersionToValidate.substring(0, versionIndex);
+				codeSystemVersionToValidate = theCodeSystemUrlAndVersionToValidate.substring(versionIndex + 1);
+			} else {
+				codeSystemUrlToValidate = theCodeSystemUrlAndVersionToValidate;
+			}
+		}
+		boolean caseSensitive = theCodeSystemDetails.myCaseSensitive;
+		String codeSystemResourceName = theCodeSystemDetails.myName;
+		String codeSystemResourceVersion = theCodeSystemDetails.myVersion;
+
 		for (FhirVersionIndependentConcept nextExpansionCode : expansionCodes) {
 
 			boolean codeMatches;
@@ -1227,6 +1439,61 @@ public class InMemoryTerminologyServerValidationSupport extends BaseTerminologyS
 		}
 	}
 
+	private static class CodeSystemDetails {
+
+		private final boolean myCaseSensitive;
+		private final String myName;
+		private final String myVersion;
+		private final String myContentMode;
+
+		private CodeSystemDetails(boolean theCaseSensitive, String theName, String theVersion, String theContentMode) {
+			myCaseSensitive = theCaseSensitive;
+			myName = theName;
+			myVersion = theVersion;
+			myContentMode = theContentMode;
+		}
+	}
+
+	/**
+	 * The codes in the full expansion of a ValueSet, keyed by code. Most codes only
+	 * appear once, but the same code can be included from more than one CodeSystem.
+	 */
+	private static class ExpansionIndex {
+
+		private static final ExpansionIndex NOT_INDEXED = new ExpansionIndex(List.of());
+
+		private final Map<String, List<FhirVersionIndependentConcept>> myCodeToConcepts;
+
+		private ExpansionIndex(List<FhirVersionIndependentConcept> theConcepts) {
+			myCodeToConcepts = new HashMap<>(theConcepts.size() * 2);
+			for (FhirVersionIndependentConcept next : theConcepts) {
+				myCodeToConcepts
+						.computeIfAbsent(next.getCode(), t -> new ArrayList<>(1))
+						.add(next);
+			}
+		}
+
+		/**
+		 * Returns the concepts with the given code, from the given CodeSystem if one is specified
+		 */
+		private List<FhirVersionIndependentConcept> getConcepts(
+				String theCode, @Nullable String theCodeSystemUrlAndVersion) {
+			List<FhirVersionIndependentConcept> retVal = myCodeToConcepts.getOrDefault(theCode, List.of());
+			if (theCodeSystemUrlAndVersion == null || retVal.isEmpty()) {
+				return retVal;
+			}
+
+			String system = substringBefore(theCodeSystemUrlAndVersion, OUR_PIPE_CHARACTER);
+			String version = contains(theCodeSystemUrlAndVersion, OUR_PIPE_CHARACTER)
+					? substringAfter(theCodeSystemUrlAndVersion, OUR_PIPE_CHARACTER)
+					: null;
+			return retVal.stream()
+					.filter(t -> system.equals(t.getSystem()))
+					.filter(t -> version == null || version.equals(t.getSystemVersion()))
+					.collect(Collectors.toList());
+		}
+	}
+
 	public static class ExpansionCouldNotBeCompletedInternallyException extends Exception {
 
 		private static final long serialVersionUID = -2226561628771483085L;
@@ -1,5 +1,7 @@
 package org.hl7.fhir.common.hapi.validation.support;
 
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.BaseRuntimeDeclaredChildDefinition;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.FhirVersionEnum;
 import ca.uhn.fhir.context.support.ConceptValidationOptions;
@@ -14,18 +16,25 @@ import ca.uhn.fhir.rest.client.api.IGenericClient;
 import ca.uhn.fhir.rest.client.api.IRestfulClientFactory;
 import ca.uhn.fhir.rest.gclient.IQuery;
 import ca.uhn.fhir.rest.gclient.StringClientParam;
+import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import ca.uhn.fhir.util.BundleBuilder;
 import ca.uhn.fhir.util.BundleUtil;
+import ca.uhn.fhir.util.FhirTerser;
 import ca.uhn.fhir.util.Logs;
 import ca.uhn.fhir.util.ParametersUtil;
+import com.google.common.collect.Lists;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.hl7.fhir.dstu3.model.OperationOutcome.OperationOutcomeIssueComponent;
+import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.hl7.fhir.instance.model.api.IBaseCoding;
 import org.hl7.fhir.instance.model.api.IBaseDatatype;
 import org.hl7.fhir.instance.model.api.IBaseExtension;
 import org.hl7.fhir.instance.model.api.IBaseOperationOutcome;
@@ -51,9 +60,18 @@ import org.slf4j.Logger;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.util.ParametersUtil.getNamedParameterResource;
@@ -72,6 +90,8 @@ public class RemoteTerminologyServiceValidationSupport extends BaseTerminologySe
 
 	public static final String ERROR_CODE_UNKNOWN_CODE_IN_CODE_SYSTEM = "unknownCodeInSystem";
 	public static final String ERROR_CODE_UNKNOWN_CODE_IN_VALUE_SET = "unknownCodeInValueSet";
+	public static final int DEFAULT_BATCH_SIZE = 100;
+	public static final int DEFAULT_MAX_CONCURRENT_BATCHES = 4;
 
 	private String myBaseUrl;
 	private final List<Object> myClientInterceptors = new ArrayList<>();
@@ -86,6 +106,12 @@ public class RemoteTerminologyServiceValidationSupport extends BaseTerminologySe
 	@Nullable
 	private final IRestfulClientFactory myRestfulClientFactory;
 
+	private final ThreadLocal<BatchScope> myCurrentBatchScope = new ThreadLocal<>();
+	private int myBatchSize = DEFAULT_BATCH_SIZE;
+	private int myMaxConcurrentBatches = DEFAULT_MAX_CONCURRENT_BATCHES;
+	private ExecutorService myBatchExecutor;
+	private boolean myBatchValidationEnabled;
+
 	/**
 	 * Constructor
 	 *
@@ -655,30 +681,32 @@ public class RemoteTerminologyServiceValidationSupport extends BaseTerminologySe
 			return null;
 		}
 
+		// Inline ValueSets can't be used as a cache key, so they always go to the server
+		BatchScope batchScope = myCurrentBatchScope.get();
+		if (batchScope == null || theValueSet != null) {
+			return doInvokeRemoteValidateCode(theCodeSystem, theCode, theDisplay, theValueSetUrl, theValueSet);
+		}
+
+		ValidateCodeRequest request = new ValidateCodeRequest(theCodeSystem, theCode, theDisplay, theValueSetUrl);
+		CodeValidationResult retVal = batchScope.myResults.get(request);
+		if (retVal == null) {
+			retVal = doInvokeRemoteValidateCode(theCodeSystem, theCode, theDisplay, theValueSetUrl, null);
+			batchScope.myResults.put(request, retVal);
+		}
+		return retVal;
+	}
+
+	private CodeValidationResult doInvokeRemoteValidateCode(
+			String theCodeSystem, String theCode, String theDisplay, String theValueSetUrl, IBaseResource theValueSet) {
 		IGenericClient client = provideClient();
 
-		// this message builder can be removed once we introduce a parameter object like CodeValidationRequest
-		ValidationErrorMessageBuilder errorMessageBuilder = theServerMessage -> {
-			if (theValueSetUrl == null && theValueSet == null) {
-				return getErrorMessage(
-						ERROR_CODE_UNKNOWN_CODE_IN_CODE_SYSTEM, theCodeSystem, theCode, getBaseUrl(), theServerMessage);
-			}
-			return getErrorMessage(
-					ERROR_CODE_UNKNOWN_CODE_IN_VALUE_SET,
-					theCodeSystem,
-					theCode,
-					theValueSetUrl,
-					getBaseUrl(),
-					theServerMessage);
-		};
+		ValidationErrorMessageBuilder errorMessageBuilder =
+				newErrorMessageBuilder(theCodeSystem, theCode, theValueSetUrl, theValueSet);
 
 		IBaseParameters input =
 				buildValidateCodeInputParameters(theCodeSystem, theCode, theDisplay, theValueSetUrl, theValueSet);
 
-		String resourceType = "ValueSet";
-		if (theValueSet == null && theValueSetUrl == null) {
-			resourceType = "CodeSystem";
-		}
+		String resourceType = getValidateCodeResourceType(theValueSetUrl, theValueSet);
 
 		try {
 			IBaseParameters output = client.operation()
@@ -697,6 +725,308 @@ public class RemoteTerminologyServiceValidationSupport extends BaseTerminologySe
 		}
 	}
 
+	// this message builder can be removed once we introduce a parameter object like CodeValidationRequest
+	private ValidationErrorMessageBuilder newErrorMessageBuilder(
+			String theCodeSystem, String theCode, String theValueSetUrl, IBaseResource theValueSet) {
+		return theServerMessage -> {
+			if (theValueSetUrl == null && theValueSet == null) {
+				return getErrorMessage(
+						ERROR_CODE_UNKNOWN_CODE_IN_CODE_SYSTEM, theCodeSystem, theCode, getBaseUrl(), theServerMessage);
+			}
+			return getErrorMessage(
+					ERROR_CODE_UNKNOWN_CODE_IN_VALUE_SET,
+					theCodeSystem,
+					theCode,
+					theValueSetUrl,
+					getBaseUrl(),
+					theServerMessage);
+		};
+	}
+
+	private static String getValidateCodeResourceType(String theValueSetUrl, IBaseResource theValueSet) {
+		if (theValueSet == null && theValueSetUrl == null) {
+			return "CodeSystem";
+		}
+		return "ValueSet";
+	}
+
+	/**
+	 * Validates a collection of codes against the remote terminology server, using as few
+	 * round trips as possible. Duplicate requests are only sent once, and the remaining
+	 * requests are sent as FHIR <code>batch</code> Bundles of <code>$validate-code</code>
+	 * calls containing up to {@link #setBatchSize(int) batch size} entries each. Up to
+	 * {@link #setMaxConcurrentBatches(int) max concurrent batches} Bundles are in flight
+	 * at the same time.
+	 * <p>
+	 * If the server rejects a batch, or an individual entry in the batch fails, the affected
+	 * codes are validated individually instead, so the results are the same as calling
+	 * {@link #validateCode(ValidationSupportContext, ConceptValidationOptions, String, String, String, String)}
+	 * for each request.
+	 * </p>
+	 *
+	 * @param theRequests The codes to validate
+	 * @return The results, in the same order as the requests. The result is <code>null</code>
+	 * 	for any request without a code.
+	 * @since 8.12.0
+	 */
+	public List<CodeValidationResult> validateCodesInBatch(@Nonnull List<ValidateCodeRequest> theRequests) {
+		Validate.notNull(theRequests, "theRequests must not be null");
+
+		Map<ValidateCodeRequest, CompletableFuture<CodeValidationResult>> futures = new LinkedHashMap<>();
+		for (ValidateCodeRequest next : theRequests) {
+			if (isNotBlank(next.code())) {
+				futures.computeIfAbsent(next, t -> new CompletableFuture<>());
+			}
+		}
+
+		List<List<ValidateCodeRequest>> batches = Lists.partition(new ArrayList<>(futures.keySet()), myBatchSize);
+		ourLog.debug(
+				"Validating {} distinct codes against {} in {} batches",
+				futures.size(),
+				getBaseUrl(),
+				batches.size());
+
+		if (batches.size() == 1 || myMaxConcurrentBatches == 1) {
+			for (List<ValidateCodeRequest> nextBatch : batches) {
+				invokeRemoteValidateCodeBatch(nextBatch, futures);
+			}
+		} else {
+			ExecutorService executor = getOrCreateBatchExecutor();
+			CompletableFuture.allOf(batches.stream()
+							.map(t -> CompletableFuture.runAsync(
+									() -> invokeRemoteValidateCodeBatch(t, futures), executor))
+							.toArray(CompletableFuture[]::new))
+					.join();
+		}
+
+		List<CodeValidationResult> retVal = new ArrayList<>(theRequests.size());
+		for (ValidateCodeRequest next : theRequests) {
+			CompletableFuture<CodeValidationResult> future = futures.get(next);
+			if (future == null) {
+				retVal.add(null);
+				continue;
+			}
+			try {
+				retVal.add(future.join());
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw e;
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Starts a batch scope for the current thread. The given requests are validated up front
+	 * using {@link #validateCodesInBatch(List)}, and for as long as the scope is open any
+	 * call to this module's <code>validateCode</code> or <code>validateCodeInValueSet</code>
+	 * for the same code on the same thread is answered from those results instead of making
+	 * another call to the server. Codes that weren't prefetched are validated individually
+	 * and are also remembered until the scope is closed, so each distinct code is only sent
+	 * to the server once per scope.
+	 * <p>
+	 * This is intended to wrap a single validation pass, e.g.
+	 * </p>
+	 * <pre>
+	 * try (var scope = remoteSvc.startBatch(remoteSvc.createValidateCodeRequests(bundle))) {
+	 *    outcome = validator.validateWithResult(bundle);
+	 * }
+	 * </pre>
+	 * <p>
+	 * {@link org.hl7.fhir.common.hapi.validation.validator.FhirInstanceValidator} does this
+	 * automatically if {@link #setBatchValidationEnabled(boolean) batch validation} is enabled.
+	 * </p>
+	 *
+	 * @param theRequests The codes to prefetch
+	 * @since 8.12.0
+	 */
+	public BatchScope startBatch(@Nonnull Collection<ValidateCodeRequest> theRequests) {
+		List<ValidateCodeRequest> requests = new ArrayList<>(theRequests);
+		List<CodeValidationResult> results = validateCodesInBatch(requests);
+
+		BatchScope retVal = new BatchScope(myCurrentBatchScope.get());
+		for (int i = 0; i < requests.size(); i++) {
+			if (results.get(i) != null) {
+				retVal.myResults.put(requests.get(i), results.get(i));
+			}
+		}
+		myCurrentBatchScope.set(retVal);
+		return retVal;
+	}
+
+	/**
+	 * Creates the requests to validate every populated <code>Coding</code> in the given resource
+	 * (including any contained and Bundle entry resources). Each Coding is validated against its
+	 * CodeSystem, and Codings (or CodeableConcepts) with a ValueSet binding in the base
+	 * specification are also validated against that ValueSet. Bindings that are only declared
+	 * by a profile aren't known here, so those codes are validated individually (and then
+	 * remembered for the rest of the batch scope).
+	 *
+	 * @since 8.12.0
+	 */
+	@SuppressWarnings("unchecked")
+	public List<ValidateCodeRequest> createValidateCodeRequests(@Nonnull IBaseResource theResource) {
+		Class<IBaseCoding> codingType =
+				(Class<IBaseCoding>) myCtx.getElementDefinition("Coding").getImplementingClass();
+		FhirTerser terser = myCtx.newTerser();
+
+		List<ValidateCodeRequest> retVal = new ArrayList<>();
+		terser.visit(theResource, (theRes, theElement, thePath, theChildDefinition, theDefinition) -> {
+			String bindingValueSet = getBindingValueSetUrl(theChildDefinition);
+			if (codingType.isInstance(theElement)) {
+				IBaseCoding coding = (IBaseCoding) theElement;
+				addValidateCodeRequest(retVal, coding, null);
+				if (bindingValueSet != null) {
+					addValidateCodeRequest(retVal, coding, bindingValueSet);
+				}
+			} else if (bindingValueSet != null && "CodeableConcept".equals(theDefinition.getName())) {
+				for (IBaseCoding next : terser.getValues(theElement, "coding", codingType)) {
+					addValidateCodeRequest(retVal, next, bindingValueSet);
+				}
+			}
+		});
+		return retVal;
+	}
+
+	private static void addValidateCodeRequest(
+			List<ValidateCodeRequest> theRequests, IBaseCoding theCoding, String theValueSetUrl) {
+		if (isNotBlank(theCoding.getSystem()) && isNotBlank(theCoding.getCode())) {
+			theRequests.add(new ValidateCodeRequest(
+					theCoding.getSystem(), theCoding.getCode(), theCoding.getDisplay(), theValueSetUrl));
+		}
+	}
+
+	@Nullable
+	private static String getBindingValueSetUrl(@Nullable BaseRuntimeChildDefinition theChildDefinition) {
+		if (theChildDefinition instanceof BaseRuntimeDeclaredChildDefinition declaredChildDefinition
+				&& isNotBlank(declaredChildDefinition.getBindingValueSet())) {
+			// The validator passes the canonical URL of the ValueSet without a version
+			return StringUtils.substringBefore(declaredChildDefinition.getBindingValueSet(), "|");
+		}
+		return null;
+	}
+
+	private void invokeRemoteValidateCodeBatch(
+			List<ValidateCodeRequest> theRequests,
+			Map<ValidateCodeRequest, CompletableFuture<CodeValidationResult>> theFutures) {
+		try {
+			if (theRequests.size() == 1) {
+				invokeRemoteValidateCodeIndividually(theRequests, theFutures);
+				return;
+			}
+
+			FhirTerser terser = myCtx.newTerser();
+			BundleBuilder bundleBuilder = new BundleBuilder(myCtx);
+			bundleBuilder.setType("batch");
+			for (ValidateCodeRequest next : theRequests) {
+				IBase entry = bundleBuilder.addEntry();
+				bundleBuilder.addToEntry(
+						entry,
+						"resource",
+						buildValidateCodeInputParameters(
+								next.system(), next.code(), next.display(), next.valueSetUrl(), null));
+				terser.setElement(entry, "request.method", "POST");
+				terser.setElement(
+						entry,
+						"request.url",
+						getValidateCodeResourceType(next.valueSetUrl(), null) + "/$validate-code");
+			}
+
+			IBaseBundle response;
+			try {
+				response = provideClient()
+						.transaction()
+						.withBundle(bundleBuilder.getBundle())
+						.execute();
+			} catch (BaseServerResponseException e) {
+				ourLog.warn(
+						"Batch $validate-code request to {} failed, validating codes individually: {}",
+						getBaseUrl(),
+						e.getMessage());
+				invokeRemoteValidateCodeIndividually(theRequests, theFutures);
+				return;
+			}
+
+			List<IBase> responseEntries = terser.getValues(response, "entry");
+			if (responseEntries.size() != theRequests.size()) {
+				ourLog.warn(
+						"Batch $validate-code response from {} had {} entries but {} were requested, validating codes individually",
+						getBaseUrl(),
+						responseEntries.size(),
+						theRequests.size());
+				invokeRemoteValidateCodeIndividually(theRequests, theFutures);
+				return;
+			}
+
+			List<ValidateCodeRequest> failedRequests = new ArrayList<>();
+			for (int i = 0; i < theRequests.size(); i++) {
+				ValidateCodeRequest request = theRequests.get(i);
+				IBase responseEntry = responseEntries.get(i);
+				String status = terser.getSinglePrimitiveValueOrNull(responseEntry, "response.status");
+				IBaseResource output = terser.getSingleValueOrNull(responseEntry, "resource", IBaseResource.class);
+				if (!Strings.CS.startsWith(status, "2") || !(output instanceof IBaseParameters)) {
+					failedRequests.add(request);
+					continue;
+				}
+
+				ValidationErrorMessageBuilder errorMessageBuilder =
+						newErrorMessageBuilder(request.system(), request.code(), request.valueSetUrl(), null);
+				theFutures
+						.get(request)
+						.complete(createCodeValidationResult(
+								(IBaseParameters) output, errorMessageBuilder, request.code(), request.display()));
+			}
+
+			// The single request path knows how to turn each kind of failure into a result
+			invokeRemoteValidateCodeIndividually(failedRequests, theFutures);
+
+		} catch (RuntimeException e) {
+			for (ValidateCodeRequest next : theRequests) {
+				theFutures.get(next).completeExceptionally(e);
+			}
+		}
+	}
+
+	private void invokeRemoteValidateCodeIndividually(
+			List<ValidateCodeRequest> theRequests,
+			Map<ValidateCodeRequest, CompletableFuture<CodeValidationResult>> theFutures) {
+		for (ValidateCodeRequest next : theRequests) {
+			CodeValidationResult result =
+					doInvokeRemoteValidateCode(next.system(), next.code(), next.display(), next.valueSetUrl(), null);
+			theFutures.get(next).complete(result);
+		}
+	}
+
+	/**
+	 * All batches sent by this module share a single pool. Its threads time out when idle, so an
+	 * unused module doesn't hold on to any threads. Once the queue is full the caller runs the batch
+	 * itself, which keeps the number of batches in flight bounded across concurrent validations.
+	 */
+	private synchronized ExecutorService getOrCreateBatchExecutor() {
+		if (myBatchExecutor == null) {
+			BasicThreadFactory threadFactory = new BasicThreadFactory.Builder()
+					.namingPattern("RemoteTerminologyBatch-%d")
+					.daemon(true)
+					.build();
+
+			// NOTE: We're not using ThreadPoolUtil here, because that class depends on Spring and
+			// we want the validator infrastructure to not require spring dependencies.
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(
+					myMaxConcurrentBatches - 1,
+					myMaxConcurrentBatches - 1,
+					60L,
+					TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(myMaxConcurrentBatches),
+					threadFactory,
+					new ThreadPoolExecutor.CallerRunsPolicy());
+			executor.allowCoreThreadTimeOut(true);
+			myBatchExecutor = executor;
+		}
+		return myBatchExecutor;
+	}
+
 	private CodeValidationResult createErrorCodeValidationResult(
 			CodeValidationIssueCode theIssueCode, String theMessage) {
 		IssueSeverity severity = IssueSeverity.ERROR;
@@ -954,6 +1284,47 @@ public class RemoteTerminologyServiceValidationSupport extends BaseTerminologySe
 
 	private record CodingPair(String system, String code) {}
 
+	/**
+	 * A single code to validate using {@link #validateCodesInBatch(List)}
+	 *
+	 * @param system      The CodeSystem URL, or <code>null</code>
+	 * @param code        The code
+	 * @param display     The display to validate, or <code>null</code>
+	 * @param valueSetUrl The ValueSet to validate the code against, or <code>null</code> to
+	 *                    validate it against its CodeSystem
+	 * @since 8.12.0
+	 */
+	public record ValidateCodeRequest(
+			@Nullable String system,
+			@Nonnull String code,
+			@Nullable String display,
+			@Nullable String valueSetUrl) {}
+
+	/**
+	 * Holds the validation results for a batch started with {@link #startBatch(Collection)}.
+	 * Closing the scope discards the results and restores whichever scope was active
+	 * before it was started.
+	 *
+	 * @since 8.12.0
+	 */
+	public final class BatchScope implements AutoCloseable {
+		private final BatchScope myPreviousScope;
+		private final Map<ValidateCodeRequest, CodeValidationResult> myResults = new HashMap<>();
+
+		private BatchScope(BatchScope thePreviousScope) {
+			myPreviousScope = thePreviousScope;
+		}
+
+		@Override
+		public void close() {
+			if (myPreviousScope != null) {
+				myCurrentBatchScope.set(myPreviousScope);
+			} else {
+				myCurrentBatchScope.remove();
+			}
+		}
+	}
+
 	/**
 	 * Extension URL that indicates an OperationOutcome issue represents a display mismatch.
 	 */
@@ -1071,6 +1442,65 @@ public class RemoteTerminologyServiceValidationSupport extends BaseTerminologySe
 		return this;
 	}
 
+	public int getBatchSize() {
+		return myBatchSize;
+	}
+
+	/**
+	 * Sets the maximum number of <code>$validate-code</code> calls to send in a single
+	 * batch Bundle when using {@link #validateCodesInBatch(List)}. Defaults to
+	 * {@link #DEFAULT_BATCH_SIZE}.
+	 *
+	 * @since 8.12.0
+	 */
+	public RemoteTerminologyServiceValidationSupport setBatchSize(int theBatchSize) {
+		Validate.isTrue(theBatchSize > 0, "theBatchSize must be greater than 0");
+		myBatchSize = theBatchSize;
+		return this;
+	}
+
+	public int getMaxConcurrentBatches() {
+		return myMaxConcurrentBatches;
+	}
+
+	/**
+	 * Sets the maximum number of batch Bundles that {@link #validateCodesInBatch(List)} will
+	 * send to the server at the same time. Defaults to {@link #DEFAULT_MAX_CONCURRENT_BATCHES}.
+	 *
+	 * @since 8.12.0
+	 */
+	public RemoteTerminologyServiceValidationSupport setMaxConcurrentBatches(int theMaxConcurrentBatches) {
+		Validate.isTrue(theMaxConcurrentBatches > 0, "theMaxConcurrentBatches must be greater than 0");
+		synchronized (this) {
+			myMaxConcurrentBatches = theMaxConcurrentBatches;
+			if (myBatchExecutor != null) {
+				// Batches already running on the old pool are allowed to finish
+				myBatchExecutor.shutdown();
+				myBatchExecutor = null;
+			}
+		}
+		return this;
+	}
+
+	public boolean isBatchValidationEnabled() {
+		return myBatchValidationEnabled;
+	}
+
+	/**
+	 * If enabled, {@link org.hl7.fhir.common.hapi.validation.validator.FhirInstanceValidator} prefetches
+	 * the codes of each resource it validates from this server using {@link #startBatch(Collection)}
+	 * and {@link #createValidateCodeRequests(IBaseResource)}, so most codes are validated in a few
+	 * batch Bundles instead of one round trip each. Note that the prefetch is not served from the
+	 * caches of the validation support chain, so this is most useful when the validated resources
+	 * contain many distinct codes. Defaults to <code>false</code>.
+	 *
+	 * @since 8.12.0
+	 */
+	public RemoteTerminologyServiceValidationSupport setBatchValidationEnabled(boolean theBatchValidationEnabled) {
+		myBatchValidationEnabled = theBatchValidationEnabled;
+		return this;
+	}
+
 	/**
 	 * Sets the FHIR Terminology Server base URL
 	 *
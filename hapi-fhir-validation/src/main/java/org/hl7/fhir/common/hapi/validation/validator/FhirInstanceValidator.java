@@ -4,13 +4,17 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.FhirVersionEnum;
 import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
 import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.validation.IInstanceValidatorModule;
 import ca.uhn.fhir.validation.IValidationContext;
 import com.google.common.annotations.VisibleForTesting;
 import jakarta.annotation.Nonnull;
 import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.common.hapi.validation.support.RemoteTerminologyServiceValidationSupport;
+import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
 import org.hl7.fhir.exceptions.FHIRException;
 import org.hl7.fhir.exceptions.PathEngineException;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r5.fhirpath.FHIRPathEngine;
 import org.hl7.fhir.r5.fhirpath.FHIRPathUtilityClasses.FunctionDetails;
 import org.hl7.fhir.r5.fhirpath.IHostApplicationServices;
@@ -23,13 +27,17 @@ import org.hl7.fhir.r5.utils.validation.IValidatorResourceFetcher;
 import org.hl7.fhir.r5.utils.validation.constants.BestPracticeWarningLevel;
 import org.hl7.fhir.utilities.fhirpath.FHIRPathConstantEvaluationMode;
 import org.hl7.fhir.utilities.validation.ValidationMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 @SuppressWarnings({"PackageAccessibility", "Duplicates"})
 public class FhirInstanceValidator extends BaseValidatorBridge implements IInstanceValidatorModule {
+	private static final Logger ourLog = LoggerFactory.getLogger(FhirInstanceValidator.class);
 
 	private boolean myAnyExtensionsAllowed = true;
 	private BestPracticeWarningLevel myBestPracticeWarningLevel;
@@ -245,6 +253,19 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	protected List<ValidationMessage> validate(IValidationContext<?> theValidationCtx) {
 		WorkerContextValidationSupportAdapter wrappedWorkerContext = provideWorkerContext();
 
+		List<RemoteTerminologyServiceValidationSupport.BatchScope> batchScopes =
+				startRemoteTerminologyBatches(theValidationCtx);
+		try {
+			return doValidate(theValidationCtx, wrappedWorkerContext);
+		} finally {
+			for (int i = batchScopes.size() - 1; i >= 0; i--) {
+				batchScopes.get(i).close();
+			}
+		}
+	}
+
+	private List<ValidationMessage> doValidate(
+			IValidationContext<?> theValidationCtx, WorkerContextValidationSupportAdapter theWrappedWorkerContext) {
 		return new ValidatorWrapper()
 				.setAnyExtensionsAllowed(isAnyExtensionsAllowed())
 				.setBestPracticeWarningLevel(getBestPracticeWarningLevel())
@@ -258,7 +279,64 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 				.setAssumeValidRestReferences(isAssumeValidRestReferences())
 				.setAllowExamples(isAllowExamples())
 				.setHostApplicationServices(getHostApplicationServices())
-				.validate(wrappedWorkerContext, theValidationCtx);
+				.validate(theWrappedWorkerContext, theValidationCtx);
+	}
+
+	/**
+	 * Prefetches the codes in the resource being validated from any remote terminology server in the
+	 * validation support chain that has {@link RemoteTerminologyServiceValidationSupport#setBatchValidationEnabled(boolean)
+	 * batch validation} enabled. The returned scopes must be closed once validation is complete.
+	 */
+	private List<RemoteTerminologyServiceValidationSupport.BatchScope> startRemoteTerminologyBatches(
+			IValidationContext<?> theValidationCtx) {
+		if (isNoTerminologyChecks()) {
+			return Collections.emptyList();
+		}
+		List<RemoteTerminologyServiceValidationSupport> remoteSupports = new ArrayList<>();
+		collectBatchEnabledRemoteTerminologySupports(myValidationSupport, remoteSupports);
+		if (remoteSupports.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		IBaseResource resource;
+		try {
+			if (theValidationCtx.getResource() instanceof IBaseResource) {
+				resource = (IBaseResource) theValidationCtx.getResource();
+			} else {
+				resource = theValidationCtx
+						.getResourceAsStringEncoding()
+						.newParser(theValidationCtx.getFhirContext())
+						.parseResource(theValidationCtx.getResourceAsString());
+			}
+		} catch (DataFormatException e) {
+			// The validator reports the problem, there's just nothing to prefetch
+			ourLog.debug("Unable to parse resource for terminology prefetch: {}", e.getMessage());
+			return Collections.emptyList();
+		}
+
+		List<RemoteTerminologyServiceValidationSupport.BatchScope> retVal = new ArrayList<>();
+		for (RemoteTerminologyServiceValidationSupport next : remoteSupports) {
+			try {
+				retVal.add(next.startBatch(next.createValidateCodeRequests(resource)));
+			} catch (RuntimeException e) {
+				// Validation will still call the server for each code as usual
+				ourLog.warn("Failed to prefetch codes from terminology server {}: {}", next.getBaseUrl(), e.toString());
+			}
+		}
+		return retVal;
+	}
+
+	private static void collectBatchEnabledRemoteTerminologySupports(
+			IValidationSupport theValidationSupport, List<RemoteTerminologyServiceValidationSupport> theSupports) {
+		if (theValidationSupport instanceof RemoteTerminologyServiceValidationSupport remoteSupport) {
+			if (remoteSupport.isBatchValidationEnabled()) {
+				theSupports.add(remoteSupport);
+			}
+		} else if (theValidationSupport instanceof ValidationSupportChain chain) {
+			for (IValidationSupport next : chain.getValidationSupports()) {
+				collectBatchEnabledRemoteTerminologySupports(next, theSupports);
+			}
+		}
 	}
 
 	@Nonnull
@@ -250,6 +250,58 @@ public class InMemoryTerminologyServerValidationSupportTest extends BaseValidati
 
 	}
 
+	@Test
+	public void testValidateCodeInValueSet_ExpansionIsIndexed() {
+		CodeSystem cs = new CodeSystem();
+		cs.setUrl("http://cs");
+		cs.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
+		cs.setCaseSensitive(true);
+		for (int i = 0; i < 1000; i++) {
+			cs.addConcept().setCode("code" + i).setDisplay("Display " + i);
+		}
+		myPrePopulated.addCodeSystem(cs);
+
+		ValueSet vs = new ValueSet();
+		vs.setUrl("http://vs");
+		vs.getCompose().addInclude().setSystem("http://cs");
+		myPrePopulated.addValueSet(vs);
+
+		ValidationSupportContext valCtx = new ValidationSupportContext(myChain);
+		ConceptValidationOptions options = new ConceptValidationOptions().setValidateDisplay(true);
+		IValidationSupport.CodeValidationResult outcome;
+
+		outcome = mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "code5", "Display 5", vs);
+		assertNotNull(outcome);
+		assertTrue(outcome.isOk());
+		assertEquals("Display 5", outcome.getDisplay());
+		assertEquals("Code was validated against in-memory expansion of ValueSet: http://vs", outcome.getSourceDetails());
+
+		outcome = mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "code6", "Wrong Display", vs);
+		assertNotNull(outcome);
+		assertThat(outcome.getMessage()).contains("Concept Display \"Wrong Display\" does not match expected \"Display 6\"");
+
+		outcome = mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "code7", null, vs);
+		assertNotNull(outcome);
+		assertTrue(outcome.isOk());
+
+		// Unknown codes still get the detailed message from expanding for the specific code
+		outcome = mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "code99999", null, vs);
+		assertNotNull(outcome);
+		assertFalse(outcome.isOk());
+		assertThat(outcome.getMessage()).contains("Unknown code 'http://cs#code99999' for in-memory expansion of ValueSet 'http://vs'");
+
+		// The expansion is memoized, so removing a code isn't noticed until the caches are invalidated
+		cs.getConcept().removeIf(t -> t.getCode().equals("code7"));
+		outcome = mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "code7", null, vs);
+		assertNotNull(outcome);
+		assertTrue(outcome.isOk());
+
+		myChain.invalidateCaches();
+		outcome = mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "code7", null, vs);
+		assertNotNull(outcome);
+		assertFalse(outcome.isOk());
+	}
+
 	@Test
 	public void testValidateCode_UnknownCodeSystem_EnumeratedValueSet_MultipleIncludes() {
 		ValueSet vs = new ValueSet();
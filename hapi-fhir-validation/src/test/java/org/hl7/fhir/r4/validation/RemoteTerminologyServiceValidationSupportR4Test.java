@@ -2,6 +2,7 @@ package org.hl7.fhir.r4.validation;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.support.ConceptValidationOptions;
+import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
 import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.context.support.TranslateConceptResult;
 import ca.uhn.fhir.context.support.TranslateConceptResults;
@@ -12,23 +13,34 @@ import ca.uhn.fhir.rest.annotation.Operation;
 import ca.uhn.fhir.rest.annotation.OperationParam;
 import ca.uhn.fhir.rest.annotation.RequiredParam;
 import ca.uhn.fhir.rest.annotation.Search;
+import ca.uhn.fhir.rest.annotation.Transaction;
+import ca.uhn.fhir.rest.annotation.TransactionParam;
 import ca.uhn.fhir.rest.api.SummaryEnum;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.client.interceptor.LoggingInterceptor;
 import ca.uhn.fhir.rest.param.UriParam;
 import ca.uhn.fhir.rest.server.IResourceProvider;
+import ca.uhn.fhir.rest.server.exceptions.NotImplementedOperationException;
 import ca.uhn.fhir.test.utilities.server.RestfulServerExtension;
+import ca.uhn.fhir.util.ParametersUtil;
+import ca.uhn.fhir.validation.FhirValidator;
 import jakarta.servlet.http.HttpServletRequest;
 import org.hl7.fhir.common.hapi.validation.support.RemoteTerminologyServiceValidationSupport;
+import org.hl7.fhir.common.hapi.validation.support.RemoteTerminologyServiceValidationSupport.ValidateCodeRequest;
+import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
+import org.hl7.fhir.common.hapi.validation.validator.FhirInstanceValidator;
 import org.hl7.fhir.instance.model.api.IBaseCoding;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.BooleanType;
+import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.CodeSystem;
 import org.hl7.fhir.r4.model.CodeType;
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.ConceptMap;
 import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.OperationOutcome;
 import org.hl7.fhir.r4.model.Parameters;
 import org.hl7.fhir.r4.model.StringType;
 import org.hl7.fhir.r4.model.UriType;
@@ -40,6 +52,7 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -81,6 +94,7 @@ public class RemoteTerminologyServiceValidationSupportR4Test extends BaseValidat
 	private final MyValueSetProvider myValueSetProvider = new MyValueSetProvider();
 	private final MyCodeSystemProvider myCodeSystemProvider = new MyCodeSystemProvider();
 	private final MyConceptMapProvider myConceptMapProvider = new MyConceptMapProvider();
+	private final MyBatchProvider myBatchProvider = new MyBatchProvider();
 	private final RemoteTerminologyServiceValidationSupport mySvc = new RemoteTerminologyServiceValidationSupport(ourCtx);
 
 	@BeforeEach
@@ -88,6 +102,7 @@ public class RemoteTerminologyServiceValidationSupportR4Test extends BaseValidat
 		myRestfulServerExtension.getRestfulServer().registerProvider(myValueSetProvider);
 		myRestfulServerExtension.getRestfulServer().registerProvider(myCodeSystemProvider);
 		myRestfulServerExtension.getRestfulServer().registerProvider(myConceptMapProvider);
+		myRestfulServerExtension.getRestfulServer().registerProvider(myBatchProvider);
 
 		String baseUrl = "http://localhost:" + myRestfulServerExtension.getPort();
 		mySvc.setBaseUrl(baseUrl);
@@ -243,6 +258,173 @@ public class RemoteTerminologyServiceValidationSupportR4Test extends BaseValidat
 		assertEquals("http://loinc.org", myCodeSystemProvider.myLastUrlParam.getValue());
 	}
 
+	@Test
+	void validateCodesInBatch_distinctCodesAreSentInBatches() {
+		mySvc.setBatchSize(2).setMaxConcurrentBatches(2);
+
+		List<ValidateCodeRequest> requests = List.of(
+			new ValidateCodeRequest(CODE_SYSTEM, CODE, null, null),
+			new ValidateCodeRequest(CODE_SYSTEM, "UNKNOWN-1", null, null),
+			new ValidateCodeRequest(CODE_SYSTEM, CODE, null, null),
+			new ValidateCodeRequest(CODE_SYSTEM, "UNKNOWN-2", null, null),
+			new ValidateCodeRequest(CODE_SYSTEM, CODE, null, VALUE_SET_URL));
+
+		List<IValidationSupport.CodeValidationResult> results = mySvc.validateCodesInBatch(requests);
+
+		// 4 distinct codes, 2 per batch
+		assertEquals(2, myBatchProvider.myBatchCount.get());
+		assertEquals(4, myBatchProvider.myEntryCount.get());
+		assertThat(results).hasSize(5);
+		assertTrue(results.get(0).isOk());
+		assertEquals("Code", results.get(0).getDisplay());
+		assertFalse(results.get(1).isOk());
+		assertEquals(IValidationSupport.IssueSeverity.ERROR, results.get(1).getSeverity());
+		assertThat(results.get(2)).isSameAs(results.get(0));
+		assertFalse(results.get(3).isOk());
+		assertTrue(results.get(4).isOk());
+	}
+
+	@Test
+	void validateCode_insideBatchScope_usesPrefetchedResults() {
+		Observation observation = new Observation();
+		observation.getCode().addCoding(new Coding(CODE_SYSTEM, CODE, null));
+		observation.addCategory().addCoding(new Coding(CODE_SYSTEM, "UNKNOWN-1", null));
+		observation.addCategory().addCoding(new Coding(CODE_SYSTEM, CODE, null));
+
+		List<ValidateCodeRequest> requests = mySvc.createValidateCodeRequests(observation);
+		String categoryValueSetUrl = requests.stream()
+			.map(ValidateCodeRequest::valueSetUrl)
+			.filter(t -> t != null && t.endsWith("/observation-category"))
+			.findFirst()
+			.orElseThrow();
+
+		try (RemoteTerminologyServiceValidationSupport.BatchScope scope = mySvc.startBatch(requests)) {
+			IValidationSupport.CodeValidationResult result =
+				mySvc.validateCode(null, new ConceptValidationOptions(), CODE_SYSTEM, CODE, null, null);
+			assertTrue(result.isOk());
+
+			result = mySvc.validateCode(null, new ConceptValidationOptions(), CODE_SYSTEM, "UNKNOWN-1", null, null);
+			assertFalse(result.isOk());
+
+			// ValueSet binding checks are prefetched too
+			result = mySvc.validateCode(null, new ConceptValidationOptions(), CODE_SYSTEM, CODE, null, categoryValueSetUrl);
+			assertTrue(result.isOk());
+		}
+
+		// 2 CodeSystem checks and 3 ValueSet binding checks went in a single batch, and nothing was
+		// validated individually
+		assertEquals(1, myBatchProvider.myBatchCount.get());
+		assertEquals(5, myBatchProvider.myEntryCount.get());
+		assertEquals(0, myValueSetProvider.myValidateCodeCount.get());
+	}
+
+	@Test
+	void validateCodesInBatch_batchRejected_validatesIndividually() {
+		myBatchProvider.myRejectBatches = true;
+		myValueSetProvider.myValidateCodeResult = new Parameters().addParameter("result", true);
+
+		List<ValidateCodeRequest> requests = List.of(
+			new ValidateCodeRequest(CODE_SYSTEM, CODE, null, VALUE_SET_URL),
+			new ValidateCodeRequest(CODE_SYSTEM, "CODE-2", null, VALUE_SET_URL));
+
+		List<IValidationSupport.CodeValidationResult> results = mySvc.validateCodesInBatch(requests);
+
+		assertEquals(1, myBatchProvider.myBatchCount.get());
+		assertEquals(2, myValueSetProvider.myValidateCodeCount.get());
+		assertThat(results).hasSize(2);
+		assertTrue(results.get(0).isOk());
+		assertEquals(CODE, results.get(0).getCode());
+		assertTrue(results.get(1).isOk());
+		assertEquals("CODE-2", results.get(1).getCode());
+	}
+
+	@Test
+	void validateCodesInBatch_failedEntry_isValidatedIndividually() {
+		myValueSetProvider.myValidateCodeResult = new Parameters().addParameter("result", true);
+
+		List<ValidateCodeRequest> requests = List.of(
+			new ValidateCodeRequest(CODE_SYSTEM, CODE, null, VALUE_SET_URL),
+			new ValidateCodeRequest(CODE_SYSTEM, "FAIL-1", null, VALUE_SET_URL),
+			new ValidateCodeRequest(CODE_SYSTEM, "UNKNOWN-1", null, VALUE_SET_URL));
+
+		List<IValidationSupport.CodeValidationResult> results = mySvc.validateCodesInBatch(requests);
+
+		// Only the entry that failed within the batch was sent again on its own
+		assertEquals(1, myBatchProvider.myBatchCount.get());
+		assertEquals(3, myBatchProvider.myEntryCount.get());
+		assertEquals(1, myValueSetProvider.myValidateCodeCount.get());
+		assertTrue(results.get(0).isOk());
+		assertTrue(results.get(1).isOk());
+		assertEquals("FAIL-1", results.get(1).getCode());
+		assertFalse(results.get(2).isOk());
+	}
+
+	@Test
+	void validate_withBatchValidationEnabled_prefetchesCodes() {
+		mySvc.setBatchValidationEnabled(true);
+		myCodeSystemProvider.myNextReturnCodeSystems = new ArrayList<>();
+		myValueSetProvider.myNextReturnValueSets = new ArrayList<>();
+		myValueSetProvider.myValidateCodeResult = new Parameters().addParameter("result", true);
+		FhirValidator validator = ourCtx.newValidator();
+		validator.registerValidatorModule(new FhirInstanceValidator(
+			new ValidationSupportChain(new DefaultProfileValidationSupport(ourCtx), mySvc)));
+
+		Observation observation = new Observation();
+		observation.setStatus(Observation.ObservationStatus.FINAL);
+		observation.getCode().addCoding(new Coding(CODE_SYSTEM, CODE, null));
+		observation.addCategory().addCoding(new Coding(CODE_SYSTEM, "UNKNOWN-1", null));
+
+		validator.validateWithResult(observation);
+
+		assertEquals(1, myBatchProvider.myBatchCount.get());
+		assertThat(myBatchProvider.myEntryCount.get()).isGreaterThanOrEqualTo(2);
+	}
+
+	/**
+	 * Stands in for a terminology server that supports batch Bundles of $validate-code calls
+	 */
+	@SuppressWarnings("unused")
+	private static class MyBatchProvider {
+		private final AtomicInteger myBatchCount = new AtomicInteger();
+		private final AtomicInteger myEntryCount = new AtomicInteger();
+		private boolean myRejectBatches;
+
+		@Transaction
+		public Bundle batch(@TransactionParam Bundle theBundle) {
+			myBatchCount.incrementAndGet();
+			assertEquals(Bundle.BundleType.BATCH, theBundle.getType());
+			if (myRejectBatches) {
+				throw new NotImplementedOperationException("Batch is not supported");
+			}
+
+			Bundle retVal = new Bundle();
+			retVal.setType(Bundle.BundleType.BATCHRESPONSE);
+			for (Bundle.BundleEntryComponent next : theBundle.getEntry()) {
+				myEntryCount.incrementAndGet();
+				assertThat(next.getRequest().getUrl()).endsWith("/$validate-code");
+
+				String code = ParametersUtil.getNamedParameterValueAsString(ourCtx, (Parameters) next.getResource(), "code")
+					.orElseThrow();
+				if (code.startsWith("FAIL")) {
+					OperationOutcome outcome = new OperationOutcome();
+					outcome.addIssue().setSeverity(OperationOutcome.IssueSeverity.ERROR).setDiagnostics("Failed");
+					retVal.addEntry().setResource(outcome).getResponse().setStatus("500 Internal Server Error");
+					continue;
+				}
+				Parameters output = new Parameters();
+				if (CODE.equals(code)) {
+					output.addParameter("result", true);
+					output.addParameter("display", "Code");
+				} else {
+					output.addParameter("result", false);
+					output.addParameter("message", "Unknown code: " + code);
+				}
+				retVal.addEntry().setResource(output).getResponse().setStatus("200 OK");
+			}
+			return retVal;
+		}
+	}
+
 	@SuppressWarnings("unused")
 	private static class MyCodeSystemProvider implements IResourceProvider {
 		private SummaryEnum myLastSummaryParam;
@@ -270,6 +452,7 @@ public class RemoteTerminologyServiceValidationSupportR4Test extends BaseValidat
 		private SummaryEnum myLastSummaryParam;
 		private Parameters myValidateCodeResult;
 		private BooleanType myLastValidateCodeInferSystem;
+		private final AtomicInteger myValidateCodeCount = new AtomicInteger();
 
 		// Created by claude-sonnet-4-6
 		@Operation(name = "validate-code", idempotent = true, returnParameters = {
@@ -283,6 +466,7 @@ public class RemoteTerminologyServiceValidationSupportR4Test extends BaseValidat
 			@OperationParam(name = "inferSystem", min = 0, max = 1) BooleanType theInferSystem,
 			@OperationParam(name = "valueSet") ValueSet theValueSet) {
 			myLastValidateCodeInferSystem = theInferSystem;
+			myValidateCodeCount.incrementAndGet();
 			return myValidateCodeResult;
 		}
 